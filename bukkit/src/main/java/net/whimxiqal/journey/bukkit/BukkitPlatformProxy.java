@@ -24,10 +24,14 @@
 package net.whimxiqal.journey.bukkit;
 
 import com.destroystokyo.paper.ParticleBuilder;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -38,17 +42,25 @@ import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.InternalJourneyPlayer;
+import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.JourneyAgent;
 import net.whimxiqal.journey.JourneyPlayer;
+import net.whimxiqal.journey.bukkit.chunk.BukkitRegionJourneyChunk;
 import net.whimxiqal.journey.bukkit.chunk.BukkitSessionJourneyBlock;
 import net.whimxiqal.journey.bukkit.chunk.BukkitSessionJourneyChunk;
 import net.whimxiqal.journey.bukkit.gui.JourneyGui;
 import net.whimxiqal.journey.bukkit.util.BukkitUtil;
 import net.whimxiqal.journey.chunk.ChunkId;
+import net.whimxiqal.journey.chunk.region.RegionChunk;
+import net.whimxiqal.journey.chunk.region.RegionFile;
+import net.whimxiqal.journey.chunk.store.NavigabilityStore;
+import net.whimxiqal.journey.chunk.store.StoredJourneyChunk;
+import net.whimxiqal.journey.config.Settings;
 import net.whimxiqal.journey.math.Vector;
 import net.whimxiqal.journey.navigation.PlatformProxy;
 import net.whimxiqal.journey.proxy.JourneyBlock;
 import net.whimxiqal.journey.proxy.JourneyChunk;
+import net.whimxiqal.journey.proxy.NavigabilityMap;
 import net.whimxiqal.journey.proxy.UnavailableJourneyChunk;
 import net.whimxiqal.journey.search.SearchSession;
 import net.whimxiqal.journey.search.flag.FlagSet;
@@ -57,15 +69,33 @@ import net.whimxiqal.journey.Color;
 import org.bstats.bukkit.Metrics;
 import org.bstats.charts.CustomChart;
 import org.bukkit.Bukkit;
+import org.bukkit.HeightMap;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.Particle;
 import org.bukkit.World;
 import org.bukkit.block.data.BlockData;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
 
 public class BukkitPlatformProxy implements PlatformProxy {
 
+  /**
+   * How long after a chunk is unloaded its saved data may still be from before it was loaded,
+   * since the server saves unloaded chunks in the background.
+   */
+  private static final long UNLOAD_SAVE_MILLIS = 30 * 1000;
+  private static final int MAX_UNREADABLE_VERSIONS = 4096;
+
+  // chunk id -> when a chunk was unloaded, oldest first, while it may still be being saved. Main thread only.
+  private final Map<Long, Long> unloadTimes = new LinkedHashMap<>();
+  // chunk id -> the version at which a chunk's saved data couldn't be used, so it had to be loaded
+  private final Map<Long, Long> unreadableVersions = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+      return size() > MAX_UNREADABLE_VERSIONS;
+    }
+  });
   private final BlockData animationBlockData = Material.WHITE_STAINED_GLASS.createBlockData();
 
   private final Metrics metrics;
@@ -79,6 +109,147 @@ public class BukkitPlatformProxy implements PlatformProxy {
   @Override
   public CompletableFuture<JourneyChunk> toChunk(ChunkId chunkId, boolean generate) {
     World world = BukkitUtil.getWorld(chunkId.domain());
+    if (!canReadSavedChunk(world, chunkId)) {
+      return loadChunk(world, chunkId, generate);
+    }
+    // The chunk isn't loaded, so read it from the world's files instead of making the server load it
+    CompletableFuture<JourneyChunk> future = new CompletableFuture<>();
+    Journey.get().proxy().schedulingManager().schedule(() -> {
+      JourneyChunk saved;
+      try {
+        saved = readSavedChunk(world, chunkId);
+      } catch (RuntimeException e) {
+        Journey.logger().debug("Could not read chunk " + chunkId + " from its saved data, loading it instead: " + e.getMessage());
+        saved = null;
+      }
+      JourneyChunk finalSaved = saved;
+      Journey.get().proxy().schedulingManager().schedule(() -> {
+        // If it was loaded in the meantime, it may have changed since it was saved
+        if (finalSaved == null || !canReadSavedChunk(world, chunkId)) {
+          loadChunk(world, chunkId, generate).whenComplete((chunk, exception) -> {
+            if (exception == null) {
+              future.complete(chunk);
+            } else {
+              future.completeExceptionally(exception);
+            }
+          });
+        } else {
+          future.complete(finalSaved);
+        }
+      }, false);
+    }, true);
+    return future;
+  }
+
+  /**
+   * Remember that a chunk was unloaded, so its saved data isn't read until the server is done saving it.
+   * Runs on main server thread.
+   *
+   * @param world  the world
+   * @param chunkX the chunk x coordinate
+   * @param chunkZ the chunk z coordinate
+   */
+  public void chunkUnloaded(World world, int chunkX, int chunkZ) {
+    long now = System.currentTimeMillis();
+    Iterator<Long> times = unloadTimes.values().iterator();
+    while (times.hasNext() && now - times.next() > UNLOAD_SAVE_MILLIS) {
+      times.remove();
+    }
+    long chunk = ChunkId.pack(BukkitUtil.getDomain(world), chunkX, chunkZ);
+    unloadTimes.remove(chunk);  // so it moves to the end
+    unloadTimes.put(chunk, now);
+  }
+
+  /**
+   * Whether a chunk's saved data is up to date, so it may be read instead of loading the chunk.
+   * Runs on main server thread.
+   *
+   * @param world   the world
+   * @param chunkId the chunk id
+   * @return true if the saved data may be read
+   */
+  private boolean canReadSavedChunk(@Nullable World world, ChunkId chunkId) {
+    if (!Settings.READ_REGION_FILES.getValue() || world == null || world.isChunkLoaded(chunkId.x(), chunkId.z())) {
+      return false;
+    }
+    Long unloadTime = unloadTimes.get(chunkId.packed());
+    return unloadTime == null || System.currentTimeMillis() - unloadTime > UNLOAD_SAVE_MILLIS;
+  }
+
+  @Override
+  public CompletableFuture<Boolean> storeSavedChunk(ChunkId chunkId) {
+    World world = BukkitUtil.getWorld(chunkId.domain());
+    if (!canReadSavedChunk(world, chunkId)) {
+      return CompletableFuture.completedFuture(false);
+    }
+    CompletableFuture<Boolean> future = new CompletableFuture<>();
+    Journey.get().proxy().schedulingManager().schedule(() -> {
+      try {
+        // the chunk is stored as it is read, so it isn't needed after
+        future.complete(readSavedChunk(world, chunkId) != null);
+      } catch (RuntimeException e) {
+        future.completeExceptionally(e);
+      }
+    }, true);
+    return future;
+  }
+
+  /**
+   * Read a chunk as it was last saved, from the navigability store if it hasn't been saved since it was stored,
+   * or otherwise from its region file, in which case it is classified and stored for next time.
+   * Runs asynchronously.
+   *
+   * @param world   the world
+   * @param chunkId the chunk id
+   * @return the chunk, or null if it could not be read
+   */
+  @Nullable
+  private JourneyChunk readSavedChunk(World world, ChunkId chunkId) {
+    Path regionDirectory = BukkitUtil.getRegionDirectory(world);
+    NavigabilityStore store = Journey.get().navigabilityStore();
+    long version = 0;
+    RegionChunk saved;
+    try {
+      version = RegionFile.version(regionDirectory, chunkId.x(), chunkId.z());
+      if (version == 0) {
+        return null;  // never saved
+      }
+      if (Long.valueOf(version).equals(unreadableVersions.get(chunkId.packed()))) {
+        return null;  // already tried
+      }
+      try {
+        NavigabilityMap stored = store.read(world.getUID(), chunkId.x(), chunkId.z(), version);
+        if (stored != null) {
+          return new StoredJourneyChunk(chunkId, stored);
+        }
+      } catch (IOException | IllegalArgumentException e) {
+        Journey.logger().debug("Could not read chunk " + chunkId + " from the navigability store: " + e.getMessage());
+      }
+      // (if the server saves the chunk again while we read it, it's stored with the older version
+      //  and just read again next time)
+      saved = RegionFile.readChunk(regionDirectory, chunkId.x(), chunkId.z());
+    } catch (IOException e) {
+      Journey.logger().debug("Could not read chunk " + chunkId + " from its region file, loading it instead: " + e.getMessage());
+      if (version != 0) {
+        unreadableVersions.put(chunkId.packed(), version);
+      }
+      return null;
+    }
+    if (saved == null) {
+      unreadableVersions.put(chunkId.packed(), version);  // like if it was saved by an older version of Minecraft
+      return null;
+    }
+    JourneyChunk chunk = new BukkitRegionJourneyChunk(chunkId, saved);
+    chunk.classify();
+    try {
+      store.write(world.getUID(), chunkId.x(), chunkId.z(), version, chunk.navigabilityMap());
+    } catch (IOException e) {
+      Journey.logger().debug("Could not write chunk " + chunkId + " to the navigability store: " + e.getMessage());
+    }
+    return chunk;
+  }
+
+  private CompletableFuture<JourneyChunk> loadChunk(World world, ChunkId chunkId, boolean generate) {
     return world.getChunkAtAsync(chunkId.x(), chunkId.z(), generate).thenApply(chunk -> {
       if (chunk == null) {
         return new UnavailableJourneyChunk(chunkId);
@@ -93,6 +264,12 @@ public class BukkitPlatformProxy implements PlatformProxy {
     return new BukkitSessionJourneyBlock(cell, BukkitUtil.getBlock(cell), BukkitUtil.getBlock(cell.atOffset(0, -1, 0)), new FlagSet());
   }
 
+  @Override
+  public int surfaceY(int domain, int x, int z) {
+    // the server keeps this heightmap up to date, so there's no need to scan the column
+    return BukkitUtil.getWorld(domain).getHighestBlockYAt(x, z, HeightMap.WORLD_SURFACE);
+  }
+
   @Override
   public void spawnParticle(UUID playerUuid, String particleName, Color color, int domain, double x, double y, double z) {
     Player player = Bukkit.getPlayer(playerUuid);
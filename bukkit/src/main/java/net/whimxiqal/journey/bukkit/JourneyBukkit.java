@@ -27,6 +27,8 @@ import java.util.Arrays;
 import java.util.stream.Collectors;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.ProxyImpl;
+import net.whimxiqal.journey.bukkit.listener.BlockChangeListener;
+import net.whimxiqal.journey.bukkit.listener.ChunkUnloadListener;
 import net.whimxiqal.journey.bukkit.listener.PluginDisableListener;
 import net.whimxiqal.journey.command.JourneyConnectorProvider;
 import net.whimxiqal.journey.bukkit.listener.DeathListener;
@@ -81,7 +83,8 @@ public final class JourneyBukkit extends JavaPlugin {
     proxy.configPath(this.getDataFolder().toPath().resolve("config.yml"));
     proxy.messagesConfigPath(this.getDataFolder().toPath().resolve("messages.yml"));
     proxy.schedulingManager(new BukkitSchedulingManager());
-    proxy.platform(new BukkitPlatformProxy());
+    BukkitPlatformProxy platform = new BukkitPlatformProxy();
+    proxy.platform(platform);
     proxy.version(getDescription().getVersion());
 
     // Initialize common Journey (after proxy is set up)
@@ -109,6 +112,8 @@ public final class JourneyBukkit extends JavaPlugin {
     Bukkit.getPluginManager().registerEvents(new PlayerListener(), this);
     Bukkit.getPluginManager().registerEvents(new DeathListener(), this);
     Bukkit.getPluginManager().registerEvents(new PluginDisableListener(), this);
+    Bukkit.getPluginManager().registerEvents(new BlockChangeListener(), this);
+    Bukkit.getPluginManager().registerEvents(new ChunkUnloadListener(platform), this);
 
     if (Settings.EXTRA_CHECK_LATEST_VERSION_ON_STARTUP.getValue()) {
       Request.evaluateVersionAge("paper", getDescription().getVersion());
@@ -0,0 +1,71 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.bukkit.chunk;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.chunk.ChunkId;
+import net.whimxiqal.journey.chunk.region.RegionChunk;
+import net.whimxiqal.journey.chunk.region.RegionJourneyChunk;
+import net.whimxiqal.journey.proxy.JourneyBlock;
+import net.whimxiqal.journey.search.flag.FlagSet;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+
+/**
+ * A chunk read from the world's region files, for chunks that aren't loaded.
+ */
+public class BukkitRegionJourneyChunk extends RegionJourneyChunk {
+
+  // every chunk uses the same few hundred states, so only parse each one once
+  private static final Map<String, BlockData> BLOCK_DATA = new ConcurrentHashMap<>();
+  private static final BlockData UNKNOWN = Material.BARRIER.createBlockData();
+
+  public BukkitRegionJourneyChunk(ChunkId id, RegionChunk blocks) {
+    super(id, blocks);
+  }
+
+  private static BlockData blockData(String state) {
+    BlockData data = BLOCK_DATA.get(state);
+    if (data != null) {
+      return data;
+    }
+    synchronized (BLOCK_DATA) {  // don't trust the server to parse block data on many threads at once
+      return BLOCK_DATA.computeIfAbsent(state, k -> {
+        try {
+          return Bukkit.createBlockData(k);
+        } catch (IllegalArgumentException e) {
+          return UNKNOWN;  // saved by a different version or a mod, so treat it like we can't go through it
+        }
+      });
+    }
+  }
+
+  @Override
+  protected JourneyBlock toBlock(Cell cell, String state, String stateBelow, FlagSet flagSet) {
+    return new BukkitSessionJourneyBlock(cell, blockData(state), blockData(stateBelow), flagSet);
+  }
+}
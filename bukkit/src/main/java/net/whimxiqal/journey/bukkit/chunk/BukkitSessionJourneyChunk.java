@@ -33,7 +33,7 @@ import org.bukkit.ChunkSnapshot;
 
 public class BukkitSessionJourneyChunk extends JourneyChunk {
 
-  private final ChunkSnapshot chunk;
+  private ChunkSnapshot chunk;  // released once classified
 
   public BukkitSessionJourneyChunk(ChunkSnapshot chunk, UUID worldUuid) {
     super(new ChunkId(Journey.get().domainManager().domainIndex(worldUuid), chunk.getX(), chunk.getZ()));
@@ -44,4 +44,9 @@ public class BukkitSessionJourneyChunk extends JourneyChunk {
   public JourneyBlock realBlock(int x, int y, int z, FlagSet flagSet) {
     return new BukkitSessionJourneyBlock(toCell(x, y, z), chunk.getBlockData(x, y, z), chunk.getBlockData(x, y - 1, z), flagSet);
   }
+
+  @Override
+  protected void releaseBlockData() {
+    chunk = null;
+  }
 }
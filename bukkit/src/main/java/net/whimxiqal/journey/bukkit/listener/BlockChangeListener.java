@@ -0,0 +1,188 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.bukkit.listener;
+
+import java.util.List;
+import net.whimxiqal.journey.Journey;
+import net.whimxiqal.journey.bukkit.util.BukkitUtil;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.data.Openable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockGrowEvent;
+import org.bukkit.event.block.BlockPhysicsEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.BlockRedstoneEvent;
+import org.bukkit.event.block.LeavesDecayEvent;
+import org.bukkit.event.block.SpongeAbsorbEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.world.StructureGrowEvent;
+
+/**
+ * Removes chunks from Journey's chunk cache, connectivity labels, and failed paths when their blocks change,
+ * so searches don't use outdated copies.
+ * Changes that no event reports, like edits by other plugins, are only picked up once the copies get too old.
+ */
+public class BlockChangeListener implements Listener {
+
+  private static void invalidate(Block block) {
+    int domain = BukkitUtil.getDomain(block.getWorld());
+    Journey.get().centralChunkCache().invalidate(domain, block.getX() >> 4, block.getZ() >> 4);
+    Journey.get().connectivityIndex().invalidate(domain, block.getX() >> 4, block.getZ() >> 4);
+    Journey.get().failedTrialCache().invalidate(domain, block.getX() >> 4, block.getZ() >> 4);
+  }
+
+  private static void invalidate(List<Block> blocks) {
+    // blocks are usually clustered, so skip runs of blocks in the same chunk
+    Block last = null;
+    for (Block block : blocks) {
+      if (last == null
+          || last.getX() >> 4 != block.getX() >> 4
+          || last.getZ() >> 4 != block.getZ() >> 4
+          || last.getWorld() != block.getWorld()) {
+        invalidate(block);
+        last = block;
+      }
+    }
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockBreak(BlockBreakEvent e) {
+    invalidate(e.getBlock());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockPlace(BlockPlaceEvent e) {
+    invalidate(e.getBlock());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockBurn(BlockBurnEvent e) {
+    invalidate(e.getBlock());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockFade(BlockFadeEvent e) {
+    invalidate(e.getBlock());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockForm(BlockFormEvent e) {
+    invalidate(e.getBlock());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onLiquidFlow(BlockFromToEvent e) {
+    invalidate(e.getToBlock());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onLeavesDecay(LeavesDecayEvent e) {
+    invalidate(e.getBlock());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onPistonExtend(BlockPistonExtendEvent e) {
+    invalidate(e.getBlock());
+    invalidate(e.getBlocks().stream().map(block -> block.getRelative(e.getDirection())).toList());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onPistonRetract(BlockPistonRetractEvent e) {
+    invalidate(e.getBlock());
+    invalidate(e.getBlocks());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockExplode(BlockExplodeEvent e) {
+    invalidate(e.getBlock());
+    invalidate(e.blockList());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onEntityExplode(EntityExplodeEvent e) {
+    invalidate(e.blockList());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onEntityChangeBlock(EntityChangeBlockEvent e) {
+    invalidate(e.getBlock());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onStructureGrow(StructureGrowEvent e) {
+    invalidate(e.getBlocks().stream().map(BlockState::getBlock).toList());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockGrow(BlockGrowEvent e) {
+    invalidate(e.getBlock());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onSpongeAbsorb(SpongeAbsorbEvent e) {
+    invalidate(e.getBlock());
+    invalidate(e.getBlocks().stream().map(BlockState::getBlock).toList());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockPhysics(BlockPhysicsEvent e) {
+    invalidate(e.getBlock());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onDoorInteract(PlayerInteractEvent e) {
+    // doors, trapdoors, and gates open and close without changing their type
+    Block block = e.getClickedBlock();
+    if (e.getAction() == Action.RIGHT_CLICK_BLOCK
+        && e.useInteractedBlock() != Event.Result.DENY
+        && block != null
+        && block.getBlockData() instanceof Openable) {
+      invalidate(block);
+    }
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onDoorRedstone(BlockRedstoneEvent e) {
+    if ((e.getOldCurrent() > 0) != (e.getNewCurrent() > 0)
+        && e.getBlock().getBlockData() instanceof Openable) {
+      invalidate(e.getBlock());
+    }
+  }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.bukkit.listener;
+
+import net.whimxiqal.journey.bukkit.BukkitPlatformProxy;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkUnloadEvent;
+
+/**
+ * Tells the platform when chunks are unloaded, since their saved data is outdated until the server saves them.
+ */
+public class ChunkUnloadListener implements Listener {
+
+  private final BukkitPlatformProxy platform;
+
+  public ChunkUnloadListener(BukkitPlatformProxy platform) {
+    this.platform = platform;
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onChunkUnload(ChunkUnloadEvent e) {
+    if (e.isSaveChunk()) {
+      platform.chunkUnloaded(e.getWorld(), e.getChunk().getX(), e.getChunk().getZ());
+    }
+  }
+
+}
@@ -31,7 +31,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.bukkit.util.BukkitUtil;
 import net.whimxiqal.journey.chunk.BlockProvider;
-import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.OptionMode;
 import org.bukkit.FluidCollisionMode;
 import org.bukkit.Location;
 import org.bukkit.World;
@@ -39,7 +39,7 @@ import org.bukkit.util.RayTraceResult;
 import org.bukkit.util.Vector;
 import org.jetbrains.annotations.NotNull;
 
-public abstract class RayTraceMode extends Mode {
+public abstract class RayTraceMode extends OptionMode {
 
   private final static long CALCULATION_COOLDOWN_MS = 1000;  // once per second;
   private final static double MAX_DISTANCE = 1024;
@@ -23,6 +23,7 @@
 
 package net.whimxiqal.journey.bukkit.util;
 
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Objects;
 import java.util.Set;
@@ -183,6 +184,21 @@ public final class BukkitUtil {
     return getWorld(Journey.get().domainManager().domainId(domain));
   }
 
+  /**
+   * Get the directory in which a world's region files are saved.
+   *
+   * @param world the world
+   * @return the directory, which may not exist yet
+   */
+  public static Path getRegionDirectory(World world) {
+    Path folder = world.getWorldFolder().toPath();
+    return switch (world.getEnvironment()) {
+      case NETHER -> folder.resolve("DIM-1").resolve("region");
+      case THE_END -> folder.resolve("DIM1").resolve("region");
+      default -> folder.resolve("region");
+    };
+  }
+
   /**
    * Get the Bukkit block data at the given location.
    * Must be called on the main server thread.
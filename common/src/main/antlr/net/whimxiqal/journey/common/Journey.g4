@@ -22,26 +22,31 @@ serverWaypoint: WAYPOINT name=identifier (serverUnsetWaypoint | serverRenameWayp
 serverUnsetWaypoint: UNSET;
 serverRenameWaypoint: RENAME newname=identifier;
 
-admin: ADMIN (debug | cache | reload=RELOAD | listNetherPortals);
+admin: ADMIN (debug | cache | reload=RELOAD | listNetherPortals | bake);
 debug: DEBUG;
 cache: CACHE (cachePortals | cachePaths);
 cachePortals: PORTALS (clear=CLEAR);
 cachePaths: PATHS (clear=CLEAR | build=BUILD);
 listNetherPortals: LIST_NETHER_PORTALS page=ID?;
+bake: BAKE world=identifier radius=ID;
 
 cancel: CANCEL;
 
 journeytoTarget: name=identifier flagSet?;
 
-flagSet: (timeoutFlag | animateFlag | flyFlag | doorFlag | digFlag | navigatorFlag)+;
+flagSet: (timeoutFlag | animateFlag | flyFlag | doorFlag | digFlag | bidirectionalFlag | hierarchicalFlag | anytimeFlag | navigatorFlag)+;
 timeoutFlag: FLAG_TIMEOUT timeout=ID;
 animateFlag: FLAG_ANIMATE (delay=ID)?;
 flyFlag: FLAG_FLY (TRUE | FALSE)?;
 doorFlag: FLAG_DOOR (TRUE | FALSE)?;
 digFlag: FLAG_DIG (TRUE | FALSE)?;
+bidirectionalFlag: FLAG_BIDIRECTIONAL (TRUE | FALSE)?;
+hierarchicalFlag: FLAG_HIERARCHICAL (TRUE | FALSE)?;
+anytimeFlag: FLAG_ANYTIME (TRUE | FALSE)?;
 navigatorFlag: FLAG_NAVIGATOR navigator=identifier (OPEN_BRACE options=identifier CLOSED_BRACE)?;
 
 ADMIN: 'admin';
+BAKE: 'bake';
 BUILD: 'build';
 CACHE: 'cache';
 CANCEL: 'cancel';
@@ -69,9 +74,12 @@ UNSET: 'unset';
 WAYPOINT: 'waypoint';
 
 FLAG_ANIMATE: '-animate';
+FLAG_ANYTIME: '-anytime';
+FLAG_BIDIRECTIONAL: '-bidirectional';
 FLAG_DIG: '-dig';
 FLAG_DOOR: '-door';
 FLAG_FLY: '-fly';
+FLAG_HIERARCHICAL: '-hierarchical';
 FLAG_NAVIGATOR: '-navigator';
 FLAG_TIMEOUT: '-timeout';
 
@@ -82,6 +90,7 @@ CLOSED_BRACE: '}';
 identifier: ident | SINGLE_QUOTE ident+ SINGLE_QUOTE | DOUBLE_QUOTE ident+ DOUBLE_QUOTE;
 ident: ID
         | ADMIN
+        | BAKE
         | BUILD
         | CACHE
         | CANCEL
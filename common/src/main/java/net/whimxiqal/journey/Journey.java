@@ -25,6 +25,7 @@ package net.whimxiqal.journey;
 
 import java.io.IOException;
 import net.whimxiqal.journey.chunk.CentralChunkCache;
+import net.whimxiqal.journey.chunk.store.NavigabilityStore;
 import net.whimxiqal.journey.config.ConfigManager;
 import net.whimxiqal.journey.config.Settings;
 import net.whimxiqal.journey.data.DataVersion;
@@ -40,6 +41,10 @@ import net.whimxiqal.journey.manager.PlayerManager;
 import net.whimxiqal.journey.manager.SearchManager;
 import net.whimxiqal.journey.manager.TunnelManager;
 import net.whimxiqal.journey.scope.ScopeManager;
+import net.whimxiqal.journey.search.ClusterEdgeCache;
+import net.whimxiqal.journey.search.ConnectivityIndex;
+import net.whimxiqal.journey.search.FailedTrialCache;
+import net.whimxiqal.journey.search.TunnelGraph;
 import net.whimxiqal.journey.stats.StatsManager;
 import net.whimxiqal.journey.util.BStatsUtil;
 import net.whimxiqal.journey.util.CommonLogger;
@@ -59,10 +64,15 @@ public final class Journey {
   private final StatsManager statsManager = new StatsManager();
   private final DomainManager domainManager = new DomainManager();
   private final CentralChunkCache centralChunkCache = new CentralChunkCache();
+  private final ClusterEdgeCache clusterEdgeCache = new ClusterEdgeCache();
+  private final ConnectivityIndex connectivityIndex = new ConnectivityIndex();
+  private final FailedTrialCache failedTrialCache = new FailedTrialCache();
+  private final TunnelGraph tunnelGraph = new TunnelGraph();
   private final AnimationManager animationManager = new AnimationManager();
   private final CachedDataProvider cachedDataProvider = new CachedDataProvider();
   private final MessageManager messageManager = new MessageManager();
   private DistributedWorkManager workManager;
+  private NavigabilityStore navigabilityStore;
   private Proxy proxy;
 
   public static CommonLogger logger() {
@@ -121,6 +131,8 @@ public final class Journey {
     scopeManager.initialize();
     statsManager.initialize();
     BStatsUtil.register(proxy.platform().bStatsChartConsumer());
+    navigabilityStore = new NavigabilityStore(proxy.dataFolder().resolve("navigability"));
+    navigabilityStore.initialize();
     centralChunkCache.initialize();
     animationManager.initialize();
     cachedDataProvider.initialize();
@@ -143,6 +155,13 @@ public final class Journey {
     searchManager.shutdown();
     navigationManager.shutdown();
     locationManager.shutdown();
+    clusterEdgeCache.clear();
+    connectivityIndex.clear();
+    failedTrialCache.clear();
+    tunnelGraph.clear();
+    if (navigabilityStore != null) {
+      navigabilityStore.shutdown();
+    }
 
     statsManager.shutdown();
     animationManager.shutdown();
@@ -201,6 +220,26 @@ public final class Journey {
     return centralChunkCache;
   }
 
+  public NavigabilityStore navigabilityStore() {
+    return navigabilityStore;
+  }
+
+  public ClusterEdgeCache clusterEdgeCache() {
+    return clusterEdgeCache;
+  }
+
+  public ConnectivityIndex connectivityIndex() {
+    return connectivityIndex;
+  }
+
+  public FailedTrialCache failedTrialCache() {
+    return failedTrialCache;
+  }
+
+  public TunnelGraph tunnelGraph() {
+    return tunnelGraph;
+  }
+
   public AnimationManager animationManager() {
     return animationManager;
   }
@@ -26,6 +26,8 @@ package net.whimxiqal.journey.chunk;
 import java.util.concurrent.ExecutionException;
 import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.proxy.JourneyBlock;
+import net.whimxiqal.journey.proxy.JourneyChunk;
+import net.whimxiqal.journey.proxy.Navigability;
 
 /**
  * A provider that retrieves {@link JourneyBlock}s from the server engine given a
@@ -38,9 +40,27 @@ public interface BlockProvider {
    */
   int AT_SURFACE_HEIGHT = 64;
 
+  /**
+   * Whether a cell is at the surface of the world, which is when there are only
+   * {@link #AT_SURFACE_HEIGHT} blocks of air above it.
+   *
+   * @param blockProvider the block provider
+   * @param cell          the cell
+   * @return true if it is at the surface
+   * @throws ExecutionException   if an error occurred during the async operation to get the block
+   * @throws InterruptedException if the async operation to get the block was interrupted
+   */
   static boolean isAtSurface(BlockProvider blockProvider, Cell cell) throws ExecutionException, InterruptedException {
-    for (int y = cell.blockY() + 1; y <= Math.min(256, cell.blockY() + AT_SURFACE_HEIGHT); y++) {
-      if (!blockProvider.toBlock(new Cell(cell.blockX(), y, cell.blockZ(), cell.domain())).isAir()) {
+    int surfaceY = blockProvider.surfaceY(cell.domain(), cell.blockX(), cell.blockZ());
+    if (surfaceY <= cell.blockY()) {
+      return true;  // nothing above at all
+    }
+    if (surfaceY <= cell.blockY() + AT_SURFACE_HEIGHT) {
+      return false;  // the highest block is close above
+    }
+    // the highest block is far above, so it depends on what's in between
+    for (int y = cell.blockY() + 1; y <= cell.blockY() + AT_SURFACE_HEIGHT; y++) {
+      if (!Navigability.isAir(blockProvider.navigability(cell.domain(), cell.blockX(), y, cell.blockZ()))) {
         return false;
       }
     }
@@ -58,4 +78,84 @@ public interface BlockProvider {
    */
   JourneyBlock toBlock(Cell cell) throws ExecutionException, InterruptedException;
 
+  /**
+   * Get the {@link Navigability} bits of the block at a cell, already resolved for any
+   * flags used by this provider. Providers backed by classified chunks should override this
+   * to avoid creating a {@link JourneyBlock}.
+   *
+   * @param cell the cell
+   * @return the navigability bits
+   * @throws ExecutionException   if an error occurred during the async operation to get the block
+   * @throws InterruptedException if the async operation to get the block was interrupted
+   */
+  default int navigability(Cell cell) throws ExecutionException, InterruptedException {
+    return Navigability.of(toBlock(cell));
+  }
+
+  /**
+   * Get the {@link Navigability} bits of the block at some coordinates.
+   * Equivalent to {@link #navigability(Cell)}, but lets callers on hot paths avoid creating a {@link Cell}.
+   *
+   * @param domain the domain
+   * @param x      the x coordinate
+   * @param y      the y coordinate
+   * @param z      the z coordinate
+   * @return the navigability bits
+   * @throws ExecutionException   if an error occurred during the async operation to get the block
+   * @throws InterruptedException if the async operation to get the block was interrupted
+   */
+  default int navigability(int domain, int x, int y, int z) throws ExecutionException, InterruptedException {
+    return navigability(new Cell(x, y, z, domain));
+  }
+
+  /**
+   * Get the {@link JourneyBlock#hardness() hardness} of the block at some coordinates.
+   *
+   * @param domain the domain
+   * @param x      the x coordinate
+   * @param y      the y coordinate
+   * @param z      the z coordinate
+   * @return the hardness
+   * @throws ExecutionException   if an error occurred during the async operation to get the block
+   * @throws InterruptedException if the async operation to get the block was interrupted
+   */
+  default float hardness(int domain, int x, int y, int z) throws ExecutionException, InterruptedException {
+    return toBlock(new Cell(x, y, z, domain)).hardness();
+  }
+
+  /**
+   * Get the {@link JourneyBlock#height() height} of the block at some coordinates.
+   *
+   * @param domain the domain
+   * @param x      the x coordinate
+   * @param y      the y coordinate
+   * @param z      the z coordinate
+   * @return the height
+   * @throws ExecutionException   if an error occurred during the async operation to get the block
+   * @throws InterruptedException if the async operation to get the block was interrupted
+   */
+  default double height(int domain, int x, int y, int z) throws ExecutionException, InterruptedException {
+    return toBlock(new Cell(x, y, z, domain)).height();
+  }
+
+  /**
+   * Get the y coordinate of the highest block in a column that isn't air.
+   * This scans the column from the top by default, so providers with a heightmap should override it.
+   *
+   * @param domain the domain
+   * @param x      the x coordinate
+   * @param z      the z coordinate
+   * @return the y coordinate, or {@code JourneyChunk.MIN_Y - 1} if the whole column is air
+   * @throws ExecutionException   if an error occurred during the async operation to get the block
+   * @throws InterruptedException if the async operation to get the block was interrupted
+   */
+  default int surfaceY(int domain, int x, int z) throws ExecutionException, InterruptedException {
+    for (int y = JourneyChunk.MAX_Y - 1; y >= JourneyChunk.MIN_Y; y--) {
+      if (!Navigability.isAir(navigability(domain, x, y, z))) {
+        return y;
+      }
+    }
+    return JourneyChunk.MIN_Y - 1;
+  }
+
 }
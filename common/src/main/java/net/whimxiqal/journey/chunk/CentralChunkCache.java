@@ -21,58 +21,109 @@
  * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 
+
 package net.whimxiqal.journey.chunk;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.config.Settings;
 import net.whimxiqal.journey.proxy.JourneyChunk;
 import net.whimxiqal.journey.proxy.UnavailableJourneyChunk;
-import net.whimxiqal.journey.search.PathTrial;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Wrapper of a {@link ChunkCache} that may be accessed through thread-safe methods.
  * Requests are made to the server thread and completed when the server-thread processes the request
  * and gives a read-only copy of the world chunk.
+ *
+ * <p>This is the only chunk cache shared by all searches. Chunks that are already cached may be
+ * read without locking with {@link #cachedChunk}.
+ *
+ * <p>No method takes a lock. In-flight requests are deduplicated in a concurrent map,
+ * so only the first thread to miss a chunk submits a request for it, and completed chunks are handed
+ * to the server thread through a lock-free queue. Only the server thread writes to the cache.
+ *
+ * <p>Requests are not sent to the server as soon as they are made. They wait in a queue for their
+ * {@link ChunkPriority} until the server thread submits them, spending no more than
+ * {@link Settings#CHUNK_TICK_BUDGET} nanoseconds per tick on submitting requests and caching the results.
+ * Whatever doesn't fit in one tick spills over to the next, most urgent first.
  */
 public class CentralChunkCache {
 
   private static final int TICKS_PER_DEBUG_LOG = 20;  // once per second
-  private final Map<ChunkId, ChunkRequest> requestMap = new HashMap<>();  // this tracks requests keyed by chunk id
+  private final Map<Long, ChunkRequest> requestMap = new ConcurrentHashMap<>();  // this tracks requests keyed by packed chunk id
   /**
    * Tracks completed requests in order of appearance.
-   * This is only used on main thread, so no locking is needed for this
+   * Chunks are classified asynchronously before they are added, from any thread.
    */
-  private final Queue<JourneyChunk> completedRequestQueue = new LinkedList<>();
-  private final Object lock = new Object();
-  private boolean enabled = true;
+  private final Queue<JourneyChunk> completedRequestQueue = new ConcurrentLinkedQueue<>();
+  /**
+   * Requests waiting to be submitted to the server, by priority.
+   * A request whose priority was raised appears in more than one queue, but it is only submitted once.
+   */
+  private final Map<ChunkPriority, Queue<ChunkRequest>> pendingRequestQueues = new EnumMap<>(ChunkPriority.class);
+  private volatile boolean enabled = true;
   private boolean chunkGeneration = false;
-  private ChunkCache chunkCache = null;
+  private long tickBudgetNanos = Long.MAX_VALUE;
+  private volatile ChunkCache chunkCache = null;
   private UUID requestTaskId = null;
   private UUID loggingTaskId = null;
 
-  // Counters
+  // Counters, only accessed on the server thread
+  private ChunkCache.Statistics loggedStatistics = new ChunkCache.Statistics(0, 0, 0, 0);
   private int addedCounter = 0;
-  private int removedCounter = 0;
+  private int submittedCounter = 0;
+  private int overBudgetTicksCounter = 0;
+
+  public CentralChunkCache() {
+    for (ChunkPriority priority : ChunkPriority.values()) {
+      pendingRequestQueues.put(priority, new ConcurrentLinkedQueue<>());
+    }
+  }
 
   /**
    * Start the repeated task that manages all cache requests.
    * Call on the main thread.
    */
   public void initialize() {
-    chunkCache = new ChunkCache(PathTrial.MAX_CACHED_CHUNKS_PER_SEARCH * Settings.MAX_SEARCHES.getValue());
+    start(Settings.CHUNK_CACHE_MAX_MEGABYTES.getValue() * 1024L * 1024L,
+        Settings.ALLOW_CHUNK_GENERATION.getValue(),
+        Settings.CHUNK_TICK_BUDGET.getValue());
     requestTaskId = Journey.get().proxy().schedulingManager().scheduleRepeat(this::executeRequests,
         false, 1);  // Once per tick
     loggingTaskId = Journey.get().proxy().schedulingManager().scheduleRepeat(this::broadcastLogs,
         false, TICKS_PER_DEBUG_LOG);
-    enabled = true;
-    chunkGeneration = Settings.ALLOW_CHUNK_GENERATION.getValue();
+  }
+
+  /**
+   * Set up the cache without scheduling any tasks, with no limit on how long each tick may take.
+   *
+   * @param maxCachedBytes  the most memory that cached chunks may take up
+   * @param chunkGeneration whether chunks may be generated to complete requests
+   */
+  void start(long maxCachedBytes, boolean chunkGeneration) {
+    start(maxCachedBytes, chunkGeneration, Long.MAX_VALUE);
+  }
+
+  /**
+   * Set up the cache without scheduling any tasks.
+   *
+   * @param maxCachedBytes  the most memory that cached chunks may take up
+   * @param chunkGeneration whether chunks may be generated to complete requests
+   * @param tickBudgetNanos the nanoseconds to spend on requests in every call to {@link #executeRequests}
+   */
+  void start(long maxCachedBytes, boolean chunkGeneration, long tickBudgetNanos) {
+    this.chunkCache = new ChunkCache(maxCachedBytes);
+    this.loggedStatistics = chunkCache.statistics();
+    this.chunkGeneration = chunkGeneration;
+    this.tickBudgetNanos = tickBudgetNanos;
+    this.enabled = true;
   }
 
   /**
@@ -88,112 +139,326 @@ public class CentralChunkCache {
       Journey.get().proxy().schedulingManager().cancelTask(loggingTaskId);
       broadcastLogs();  // broadcast one last time
     }
-    synchronized (lock) {
-      enabled = false;
-      for (Map.Entry<ChunkId, ChunkRequest> requestEntry : requestMap.entrySet()) {
-        requestEntry.getValue().future().complete(new UnavailableJourneyChunk(requestEntry.getKey()));
-      }
-      requestMap.clear();
+    enabled = false;
+    // requests made concurrently with this see that we are disabled and complete themselves
+    for (ChunkRequest request : requestMap.values()) {
+      cancel(request);
     }
     completedRequestQueue.clear();
+    pendingRequestQueues.values().forEach(Queue::clear);
+  }
+
+  private void cancel(ChunkRequest request) {
+    requestMap.remove(request.chunkId().packed(), request);
+    request.future().complete(new UnavailableJourneyChunk(request.chunkId()));
   }
 
   /**
-   * Runs on main server thread
+   * Runs on main server thread.
+   * Caches retrieved chunks, then submits waiting requests in order of priority, until the tick's budget is spent.
+   * At least one of each is done every tick, so requests always make progress.
    */
-  private void executeRequests() {
-    synchronized (lock) {
-      // Prune any outdated chunks
-      removedCounter += chunkCache.prune();
+  void executeRequests() {
+    long start = System.nanoTime();
+    // Prune any chunks that may have changed without us noticing
+    chunkCache.prune();
 
-      // Execute requests
-      int completed = 0;
-      while (!completedRequestQueue.isEmpty()) {
-        JourneyChunk chunk = completedRequestQueue.remove();
-        ChunkRequest req = requestMap.remove(chunk.id());
-
-        // This is all on the server thread, so we can convert to a real chunk safely here
-        removedCounter += chunkCache.save(chunk);
+    // Cache retrieved chunks first, since searches may already be waiting on them
+    int completed = 0;
+    JourneyChunk chunk;
+    while ((completed == 0 || withinBudget(start)) && (chunk = completedRequestQueue.poll()) != null) {
+      // Cache it before removing the request, so any thread that misses the request will find the chunk,
+      //  unless its blocks changed after it was retrieved, in which case the next request retrieves it again
+      long key = chunk.id().packed();
+      ChunkRequest req = requestMap.get(key);
+      if (req == null || !req.isStale()) {
+        chunkCache.save(chunk);
+      }
+      if (req != null) {
+        requestMap.remove(key, req);
         req.future().complete(chunk);
-        completed++;
       }
-      addedCounter += completed;
+      completed++;
     }
+    addedCounter += completed;
+
+    // Submit waiting requests. Retrieving a chunk that is already loaded happens right away on this thread,
+    //  so this is where most of the tick's time goes.
+    int submitted = 0;
+    for (ChunkPriority priority : ChunkPriority.values()) {
+      Queue<ChunkRequest> queue = pendingRequestQueues.get(priority);
+      ChunkRequest request;
+      while ((submitted == 0 || withinBudget(start)) && (request = queue.peek()) != null) {
+        queue.poll();
+        if (request.future().isDone() || !request.markSubmitted()) {
+          continue;  // canceled, or raised to a higher priority and submitted from that queue
+        }
+        submit(request.chunkId());
+        submitted++;
+      }
+    }
+    submittedCounter += submitted;
+    if (!withinBudget(start)) {
+      overBudgetTicksCounter++;
+    }
+  }
+
+  private boolean withinBudget(long start) {
+    return System.nanoTime() - start < tickBudgetNanos;
   }
 
   /**
    * Runs on main server thread
    */
   private void broadcastLogs() {
-    synchronized (lock) {
-      if (addedCounter != 0 || removedCounter != 0) {
-        Journey.logger().debug(String.format("[Chunk Cache] {%d}: added: %d, removed: %d",
-            chunkCache.size(), addedCounter, removedCounter));
-        addedCounter = 0;
-        removedCounter = 0;
-      }
+    ChunkCache.Statistics statistics = chunkCache.statistics();
+    ChunkCache.Statistics period = statistics.since(loggedStatistics);
+    if (period.hits() != 0 || period.misses() != 0 || addedCounter != 0 || submittedCounter != 0) {
+      Journey.logger().debug(String.format("[Chunk Cache] {%d, %.1f MB}: hits: %d, misses: %d (%.1f %% hit rate), "
+              + "added: %d, evicted: %d, invalidated: %d, submitted: %d, open requests: %d, ticks over budget: %d",
+          chunkCache.size(), chunkCache.bytes() / (1024.0 * 1024.0), period.hits(), period.misses(), period.hitRate() * 100,
+          addedCounter, period.evictions(), period.invalidations(), submittedCounter, requestMap.size(), overBudgetTicksCounter));
+      loggedStatistics = statistics;
+      addedCounter = 0;
+      submittedCounter = 0;
+      overBudgetTicksCounter = 0;
+    }
+  }
+
+  /**
+   * Get the statistics of the cache since it was started. Safe to call from any thread.
+   *
+   * @return the statistics
+   */
+  public ChunkCache.Statistics statistics() {
+    ChunkCache cache = chunkCache;
+    return cache == null ? new ChunkCache.Statistics(0, 0, 0, 0) : cache.statistics();
+  }
+
+  /**
+   * Remove a chunk from the cache because its blocks have changed.
+   * A request for the chunk that was already submitted is still completed, but its chunk isn't cached,
+   * since it may have been retrieved before the change.
+   * Runs on main server thread.
+   *
+   * @param domain the domain id
+   * @param chunkX the chunk x coordinate
+   * @param chunkZ the chunk z coordinate
+   */
+  public void invalidate(int domain, int chunkX, int chunkZ) {
+    ChunkCache cache = chunkCache;
+    if (cache == null) {
+      return;
+    }
+    cache.invalidate(domain, chunkX, chunkZ);
+    ChunkRequest request = requestMap.get(ChunkId.pack(domain, chunkX, chunkZ));
+    if (request != null && request.isSubmitted()) {
+      request.markStale();
+    }
+  }
+
+  /**
+   * Get a chunk if it is already cached, without recording a hit or a miss,
+   * for lookups that aren't part of reading blocks. Safe to call from any thread.
+   *
+   * @param domain the domain id
+   * @param chunkX the chunk x coordinate
+   * @param chunkZ the chunk z coordinate
+   * @return the chunk, or null if it isn't cached
+   */
+  @Nullable
+  public JourneyChunk peek(int domain, int chunkX, int chunkZ) {
+    ChunkCache cache = chunkCache;
+    if (cache == null) {
+      return null;
+    }
+    return cache.peek(ChunkId.pack(domain, chunkX, chunkZ));
+  }
+
+  /**
+   * Get a chunk if it is already cached, without locking. Safe to call from any thread.
+   * The lookup counts as a hit or a miss in the cache's {@link #statistics() statistics}.
+   *
+   * @param domain the domain id
+   * @param chunkX the chunk x coordinate
+   * @param chunkZ the chunk z coordinate
+   * @return the chunk, or null if it must be requested with {@link #getChunk}
+   */
+  @Nullable
+  public JourneyChunk cachedChunk(int domain, int chunkX, int chunkZ) {
+    ChunkCache cache = chunkCache;
+    if (cache == null) {
+      return null;
     }
+    return cache.getChunk(domain, chunkX, chunkZ);
+  }
+
+  /**
+   * The total number of chunks that have ever been removed from the cache.
+   * See {@link ChunkCache#evictions()}.
+   *
+   * @return the number of removed chunks
+   */
+  public int evictions() {
+    ChunkCache cache = chunkCache;
+    return cache == null ? 0 : cache.evictions();
   }
 
   /**
-   * Get a {@link Future} for a chunk given its id.
+   * Get a {@link CompletableFuture} for a chunk given its id.
    * The future may complete automatically if it is already available in the cache.
    * Otherwise, a request will be submitted and upon the next server tick, a chunk will be provided.
    *
    * @param chunkId the id of the chunk
    * @return the chunk's future
    */
-  public Future<JourneyChunk> getChunk(ChunkId chunkId) {
-    synchronized (lock) {
-      if (!enabled) {
-        // we are shutdown, so just return a blank chunk
-        return CompletableFuture.completedFuture(new UnavailableJourneyChunk(chunkId));
+  public CompletableFuture<JourneyChunk> getChunk(ChunkId chunkId) {
+    return getChunk(chunkId, true, ChunkPriority.DEMAND);
+  }
+
+  /**
+   * Get a {@link CompletableFuture} for a chunk given its id.
+   * The future may complete automatically if it is already available in the cache.
+   * Otherwise, a request will be submitted and upon the next server tick, a chunk will be provided.
+   *
+   * @param chunkId       the id of the chunk
+   * @param withNeighbors whether to also request the chunks around this one, if the caller isn't
+   *                      requesting the chunks it will need next itself with a {@link ChunkPrefetcher}
+   * @param priority      how urgently the chunk is needed. Neighbors are requested with its
+   *                      {@link ChunkPriority#speculative() speculative} priority
+   * @return the chunk's future
+   */
+  public CompletableFuture<JourneyChunk> getChunk(ChunkId chunkId, boolean withNeighbors, ChunkPriority priority) {
+    if (!enabled) {
+      // we are shutdown, so just return a blank chunk
+      return CompletableFuture.completedFuture(new UnavailableJourneyChunk(chunkId));
+    }
+    if (!withNeighbors) {
+      return request(chunkId.domain(), chunkId.x(), chunkId.z(), priority);
+    }
+    CompletableFuture<JourneyChunk> request = null;
+    // Request chunks for chunks surrounding the requested one, since they may be wanted later
+    int chunkX = chunkId.x();
+    int chunkZ = chunkId.z();
+    for (int x = chunkX - 2; x <= chunkX + 2; x++) {
+      for (int z = chunkZ - 2; z <= chunkZ + 2; z++) {
+        boolean isRequestedChunk = x == chunkX && z == chunkZ;
+        CompletableFuture<JourneyChunk> future = request(chunkId.domain(), x, z,
+            isRequestedChunk ? priority : priority.speculative());
+        if (isRequestedChunk) {
+          request = future;
+        }
       }
-      Future<JourneyChunk> request = null;
-      // Request chunks for chunks surrounding the requested one, since they may be wanted later
-      int chunkX = chunkId.x();
-      int chunkZ = chunkId.z();
-      for (int x = chunkX - 2; x <= chunkX + 2; x++) {
-        for (int z = chunkZ - 2; z <= chunkZ + 2; z++) {
-          boolean isRequestedChunk = x == chunkX && z == chunkZ;
-          ChunkId innerChunkId = new ChunkId(chunkId.domain(), x, z);
-
-          // Is this chunk already stored in cache?
-          JourneyChunk maybeChunk = chunkCache.getChunk(innerChunkId);
-          if (maybeChunk != null) {
-            if (isRequestedChunk) {
-              request = CompletableFuture.completedFuture(maybeChunk);
-            }
-            continue;
-          }
+    }
 
-          // Chunk is not stored in cache. Is it already queued?
-          ChunkRequest maybeRequest = requestMap.get(innerChunkId);
-          if (maybeRequest != null) {
-            if (isRequestedChunk) {
-              request = maybeRequest.future();
-            }
-            continue;
-          }
+    if (request == null) {
+      throw new RuntimeException();  // programmer error -- we must have gotten a request at this point
+    }
+    return request;
+  }
 
-          // Not stored and not queued. Queue it.
-          maybeRequest = new ChunkRequest(innerChunkId);
+  /**
+   * Request a chunk ahead of need, without requesting the chunks around it.
+   *
+   * @param chunkId  the id of the chunk
+   * @param priority how urgently the chunk will be needed
+   * @return true if a new request was made, or false if the chunk was already cached or requested
+   */
+  public boolean prefetch(ChunkId chunkId, ChunkPriority priority) {
+    if (!enabled || peek(chunkId.domain(), chunkId.x(), chunkId.z()) != null) {
+      return false;
+    }
+    ChunkRequest existing = requestMap.get(chunkId.packed());
+    if (existing != null) {
+      raise(existing, priority);
+      return false;
+    }
+    request(chunkId.domain(), chunkId.x(), chunkId.z(), priority);
+    return true;
+  }
+
+  private CompletableFuture<JourneyChunk> request(int domain, int chunkX, int chunkZ, ChunkPriority priority) {
+    // Is this chunk already stored in cache?
+    JourneyChunk maybeChunk = peek(domain, chunkX, chunkZ);
+    if (maybeChunk != null) {
+      return CompletableFuture.completedFuture(maybeChunk);
+    }
+
+    // Chunk is not stored in cache. Is it already queued?
+    long key = ChunkId.pack(domain, chunkX, chunkZ);
+    ChunkRequest maybeRequest = requestMap.get(key);
+    if (maybeRequest != null) {
+      return raise(maybeRequest, priority);
+    }
 
-          // (callback to add to request queue is always called on the main server thread)
-          Journey.get().proxy().platform().toChunk(innerChunkId, chunkGeneration).thenAccept(completedRequestQueue::add);
+    // Not stored and not queued. Queue it, unless another thread just did.
+    ChunkRequest newRequest = new ChunkRequest(new ChunkId(domain, chunkX, chunkZ), priority);
+    maybeRequest = requestMap.putIfAbsent(key, newRequest);
+    if (maybeRequest != null) {
+      return raise(maybeRequest, priority);
+    }
+
+    // The server thread may have cached the chunk and finished the last request for it since we checked
+    maybeChunk = peek(domain, chunkX, chunkZ);
+    if (maybeChunk != null) {
+      requestMap.remove(key, newRequest);
+      newRequest.future().complete(maybeChunk);
+      return newRequest.future();
+    }
+    if (!enabled) {
+      // we shut down since we checked, so the request may have been missed
+      cancel(newRequest);
+      return newRequest.future();
+    }
 
-          requestMap.put(innerChunkId, maybeRequest);
-          if (isRequestedChunk) {
-            // This is the actually requested one
-            request = maybeRequest.future();
+    pendingRequestQueues.get(priority).add(newRequest);
+    return newRequest.future();
+  }
+
+  private CompletableFuture<JourneyChunk> raise(ChunkRequest request, ChunkPriority priority) {
+    if (request.raise(priority)) {
+      // it stays in its old queue too, but whichever queue gets to it first submits it
+      pendingRequestQueues.get(priority).add(request);
+    }
+    return request.future();
+  }
+
+  /**
+   * Ask the server for a chunk, then hand it over with {@link #complete} once it is ready.
+   * Runs on the main server thread.
+   *
+   * @param chunkId the chunk id
+   */
+  void submit(ChunkId chunkId) {
+    // (callback is always called on the main server thread, so classify the chunk asynchronously
+    //  to keep that expensive work off of it)
+    Journey.get().proxy().platform().toChunk(chunkId, chunkGeneration)
+        .whenComplete((retrieved, exception) -> {
+          JourneyChunk chunk = retrieved;
+          if (exception != null) {
+            // complete it anyway, or every search waiting on it would wait forever
+            Journey.logger().debug("Could not retrieve chunk " + chunkId + ": " + exception.getMessage());
+            chunk = new UnavailableJourneyChunk(chunkId);
           }
-        }
-      }
+          JourneyChunk finalChunk = chunk;
+          Journey.get().proxy().schedulingManager().schedule(() -> {
+            try {
+              finalChunk.classify();
+            } finally {
+              complete(finalChunk);
+            }
+          }, true);
+        });
+  }
 
-      if (request == null) {
-        throw new RuntimeException();  // programmer error -- we must have gotten a request at this point
-      }
-      return request;
+  /**
+   * Queue a retrieved chunk to be cached on the next server tick. Safe to call from any thread.
+   *
+   * @param chunk the chunk
+   */
+  void complete(JourneyChunk chunk) {
+    if (enabled) {  // otherwise, the request was already completed during shutdown
+      completedRequestQueue.add(chunk);
     }
   }
 }
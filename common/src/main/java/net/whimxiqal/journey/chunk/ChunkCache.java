@@ -23,95 +23,307 @@
 
 package net.whimxiqal.journey.chunk;
 
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.ArrayDeque;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import net.whimxiqal.journey.proxy.JourneyChunk;
 import org.jetbrains.annotations.Nullable;
 
 /**
  * A cache of {@link JourneyChunk}s, which are thread-safe objects to access block data.
+ *
+ * <p>The cache holds chunks up to a budget of {@link JourneyChunk#memoryBytes() bytes}.
+ * When it is full, chunks are evicted with the CLOCK algorithm: every chunk that was read since the
+ * clock hand last passed it gets a second chance, so chunks that many searches keep reading, like the ones
+ * around spawn, stay cached while chunks that were only needed once are evicted first.
+ * Chunks are {@link #invalidate invalidated} when their blocks change, but not every change can be noticed,
+ * like edits by other plugins, so chunks are also {@link #prune pruned} once they reach a long maximum age.
+ *
+ * <p>Chunks may be read from any thread without locking, but only one thread may
+ * {@link #save}, {@link #invalidate}, or {@link #prune} at a time.
  */
 public final class ChunkCache {
 
-  private static final long DEFAULT_CHUNK_SNAPSHOT_LIFETIME_MS = 10000;  // 10 seconds
+  private static final long DEFAULT_MAX_AGE_MS = 5 * 60 * 1000;  // 5 minutes
+
+  private final long maxBytes;
+  private final long maxAgeMs;
 
-  private final long chunkLifetimeMs;
-  private final int maxCachedChunks;
+  private final Map<Long, Entry> chunkMap = new ConcurrentHashMap<>();  // This tracks chunks keyed by packed chunk id
+  private final Queue<Entry> clock = new ArrayDeque<>();  // The clock hand is at the head, only accessed by the writer
+  private final Queue<Entry> ages = new ArrayDeque<>();  // Oldest first, only accessed by the writer
+  private long bytes = 0;  // only accessed by the writer
+  private volatile int evictions = 0;
 
-  private final Map<ChunkId, JourneyChunk> chunkMap = new HashMap<>();                     // This tracks chunks keyed by chunk id
-  private final Queue<DatedChunk> chunkQueue = new PriorityQueue<>(Comparator.comparing(DatedChunk::timestamp));  // This tracks chunks in order of appearance
+  // Statistics
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private volatile long invalidations = 0;
 
-  public ChunkCache(int maxCachedChunks) {
-    this(maxCachedChunks, DEFAULT_CHUNK_SNAPSHOT_LIFETIME_MS);
+  /**
+   * General constructor.
+   *
+   * @param maxBytes the most memory, in bytes, that the cached chunks may take up
+   */
+  public ChunkCache(long maxBytes) {
+    this(maxBytes, DEFAULT_MAX_AGE_MS);
   }
 
-  public ChunkCache(int maxCachedChunks, long chunkLifetimeMs) {
-    this.maxCachedChunks = maxCachedChunks;
-    this.chunkLifetimeMs = chunkLifetimeMs;
+  /**
+   * General constructor.
+   *
+   * @param maxBytes the most memory, in bytes, that the cached chunks may take up
+   * @param maxAgeMs the milliseconds after which a chunk is pruned, even if it is still in use
+   */
+  public ChunkCache(long maxBytes, long maxAgeMs) {
+    this.maxBytes = maxBytes;
+    this.maxAgeMs = maxAgeMs;
   }
 
   /**
-   * Remove any chunks that are marked for deletion.
+   * Save a chunk to this cache, replacing any other version of it.
+   *
+   * @param chunk the chunk
+   * @return the number of chunks evicted to make room for this chunk
+   */
+  public int save(JourneyChunk chunk) {
+    Entry entry = new Entry(chunk);
+    // Make room for the new chunk
+    int count = 0;
+    while (bytes + entry.bytes > maxBytes && !chunkMap.isEmpty()) {
+      evict();
+      count++;
+    }
+
+    Entry replaced = chunkMap.put(chunk.id().packed(), entry);
+    if (replaced != null) {
+      remove(replaced);
+    }
+    bytes += entry.bytes;
+    clock.add(entry);
+    ages.add(entry);
+    if (count > 0 || replaced != null) {
+      evictions += count + (replaced != null ? 1 : 0);
+      compact();
+    }
+    return count;
+  }
+
+  /**
+   * Remove any chunks that are older than the maximum age.
    *
    * @return the number of chunks removed
    */
   public int prune() {
-    long timeStampThreshold = System.currentTimeMillis() - chunkLifetimeMs;
+    long timestampThreshold = System.currentTimeMillis() - maxAgeMs;
     int pruned = 0;
-    while (!chunkQueue.isEmpty()) {
-      DatedChunk item = chunkQueue.peek();
-      if (item.timestamp() > timeStampThreshold) {
+    while (!ages.isEmpty()) {
+      Entry entry = ages.peek();
+      if (!entry.removed && entry.timestamp > timestampThreshold) {
         // We've already reached one that's young enough -- everything else will be younger, so stop pruning
         break;
       }
-      chunkQueue.remove();
-      chunkMap.remove(item.chunk().id());
-      pruned++;
+      ages.remove();
+      if (!entry.removed) {
+        chunkMap.remove(entry.chunk.id().packed(), entry);
+        remove(entry);  // the clock skips it later
+        pruned++;
+      }
+    }
+    if (pruned > 0) {
+      evictions += pruned;
     }
     return pruned;
   }
 
   /**
-   * Save a chunk to this cache.
+   * Evict the next chunk that the clock hand finds that wasn't read since the last time the hand passed it.
+   */
+  private void evict() {
+    // Readers may keep setting the reference bits, so give up on second chances after going around twice
+    int chances = 2 * clock.size();
+    while (true) {
+      Entry entry = clock.remove();
+      if (entry.removed) {
+        continue;  // already invalidated or replaced
+      }
+      if (entry.referenced && chances-- > 0) {
+        entry.referenced = false;
+        clock.add(entry);
+        continue;
+      }
+      chunkMap.remove(entry.chunk.id().packed(), entry);
+      remove(entry);
+      return;
+    }
+  }
+
+  private void remove(Entry entry) {
+    entry.removed = true;
+    bytes -= entry.bytes;
+  }
+
+  /**
+   * Remove a chunk because its blocks have changed.
    *
-   * @param chunk the chunk
-   * @return the number of chunks removed to make room for this chunk
+   * @param domain the domain id
+   * @param chunkX the chunk x coordinate
+   * @param chunkZ the chunk z coordinate
+   * @return true if the chunk was cached
    */
-  public int save(JourneyChunk chunk) {
-    // Make room for the new chunk
-    int count = 0;
-    while (chunkMap.size() >= maxCachedChunks) {
-      DatedChunk removed = chunkQueue.remove();
-      chunkMap.remove(removed.chunk().id());
-      count++;
+  public boolean invalidate(int domain, int chunkX, int chunkZ) {
+    Entry entry = chunkMap.remove(ChunkId.pack(domain, chunkX, chunkZ));
+    if (entry == null) {
+      return false;
     }
-    // size of chunkMap and queue must be less than maxCachedChunks
+    remove(entry);  // the clock skips it later
+    evictions++;
+    invalidations++;
+    compact();
+    return true;
+  }
 
-    ChunkId id = chunk.id();
-    chunkMap.put(id, chunk);
-    chunkQueue.add(DatedChunk.create(chunk));
-    return count;
+  private void compact() {
+    if (clock.size() > 2 * chunkMap.size() + 64) {
+      // many invalidations without any evictions, so the clock is mostly removed entries
+      clock.removeIf(e -> e.removed);
+    }
+    if (ages.size() > 2 * chunkMap.size() + 64) {
+      // many removals of chunks that were not the oldest
+      ages.removeIf(e -> e.removed);
+    }
   }
 
   public int size() {
     return chunkMap.size();
-    // (chunkQueue must also have this size)
+  }
+
+  /**
+   * The estimated memory taken up by all cached chunks.
+   * Only accurate on the thread that writes to this cache.
+   *
+   * @return the bytes
+   */
+  public long bytes() {
+    return bytes;
   }
 
   @Nullable
   public JourneyChunk getChunk(ChunkId chunkId) {
-    return chunkMap.get(chunkId);
+    return getChunk(chunkId.domain(), chunkId.x(), chunkId.z());
+  }
+
+  /**
+   * Get a chunk without creating a {@link ChunkId}, recording a hit or a miss. Safe to call from any thread.
+   *
+   * @param domain the domain id
+   * @param chunkX the chunk x coordinate
+   * @param chunkZ the chunk z coordinate
+   * @return the chunk, or null if it is not cached
+   */
+  @Nullable
+  public JourneyChunk getChunk(int domain, int chunkX, int chunkZ) {
+    Entry entry = chunkMap.get(ChunkId.pack(domain, chunkX, chunkZ));
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    if (!entry.referenced) {
+      entry.referenced = true;  // only write if necessary, so readers don't fight over the cache line
+    }
+    return entry.chunk;
+  }
+
+  /**
+   * Get a chunk without recording a hit or a miss, or giving it a second chance before eviction.
+   * Safe to call from any thread.
+   *
+   * @param key the {@link ChunkId#packed() packed} chunk id
+   * @return the chunk, or null if it is not cached
+   */
+  @Nullable
+  public JourneyChunk peek(long key) {
+    Entry entry = chunkMap.get(key);
+    return entry == null ? null : entry.chunk;
+  }
+
+  /**
+   * The total number of chunks that have ever been removed from this cache, for any reason.
+   * If this has not changed, then any chunk that was previously retrieved is still cached.
+   *
+   * @return the number of removed chunks
+   */
+  public int evictions() {
+    return evictions;
+  }
+
+  /**
+   * Get the statistics of this cache since it was created.
+   *
+   * @return the statistics
+   */
+  public Statistics statistics() {
+    long invalidations = this.invalidations;
+    return new Statistics(hits.sum(), misses.sum(), evictions - invalidations, invalidations);
   }
 
   @Override
   public String toString() {
     return "ChunkCache{" +
         "chunkMap size=" + chunkMap.size() +
-        ", chunkList size=" + chunkQueue.size() +
+        ", bytes=" + bytes + '/' + maxBytes +
+        ", " + statistics() +
         '}';
   }
 
+  /**
+   * Counts of what has happened to a cache.
+   *
+   * @param hits          the lookups that found a chunk
+   * @param misses        the lookups that didn't find a chunk
+   * @param evictions     the chunks removed to make room for others, replaced by newer versions, or pruned
+   * @param invalidations the chunks removed because their blocks changed
+   */
+  public record Statistics(long hits, long misses, long evictions, long invalidations) {
+
+    /**
+     * The fraction of lookups that found a chunk.
+     *
+     * @return the hit rate, or 0 if there were no lookups
+     */
+    public double hitRate() {
+      long lookups = hits + misses;
+      return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * The statistics accumulated since some earlier statistics of the same cache.
+     *
+     * @param earlier the earlier statistics
+     * @return the difference
+     */
+    public Statistics since(Statistics earlier) {
+      return new Statistics(hits - earlier.hits,
+          misses - earlier.misses,
+          evictions - earlier.evictions,
+          invalidations - earlier.invalidations);
+    }
+  }
+
+  private static final class Entry {
+    private final JourneyChunk chunk;
+    private final long bytes;
+    private final long timestamp = System.currentTimeMillis();
+    private volatile boolean referenced = false;
+    private boolean removed = false;  // only accessed by the writer
+
+    private Entry(JourneyChunk chunk) {
+      this.chunk = chunk;
+      this.bytes = chunk.memoryBytes();
+    }
+  }
+
 }
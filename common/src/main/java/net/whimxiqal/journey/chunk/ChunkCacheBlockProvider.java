@@ -23,46 +23,187 @@
 
 package net.whimxiqal.journey.chunk;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.proxy.JourneyBlock;
 import net.whimxiqal.journey.proxy.JourneyChunk;
+import net.whimxiqal.journey.proxy.Navigability;
 import net.whimxiqal.journey.search.flag.FlagSet;
+import org.jetbrains.annotations.Nullable;
 
 import static net.whimxiqal.journey.proxy.JourneyChunk.CHUNK_SIDE_LENGTH;
 
 /**
- * Chunk cache that must be accessed single-threaded.
+ * Block provider backed by the {@link CentralChunkCache}, which is shared by all searches.
+ * Must be accessed single-threaded, but many providers may be used at once.
+ *
+ * <p>The last chunk used is remembered, so that the many lookups in a row within the same chunk
+ * don't need to go to the shared cache at all.
+ *
+ * <p>A cooperative provider never waits for a chunk that the server has not provided yet.
+ * Instead, it throws a {@link PendingChunkException} so the caller can free up its thread
+ * and try again once the chunk is available.
  */
 public class ChunkCacheBlockProvider implements BlockProvider {
 
-
-  private final ChunkCache chunkCache;
   private final FlagSet flagSet;
+  private final boolean cooperative;
+  @Nullable
+  private final ChunkPrefetcher prefetcher;
+  private final ChunkPriority priority;
+  private JourneyChunk lastChunk = null;
+  private int lastChunkEvictions;  // the central cache's evictions when the last chunk was retrieved
+
+  public ChunkCacheBlockProvider(FlagSet flagSet) {
+    this(flagSet, false);
+  }
+
+  /**
+   * General constructor.
+   *
+   * @param flagSet     the flags that modify block behavior
+   * @param cooperative whether to throw a {@link PendingChunkException} instead of
+   *                    blocking when a chunk is not yet available
+   */
+  public ChunkCacheBlockProvider(FlagSet flagSet, boolean cooperative) {
+    this(flagSet, cooperative, null);
+  }
 
-  public ChunkCacheBlockProvider(int maxCachedChunks, FlagSet flagSet) {
-    this.chunkCache = new ChunkCache(maxCachedChunks);
+  /**
+   * General constructor.
+   *
+   * @param flagSet     the flags that modify block behavior
+   * @param cooperative whether to throw a {@link PendingChunkException} instead of
+   *                    blocking when a chunk is not yet available
+   * @param prefetcher  the prefetcher requesting chunks for the same search, which is told about
+   *                    every chunk this provider needs
+   */
+  public ChunkCacheBlockProvider(FlagSet flagSet, boolean cooperative, @Nullable ChunkPrefetcher prefetcher) {
+    this(flagSet, cooperative, prefetcher, ChunkPriority.DEMAND);
+  }
+
+  /**
+   * General constructor.
+   *
+   * @param flagSet     the flags that modify block behavior
+   * @param cooperative whether to throw a {@link PendingChunkException} instead of
+   *                    blocking when a chunk is not yet available
+   * @param prefetcher  the prefetcher requesting chunks for the same search, which is told about
+   *                    every chunk this provider needs
+   * @param priority    the priority with which to request chunks that aren't cached yet
+   */
+  public ChunkCacheBlockProvider(FlagSet flagSet, boolean cooperative, @Nullable ChunkPrefetcher prefetcher,
+                                 ChunkPriority priority) {
     this.flagSet = flagSet;
+    this.cooperative = cooperative;
+    this.prefetcher = prefetcher;
+    this.priority = priority;
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @throws PendingChunkException if this provider is cooperative and the chunk is not yet available
+   */
   @Override
   public JourneyBlock toBlock(Cell cell) throws ExecutionException, InterruptedException {
-    // Clear any outdated items in the local cache
-    chunkCache.prune();
-
-    // Check the local cache for the chunk
-    ChunkId chunkId = new ChunkId(cell.domain(), Math.floorDiv(cell.blockX(), CHUNK_SIDE_LENGTH), Math.floorDiv(cell.blockZ(), CHUNK_SIDE_LENGTH));
-    int localX = Math.floorMod(cell.blockX(), CHUNK_SIDE_LENGTH);
-    int localZ = Math.floorMod(cell.blockZ(), CHUNK_SIDE_LENGTH);
-    JourneyChunk chunk = chunkCache.getChunk(chunkId);
+    JourneyChunk chunk = chunk(cell.domain(), cell.blockX(), cell.blockZ());
+    return chunk.block(Math.floorMod(cell.blockX(), CHUNK_SIDE_LENGTH),
+        cell.blockY(),
+        Math.floorMod(cell.blockZ(), CHUNK_SIDE_LENGTH),
+        flagSet);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws PendingChunkException if this provider is cooperative and the chunk is not yet available
+   */
+  @Override
+  public int navigability(Cell cell) throws ExecutionException, InterruptedException {
+    return navigability(cell.domain(), cell.blockX(), cell.blockY(), cell.blockZ());
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws PendingChunkException if this provider is cooperative and the chunk is not yet available
+   */
+  @Override
+  public int navigability(int domain, int x, int y, int z) throws ExecutionException, InterruptedException {
+    JourneyChunk chunk = chunk(domain, x, z);
+    return Navigability.resolve(chunk.navigability(Math.floorMod(x, CHUNK_SIDE_LENGTH), y, Math.floorMod(z, CHUNK_SIDE_LENGTH)),
+        flagSet);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws PendingChunkException if this provider is cooperative and the chunk is not yet available
+   */
+  @Override
+  public float hardness(int domain, int x, int y, int z) throws ExecutionException, InterruptedException {
+    JourneyChunk chunk = chunk(domain, x, z);
+    return chunk.hardness(Math.floorMod(x, CHUNK_SIDE_LENGTH), y, Math.floorMod(z, CHUNK_SIDE_LENGTH));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws PendingChunkException if this provider is cooperative and the chunk is not yet available
+   */
+  @Override
+  public double height(int domain, int x, int y, int z) throws ExecutionException, InterruptedException {
+    JourneyChunk chunk = chunk(domain, x, z);
+    return chunk.height(Math.floorMod(x, CHUNK_SIDE_LENGTH), y, Math.floorMod(z, CHUNK_SIDE_LENGTH));
+  }
+
+  /**
+   * {@inheritDoc}
+   * Answered from the chunk's heightmap.
+   *
+   * @throws PendingChunkException if this provider is cooperative and the chunk is not yet available
+   */
+  @Override
+  public int surfaceY(int domain, int x, int z) throws ExecutionException, InterruptedException {
+    JourneyChunk chunk = chunk(domain, x, z);
+    return chunk.surfaceY(Math.floorMod(x, CHUNK_SIDE_LENGTH), Math.floorMod(z, CHUNK_SIDE_LENGTH));
+  }
+
+  private JourneyChunk chunk(int domain, int blockX, int blockZ) throws ExecutionException, InterruptedException {
+    CentralChunkCache centralChunkCache = Journey.get().centralChunkCache();
+    int chunkX = Math.floorDiv(blockX, CHUNK_SIDE_LENGTH);
+    int chunkZ = Math.floorDiv(blockZ, CHUNK_SIDE_LENGTH);
+    // Most lookups are in the same chunk as the last one, so check that first without creating an id.
+    //  If the shared cache has removed anything since, the chunk may be outdated, so look it up again.
+    int evictions = centralChunkCache.evictions();
+    if (lastChunk != null && evictions == lastChunkEvictions) {
+      ChunkId lastId = lastChunk.id();
+      if (lastId.x() == chunkX && lastId.z() == chunkZ && lastId.domain() == domain) {
+        return lastChunk;
+      }
+    }
+
+    if (prefetcher != null) {
+      prefetcher.used(domain, chunkX, chunkZ);
+    }
+    JourneyChunk chunk = centralChunkCache.cachedChunk(domain, chunkX, chunkZ);
     if (chunk == null) {
-      // Not stored locally. We have to get the info from the central cache and cache the chunk locally for next time
-      Future<JourneyChunk> future = Journey.get().centralChunkCache().getChunk(chunkId);
-      chunk = future.get();  // waits for future. This is a source of latency and future versions should look into freeing up cycles while this is waiting
-      chunkCache.save(chunk);
+      // Not cached yet. We have to request it from the server, along with its neighbors unless they're being prefetched
+      ChunkId chunkId = new ChunkId(domain, chunkX, chunkZ);
+      CompletableFuture<JourneyChunk> future = centralChunkCache.getChunk(chunkId,
+          prefetcher == null || !prefetcher.active(),
+          priority);
+      if (cooperative && !future.isDone()) {
+        // Don't hold this thread hostage while the server retrieves the chunk
+        throw new PendingChunkException(chunkId, future);
+      }
+      chunk = future.get();  // already done if cooperative
     }
-    return chunk.block(localX, cell.blockY(), localZ, flagSet);
+    lastChunk = chunk;
+    lastChunkEvictions = evictions;
+    return chunk;
   }
 }
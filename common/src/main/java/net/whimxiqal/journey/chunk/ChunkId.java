@@ -31,4 +31,25 @@ package net.whimxiqal.journey.chunk;
  * @param z      the z coordinate
  */
 public record ChunkId(int domain, int x, int z) {
+
+  private static final int XZ_BITS = 24;
+  private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+
+  /**
+   * Pack a chunk's location into a single long, to key chunks without allocating an id.
+   * Chunk coordinates may use up to 24 bits (which covers the whole world border) and domains up to 16 bits.
+   *
+   * @param domain the domain id
+   * @param x      the chunk x coordinate
+   * @param z      the chunk z coordinate
+   * @return the packed location
+   */
+  public static long pack(int domain, int x, int z) {
+    return ((long) domain << (2 * XZ_BITS)) | ((x & XZ_MASK) << XZ_BITS) | (z & XZ_MASK);
+  }
+
+  public long packed() {
+    return pack(domain, x, z);
+  }
+
 }
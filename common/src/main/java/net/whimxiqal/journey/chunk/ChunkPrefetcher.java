@@ -0,0 +1,210 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.chunk;
+
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.tools.LongIntHashMap;
+import org.jetbrains.annotations.Nullable;
+
+import static net.whimxiqal.journey.proxy.JourneyChunk.CHUNK_SIDE_LENGTH;
+
+/**
+ * Requests chunks ahead of a search, so they are already cached when the search reaches them.
+ *
+ * <p>The search gives hints about where its frontier is and where it is heading, and a corridor of chunks
+ * along that heading is requested from the {@link CentralChunkCache}. While this is active, a
+ * {@link ChunkCacheBlockProvider} only requests the chunks it actually misses instead of every chunk around
+ * them. Each search has a budget of chunks it may prefetch, and if too few prefetched chunks turn out to be used,
+ * prefetching stops and the provider goes back to requesting whole neighborhoods.
+ *
+ * <p>Not thread-safe. Use one per search.
+ */
+public final class ChunkPrefetcher {
+
+  /**
+   * How many chunks ahead of the frontier to request.
+   */
+  public static final int LOOKAHEAD_CHUNKS = 3;
+  /**
+   * How many chunks must be prefetched before the hit rate is trusted.
+   */
+  public static final int MIN_SAMPLE = 32;
+  /**
+   * The lowest hit rate at which prefetching continues.
+   */
+  public static final double MIN_HIT_RATE = 0.25;
+  private static final int PREFETCHED = 0;
+  private static final int USED = 1;
+
+  private final CentralChunkCache centralChunkCache;
+  private final int budget;
+  private final ChunkPriority priority;
+  private final LongIntHashMap chunks = new LongIntHashMap();
+  private boolean hinted = false;
+  private int prefetched = 0;
+  private int hits = 0;
+
+  /**
+   * General constructor.
+   *
+   * @param centralChunkCache the cache from which to request chunks
+   * @param budget            the maximum number of chunks to prefetch
+   */
+  public ChunkPrefetcher(CentralChunkCache centralChunkCache, int budget) {
+    this(centralChunkCache, budget, ChunkPriority.PREFETCH);
+  }
+
+  /**
+   * General constructor.
+   *
+   * @param centralChunkCache the cache from which to request chunks
+   * @param budget            the maximum number of chunks to prefetch
+   * @param priority          the priority with which to request chunks
+   */
+  public ChunkPrefetcher(CentralChunkCache centralChunkCache, int budget, ChunkPriority priority) {
+    this.centralChunkCache = centralChunkCache;
+    this.budget = budget;
+    this.priority = priority;
+  }
+
+  /**
+   * Request the chunks that a search is likely to need next.
+   *
+   * @param domain the domain of the search
+   * @param blockX the x coordinate of the search's frontier
+   * @param blockZ the z coordinate of the search's frontier
+   * @param target where the search is heading, or null if unknown
+   */
+  public void hint(int domain, int blockX, int blockZ, @Nullable Cell target) {
+    hinted = true;
+    if (!active()) {
+      return;
+    }
+    if (target == null || target.domain() != domain) {
+      // no heading, so just get the chunks all around the frontier
+      int chunkX = Math.floorDiv(blockX, CHUNK_SIDE_LENGTH);
+      int chunkZ = Math.floorDiv(blockZ, CHUNK_SIDE_LENGTH);
+      for (int x = chunkX - 1; x <= chunkX + 1; x++) {
+        for (int z = chunkZ - 1; z <= chunkZ + 1; z++) {
+          request(domain, x, z);
+        }
+      }
+      return;
+    }
+    double headingX = target.blockX() - blockX;
+    double headingZ = target.blockZ() - blockZ;
+    double distance = Math.sqrt(headingX * headingX + headingZ * headingZ);
+    if (distance < 1) {
+      return;
+    }
+    headingX /= distance;
+    headingZ /= distance;
+    for (int step = 1; step <= LOOKAHEAD_CHUNKS && (step - 1) * CHUNK_SIDE_LENGTH <= distance; step++) {
+      double aheadX = blockX + headingX * step * CHUNK_SIDE_LENGTH;
+      double aheadZ = blockZ + headingZ * step * CHUNK_SIDE_LENGTH;
+      request(domain, toChunk(aheadX), toChunk(aheadZ));
+      // widen the corridor by a chunk on either side of the heading
+      request(domain, toChunk(aheadX - headingZ * CHUNK_SIDE_LENGTH), toChunk(aheadZ + headingX * CHUNK_SIDE_LENGTH));
+      request(domain, toChunk(aheadX + headingZ * CHUNK_SIDE_LENGTH), toChunk(aheadZ - headingX * CHUNK_SIDE_LENGTH));
+    }
+  }
+
+  private static int toChunk(double block) {
+    return Math.floorDiv((int) Math.floor(block), CHUNK_SIDE_LENGTH);
+  }
+
+  private void request(int domain, int chunkX, int chunkZ) {
+    if (prefetched >= budget) {
+      return;
+    }
+    long key = ChunkId.pack(domain, chunkX, chunkZ);
+    if (chunks.get(key) != LongIntHashMap.MISSING) {
+      return;
+    }
+    if (centralChunkCache.prefetch(new ChunkId(domain, chunkX, chunkZ), priority)) {
+      chunks.put(key, PREFETCHED);
+      prefetched++;
+    }
+  }
+
+  /**
+   * Record that the search needed a chunk, to keep track of the hit rate.
+   *
+   * @param domain the domain id
+   * @param chunkX the chunk x coordinate
+   * @param chunkZ the chunk z coordinate
+   */
+  public void used(int domain, int chunkX, int chunkZ) {
+    long key = ChunkId.pack(domain, chunkX, chunkZ);
+    if (chunks.get(key) == PREFETCHED) {
+      chunks.put(key, USED);
+      hits++;
+    }
+  }
+
+  /**
+   * Whether this is prefetching chunks for the search, in which case a block provider need not request
+   * the chunks around the ones it misses.
+   *
+   * @return true if active
+   */
+  public boolean active() {
+    return hinted
+        && prefetched < budget
+        && (prefetched < MIN_SAMPLE || hitRate() >= MIN_HIT_RATE);
+  }
+
+  /**
+   * The number of chunks that were requested by this prefetcher.
+   *
+   * @return the number of chunks
+   */
+  public int prefetched() {
+    return prefetched;
+  }
+
+  /**
+   * The number of prefetched chunks that the search went on to use.
+   *
+   * @return the number of chunks
+   */
+  public int hits() {
+    return hits;
+  }
+
+  /**
+   * The proportion of prefetched chunks that the search went on to use.
+   *
+   * @return the hit rate, between 0 and 1
+   */
+  public double hitRate() {
+    return prefetched == 0 ? 0 : (double) hits / prefetched;
+  }
+
+  @Override
+  public String toString() {
+    return "ChunkPrefetcher{prefetched=" + prefetched + ", hits=" + hits + ", budget=" + budget + '}';
+  }
+
+}
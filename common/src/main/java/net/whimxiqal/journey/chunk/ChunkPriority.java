@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.chunk;
+
+/**
+ * How urgently a chunk is needed from the server.
+ * The server only spends so much of every tick retrieving chunks, so more urgent requests
+ * are retrieved first and less urgent ones wait for later ticks.
+ */
+public enum ChunkPriority {
+  /**
+   * A search is waiting on the chunk right now.
+   */
+  DEMAND,
+  /**
+   * A search will probably need the chunk soon.
+   */
+  PREFETCH,
+  /**
+   * The chunk is for work that nobody is waiting on, like caching paths between all tunnels.
+   */
+  BACKGROUND;
+
+  /**
+   * The priority of chunks requested ahead of need for work with this priority.
+   *
+   * @return the priority for speculative requests
+   */
+  public ChunkPriority speculative() {
+    return this == DEMAND ? PREFETCH : this;
+  }
+
+  /**
+   * Whether this priority is more urgent than another.
+   *
+   * @param other the other priority
+   * @return true if requests with this priority should be retrieved first
+   */
+  public boolean isAbove(ChunkPriority other) {
+    return ordinal() < other.ordinal();
+  }
+}
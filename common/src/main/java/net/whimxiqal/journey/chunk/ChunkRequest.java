@@ -24,19 +24,27 @@
 package net.whimxiqal.journey.chunk;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import net.whimxiqal.journey.proxy.JourneyChunk;
 
 /**
  * A container for a request for a {@link JourneyChunk}.
  * It contains the id of the chunk and a future to be completed with the retrieved chunk.
+ *
+ * <p>A request may be raised to a higher priority by any thread until it is submitted to the server.
  */
 class ChunkRequest {
 
   private final ChunkId chunkId;
   private final CompletableFuture<JourneyChunk> future = new CompletableFuture<>();
+  private final AtomicReference<ChunkPriority> priority;
+  private final AtomicBoolean submitted = new AtomicBoolean(false);
+  private volatile boolean stale = false;
 
-  ChunkRequest(ChunkId chunkId) {
+  ChunkRequest(ChunkId chunkId, ChunkPriority priority) {
     this.chunkId = chunkId;
+    this.priority = new AtomicReference<>(priority);
   }
 
   public ChunkId chunkId() {
@@ -47,10 +55,58 @@ class ChunkRequest {
     return future;
   }
 
+  public ChunkPriority priority() {
+    return priority.get();
+  }
+
+  /**
+   * Raise the priority of this request, if it hasn't been submitted yet.
+   *
+   * @param newPriority the new priority
+   * @return true if the priority was raised, or false if it was already at least as high
+   * or the request was already submitted
+   */
+  boolean raise(ChunkPriority newPriority) {
+    ChunkPriority current;
+    do {
+      current = priority.get();
+      if (submitted.get() || !newPriority.isAbove(current)) {
+        return false;
+      }
+    } while (!priority.compareAndSet(current, newPriority));
+    return true;
+  }
+
+  /**
+   * Mark this request as submitted to the server.
+   *
+   * @return true if this call submitted it, or false if it was already submitted
+   */
+  boolean markSubmitted() {
+    return submitted.compareAndSet(false, true);
+  }
+
+  boolean isSubmitted() {
+    return submitted.get();
+  }
+
+  /**
+   * Mark that the chunk's blocks changed after this request was submitted,
+   * so the retrieved chunk may be out of date.
+   */
+  void markStale() {
+    stale = true;
+  }
+
+  boolean isStale() {
+    return stale;
+  }
+
   @Override
   public String toString() {
     return "ChunkRequest{" +
         "chunkId=" + chunkId +
+        ", priority=" + priority.get() +
         '}';
   }
 
@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.chunk;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.proxy.JourneyBlock;
+import net.whimxiqal.journey.proxy.Navigability;
+import net.whimxiqal.journey.tools.PackedCell;
+
+/**
+ * A block provider that remembers the {@link Navigability} of the cells around a center cell,
+ * so that every mode expanding the same cell shares a single lookup of each neighboring cell.
+ * The window covers every cell that the built-in modes inspect: one block away laterally,
+ * from {@value #MIN_OFFSET_Y} to {@value #MAX_OFFSET_Y} blocks away vertically.
+ * Cells are loaded lazily, the first time any mode asks for them,
+ * and all other queries are passed along to the underlying provider.
+ *
+ * <p>Not thread-safe.
+ */
+public final class NeighborhoodBlockProvider implements BlockProvider {
+
+  public static final int MIN_OFFSET_Y = -4;  // walking may fall 3 blocks onto the floor below that
+  public static final int MAX_OFFSET_Y = 2;  // head height after moving up one block
+  private static final int SIDE = 3;
+  private static final int HEIGHT = MAX_OFFSET_Y - MIN_OFFSET_Y + 1;
+
+  private final BlockProvider delegate;
+  private final int[] bits = new int[SIDE * HEIGHT * SIDE];
+  private final int[] stamps = new int[SIDE * HEIGHT * SIDE];  // which center each stored value belongs to
+  private int stamp = 0;  // 0 means there is no center yet
+  private int domain;
+  private int centerX;
+  private int centerY;
+  private int centerZ;
+
+  public NeighborhoodBlockProvider(BlockProvider delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * Move the window to be centered around a new cell, forgetting everything about the last one.
+   *
+   * @param domain the domain of the center
+   * @param center the {@link PackedCell packed} center
+   */
+  public void center(int domain, long center) {
+    this.domain = domain;
+    this.centerX = PackedCell.x(center);
+    this.centerY = PackedCell.y(center);
+    this.centerZ = PackedCell.z(center);
+    stamp++;
+    if (stamp == 0) {
+      // wrapped around, so old stamps could collide
+      Arrays.fill(stamps, 0);
+      stamp = 1;
+    }
+  }
+
+  @Override
+  public int navigability(int domain, int x, int y, int z) throws ExecutionException, InterruptedException {
+    int offX = x - centerX + 1;
+    int offY = y - centerY - MIN_OFFSET_Y;
+    int offZ = z - centerZ + 1;
+    if (stamp == 0 || domain != this.domain
+        || offX < 0 || offX >= SIDE || offY < 0 || offY >= HEIGHT || offZ < 0 || offZ >= SIDE) {
+      return delegate.navigability(domain, x, y, z);
+    }
+    int index = (offX * SIDE + offZ) * HEIGHT + offY;
+    if (stamps[index] != stamp) {
+      bits[index] = delegate.navigability(domain, x, y, z);
+      stamps[index] = stamp;  // only after the lookup succeeded, it may be pending
+    }
+    return bits[index];
+  }
+
+  @Override
+  public int navigability(Cell cell) throws ExecutionException, InterruptedException {
+    return navigability(cell.domain(), cell.blockX(), cell.blockY(), cell.blockZ());
+  }
+
+  @Override
+  public JourneyBlock toBlock(Cell cell) throws ExecutionException, InterruptedException {
+    return delegate.toBlock(cell);
+  }
+
+  @Override
+  public float hardness(int domain, int x, int y, int z) throws ExecutionException, InterruptedException {
+    return delegate.hardness(domain, x, y, z);
+  }
+
+  @Override
+  public double height(int domain, int x, int y, int z) throws ExecutionException, InterruptedException {
+    return delegate.height(domain, x, y, z);
+  }
+
+  @Override
+  public int surfaceY(int domain, int x, int z) throws ExecutionException, InterruptedException {
+    return delegate.surfaceY(domain, x, z);
+  }
+
+}
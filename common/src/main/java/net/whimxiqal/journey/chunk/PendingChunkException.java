@@ -0,0 +1,55 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.chunk;
+
+import java.util.concurrent.CompletableFuture;
+import net.whimxiqal.journey.proxy.JourneyChunk;
+
+/**
+ * Thrown by a cooperative {@link ChunkCacheBlockProvider} when a block is requested from a chunk
+ * that has not been retrieved from the server yet. Instead of blocking the thread until
+ * the chunk arrives, the caller is expected to stop its work and resume it once {@link #future()}
+ * has completed.
+ *
+ * <p>This is a control flow signal, so no stack trace is recorded.
+ */
+public class PendingChunkException extends RuntimeException {
+
+  private final transient CompletableFuture<JourneyChunk> future;
+
+  public PendingChunkException(ChunkId chunkId, CompletableFuture<JourneyChunk> future) {
+    super("Chunk " + chunkId + " is not yet available", null, false, false);
+    this.future = future;
+  }
+
+  /**
+   * The future that completes once the chunk is available.
+   *
+   * @return the future
+   */
+  public CompletableFuture<JourneyChunk> future() {
+    return future;
+  }
+
+}
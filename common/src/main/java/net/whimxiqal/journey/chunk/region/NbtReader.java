@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.chunk.region;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal reader of Minecraft's Named Binary Tag (NBT) format.
+ *
+ * <p>Compounds are read as {@link Map}s keyed by name, lists as {@link List}s, arrays as primitive arrays,
+ * and everything else as the boxed primitive or {@link String}.
+ */
+final class NbtReader {
+
+  static final byte TAG_END = 0;
+  static final byte TAG_BYTE = 1;
+  static final byte TAG_SHORT = 2;
+  static final byte TAG_INT = 3;
+  static final byte TAG_LONG = 4;
+  static final byte TAG_FLOAT = 5;
+  static final byte TAG_DOUBLE = 6;
+  static final byte TAG_BYTE_ARRAY = 7;
+  static final byte TAG_STRING = 8;
+  static final byte TAG_LIST = 9;
+  static final byte TAG_COMPOUND = 10;
+  static final byte TAG_INT_ARRAY = 11;
+  static final byte TAG_LONG_ARRAY = 12;
+  private static final int MAX_DEPTH = 512;  // like Minecraft, so corrupt data can't overflow the stack
+
+  private NbtReader() {
+  }
+
+  /**
+   * Read the root compound of an NBT structure.
+   *
+   * @param in the uncompressed input
+   * @return the root compound
+   * @throws IOException if the input is not valid NBT
+   */
+  static Map<String, Object> readRoot(DataInput in) throws IOException {
+    byte type = in.readByte();
+    if (type != TAG_COMPOUND) {
+      throw new IOException("The root tag must be a compound, but it was of type " + type);
+    }
+    in.readUTF();  // the root's name, which is always empty
+    return readCompound(in, 0);
+  }
+
+  private static Map<String, Object> readCompound(DataInput in, int depth) throws IOException {
+    Map<String, Object> compound = new HashMap<>();
+    byte type;
+    while ((type = in.readByte()) != TAG_END) {
+      String name = in.readUTF();
+      compound.put(name, readPayload(in, type, depth + 1));
+    }
+    return compound;
+  }
+
+  private static Object readPayload(DataInput in, byte type, int depth) throws IOException {
+    if (depth > MAX_DEPTH) {
+      throw new IOException("NBT is nested too deeply");
+    }
+    return switch (type) {
+      case TAG_BYTE -> in.readByte();
+      case TAG_SHORT -> in.readShort();
+      case TAG_INT -> in.readInt();
+      case TAG_LONG -> in.readLong();
+      case TAG_FLOAT -> in.readFloat();
+      case TAG_DOUBLE -> in.readDouble();
+      case TAG_BYTE_ARRAY -> {
+        byte[] array = new byte[readLength(in)];
+        in.readFully(array);
+        yield array;
+      }
+      case TAG_STRING -> in.readUTF();
+      case TAG_LIST -> {
+        byte elementType = in.readByte();
+        int length = readLength(in);
+        List<Object> list = new ArrayList<>(Math.min(length, 1024));
+        for (int i = 0; i < length; i++) {
+          list.add(readPayload(in, elementType, depth + 1));
+        }
+        yield list;
+      }
+      case TAG_COMPOUND -> readCompound(in, depth);
+      case TAG_INT_ARRAY -> {
+        int[] array = new int[readLength(in)];
+        for (int i = 0; i < array.length; i++) {
+          array[i] = in.readInt();
+        }
+        yield array;
+      }
+      case TAG_LONG_ARRAY -> {
+        long[] array = new long[readLength(in)];
+        for (int i = 0; i < array.length; i++) {
+          array[i] = in.readLong();
+        }
+        yield array;
+      }
+      default -> throw new IOException("Unknown NBT tag type " + type);
+    };
+  }
+
+  private static int readLength(DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      throw new IOException("Negative NBT length " + length);
+    }
+    return length;
+  }
+
+}
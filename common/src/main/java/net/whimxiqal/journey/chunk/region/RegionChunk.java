@@ -0,0 +1,194 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.chunk.region;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import net.whimxiqal.journey.proxy.JourneyChunk;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The block states of a chunk, as saved in a region file.
+ *
+ * <p>Like the saved data, every 16x16x16 section stores a palette of block states and the index of every
+ * block's state in that palette, packed into longs, so only the palettes are turned into objects.
+ * Sections that aren't saved are air.
+ *
+ * <p>Only the format used since Minecraft 1.18 is supported. Thread-safe.
+ */
+public final class RegionChunk {
+
+  public static final String AIR = "minecraft:air";
+  /**
+   * The data version of Minecraft 1.18, since which chunks are saved in the supported format.
+   */
+  public static final int MIN_DATA_VERSION = 2860;
+  private static final int SECTION_HEIGHT = 16;
+  private static final int MIN_SECTION = Math.floorDiv(JourneyChunk.MIN_Y, SECTION_HEIGHT);
+  private static final int SECTION_COUNT = Math.floorDiv(JourneyChunk.MAX_Y, SECTION_HEIGHT) - MIN_SECTION;
+
+  private final int x;
+  private final int z;
+  private final String[][] palettes = new String[SECTION_COUNT][];
+  private final long[][] data = new long[SECTION_COUNT][];
+  private final int[] bits = new int[SECTION_COUNT];
+
+  private RegionChunk(int x, int z) {
+    this.x = x;
+    this.z = z;
+  }
+
+  /**
+   * Read a chunk from its NBT.
+   *
+   * @param root the root compound of the chunk
+   * @return the chunk, or null if it has not been fully generated or is saved in an unsupported format
+   * @throws IOException if the chunk's data is malformed
+   */
+  @Nullable
+  static RegionChunk fromNbt(Map<String, Object> root) throws IOException {
+    if (!(root.get("DataVersion") instanceof Integer dataVersion) || dataVersion < MIN_DATA_VERSION) {
+      return null;
+    }
+    if (!(root.get("Status") instanceof String status) || !(status.equals("minecraft:full") || status.equals("full"))) {
+      return null;
+    }
+    RegionChunk chunk = new RegionChunk(get(root, "xPos", Integer.class), get(root, "zPos", Integer.class));
+    Map<String, String> interned = new HashMap<>();  // the same states appear in many sections
+    for (Object sectionTag : get(root, "sections", List.class)) {
+      Map<?, ?> section = cast(sectionTag, Map.class);
+      int index = get(section, "Y", Byte.class) - MIN_SECTION;
+      if (index < 0 || index >= SECTION_COUNT || !(section.get("block_states") instanceof Map<?, ?> blockStates)) {
+        continue;
+      }
+      List<?> paletteTags = get(blockStates, "palette", List.class);
+      if (paletteTags.isEmpty()) {
+        throw new IOException("Section " + (index + MIN_SECTION) + " has an empty palette");
+      }
+      String[] palette = new String[paletteTags.size()];
+      for (int i = 0; i < palette.length; i++) {
+        String state = blockState(cast(paletteTags.get(i), Map.class));
+        palette[i] = interned.computeIfAbsent(state, k -> k);
+      }
+      chunk.palettes[index] = palette;
+      if (palette.length > 1) {
+        int bits = Math.max(4, Integer.SIZE - Integer.numberOfLeadingZeros(palette.length - 1));  // at least 4 bits per block
+        long[] data = get(blockStates, "data", long[].class);
+        int perLong = Long.SIZE / bits;
+        if (data.length < (SECTION_HEIGHT * SECTION_HEIGHT * SECTION_HEIGHT + perLong - 1) / perLong) {
+          throw new IOException("Section " + (index + MIN_SECTION) + " doesn't have enough block state data");
+        }
+        chunk.bits[index] = bits;
+        chunk.data[index] = data;
+      }
+    }
+    return chunk;
+  }
+
+  private static String blockState(Map<?, ?> paletteEntry) throws IOException {
+    String name = get(paletteEntry, "Name", String.class);
+    if (!(paletteEntry.get("Properties") instanceof Map<?, ?> properties) || properties.isEmpty()) {
+      return name;
+    }
+    // sort the properties, so the same state is always written the same way
+    StringBuilder builder = new StringBuilder(name).append('[');
+    boolean first = true;
+    for (Map.Entry<?, ?> property : new TreeMap<>(properties).entrySet()) {
+      if (!first) {
+        builder.append(',');
+      }
+      builder.append(property.getKey()).append('=').append(property.getValue());
+      first = false;
+    }
+    return builder.append(']').toString();
+  }
+
+  private static <T> T get(Map<?, ?> compound, String key, Class<T> type) throws IOException {
+    Object value = compound.get(key);
+    if (value == null) {
+      throw new IOException("Chunk data is missing " + key);
+    }
+    return cast(value, type);
+  }
+
+  private static <T> T cast(Object value, Class<T> type) throws IOException {
+    if (!type.isInstance(value)) {
+      throw new IOException("Expected chunk data of type " + type.getSimpleName() + " but found " + value.getClass().getSimpleName());
+    }
+    return type.cast(value);
+  }
+
+  /**
+   * The chunk x coordinate, as saved.
+   *
+   * @return the x coordinate
+   */
+  public int x() {
+    return x;
+  }
+
+  /**
+   * The chunk z coordinate, as saved.
+   *
+   * @return the z coordinate
+   */
+  public int z() {
+    return z;
+  }
+
+  /**
+   * Get the state of a block, like {@code minecraft:oak_stairs[facing=east,half=bottom,shape=straight,waterlogged=false]}.
+   * Properties are sorted by name.
+   *
+   * @param x the x coordinate within the chunk [0-16)
+   * @param y the y coordinate
+   * @param z the z coordinate within the chunk [0-16)
+   * @return the block state
+   */
+  public String blockState(int x, int y, int z) {
+    int section = Math.floorDiv(y, SECTION_HEIGHT) - MIN_SECTION;
+    if (section < 0 || section >= SECTION_COUNT) {
+      return AIR;
+    }
+    String[] palette = palettes[section];
+    if (palette == null) {
+      return AIR;
+    }
+    long[] sectionData = data[section];
+    if (sectionData == null) {
+      return palette[0];
+    }
+    // indices are packed into longs from the lowest bits, and never span two longs
+    int sectionBits = bits[section];
+    int perLong = Long.SIZE / sectionBits;
+    int index = (Math.floorMod(y, SECTION_HEIGHT) << 8) | (z << 4) | x;
+    long word = sectionData[index / perLong];
+    int paletteIndex = (int) ((word >>> ((index % perLong) * sectionBits)) & ((1L << sectionBits) - 1));
+    return paletteIndex < palette.length ? palette[paletteIndex] : AIR;
+  }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.chunk.region;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads chunks straight from a world's region (.mca) files in the Anvil format, without the server.
+ *
+ * <p>A region file holds 32x32 chunks. It starts with a table of where each chunk is stored, in 4 KiB sectors,
+ * and each stored chunk is compressed NBT. Chunks too large for the region file are stored in their own
+ * .mcc file next to it.
+ *
+ * <p>Reading is safe from any thread, but the server may be writing to the same files, so the returned chunk
+ * reflects whatever was last saved. It is up to the caller to make sure the chunk isn't loaded, in which case
+ * the saved data may be outdated.
+ */
+public final class RegionFile {
+
+  private static final int SECTOR_BYTES = 4096;
+  private static final int REGION_SIDE_LENGTH = 32;
+  private static final int COMPRESSION_GZIP = 1;
+  private static final int COMPRESSION_ZLIB = 2;
+  private static final int COMPRESSION_NONE = 3;
+  private static final int EXTERNAL_FLAG = 128;  // the chunk is stored in its own file
+
+  private RegionFile() {
+  }
+
+  /**
+   * Read a chunk from the region files in a directory.
+   *
+   * @param regionDirectory the directory containing the region files, like {@code world/region}
+   * @param chunkX          the chunk x coordinate
+   * @param chunkZ          the chunk z coordinate
+   * @return the chunk, or null if it was never fully generated or is saved in an unsupported format,
+   *     like an older version's format or a compression this can't decompress
+   * @throws IOException if the region file could not be read or is malformed
+   */
+  @Nullable
+  public static RegionChunk readChunk(Path regionDirectory, int chunkX, int chunkZ) throws IOException {
+    SavedData saved = readSavedData(regionDirectory, chunkX, chunkZ);
+    if (saved == null) {
+      return null;
+    }
+    InputStream compressed = new ByteArrayInputStream(saved.data);
+    InputStream uncompressed = switch (saved.compression) {
+      case COMPRESSION_GZIP -> new GZIPInputStream(compressed);
+      case COMPRESSION_ZLIB -> new InflaterInputStream(compressed);
+      case COMPRESSION_NONE -> compressed;
+      default -> null;  // like LZ4, which servers may be configured to use since 1.20.5
+    };
+    if (uncompressed == null) {
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(uncompressed))) {
+      RegionChunk chunk = RegionChunk.fromNbt(NbtReader.readRoot(in));
+      if (chunk != null && (chunk.x() != chunkX || chunk.z() != chunkZ)) {
+        throw new IOException("Chunk (" + chunkX + ", " + chunkZ + ") was saved as chunk (" + chunk.x() + ", " + chunk.z() + ")");
+      }
+      return chunk;
+    }
+  }
+
+  /**
+   * Read the version of a chunk in the region files in a directory: anything computed from a chunk's saved data
+   * is outdated once the chunk has a different version. The high 32 bits are the epoch second the chunk was last
+   * saved, and the low 32 bits are a checksum of its saved data, since a chunk may be saved twice in one second.
+   *
+   * @param regionDirectory the directory containing the region files, like {@code world/region}
+   * @param chunkX          the chunk x coordinate
+   * @param chunkZ          the chunk z coordinate
+   * @return the version, or 0 if the chunk was never saved
+   * @throws IOException if the region file could not be read or is malformed
+   */
+  public static long version(Path regionDirectory, int chunkX, int chunkZ) throws IOException {
+    SavedData saved = readSavedData(regionDirectory, chunkX, chunkZ);
+    if (saved == null) {
+      return 0;
+    }
+    CRC32 checksum = new CRC32();
+    checksum.update(saved.compression);
+    checksum.update(saved.data);
+    return (saved.timestamp << 32) | checksum.getValue();
+  }
+
+  @Nullable
+  private static SavedData readSavedData(Path regionDirectory, int chunkX, int chunkZ) throws IOException {
+    Path file = regionFile(regionDirectory, chunkX, chunkZ);
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    try (RandomAccessFile region = new RandomAccessFile(file.toFile(), "r")) {
+      if (region.length() < 2 * SECTOR_BYTES) {
+        return null;  // the server hasn't finished writing the header yet
+      }
+      region.seek(4L * indexInRegion(chunkX, chunkZ));
+      int location = region.readInt();
+      long sectorOffset = location >>> 8;
+      int sectorCount = location & 0xFF;
+      if (sectorOffset == 0 && sectorCount == 0) {
+        return null;  // not generated
+      }
+      if (sectorOffset < 2 || (sectorOffset + sectorCount) * SECTOR_BYTES > region.length()) {
+        throw new IOException("Chunk (" + chunkX + ", " + chunkZ + ") is stored outside of " + file);
+      }
+      region.seek(SECTOR_BYTES + 4L * indexInRegion(chunkX, chunkZ));
+      long timestamp = Integer.toUnsignedLong(region.readInt());
+      region.seek(sectorOffset * SECTOR_BYTES);
+      int length = region.readInt();  // including the compression byte
+      if (length <= 0 || length > sectorCount * SECTOR_BYTES - Integer.BYTES) {
+        throw new IOException("Chunk (" + chunkX + ", " + chunkZ + ") has an invalid length of " + length + " in " + file);
+      }
+      int compression = region.readUnsignedByte();
+      byte[] data;
+      if ((compression & EXTERNAL_FLAG) != 0) {
+        compression &= ~EXTERNAL_FLAG;
+        data = Files.readAllBytes(regionDirectory.resolve("c." + chunkX + "." + chunkZ + ".mcc"));
+      } else {
+        data = new byte[length - 1];
+        region.readFully(data);
+      }
+      return new SavedData(compression, data, timestamp);
+    }
+  }
+
+  private static Path regionFile(Path regionDirectory, int chunkX, int chunkZ) {
+    return regionDirectory.resolve("r."
+        + Math.floorDiv(chunkX, REGION_SIDE_LENGTH) + "."
+        + Math.floorDiv(chunkZ, REGION_SIDE_LENGTH) + ".mca");
+  }
+
+  private static int indexInRegion(int chunkX, int chunkZ) {
+    return Math.floorMod(chunkX, REGION_SIDE_LENGTH) + Math.floorMod(chunkZ, REGION_SIDE_LENGTH) * REGION_SIDE_LENGTH;
+  }
+
+  /**
+   * A chunk as it is stored in a region file.
+   *
+   * @param compression the type of compression of the data
+   * @param data        the compressed data
+   * @param timestamp   the epoch second the chunk was last saved
+   */
+  private record SavedData(int compression, byte[] data, long timestamp) {
+  }
+
+}
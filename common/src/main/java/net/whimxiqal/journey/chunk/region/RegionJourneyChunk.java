@@ -0,0 +1,65 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.chunk.region;
+
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.chunk.ChunkId;
+import net.whimxiqal.journey.proxy.JourneyBlock;
+import net.whimxiqal.journey.proxy.JourneyChunk;
+import net.whimxiqal.journey.search.flag.FlagSet;
+
+/**
+ * A {@link JourneyChunk} read from a region file instead of from the server.
+ * Platforms turn its block states into their own blocks.
+ */
+public abstract class RegionJourneyChunk extends JourneyChunk {
+
+  private RegionChunk blocks;  // released once classified
+
+  public RegionJourneyChunk(ChunkId id, RegionChunk blocks) {
+    super(id);
+    this.blocks = blocks;
+  }
+
+  @Override
+  public JourneyBlock realBlock(int x, int y, int z, FlagSet flagSet) {
+    return toBlock(toCell(x, y, z), blocks.blockState(x, y, z), blocks.blockState(x, y - 1, z), flagSet);
+  }
+
+  /**
+   * Create a block from its saved state.
+   *
+   * @param cell       the location of the block
+   * @param state      the block's state, as given by {@link RegionChunk#blockState}
+   * @param stateBelow the state of the block below it
+   * @param flagSet    the set of flags that may modify world/block behavior
+   * @return the block
+   */
+  protected abstract JourneyBlock toBlock(Cell cell, String state, String stateBelow, FlagSet flagSet);
+
+  @Override
+  protected void releaseBlockData() {
+    blocks = null;
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.chunk.store;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import net.whimxiqal.journey.Journey;
+import net.whimxiqal.journey.chunk.ChunkId;
+
+/**
+ * A background job that fills a {@link NavigabilityStore} with every chunk in a square around a world's origin,
+ * nearest chunks first.
+ *
+ * <p>The platform reads chunks from the world's saved files, classifies them, and stores them asynchronously,
+ * so as many chunks are done at once as there are cores. They skip the
+ * {@link net.whimxiqal.journey.chunk.CentralChunkCache}, so a large bake doesn't evict the chunks that searches
+ * are using. Chunks that can't be read from the world's saved files, like loaded chunks or chunks saved by older
+ * versions of Minecraft, are skipped, since the server would have to load them and they could not be stored
+ * anyway. Chunks are done in batches,
+ * and after each batch the progress is saved to a checkpoint file, so the bake continues where it left off
+ * after a restart. Chunks that are already stored and haven't changed since are skipped quickly,
+ * so baking the same area again only refreshes chunks that changed.
+ *
+ * <p>All state, including the checkpoint file, is only accessed on the main server thread.
+ */
+final class NavigabilityBake {
+
+  private static final int BATCH_SIZE = 256;
+  private static final String WORLD_KEY = "world";
+  private static final String RADIUS_KEY = "radius";
+  private static final String NEXT_KEY = "next";
+
+  private final NavigabilityStore store;
+  private final Path checkpoint;
+  private final UUID world;
+  private final int radius;
+  private final long total;
+  private final int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors());
+  private int domain;
+  private long next;  // the first chunk of the current batch
+  private long batchNext;
+  private long batchEnd;
+  private long batchRemaining;
+  private boolean cancelled = false;
+
+  NavigabilityBake(NavigabilityStore store, Path checkpoint, UUID world, int radius, long next) {
+    if (radius < 0) {
+      throw new IllegalArgumentException("The radius may not be negative");
+    }
+    this.store = store;
+    this.checkpoint = checkpoint;
+    this.world = world;
+    this.radius = radius;
+    this.total = (2L * radius + 1) * (2L * radius + 1);
+    this.next = next;
+  }
+
+  /**
+   * Read an interrupted bake from its checkpoint file.
+   *
+   * @param store      the store
+   * @param checkpoint the checkpoint file
+   * @return the bake
+   * @throws IOException if the file could not be read
+   */
+  static NavigabilityBake resume(NavigabilityStore store, Path checkpoint) throws IOException {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(checkpoint)) {
+      properties.load(reader);
+    }
+    try {
+      return new NavigabilityBake(store, checkpoint,
+          UUID.fromString(properties.getProperty(WORLD_KEY)),
+          Integer.parseInt(properties.getProperty(RADIUS_KEY)),
+          Long.parseLong(properties.getProperty(NEXT_KEY)));
+    } catch (NullPointerException | NumberFormatException e) {
+      throw new IllegalArgumentException("The checkpoint file is malformed");
+    }
+  }
+
+  /**
+   * Get the location of a chunk in the bake, in order of increasing distance from the origin.
+   * Chunk 0 is the origin, followed by each square ring around it.
+   *
+   * @param index the index of the chunk
+   * @return the chunk's x and z coordinates
+   */
+  static int[] chunkAt(long index) {
+    if (index == 0) {
+      return new int[]{0, 0};
+    }
+    // ring k is the square of side 2k + 1 minus the square of side 2k - 1, which has 8k chunks
+    int ring = (int) ((((long) Math.sqrt(index)) + 1) / 2);
+    long inner = (2L * ring - 1) * (2L * ring - 1);
+    int position = (int) (index - inner);
+    int side = position / (2 * ring);
+    int offset = position % (2 * ring);
+    return switch (side) {
+      case 0 -> new int[]{-ring + offset, -ring};
+      case 1 -> new int[]{ring, -ring + offset};
+      case 2 -> new int[]{ring - offset, ring};
+      default -> new int[]{-ring, ring - offset};
+    };
+  }
+
+  UUID world() {
+    return world;
+  }
+
+  int radius() {
+    return radius;
+  }
+
+  /**
+   * Create a new bake that starts where this one is.
+   *
+   * @return the copy
+   */
+  NavigabilityBake copy() {
+    return new NavigabilityBake(store, checkpoint, world, radius, next);
+  }
+
+  void start() {
+    domain = Journey.get().domainManager().domainIndex(world);
+    if (Journey.get().proxy().platform().domainResourceKeys().values().stream().noneMatch(keys -> keys.containsValue(domain))) {
+      Journey.logger().warn("Could not bake navigability of world " + world + " because it isn't loaded");
+      return;
+    }
+    Journey.logger().info("Baking navigability of " + Journey.get().proxy().platform().domainName(domain)
+        + " within " + radius + " chunks of its origin (" + (next * 100 / total) + "% done)");
+    saveCheckpoint();
+    submitBatch();
+  }
+
+  void cancel() {
+    cancelled = true;
+  }
+
+  private void submitBatch() {
+    if (cancelled) {
+      return;
+    }
+    if (next >= total) {
+      finish();
+      return;
+    }
+    batchNext = next;
+    batchEnd = Math.min(next + BATCH_SIZE, total);
+    batchRemaining = batchEnd - batchNext;
+    for (int i = 0; i < parallelism && batchNext < batchEnd; i++) {
+      submitNext();
+    }
+  }
+
+  private void submitNext() {
+    int[] location = chunkAt(batchNext++);
+    Journey.get().proxy().platform().storeSavedChunk(new ChunkId(domain, location[0], location[1]))
+        .whenComplete((stored, exception) -> Journey.get().proxy().schedulingManager().schedule(this::completeOne, false));
+  }
+
+  private void completeOne() {
+    if (cancelled) {
+      return;
+    }
+    if (batchNext < batchEnd) {
+      submitNext();
+    }
+    batchRemaining--;
+    if (batchRemaining > 0) {
+      return;
+    }
+    long previousPercent = next * 100 / total;
+    next = batchEnd;
+    long percent = next * 100 / total;
+    if (percent / 10 != previousPercent / 10 && next < total) {
+      Journey.logger().info("Baked navigability of " + next + " of " + total + " chunks (" + percent + "%)");
+    }
+    saveCheckpoint();
+    submitBatch();
+  }
+
+  private void finish() {
+    Journey.logger().info("Finished baking navigability of " + total + " chunks");
+    try {
+      Files.deleteIfExists(checkpoint);
+    } catch (IOException e) {
+      Journey.logger().error("Could not delete navigability bake checkpoint " + checkpoint + ": " + e.getMessage());
+    }
+  }
+
+  private void saveCheckpoint() {
+    // it's a tiny file, written once per batch, so write it right away to keep checkpoints in order
+    Properties properties = new Properties();
+    properties.putAll(Map.of(WORLD_KEY, world.toString(),
+        RADIUS_KEY, Integer.toString(radius),
+        NEXT_KEY, Long.toString(next)));
+    try {
+      Files.createDirectories(checkpoint.getParent());
+      try (Writer writer = Files.newBufferedWriter(checkpoint)) {
+        properties.store(writer, "Progress of baking navigability, to resume it after a restart");
+      }
+    } catch (IOException e) {
+      Journey.logger().error("Could not save navigability bake checkpoint " + checkpoint + ": " + e.getMessage());
+    }
+  }
+
+}
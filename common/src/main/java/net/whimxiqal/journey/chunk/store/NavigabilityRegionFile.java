@@ -0,0 +1,239 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.chunk.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * One file of a {@link NavigabilityStore}, holding the saved navigability of up to 32x32 chunks,
+ * laid out like a Minecraft region file.
+ *
+ * <p>The file starts with a fixed header with one entry per chunk: where the chunk's data is stored,
+ * how much room it has there, how long it is, a hash of it, and the version of the chunk it was computed from.
+ * The header is memory-mapped, so looking up an entry doesn't need any reads. Data follows the header.
+ * A chunk's new data is written over its old data if it fits, otherwise it is moved to the first free space
+ * that fits, or to the end of the file. Space that no entry uses any more is reused, and free space at the end
+ * of the file is cut off, so the file doesn't keep growing as chunks are written again.
+ * Reused space may still be listed under its old entry if the header didn't make it to disk,
+ * but the hash of that entry then tells it apart.
+ *
+ * <p>Not thread-safe.
+ */
+final class NavigabilityRegionFile implements Closeable {
+
+  static final int REGION_SIDE_LENGTH = 32;
+  private static final int MAGIC = 0x4A4E4156;  // "JNAV"
+  // bump this whenever the meaning of the stored data changes, so old files are discarded
+  private static final int FORMAT_VERSION = 1;
+  private static final int PREAMBLE_BYTES = 2 * Integer.BYTES;
+  // offset (long), capacity (int), length (int), hash (int), version (long)
+  private static final int ENTRY_BYTES = Long.BYTES + 3 * Integer.BYTES + Long.BYTES;
+  private static final int HEADER_BYTES = PREAMBLE_BYTES + REGION_SIDE_LENGTH * REGION_SIDE_LENGTH * ENTRY_BYTES;
+
+  private final FileChannel channel;
+  private final MappedByteBuffer header;
+  private final TreeMap<Long, Long> free = new TreeMap<>();  // offset -> length of space that no entry uses
+  private boolean closed = false;
+
+  NavigabilityRegionFile(Path file) throws IOException {
+    channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+    boolean fresh = channel.size() < HEADER_BYTES;
+    if (fresh) {
+      channel.truncate(0);
+      writeFully(ByteBuffer.allocate(HEADER_BYTES), 0);
+    }
+    header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+    if (!fresh && (header.getInt(0) != MAGIC || header.getInt(Integer.BYTES) != FORMAT_VERSION)) {
+      // written by an incompatible version, so start over
+      channel.truncate(HEADER_BYTES);
+      for (int i = 0; i < HEADER_BYTES; i++) {
+        header.put(i, (byte) 0);
+      }
+    }
+    header.putInt(0, MAGIC);
+    header.putInt(Integer.BYTES, FORMAT_VERSION);
+    findFreeSpace();
+  }
+
+  private void findFreeSpace() throws IOException {
+    TreeMap<Long, Integer> used = new TreeMap<>();
+    for (int localX = 0; localX < REGION_SIDE_LENGTH; localX++) {
+      for (int localZ = 0; localZ < REGION_SIDE_LENGTH; localZ++) {
+        int entry = entryPosition(localX, localZ);
+        long offset = header.getLong(entry);
+        if (offset != 0) {
+          used.put(offset, header.getInt(entry + Long.BYTES));
+        }
+      }
+    }
+    long end = HEADER_BYTES;
+    for (Map.Entry<Long, Integer> extent : used.entrySet()) {
+      if (extent.getKey() > end) {
+        free.put(end, extent.getKey() - end);
+      }
+      end = Math.max(end, extent.getKey() + extent.getValue());
+    }
+    if (end < channel.size()) {
+      channel.truncate(end);
+    }
+  }
+
+  private static int entryPosition(int localX, int localZ) {
+    return PREAMBLE_BYTES + (localX + localZ * REGION_SIDE_LENGTH) * ENTRY_BYTES;
+  }
+
+  private static int hash(byte[] data) {
+    CRC32C crc = new CRC32C();
+    crc.update(data);
+    return (int) crc.getValue();
+  }
+
+  /**
+   * Read the data of a chunk.
+   *
+   * @param localX  the chunk's x coordinate within the region [0-32)
+   * @param localZ  the chunk's z coordinate within the region [0-32)
+   * @param version the version the data must have been computed from
+   * @return the data, or null if there is none for that version or it is corrupted
+   * @throws IOException if the file could not be read
+   */
+  @Nullable
+  byte[] read(int localX, int localZ, long version) throws IOException {
+    int entry = entryPosition(localX, localZ);
+    long offset = header.getLong(entry);
+    int length = header.getInt(entry + Long.BYTES + Integer.BYTES);
+    if (offset == 0 || length <= 0 || header.getLong(entry + Long.BYTES + 3 * Integer.BYTES) != version) {
+      return null;
+    }
+    if (offset + length > channel.size()) {
+      return null;  // the data never made it to disk
+    }
+    ByteBuffer data = ByteBuffer.allocate(length);
+    while (data.hasRemaining()) {
+      if (channel.read(data, offset + data.position()) < 0) {
+        return null;
+      }
+    }
+    if (hash(data.array()) != header.getInt(entry + Long.BYTES + 2 * Integer.BYTES)) {
+      return null;  // torn or corrupted write
+    }
+    return data.array();
+  }
+
+  /**
+   * Write the data of a chunk, replacing whatever was there.
+   *
+   * @param localX  the chunk's x coordinate within the region [0-32)
+   * @param localZ  the chunk's z coordinate within the region [0-32)
+   * @param version the version of the chunk the data was computed from
+   * @param data    the data
+   * @throws IOException if the file could not be written to
+   */
+  void write(int localX, int localZ, long version, byte[] data) throws IOException {
+    int entry = entryPosition(localX, localZ);
+    long offset = header.getLong(entry);
+    int capacity = header.getInt(entry + Long.BYTES);
+    long releasedOffset = 0;
+    int releasedCapacity = 0;
+    // clear the entry first, so it's never read with half-written data
+    header.putInt(entry + Long.BYTES + Integer.BYTES, 0);
+    if (offset == 0 || data.length > capacity) {
+      // it doesn't fit where it was, so move it and free its old space once it's moved
+      releasedOffset = offset;
+      releasedCapacity = capacity;
+      offset = allocate(data.length);
+      capacity = data.length;
+    }
+    writeFully(ByteBuffer.wrap(data), offset);
+    header.putLong(entry, offset);
+    header.putInt(entry + Long.BYTES, capacity);
+    header.putInt(entry + Long.BYTES + Integer.BYTES, data.length);
+    header.putInt(entry + Long.BYTES + 2 * Integer.BYTES, hash(data));
+    header.putLong(entry + Long.BYTES + 3 * Integer.BYTES, version);
+    if (releasedOffset != 0) {
+      release(releasedOffset, releasedCapacity);
+    }
+  }
+
+  private long allocate(int length) throws IOException {
+    for (Map.Entry<Long, Long> extent : free.entrySet()) {
+      long offset = extent.getKey();
+      long extentLength = extent.getValue();
+      if (extentLength >= length) {
+        free.remove(offset);
+        if (extentLength > length) {
+          free.put(offset + length, extentLength - length);
+        }
+        return offset;
+      }
+    }
+    return Math.max(channel.size(), HEADER_BYTES);
+  }
+
+  private void release(long offset, long length) throws IOException {
+    Map.Entry<Long, Long> before = free.floorEntry(offset);
+    if (before != null && before.getKey() + before.getValue() == offset) {
+      offset = before.getKey();
+      length += before.getValue();
+      free.remove(offset);
+    }
+    Long after = free.get(offset + length);
+    if (after != null) {
+      free.remove(offset + length);
+      length += after;
+    }
+    if (offset + length >= channel.size()) {
+      channel.truncate(offset);
+    } else {
+      free.put(offset, length);
+    }
+  }
+
+  private void writeFully(ByteBuffer data, long offset) throws IOException {
+    while (data.hasRemaining()) {
+      channel.write(data, offset + data.position());
+    }
+  }
+
+  boolean isClosed() {
+    return closed;
+  }
+
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    header.force();
+    channel.close();
+  }
+
+}
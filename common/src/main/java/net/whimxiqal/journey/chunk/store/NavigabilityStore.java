@@ -0,0 +1,261 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.chunk.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import net.whimxiqal.journey.Journey;
+import net.whimxiqal.journey.proxy.NavigabilityMap;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An on-disk store of the {@link NavigabilityMap} of chunks, so chunks that haven't changed since they were last
+ * classified don't need to be read and classified again, even after a restart.
+ *
+ * <p>Each world has its own directory of region-style files, each holding 32x32 chunks
+ * (see {@link NavigabilityRegionFile}). Every entry is compressed, hashed, and tagged with the version of the chunk
+ * it was computed from, which changes whenever the server saves changes to the chunk (see
+ * {@link net.whimxiqal.journey.chunk.region.RegionFile#version}). An entry is only returned for
+ * the same version, so entries of chunks that changed since are ignored until they are written again.
+ *
+ * <p>Thread-safe. Each file is locked on its own, so chunks in different files are read and written in parallel.
+ */
+public final class NavigabilityStore {
+
+  private static final int MAX_OPEN_FILES = 64;
+  private static final String CHECKPOINT_FILE = "bake.properties";
+
+  private final Path directory;
+  // least recently used first, guarded by itself. Each file is guarded by itself too,
+  //  and may be locked while holding the lock on this map, but never the other way around
+  private final Map<RegionKey, NavigabilityRegionFile> openFiles = new LinkedHashMap<>(16, 0.75f, true);
+  private boolean closed = false;  // guarded by openFiles
+  private NavigabilityBake bake;  // main thread only
+
+  public NavigabilityStore(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Resume a bake that was interrupted by a shutdown, if there is one.
+   */
+  public void initialize() {
+    Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+    if (!Files.isRegularFile(checkpoint)) {
+      return;
+    }
+    Journey.get().proxy().schedulingManager().schedule(() -> {
+      try {
+        bake = NavigabilityBake.resume(this, checkpoint);
+      } catch (IOException | IllegalArgumentException e) {
+        Journey.logger().warn("Could not resume baking navigability from " + checkpoint + ": " + e.getMessage());
+        return;
+      }
+      if (bake != null) {
+        bake.start();
+      }
+    }, false);
+  }
+
+  public void shutdown() {
+    if (bake != null) {
+      bake.cancel();
+      bake = null;
+    }
+    List<NavigabilityRegionFile> files;
+    synchronized (openFiles) {
+      closed = true;
+      files = new ArrayList<>(openFiles.values());
+      openFiles.clear();
+    }
+    for (NavigabilityRegionFile file : files) {
+      close(file);
+    }
+  }
+
+  private static void close(NavigabilityRegionFile file) {
+    synchronized (file) {
+      try {
+        file.close();
+      } catch (IOException e) {
+        Journey.logger().error("Could not close navigability file: " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Start filling this store with every chunk in a square around a world's origin, in the background.
+   * If the same bake was interrupted, it continues from where it left off. Otherwise, any other ongoing bake
+   * is cancelled. Runs on the main server thread.
+   *
+   * @param world  the world's id
+   * @param radius the radius of the square, in chunks
+   * @return true if an earlier bake was resumed, false if a new one was started
+   */
+  public boolean bake(UUID world, int radius) {
+    Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+    NavigabilityBake resumed = null;
+    if (bake != null) {
+      bake.cancel();
+      if (bake.world().equals(world) && bake.radius() == radius) {
+        resumed = bake.copy();
+      }
+      bake = null;
+    } else if (Files.isRegularFile(checkpoint)) {
+      try {
+        resumed = NavigabilityBake.resume(this, checkpoint);
+      } catch (IOException | IllegalArgumentException e) {
+        Journey.logger().warn("Could not read navigability bake checkpoint " + checkpoint + ": " + e.getMessage());
+      }
+      if (resumed != null && (!resumed.world().equals(world) || resumed.radius() != radius)) {
+        resumed = null;
+      }
+    }
+    bake = resumed == null ? new NavigabilityBake(this, checkpoint, world, radius, 0) : resumed;
+    bake.start();
+    return resumed != null;
+  }
+
+  /**
+   * Read the navigability of a chunk.
+   *
+   * @param world   the world's id
+   * @param chunkX  the chunk x coordinate
+   * @param chunkZ  the chunk z coordinate
+   * @param version the version of the chunk as it is now
+   * @return the navigability, or null if it isn't stored for this version of the chunk
+   * @throws IOException if the store could not be read
+   */
+  @Nullable
+  public NavigabilityMap read(UUID world, int chunkX, int chunkZ, long version) throws IOException {
+    byte[] data = null;
+    while (true) {
+      NavigabilityRegionFile file = file(world, chunkX, chunkZ, false);
+      if (file == null) {
+        break;
+      }
+      synchronized (file) {
+        if (!file.isClosed()) {
+          data = file.read(Math.floorMod(chunkX, NavigabilityRegionFile.REGION_SIDE_LENGTH),
+              Math.floorMod(chunkZ, NavigabilityRegionFile.REGION_SIDE_LENGTH),
+              version);
+          break;
+        }
+      }
+      // it was closed to make room for other files since we got it, so open it again
+    }
+    if (data == null) {
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+      return NavigabilityMap.read(in);
+    }
+  }
+
+  /**
+   * Store the navigability of a chunk, replacing any that was stored before.
+   *
+   * @param world        the world's id
+   * @param chunkX       the chunk x coordinate
+   * @param chunkZ       the chunk z coordinate
+   * @param version      the version of the chunk the navigability was computed from
+   * @param navigability the navigability
+   * @throws IOException if the store could not be written to
+   */
+  public void write(UUID world, int chunkX, int chunkZ, long version, NavigabilityMap navigability) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+      navigability.write(out);
+    }
+    byte[] data = bytes.toByteArray();
+    while (true) {
+      NavigabilityRegionFile file = file(world, chunkX, chunkZ, true);
+      if (file == null) {
+        return;
+      }
+      synchronized (file) {
+        if (!file.isClosed()) {
+          file.write(Math.floorMod(chunkX, NavigabilityRegionFile.REGION_SIDE_LENGTH),
+              Math.floorMod(chunkZ, NavigabilityRegionFile.REGION_SIDE_LENGTH),
+              version,
+              data);
+          return;
+        }
+      }
+      // it was closed to make room for other files since we got it, so open it again
+    }
+  }
+
+  /**
+   * Get the open file of a region, opening it if necessary.
+   * The lock on the open files is only held to find the file, or to open it if it isn't open yet,
+   * so reads and writes of other files aren't held up. The file may be closed before the caller locks it.
+   */
+  @Nullable
+  private NavigabilityRegionFile file(UUID world, int chunkX, int chunkZ, boolean create) throws IOException {
+    RegionKey key = new RegionKey(world,
+        Math.floorDiv(chunkX, NavigabilityRegionFile.REGION_SIDE_LENGTH),
+        Math.floorDiv(chunkZ, NavigabilityRegionFile.REGION_SIDE_LENGTH));
+    NavigabilityRegionFile file;
+    synchronized (openFiles) {
+      if (closed) {
+        return null;
+      }
+      file = openFiles.get(key);
+      if (file != null) {
+        return file;
+      }
+      Path path = directory.resolve(world.toString()).resolve("r." + key.x() + "." + key.z() + ".jnav");
+      if (!create && !Files.isRegularFile(path)) {
+        return null;
+      }
+      Files.createDirectories(path.getParent());
+      if (openFiles.size() >= MAX_OPEN_FILES) {
+        Iterator<NavigabilityRegionFile> leastRecentlyUsed = openFiles.values().iterator();
+        // close it before anyone can open it again, once the reads and writes that are using it are done
+        close(leastRecentlyUsed.next());
+        leastRecentlyUsed.remove();
+      }
+      file = new NavigabilityRegionFile(path);
+      openFiles.put(key, file);
+    }
+    return file;
+  }
+
+  private record RegionKey(UUID world, int x, int z) {
+  }
+
+}
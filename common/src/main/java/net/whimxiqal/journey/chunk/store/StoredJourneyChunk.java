@@ -0,0 +1,46 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.chunk.store;
+
+import net.whimxiqal.journey.chunk.ChunkId;
+import net.whimxiqal.journey.proxy.JourneyBlock;
+import net.whimxiqal.journey.proxy.JourneyChunk;
+import net.whimxiqal.journey.proxy.NavigabilityMap;
+import net.whimxiqal.journey.search.flag.FlagSet;
+
+/**
+ * A chunk read from the {@link NavigabilityStore}, which was classified when it was stored,
+ * so it never needs any block data.
+ */
+public final class StoredJourneyChunk extends JourneyChunk {
+
+  public StoredJourneyChunk(ChunkId id, NavigabilityMap navigability) {
+    super(id, navigability);
+  }
+
+  @Override
+  protected JourneyBlock realBlock(int x, int y, int z, FlagSet flagSet) {
+    throw new IllegalStateException("A stored chunk is always classified");
+  }
+
+}
@@ -85,12 +85,19 @@ public class JourneyConnectorProvider {
                   return Journey.get().navigatorManager().provideNavigatorOptionsSuggestions(ctx.source(), navigatorType, ctx.identifiers().get(ctx.identifiers().getAll().size() - 1));
                 })
                 .build())
+            .addParameter(Parameter.builder("world")
+                .options(ctx -> Journey.get().proxy().platform().domainResourceKeys().values().stream()
+                    .flatMap(keys -> keys.values().stream())
+                    .map(domain -> Journey.get().proxy().platform().domainName(domain))
+                    .collect(Collectors.toList()))
+                .build())
             .registerCompletion(JourneyParser.RULE_waypoint, 0, "waypoint")
             .registerCompletion(JourneyParser.RULE_serverWaypoint, 0, "server-waypoint")
             .registerCompletion(JourneyParser.RULE_journeytoTarget, 0, "scope")
             .registerCompletion(JourneyParser.RULE_player, 0, "player")
             .registerCompletion(JourneyParser.RULE_navigatorFlag, 0, "navigator")
             .registerCompletion(JourneyParser.RULE_navigatorFlag, 1, "navigator-options")
+            .registerCompletion(JourneyParser.RULE_bake, 0, "world")
             .build())
         // RULE_waypoint is handled in executor
         .addPermission(JourneyParser.RULE_setwaypoint, Permission.EDIT_PERSONAL.path())
@@ -108,6 +115,7 @@ public class JourneyConnectorProvider {
         .addPermission(JourneyParser.RULE_debug, Permission.ADMIN_DEBUG.path())
         .addPermission(JourneyParser.RULE_cache, Permission.ADMIN_CACHE.path())
         .addPermission(JourneyParser.RULE_listNetherPortals, Permission.ADMIN_INFO.path())
+        .addPermission(JourneyParser.RULE_bake, Permission.ADMIN_BAKE.path())
         // other admin commands are handled in executor
         .addPermission(JourneyParser.RULE_cancel, Permission.CANCEL.path())
         .addPermission(JourneyParser.RULE_timeoutFlag, Permission.FLAG_TIMEOUT.path())
@@ -115,6 +123,9 @@ public class JourneyConnectorProvider {
         .addPermission(JourneyParser.RULE_flyFlag, Permission.FLAG_FLY.path())
         .addPermission(JourneyParser.RULE_doorFlag, Permission.FLAG_DOOR.path())
         .addPermission(JourneyParser.RULE_digFlag, Permission.FLAG_DIG.path())
+        .addPermission(JourneyParser.RULE_bidirectionalFlag, Permission.FLAG_BIDIRECTIONAL.path())
+        .addPermission(JourneyParser.RULE_hierarchicalFlag, Permission.FLAG_HIERARCHICAL.path())
+        .addPermission(JourneyParser.RULE_anytimeFlag, Permission.FLAG_ANYTIME.path())
         .addPermission(JourneyParser.RULE_navigatorFlag, Permission.FLAG_NAVIGATOR.path())
         .lexer(JourneyLexer.class)
         .parser(JourneyParser.class)
@@ -34,6 +34,7 @@ import net.whimxiqal.journey.InternalJourneyPlayer;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.common.JourneyBaseVisitor;
 import net.whimxiqal.journey.common.JourneyParser;
+import net.whimxiqal.journey.config.Settings;
 import net.whimxiqal.journey.data.PersonalWaypointManager;
 import net.whimxiqal.journey.data.PublicWaypointManager;
 import net.whimxiqal.journey.data.TunnelType;
@@ -188,6 +189,7 @@ public class JourneyExecutor implements CommandExecutor {
         } else if (ctx.clear != null) {
           Journey.get().proxy().schedulingManager().schedule(() -> {
             Journey.get().proxy().dataManager().pathRecordManager().truncate();
+            Journey.get().tunnelGraph().clearRecords();
             Messages.COMMAND_ADMIN_PATH_CACHE_CLEAR.sendTo(src.audience(), Formatter.SUCCESS);
           }, true);
           return CommandResult.success();
@@ -195,6 +197,34 @@ public class JourneyExecutor implements CommandExecutor {
         return CommandResult.failure();
       }
 
+      @Override
+      public CommandResult visitBake(JourneyParser.BakeContext ctx) {
+        if (!Settings.READ_REGION_FILES.getValue()) {
+          Messages.COMMAND_ADMIN_BAKE_UNAVAILABLE.sendTo(src.audience(), Formatter.ERROR);
+          return CommandResult.failure();
+        }
+        String worldName = cmd.identifiers().get(0);
+        Optional<Integer> domain = Journey.get().proxy().platform().domainResourceKeys().values().stream()
+            .flatMap(keys -> keys.values().stream())
+            .filter(d -> Journey.get().proxy().platform().domainName(d).equals(worldName))
+            .findFirst();
+        if (domain.isEmpty()) {
+          Messages.COMMAND_ADMIN_BAKE_UNKNOWN_WORLD.sendTo(src.audience(), Formatter.ERROR, worldName);
+          return CommandResult.failure();
+        }
+        int radius;
+        try {
+          radius = Integer.parseUnsignedInt(ctx.radius.getText());
+        } catch (NumberFormatException e) {
+          Messages.COMMAND_INVALID_INPUT.sendTo(src.audience(), Formatter.ERROR, ctx.radius.getText());
+          return CommandResult.failure();
+        }
+        boolean resumed = Journey.get().navigabilityStore().bake(Journey.get().domainManager().domainId(domain.get()), radius);
+        (resumed ? Messages.COMMAND_ADMIN_BAKE_RESUME : Messages.COMMAND_ADMIN_BAKE_START)
+            .sendTo(src.audience(), Formatter.SUCCESS, worldName, Integer.toString(radius));
+        return CommandResult.success();
+      }
+
       @Override
       public CommandResult visitListNetherPortals(JourneyParser.ListNetherPortalsContext ctx) {
         Optional<Integer> page = getPage(ctx.page);
@@ -800,6 +830,42 @@ public class JourneyExecutor implements CommandExecutor {
         return super.visitDigFlag(ctx);
       }
 
+      @Override
+      public CommandResult visitBidirectionalFlag(JourneyParser.BidirectionalFlagContext ctx) {
+        if (ctx.TRUE() != null) {
+          flags.addFlag(Flags.BIDIRECTIONAL, true);
+        } else if (ctx.FALSE() != null) {
+          flags.addFlag(Flags.BIDIRECTIONAL, false);
+        } else {
+          flags.addFlag(Flags.BIDIRECTIONAL, !Flags.BIDIRECTIONAL.defaultValue());
+        }
+        return super.visitBidirectionalFlag(ctx);
+      }
+
+      @Override
+      public CommandResult visitHierarchicalFlag(JourneyParser.HierarchicalFlagContext ctx) {
+        if (ctx.TRUE() != null) {
+          flags.addFlag(Flags.HIERARCHICAL, true);
+        } else if (ctx.FALSE() != null) {
+          flags.addFlag(Flags.HIERARCHICAL, false);
+        } else {
+          flags.addFlag(Flags.HIERARCHICAL, !Flags.HIERARCHICAL.defaultValue());
+        }
+        return super.visitHierarchicalFlag(ctx);
+      }
+
+      @Override
+      public CommandResult visitAnytimeFlag(JourneyParser.AnytimeFlagContext ctx) {
+        if (ctx.TRUE() != null) {
+          flags.addFlag(Flags.ANYTIME, true);
+        } else if (ctx.FALSE() != null) {
+          flags.addFlag(Flags.ANYTIME, false);
+        } else {
+          flags.addFlag(Flags.ANYTIME, !Flags.ANYTIME.defaultValue());
+        }
+        return super.visitAnytimeFlag(ctx);
+      }
+
       @Override
       public CommandResult visitNavigatorFlag(JourneyParser.NavigatorFlagContext ctx) {
         NavigatorDetails navigatorDetails = Journey.get().navigatorManager().parseNavigatorFlagDefinition(src,
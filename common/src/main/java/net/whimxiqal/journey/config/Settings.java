@@ -55,6 +55,15 @@ public final class Settings {
   public static final Setting<Boolean> DEFAULT_DIG_FLAG
       = new BooleanSetting("search.flag.default-dig", false, true);
 
+  public static final Setting<Boolean> DEFAULT_BIDIRECTIONAL_FLAG
+      = new BooleanSetting("search.flag.default-bidirectional", false, true);
+
+  public static final Setting<Boolean> DEFAULT_HIERARCHICAL_FLAG
+      = new BooleanSetting("search.flag.default-hierarchical", false, true);
+
+  public static final Setting<Boolean> DEFAULT_ANYTIME_FLAG
+      = new BooleanSetting("search.flag.default-anytime", false, true);
+
   public static final Setting<String> DEFAULT_NAVIGATOR
       = new StringSetting("search.flag.default-navigator", TrailNavigator.TRAIL_NAVIGATOR_ID, true);
 
@@ -88,6 +97,21 @@ public final class Settings {
   public static final Setting<Integer> MAX_SEARCHES
       = new IntegerSetting("search.max-searches", 16, false, 0, Integer.MAX_VALUE);
 
+  public static final Setting<Integer> CHUNK_CACHE_MAX_MEGABYTES
+      = new IntegerSetting("search.chunk-cache.max-megabytes", 128, false, 1, Integer.MAX_VALUE);
+
+  public static final Setting<Boolean> READ_REGION_FILES
+      = new BooleanSetting("search.chunk-cache.read-region-files", true, false);
+
+  public static final Setting<Integer> CHUNK_TICK_BUDGET
+      = new IntegerSetting("search.chunk-tick-budget", 2000000, false, 100000, 50000000);
+
+  public static final Setting<Integer> PARALLEL_SEARCH_THREADS
+      = new IntegerSetting("search.parallel-threads", 1, false, 1, 64);
+
+  public static final Setting<Integer> PARALLEL_SEARCH_MIN_DISTANCE
+      = new IntegerSetting("search.parallel-min-distance", 128, false, 0, Integer.MAX_VALUE);
+
   public static final Setting<Integer> MAX_CACHED_CELLS
       = new IntegerSetting("storage.cache.max-cells", 500000, true, 1, Integer.MAX_VALUE) /* Default is somewhere around 10-20 MB */;
 
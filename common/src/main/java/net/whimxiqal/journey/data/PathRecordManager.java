@@ -86,8 +86,9 @@ public interface PathRecordManager {
    * @param origin      the original cell
    * @param destination the destination cell
    * @param modeTypes   the mode types used to traverse to the destination
-   * @return the new path
+   * @return the new path, or null if there is no record
    */
+  @Nullable
   Path getPath(Cell origin, Cell destination, Set<ModeType> modeTypes);
 
   /**
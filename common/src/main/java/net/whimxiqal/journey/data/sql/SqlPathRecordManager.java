@@ -320,6 +320,9 @@ public class SqlPathRecordManager
     try (Connection connection = getConnectionController().establishConnection()) {
       PathTrialRecord record = findRecordWithModes(getRecordsWithoutCells(origin, destination),
           modeTypeGroup);
+      if (record == null) {
+        return null;
+      }
 
       ResultSet cellResult = connection.prepareStatement("SELECT * FROM "
           + SqlManager.CACHED_PATH_CELLS_TABLE
@@ -27,6 +27,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import net.whimxiqal.journey.Journey;
 
 /**
@@ -119,30 +120,49 @@ public class DistributedWorkManager {
 
       if (done) {
         synchronized (manager.lock) {
-          boolean targetOwnerDone = target.setInactive();
-          if (targetOwnerDone) {
-            // Some replacements may have been queued while this target was running.
-            // But, this owner is done, so there are no more opportunities for any scheduled replacements to run.
-            // Just requeue them, and set the first one to active
-            LinkedList<WorkItemExecutor> replacements = manager.workReplacementMap.remove(target.work.owner());
-            if (replacements != null) {
-              boolean usedSlot = false;
-              for (WorkItemExecutor replacement : replacements) {
-                if (!usedSlot) {
-                  replacement.setActive();
-                  usedSlot = true;
-                }
-                manager.execute(replacement);
-              }
-            }
-          }
+          target.release();
+        }
+        return;
+      }
+
+      CompletableFuture<?> blocker = target.work.blocker();
+      if (blocker != null && !blocker.isDone()) {
+        // Work is waiting on something else. Give up the active slot so other work can use this thread,
+        //  and come back once the blocker is resolved. The work keeps its state, so it is not reset.
+        synchronized (manager.lock) {
+          target.release();
         }
+        final WorkItemExecutor parked = target;
+        blocker.whenComplete((result, exception) -> manager.execute(parked));
       } else {
         // Work is not done. Re-schedule.
         manager.execute(target);
       }
     }
 
+    /**
+     * Give up this executor's active slot. Must be called while holding the manager's lock.
+     */
+    private void release() {
+      boolean ownerDone = setInactive();
+      if (ownerDone) {
+        // Some replacements may have been queued while this was running.
+        // But, this owner has no more active work, so there are no more opportunities for any
+        // scheduled replacements to run. Just requeue them, and set the first one to active
+        LinkedList<WorkItemExecutor> replacements = manager.workReplacementMap.remove(work.owner());
+        if (replacements != null) {
+          boolean usedSlot = false;
+          for (WorkItemExecutor replacement : replacements) {
+            if (!usedSlot) {
+              replacement.setActive();
+              usedSlot = true;
+            }
+            manager.execute(replacement);
+          }
+        }
+      }
+    }
+
     private void setActive() {
       active = true;
       manager.activeWorkItems++;
@@ -80,6 +80,7 @@ public final class NetherManager {
       Journey.get().proxy().schedulingManager().schedule(() -> {
         for (NetherTunnel tunnel : tunnelsToRemove) {
           portalConnections.remove(tunnel.origin(), tunnel.destination());
+          Journey.get().tunnelGraph().invalidate();
           Journey.get().proxy().dataManager().netherPortalManager().removeTunnels(tunnel.origin(), tunnel.destination(), TunnelType.NETHER);
         }
       }, true);
@@ -164,6 +165,7 @@ public final class NetherManager {
             destinationGroup.get().tunnelLocation(),
             NetherTunnel.COST,
             TunnelType.NETHER);
+        Journey.get().tunnelGraph().invalidate();
         if (previous == null) {
           Journey.logger().debug("[Nether Manager] Added nether tunnel: " + originGroup.tunnelLocation() + " -> " + destinationGroup.get().tunnelLocation().toString());
         }
@@ -180,6 +182,7 @@ public final class NetherManager {
     CompletableFuture<Void> future = new CompletableFuture<>();
     Journey.get().proxy().schedulingManager().schedule(() -> {
       portalConnections.clear();
+      Journey.get().tunnelGraph().invalidate();
       Journey.get().proxy().dataManager().netherPortalManager().removeTunnels(TunnelType.NETHER);
       future.complete(null);
     }, true);
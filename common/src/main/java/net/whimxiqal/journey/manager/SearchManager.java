@@ -139,6 +139,21 @@ public final class SearchManager {
 
     audience.sendMessage(Formatter.hover(Messages.COMMAND_SEARCH_SEARCHING.resolve(Formatter.INFO), hoverText.get()));
 
+    // start navigating along any path found early, and swap in better ones as they are found
+    AtomicReference<Itinerary> improvedItinerary = new AtomicReference<>();
+    session.onImprovement(itinerary -> Journey.get().proxy().schedulingManager().schedule(() -> {
+      if (playerSearches.get(caller) != session) {
+        return;  // the search is already over
+      }
+      if (improvedItinerary.getAndSet(itinerary) == null) {
+        Messages.COMMAND_SEARCH_IMPROVING.sendTo(audience, Formatter.INFO);
+      } else if (!Journey.get().navigatorManager().navigatingAgents().contains(session.agent().uuid())) {
+        return;  // the agent has stopped following the earlier itinerary
+      }
+      Journey.get().navigatorManager().stopNavigators(session.agent().uuid());
+      Journey.get().navigatorManager().startNavigating(session.agent(), itinerary.steps(), session.flags().getValueFor(Flags.NAVIGATOR));
+    }, false));
+
     session.search().thenAccept(result -> {
       if (result == null) {
         Journey.logger().debug(session + ": session never ran and was unscheduled");
@@ -179,8 +194,16 @@ public final class SearchManager {
                                       .color(Formatter.ACCENT)))
                               .build()))));
 
-              Journey.get().navigatorManager().stopNavigators(session.agent().uuid());
-              Journey.get().navigatorManager().startNavigating(session.agent(), itinerary.steps(), session.flags().getValueFor(Flags.NAVIGATOR));
+              Itinerary current = improvedItinerary.get();
+              if (current == null) {
+                Journey.get().navigatorManager().stopNavigators(session.agent().uuid());
+                Journey.get().navigatorManager().startNavigating(session.agent(), itinerary.steps(), session.flags().getValueFor(Flags.NAVIGATOR));
+              } else if (itinerary.cost() < current.cost()
+                  && Journey.get().navigatorManager().navigatingAgents().contains(session.agent().uuid())) {
+                // only swap in the final itinerary if it's better and the agent is still following the earlier one
+                Journey.get().navigatorManager().stopNavigators(session.agent().uuid());
+                Journey.get().navigatorManager().startNavigating(session.agent(), itinerary.steps(), session.flags().getValueFor(Flags.NAVIGATOR));
+              }
             } else {
               // itinerary is null, so we have no Navigator to start
               Messages.COMMAND_SEARCH_SUCCESS.sendTo(audience, Formatter.SUCCESS);
@@ -25,6 +25,7 @@ package net.whimxiqal.journey.manager;
 
 import java.util.LinkedList;
 import java.util.List;
+import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.JourneyAgent;
 import net.whimxiqal.journey.Tunnel;
 import net.whimxiqal.journey.TunnelSupplier;
@@ -35,6 +36,7 @@ public class TunnelManager {
 
   public void register(TunnelSupplier tunnelSupplier) {
     tunnelSuppliers.add(tunnelSupplier);
+    Journey.get().tunnelGraph().invalidate();
   }
 
   public List<Tunnel> tunnels(JourneyAgent agent) {
@@ -24,6 +24,8 @@
 package net.whimxiqal.journey.manager;
 
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * A unit of work, as seen by the {@link DistributedWorkManager}.
@@ -51,4 +53,17 @@ public interface WorkItem {
    */
   void reset();
 
+  /**
+   * Get a future that must complete before this work can make any more progress.
+   * This is checked whenever {@link #run()} returns false. If the future is not done,
+   * the work gives up its active slot and is only scheduled again once the future completes,
+   * so no thread sits idle waiting on it.
+   *
+   * @return the future, or null if the work is not waiting on anything
+   */
+  @Nullable
+  default CompletableFuture<?> blocker() {
+    return null;
+  }
+
 }
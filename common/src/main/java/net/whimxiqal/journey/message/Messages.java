@@ -27,6 +27,10 @@ package net.whimxiqal.journey.message;
  */
 public final class Messages {
 
+  public static final MessageTemplate_2 COMMAND_ADMIN_BAKE_RESUME = new MessageTemplate_2("journey.command.admin.bake.resume");
+  public static final MessageTemplate_2 COMMAND_ADMIN_BAKE_START = new MessageTemplate_2("journey.command.admin.bake.start");
+  public static final MessageTemplate_0 COMMAND_ADMIN_BAKE_UNAVAILABLE = new MessageTemplate_0("journey.command.admin.bake.unavailable");
+  public static final MessageTemplate_1 COMMAND_ADMIN_BAKE_UNKNOWN_WORLD = new MessageTemplate_1("journey.command.admin.bake.unknown-world");
   public static final MessageTemplate_0 COMMAND_ADMIN_CONFIG_RELOADED = new MessageTemplate_0("journey.command.admin.config-reloaded");
   public static final MessageTemplate_0 COMMAND_ADMIN_DEBUG_MODE_DISABLED = new MessageTemplate_0("journey.command.admin.debug-mode-disabled");
   public static final MessageTemplate_0 COMMAND_ADMIN_DEBUG_MODE_ENABLED = new MessageTemplate_0("journey.command.admin.debug-mode-enabled");
@@ -65,6 +69,7 @@ public final class Messages {
   public static final MessageTemplate_0 COMMAND_SEARCH_ERROR = new MessageTemplate_0("journey.command.search.error");
   public static final MessageTemplate_0 COMMAND_SEARCH_FAILED = new MessageTemplate_0("journey.command.search.failed");
   public static final MessageTemplate_2 COMMAND_SEARCH_FLAG_PARSE_ERROR = new MessageTemplate_2("journey.command.search.flag.parse-error");
+  public static final MessageTemplate_0 COMMAND_SEARCH_IMPROVING = new MessageTemplate_0("journey.command.search.improving");
   public static final MessageTemplate_0 COMMAND_SEARCH_NOTHING_TO_CANCEL = new MessageTemplate_0("journey.command.search.nothing-to-cancel");
   public static final MessageTemplate_0 COMMAND_SEARCH_SEARCHING = new MessageTemplate_0("journey.command.search.searching");
   public static final MessageTemplate_0 COMMAND_SEARCH_SUCCESS = new MessageTemplate_0("journey.command.search.success");
@@ -24,10 +24,13 @@
 package net.whimxiqal.journey.navigation;
 
 import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.chunk.BlockProvider;
 import net.whimxiqal.journey.search.ModeType;
+import net.whimxiqal.journey.tools.PackedCell;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -36,17 +39,54 @@ import org.jetbrains.annotations.NotNull;
  */
 public abstract class Mode {
 
+  /**
+   * The furthest any built-in mode moves in a single step along the x or z axis.
+   * Searches that need to find the locations from which a cell may be reached rely on these limits.
+   */
+  public static final int MAX_STEP_LATERAL = 1;
+  /**
+   * The furthest any built-in mode moves up in a single step.
+   */
+  public static final int MAX_STEP_UP = 1;
+  /**
+   * The furthest any built-in mode moves down in a single step, which is when walking off a ledge.
+   */
+  public static final int MAX_STEP_DOWN = 3;
+
   /**
    * Collect and return all the destinations that are reachable from an original location
    * based on the implementation of this mode.
    * The returned value stores all possible movement options.
    *
+   * <p>By default, this collects the destinations given by {@link #expand}.
+   *
    * @param origin the original (current) location
    * @return all options
    * @throws ExecutionException   if the async retrieval of a block had an error
    * @throws InterruptedException if the async retrieval of a block was interrupted
    */
-  public abstract Collection<Option> getDestinations(Cell origin, BlockProvider blockProvider) throws ExecutionException, InterruptedException;
+  public Collection<Option> getDestinations(Cell origin, BlockProvider blockProvider) throws ExecutionException, InterruptedException {
+    List<Option> options = new LinkedList<>();
+    expand(PackedCell.pack(origin), origin.domain(), blockProvider,
+        destination -> options.add(new Option(PackedCell.toCell(destination, origin.domain()))));
+    return options;
+  }
+
+  /**
+   * Give all the destinations that are reachable from an original location to a sink.
+   * This is the same as {@link #getDestinations}, but it does not need to allocate
+   * any objects per destination, so it is preferred on hot paths like the path search.
+   *
+   * <p>Modes that would rather list their options as {@link Cell}s may extend {@link OptionMode}.
+   *
+   * @param origin        the {@link PackedCell packed} original (current) location
+   * @param domain        the domain of the original location
+   * @param blockProvider the block provider
+   * @param sink          the sink to receive every destination
+   * @throws ExecutionException   if the async retrieval of a block had an error
+   * @throws InterruptedException if the async retrieval of a block was interrupted
+   */
+  public abstract void expand(long origin, int domain, BlockProvider blockProvider, NeighborSink sink) throws ExecutionException, InterruptedException;
 
   /**
    * Get the mode type.
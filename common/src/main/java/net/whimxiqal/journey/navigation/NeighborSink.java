@@ -20,20 +20,23 @@
  * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
  * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
+package net.whimxiqal.journey.navigation;
 
-package net.whimxiqal.journey.chunk;
-
-import net.whimxiqal.journey.proxy.JourneyChunk;
+import net.whimxiqal.journey.tools.PackedCell;
 
 /**
- * A chunk that has a timestamp for when it was created.
- * @param chunk the chunk
- * @param timestamp the time it was created, in milliseconds
+ * A receiver of the destinations found by {@link Mode#expand}.
+ * Destinations are given as {@link PackedCell packed} coordinates so that no objects
+ * have to be created per destination.
  */
-record DatedChunk(JourneyChunk chunk, long timestamp) {
+@FunctionalInterface
+public interface NeighborSink {
 
-  public static DatedChunk create(JourneyChunk chunk) {
-    return new DatedChunk(chunk, System.currentTimeMillis());
-  }
+  /**
+   * Accept a destination reachable from the expanded origin.
+   *
+   * @param packedDestination the packed coordinates of the destination, in the origin's domain
+   */
+  void accept(long packedDestination);
 
 }
@@ -0,0 +1,49 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.navigation;
+
+import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.chunk.BlockProvider;
+import net.whimxiqal.journey.tools.PackedCell;
+
+/**
+ * A {@link Mode} that lists its movement options as {@link Cell}s.
+ * This adapts {@link #getDestinations} to {@link #expand} for modes that are not on the hot path
+ * or can't easily give packed destinations, like modes that ray trace through the platform.
+ */
+public abstract class OptionMode extends Mode {
+
+  @Override
+  public abstract Collection<Option> getDestinations(Cell origin, BlockProvider blockProvider) throws ExecutionException, InterruptedException;
+
+  @Override
+  public void expand(long origin, int domain, BlockProvider blockProvider, NeighborSink sink) throws ExecutionException, InterruptedException {
+    for (Option option : getDestinations(PackedCell.toCell(origin, domain), blockProvider)) {
+      sink.accept(PackedCell.pack(option.location()));
+    }
+  }
+
+}
@@ -67,6 +67,18 @@ public interface PlatformProxy extends BlockProvider {
    */
   CompletableFuture<JourneyChunk> toChunk(ChunkId chunkId, boolean generate);
 
+  /**
+   * Read a chunk from the world's saved files and put its navigability in the
+   * {@link net.whimxiqal.journey.chunk.store.NavigabilityStore}, if it isn't already stored for the chunk as it
+   * was last saved. The server doesn't load the chunk and it isn't cached, so nothing is stored if the chunk
+   * can't be read from saved files, like if it is loaded or was saved in a format that can't be read.
+   * Called on the main server thread. The files are read asynchronously.
+   *
+   * @param chunkId the chunk id
+   * @return a future completed with whether the chunk is stored
+   */
+  CompletableFuture<Boolean> storeSavedChunk(ChunkId chunkId);
+
   /**
    * Convert a cell to a {@link JourneyBlock} with real-world data.
    * <b>Must be called on the main server thread!</b>
@@ -23,14 +23,13 @@
 
 package net.whimxiqal.journey.navigation.mode;
 
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.concurrent.ExecutionException;
-import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.chunk.BlockProvider;
 import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.NeighborSink;
+import net.whimxiqal.journey.proxy.Navigability;
 import net.whimxiqal.journey.search.ModeType;
+import net.whimxiqal.journey.tools.PackedCell;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -40,9 +39,10 @@ import org.jetbrains.annotations.NotNull;
 public final class BoatMode extends Mode {
 
   @Override
-  public Collection<Option> getDestinations(Cell origin, BlockProvider blockProvider) throws ExecutionException, InterruptedException {
-    List<Option> options = new LinkedList<>();
-    Cell cell;
+  public void expand(long origin, int domain, BlockProvider blockProvider, NeighborSink sink) throws ExecutionException, InterruptedException {
+    int x = PackedCell.x(origin);
+    int y = PackedCell.y(origin);
+    int z = PackedCell.z(origin);
     for (int offX = -1; offX <= 1; offX++) {
       outerZ:
       for (int offZ = -1; offZ <= 1; offZ++) {
@@ -54,10 +54,10 @@ public final class BoatMode extends Mode {
               continue;
             }
             for (int offY = 0; offY <= 1; offY++) { // Check two blocks tall
-              cell = origin.atOffset(insideOffX * offX /* get sign back */,
-                  offY - 1,
-                  insideOffZ * offZ /*get sign back */);
-              if (blockProvider.toBlock(cell).isLaterallyPassable()) {
+              if (Navigability.isLaterallyPassable(blockProvider.navigability(domain,
+                  x + insideOffX * offX /* get sign back */,
+                  y + offY - 1,
+                  z + insideOffZ * offZ /*get sign back */))) {
                 continue outerZ;  // Barrier - invalid move
               }
             }
@@ -65,14 +65,12 @@ public final class BoatMode extends Mode {
         }
 
         // We can move to offX and offY laterally
-        cell = origin.atOffset(offX, 0, offZ);
-        if (blockProvider.toBlock(cell.atOffset(0, -1, 0)).isWater()) {
+        if (Navigability.isWater(blockProvider.navigability(domain, x + offX, y - 1, z + offZ))) {
           // We can boat on it
-          options.add(new Option(cell));
+          sink.accept(PackedCell.offset(origin, offX, 0, offZ));
         }
       }
     }
-    return options;
   }
 
   @Override
@@ -23,14 +23,13 @@
 
 package net.whimxiqal.journey.navigation.mode;
 
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.concurrent.ExecutionException;
-import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.chunk.BlockProvider;
 import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.NeighborSink;
+import net.whimxiqal.journey.proxy.Navigability;
 import net.whimxiqal.journey.search.ModeType;
+import net.whimxiqal.journey.tools.PackedCell;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -40,31 +39,32 @@ import org.jetbrains.annotations.NotNull;
 public final class ClimbMode extends Mode {
 
   @Override
-  public Collection<Option> getDestinations(Cell origin, BlockProvider blockProvider) throws ExecutionException, InterruptedException {
-    List<Option> options = new LinkedList<>();
-
+  public void expand(long origin, int domain, BlockProvider blockProvider, NeighborSink sink) throws ExecutionException, InterruptedException {
     // TODO we have to make sure that the ladders and vines are oriented correctly
     //  and that the vines have a solid block behind it
-    tryToClimbAdjacent(origin.atOffset(1, 0, 0), blockProvider, options);
-    tryToClimbAdjacent(origin.atOffset(-1, 0, 0), blockProvider, options);
-    tryToClimbAdjacent(origin.atOffset(0, 0, 1), blockProvider, options);
-    tryToClimbAdjacent(origin.atOffset(0, 0, -1), blockProvider, options);
-    tryToClimbAdjacent(origin.atOffset(0, -1, 0), blockProvider, options);
+    tryToClimbAdjacent(origin, domain, 1, 0, 0, blockProvider, sink);
+    tryToClimbAdjacent(origin, domain, -1, 0, 0, blockProvider, sink);
+    tryToClimbAdjacent(origin, domain, 0, 0, 1, blockProvider, sink);
+    tryToClimbAdjacent(origin, domain, 0, 0, -1, blockProvider, sink);
+    tryToClimbAdjacent(origin, domain, 0, -1, 0, blockProvider, sink);
 
     // Going up is a different story
-    if (blockProvider.toBlock(origin).isClimbable()) {
-      if (blockProvider.toBlock(origin.atOffset(0, 1, 0)).isVerticallyPassable()
-          && blockProvider.toBlock(origin.atOffset(0, 2, 0)).isVerticallyPassable()) {
-        options.add(new Option(origin.atOffset(0, 1, 0)));
+    int x = PackedCell.x(origin);
+    int y = PackedCell.y(origin);
+    int z = PackedCell.z(origin);
+    if (Navigability.isClimbable(blockProvider.navigability(domain, x, y, z))) {
+      if (Navigability.isVerticallyPassable(blockProvider.navigability(domain, x, y + 1, z))
+          && Navigability.isVerticallyPassable(blockProvider.navigability(domain, x, y + 2, z))) {
+        sink.accept(PackedCell.offset(origin, 0, 1, 0));
       }
     }
-
-    return options;
   }
 
-  private void tryToClimbAdjacent(Cell cell, BlockProvider blockProvider, List<Option> options) throws ExecutionException, InterruptedException {
-    if (blockProvider.toBlock(cell).isClimbable()) {
-      options.add(new Option(cell));
+  private void tryToClimbAdjacent(long origin, int domain, int offX, int offY, int offZ,
+                                  BlockProvider blockProvider, NeighborSink sink) throws ExecutionException, InterruptedException {
+    long cell = PackedCell.offset(origin, offX, offY, offZ);
+    if (Navigability.isClimbable(blockProvider.navigability(domain, PackedCell.x(cell), PackedCell.y(cell), PackedCell.z(cell)))) {
+      sink.accept(cell);
     }
   }
 
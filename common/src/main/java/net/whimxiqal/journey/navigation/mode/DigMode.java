@@ -23,27 +23,30 @@
 
 package net.whimxiqal.journey.navigation.mode;
 
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.concurrent.ExecutionException;
-import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.chunk.BlockProvider;
 import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.NeighborSink;
+import net.whimxiqal.journey.proxy.Navigability;
 import net.whimxiqal.journey.search.ModeType;
+import net.whimxiqal.journey.tools.PackedCell;
 import org.jetbrains.annotations.NotNull;
 
 public class DigMode extends Mode {
 
   @Override
-  public Collection<Option> getDestinations(Cell origin, BlockProvider blockProvider) throws ExecutionException, InterruptedException {
-    List<Option> options = new LinkedList<>();
+  public void expand(long origin, int domain, BlockProvider blockProvider, NeighborSink sink) throws ExecutionException, InterruptedException {
+    int x = PackedCell.x(origin);
+    int y = PackedCell.y(origin);
+    int z = PackedCell.z(origin);
     // Can we even stand here?
-    if (!blockProvider.toBlock(origin.atOffset(0, -1, 0)).canStandOn()
-        && !blockProvider.toBlock(origin.atOffset(0, 0, 0)).canStandIn()) {
-      return options;
+    if (!Navigability.canStandOn(blockProvider.navigability(domain, x, y - 1, z))
+        && !Navigability.canStandIn(blockProvider.navigability(domain, x, y, z))) {
+      return;
     }
-    Cell cell;
+    int cellX;
+    int cellY;
+    int cellZ;
     // Check every block in a 3x3 grid centered around the current location
     for (int offX = -1; offX <= 1; offX++) {
       for (int offY = -1; offY <= 1; offY++) {
@@ -65,26 +68,22 @@ public class DigMode extends Mode {
                   continue;
                 }
                 // Make sure we get the pillar of y values for the player's body
-                cell = origin.atOffset(// Floor
-                    insideOffX * offX /* get sign back */,
-                    insideOffY * offY /* get sign back */,
-                    insideOffZ * offZ /* get sign back */);
-                if (!blockProvider.toBlock(cell).isLaterallyPassable()) {
+                cellX = x + insideOffX * offX /* get sign back */;
+                cellY = y + insideOffY * offY /* get sign back */;  // Floor
+                cellZ = z + insideOffZ * offZ /* get sign back */;
+                if (!Navigability.isLaterallyPassable(blockProvider.navigability(domain, cellX, cellY, cellZ))) {
                   // we must break it
-                  if (blockProvider.toBlock(cell).hardness() < 0) {
+                  if (blockProvider.hardness(domain, cellX, cellY, cellZ) < 0) {
                     continue outerZ;
                   }
                 }
                 for (int h = 0; h <= insideOffY; h++) {
                   // The rest of the pillar above the floor
-                  cell = origin.atOffset(
-                      insideOffX * offX /* get sign back */,
-                      ((insideOffY * offY + insideOffY) >> 1) /* 1 for positive, 0 for negative */
-                          + h
-                          + (1 - insideOffY) /* for if offYIn is 0 */,
-                      insideOffZ * offZ /* get sign back */);
-                  if (!blockProvider.toBlock(cell).isPassable()) {
-                    if (blockProvider.toBlock(cell).hardness() < 0) {
+                  cellY = y + ((insideOffY * offY + insideOffY) >> 1) /* 1 for positive, 0 for negative */
+                      + h
+                      + (1 - insideOffY) /* for if offYIn is 0 */;
+                  if (!Navigability.isPassable(blockProvider.navigability(domain, cellX, cellY, cellZ))) {
+                    if (blockProvider.hardness(domain, cellX, cellY, cellZ) < 0) {
                       continue outerZ;
                     }
                   }
@@ -92,12 +91,10 @@ public class DigMode extends Mode {
               }
             }
           }
-          Cell other = origin.atOffset(offX, offY, offZ);
-          options.add(new Option(other));
+          sink.accept(PackedCell.offset(origin, offX, offY, offZ));
         }
       }
     }
-    return options;
   }
 
   @Override
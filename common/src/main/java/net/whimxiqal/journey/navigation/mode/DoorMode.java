@@ -23,18 +23,15 @@
 
 package net.whimxiqal.journey.navigation.mode;
 
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Optional;
 import java.util.concurrent.ExecutionException;
-import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.chunk.BlockProvider;
 import net.whimxiqal.journey.chunk.Direction;
 import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.NeighborSink;
+import net.whimxiqal.journey.proxy.Navigability;
 import net.whimxiqal.journey.search.ModeType;
-import net.whimxiqal.journey.proxy.JourneyDoor;
 import net.whimxiqal.journey.search.SearchSession;
+import net.whimxiqal.journey.tools.PackedCell;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -45,129 +42,56 @@ import org.jetbrains.annotations.NotNull;
 public final class DoorMode extends Mode {
 
   @Override
-  public Collection<Option> getDestinations(Cell origin, BlockProvider blockProvider) throws ExecutionException, InterruptedException {
+  public void expand(long origin, int domain, BlockProvider blockProvider, NeighborSink sink) throws ExecutionException, InterruptedException {
     // TODO check if there are buttons or levers nearby that may open the door
-    List<Option> options = new LinkedList<>();
-    Cell cell;
-    boolean standingOnPressurePlate = blockProvider.toBlock(origin).isPressurePlate();
+    boolean standingOnPressurePlate = Navigability.isPressurePlate(blockProvider.navigability(domain,
+        PackedCell.x(origin), PackedCell.y(origin), PackedCell.z(origin)));
 
     // Pos X - East
-    cell = origin.atOffset(1, 0, 0);
-    Optional<JourneyDoor> door = blockProvider.toBlock(cell).asDoor();
-    // Check if we found a door
-    if (door.isPresent()) {
-      // Check it's a solid floor
-      if (!blockProvider.toBlock(origin.atOffset(1, -1, 0)).isVerticallyPassable()) {
-        if (door.get().isIron()) {
-          // Need to check if the door is blocking
-          if (door.get().direction() == Direction.POSITIVE_Z
-              || door.get().direction() == Direction.NEGATIVE_Z
-              || door.get().isOpen()) {
-            // Nothing blocking
-            options.add(new Option(origin.atOffset(1, 0, 0)));
-          } else {
-            // We need to be able to open the door
-            if (standingOnPressurePlate) {
-              // We can step on a pressure plate to open it
-              options.add(new Option(origin.atOffset(1, 0, 0)));
-            }
-          }
-          //  If it is blocking, then see if you can open with a switch or something
-        } else {
-          // It's not iron, so its passable
-          options.add(new Option(origin.atOffset(1, 0, 0)));
-        }
-      }
-    }
-
+    tryDoor(origin, domain, 1, 0, standingOnPressurePlate, blockProvider, sink);
     // Pos Z - North
-    cell = origin.atOffset(0, 0, 1);
-    door = blockProvider.toBlock(cell).asDoor();
-    // Check if we found a door
-    if (door.isPresent()) {
-      // Check it's a solid floor
-      if (!blockProvider.toBlock(origin.atOffset(1, -1, 0)).isVerticallyPassable()) {
-        if (door.get().isIron()) {
-          // Need to check if the door is blocking
-          if (door.get().direction() == Direction.POSITIVE_X
-              || door.get().direction() == Direction.NEGATIVE_X
-              || door.get().isOpen()) {
-            // Nothing blocking
-            options.add(new Option(origin.atOffset(0, 0, 1)));
-          } else {
-            // We need to be able to open the door
-            if (standingOnPressurePlate) {
-              // We can step on a pressure plate to open it
-              options.add(new Option(origin.atOffset(0, 0, 1)));
-            }
-          }
-          //  If it is blocking, then see if you can open with a switch or something
-        } else {
-          // It's not iron, so its passable
-          options.add(new Option(origin.atOffset(0, 0, 1)));
-        }
-      }
-    }
-
+    tryDoor(origin, domain, 0, 1, standingOnPressurePlate, blockProvider, sink);
     // Neg X - West
-    cell = origin.atOffset(-1, 0, 0);
-    door = blockProvider.toBlock(cell).asDoor();
-    // Check if we found a door
-    if (door.isPresent()) {
-      // Check it's a solid floor
-      if (!blockProvider.toBlock(origin.atOffset(1, -1, 0)).isVerticallyPassable()) {
-        if (door.get().isIron()) {
-          // Need to check if the door is blocking
-          if (door.get().direction() == Direction.POSITIVE_Z
-              || door.get().direction() == Direction.NEGATIVE_Z
-              || door.get().isOpen()) {
-            // Nothing blocking
-            options.add(new Option(origin.atOffset(-1, 0, 0)));
-          } else {
-            // We need to be able to open the door
-            if (standingOnPressurePlate) {
-              // We can step on a pressure plate to open it
-              options.add(new Option(origin.atOffset(-1, 0, 0)));
-            }
-          }
-          //  If it is blocking, then see if you can open with a switch or something
-        } else {
-          // It's not iron, so its passable
-          options.add(new Option(origin.atOffset(-1, 0, 0)));
-        }
-      }
-    }
-
+    tryDoor(origin, domain, -1, 0, standingOnPressurePlate, blockProvider, sink);
     // Neg Z - South
-    cell = origin.atOffset(0, 0, -1);
-    door = blockProvider.toBlock(cell).asDoor();
+    tryDoor(origin, domain, 0, -1, standingOnPressurePlate, blockProvider, sink);
+  }
+
+  private void tryDoor(long origin, int domain, int offX, int offZ, boolean standingOnPressurePlate,
+                       BlockProvider blockProvider, NeighborSink sink) throws ExecutionException, InterruptedException {
+    int x = PackedCell.x(origin) + offX;
+    int y = PackedCell.y(origin);
+    int z = PackedCell.z(origin) + offZ;
+    int door = blockProvider.navigability(domain, x, y, z);
     // Check if we found a door
-    if (door.isPresent()) {
-      // Check it's a solid floor
-      if (!blockProvider.toBlock(origin.atOffset(1, -1, 0)).isVerticallyPassable()) {
-        if (door.get().isIron()) {
-          // Need to check if the door is blocking
-          if (door.get().direction() == Direction.POSITIVE_X
-              || door.get().direction() == Direction.NEGATIVE_X
-              || door.get().isOpen()) {
-            // Nothing blocking
-            options.add(new Option(origin.atOffset(0, 0, -1)));
-          } else {
-            // We need to be able to open the door
-            if (standingOnPressurePlate) {
-              // We can step on a pressure plate to open it
-              options.add(new Option(origin.atOffset(0, 0, -1)));
-            }
-          }
-          //  If it is blocking, then see if you can open with a switch or something
-        } else {
-          // It's not iron, so its passable
-          options.add(new Option(origin.atOffset(0, 0, -1)));
+    if (!Navigability.isDoor(door)) {
+      return;
+    }
+    // Check it's a solid floor
+    if (Navigability.isVerticallyPassable(blockProvider.navigability(domain, x, y - 1, z))) {
+      return;
+    }
+    if (Navigability.isIronDoor(door)) {
+      // Need to check if the door is blocking
+      Direction direction = Navigability.doorDirection(door);
+      boolean parallel = offX == 0
+          ? direction == Direction.POSITIVE_X || direction == Direction.NEGATIVE_X
+          : direction == Direction.POSITIVE_Z || direction == Direction.NEGATIVE_Z;
+      if (parallel || Navigability.isOpenDoor(door)) {
+        // Nothing blocking
+        sink.accept(PackedCell.offset(origin, offX, 0, offZ));
+      } else {
+        // We need to be able to open the door
+        if (standingOnPressurePlate) {
+          // We can step on a pressure plate to open it
+          sink.accept(PackedCell.offset(origin, offX, 0, offZ));
         }
       }
+      //  If it is blocking, then see if you can open with a switch or something
+    } else {
+      // It's not iron, so its passable
+      sink.accept(PackedCell.offset(origin, offX, 0, offZ));
     }
-
-    return options;
   }
 
   @Override
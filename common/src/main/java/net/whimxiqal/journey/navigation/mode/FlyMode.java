@@ -23,14 +23,13 @@
 
 package net.whimxiqal.journey.navigation.mode;
 
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.concurrent.ExecutionException;
-import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.chunk.BlockProvider;
 import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.NeighborSink;
+import net.whimxiqal.journey.proxy.Navigability;
 import net.whimxiqal.journey.search.ModeType;
+import net.whimxiqal.journey.tools.PackedCell;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -40,9 +39,10 @@ import org.jetbrains.annotations.NotNull;
 public class FlyMode extends Mode {
 
   @Override
-  public Collection<Option> getDestinations(Cell origin, BlockProvider blockProvider) throws ExecutionException, InterruptedException {
-    List<Option> options = new LinkedList<>();
-    Cell cell;
+  public void expand(long origin, int domain, BlockProvider blockProvider, NeighborSink sink) throws ExecutionException, InterruptedException {
+    int x = PackedCell.x(origin);
+    int y = PackedCell.y(origin);
+    int z = PackedCell.z(origin);
     // TODO this is a mess, make this loop nicer
     // Check every block in a 3x3 grid centered around the current location
     for (int offX = -1; offX <= 1; offX++) {
@@ -61,35 +61,30 @@ public class FlyMode extends Mode {
                   continue;
                 }
                 // Make sure we get the pillar of y values for the player's body
-                cell = origin.atOffset(// Floor
-                    insideOffX * offX /* get sign back */,
-                    insideOffY * offY /* get sign back */,
-                    insideOffZ * offZ /* get sign back */);
-                if (!blockProvider.toBlock(cell).isLaterallyPassable()) {
+                if (!Navigability.isLaterallyPassable(blockProvider.navigability(domain, // Floor
+                    x + insideOffX * offX /* get sign back */,
+                    y + insideOffY * offY /* get sign back */,
+                    z + insideOffZ * offZ /* get sign back */))) {
                   continue outerZ;
                 }
                 for (int h = 0; h <= insideOffY; h++) {
                   // The rest of the pillar above the floor
-                  cell = origin.atOffset(
-                      insideOffX * offX /* get sign back */,
-                      ((insideOffY * offY + insideOffY) >> 1) /* 1 for positive, 0 for negative */
+                  if (!Navigability.isPassable(blockProvider.navigability(domain,
+                      x + insideOffX * offX /* get sign back */,
+                      y + ((insideOffY * offY + insideOffY) >> 1) /* 1 for positive, 0 for negative */
                           + h
                           + (1 - insideOffY) /* for if offYIn is 0 */,
-                      insideOffZ * offZ /* get sign back */);
-                  if (!blockProvider.toBlock(cell).isPassable()) {
+                      z + insideOffZ * offZ /* get sign back */))) {
                     continue outerZ;
                   }
                 }
               }
             }
           }
-          Cell other = origin.atOffset(offX, offY, offZ);
-          options.add(new Option(other));
+          sink.accept(PackedCell.offset(origin, offX, offY, offZ));
         }
       }
     }
-
-    return options;
   }
 
   @Override
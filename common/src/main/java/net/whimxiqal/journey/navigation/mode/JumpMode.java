@@ -23,14 +23,13 @@
 
 package net.whimxiqal.journey.navigation.mode;
 
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.concurrent.ExecutionException;
-import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.chunk.BlockProvider;
 import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.NeighborSink;
+import net.whimxiqal.journey.proxy.Navigability;
 import net.whimxiqal.journey.search.ModeType;
+import net.whimxiqal.journey.tools.PackedCell;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -40,23 +39,27 @@ import org.jetbrains.annotations.NotNull;
 public class JumpMode extends Mode {
 
   @Override
-  public Collection<Option> getDestinations(Cell origin, BlockProvider blockProvider) throws ExecutionException, InterruptedException {
-    List<Option> options = new LinkedList<>();
-    Cell cell;
+  public void expand(long origin, int domain, BlockProvider blockProvider, NeighborSink sink) throws ExecutionException, InterruptedException {
+    int x = PackedCell.x(origin);
+    int y = PackedCell.y(origin);
+    int z = PackedCell.z(origin);
 
-    cell = origin.atOffset(0, -1, 0);
-    if (blockProvider.toBlock(cell).isVerticallyPassable()) {
+    if (Navigability.isVerticallyPassable(blockProvider.navigability(domain, x, y - 1, z))) {
       // Nothing to jump off of
-      return options;
+      return;
     }
 
-    cell = origin.atOffset(0, 2, 0);
-    if (!blockProvider.toBlock(cell).isVerticallyPassable()) {
+    if (!Navigability.isVerticallyPassable(blockProvider.navigability(domain, x, y + 2, z))) {
       // No room to jump
-      return options;
+      return;
     }
     // 1 block up
-    options.add(new Option(origin.atOffset(0, 1, 0)));
+    sink.accept(PackedCell.offset(origin, 0, 1, 0));
+
+    // The height we are jumping from
+    double standingHeight = Navigability.isPassable(blockProvider.navigability(domain, x, y, z))
+        ? blockProvider.height(domain, x, y - 1, z) - 1
+        : blockProvider.height(domain, x, y, z);
 
     // 1 block away and up
     for (int offX = -1; offX <= 1; offX++) {
@@ -68,36 +71,28 @@ public class JumpMode extends Mode {
               continue;
             }
             // Check two blocks tall
-            cell = origin.atOffset(
-                insideOffX * offX /* get sign back */,
-                1,
-                insideOffZ * offZ /* get sign back */);
-            if (!blockProvider.toBlock(cell).isLaterallyPassable()) {
+            if (!Navigability.isLaterallyPassable(blockProvider.navigability(domain,
+                x + insideOffX * offX /* get sign back */,
+                y + 1,
+                z + insideOffZ * offZ /* get sign back */))) {
               continue outerZ;
             }
-            cell = origin.atOffset(
-                insideOffX * offX /* get sign back */,
-                2,
-                insideOffZ * offZ /* get sign back */);
-            if (!blockProvider.toBlock(cell).isPassable()) {
+            if (!Navigability.isPassable(blockProvider.navigability(domain,
+                x + insideOffX * offX /* get sign back */,
+                y + 2,
+                z + insideOffZ * offZ /* get sign back */))) {
               continue outerZ;
             }
           }
         }
-        double jumpDistance = blockProvider.toBlock(origin.atOffset(offX, 1, offZ)).height()
-            + 1.0
-            - (blockProvider.toBlock(origin.atOffset(0, 0, 0)).isPassable()
-            ? blockProvider.toBlock(origin.atOffset(0, -1, 0)).height() - 1
-            : blockProvider.toBlock(origin.atOffset(0, 0, 0)).height());
-        Cell other = origin.atOffset(offX, 1, offZ);
-        if (!blockProvider.toBlock(origin.atOffset(offX, 0, offZ)).isVerticallyPassable()
+        double jumpDistance = blockProvider.height(domain, x + offX, y + 1, z + offZ) + 1.0 - standingHeight;
+        if (!Navigability.isVerticallyPassable(blockProvider.navigability(domain, x + offX, y, z + offZ))
             && jumpDistance <= 1.2) {
           // Can stand here
-          options.add(new Option(other));
+          sink.accept(PackedCell.offset(origin, offX, 1, offZ));
         }
       }
     }
-    return options;
   }
 
   @Override
@@ -23,15 +23,13 @@
 
 package net.whimxiqal.journey.navigation.mode;
 
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.concurrent.ExecutionException;
-import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.chunk.BlockProvider;
 import net.whimxiqal.journey.navigation.Mode;
-import net.whimxiqal.journey.proxy.JourneyBlock;
+import net.whimxiqal.journey.navigation.NeighborSink;
+import net.whimxiqal.journey.proxy.Navigability;
 import net.whimxiqal.journey.search.ModeType;
+import net.whimxiqal.journey.tools.PackedCell;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -40,9 +38,10 @@ import org.jetbrains.annotations.NotNull;
 public class SwimMode extends Mode {
 
   @Override
-  public Collection<Option> getDestinations(Cell origin, BlockProvider blockProvider) throws ExecutionException, InterruptedException {
-    List<Option> options = new LinkedList<>();
-    JourneyBlock block;
+  public void expand(long origin, int domain, BlockProvider blockProvider, NeighborSink sink) throws ExecutionException, InterruptedException {
+    int x = PackedCell.x(origin);
+    int y = PackedCell.y(origin);
+    int z = PackedCell.z(origin);
     // Check every block in a 3x3 grid centered around the current location (complex)
     for (int offX = -1; offX <= 1; offX++) {
       for (int offY = -1; offY <= 1; offY++) {
@@ -59,11 +58,10 @@ public class SwimMode extends Mode {
                 if (insideOffX == 0 && insideOffY == 0 && insideOffZ == 0) {
                   continue;
                 }
-                block = blockProvider.toBlock(origin.atOffset(
-                    insideOffX * offX /* get sign back */,
-                    insideOffY * offY /* get sign back */,
-                    insideOffZ * offZ /* get sign back */));
-                if (!block.isWater()) {
+                if (!Navigability.isWater(blockProvider.navigability(domain,
+                    x + insideOffX * offX /* get sign back */,
+                    y + insideOffY * offY /* get sign back */,
+                    z + insideOffZ * offZ /* get sign back */))) {
                   continue outerZ;
                 }
               }
@@ -72,22 +70,20 @@ public class SwimMode extends Mode {
           // checks for head level (1 more than whatever our highest y value was)
           for (int insideOffX = offX * offX /* normalize sign */; insideOffX >= 0; insideOffX--) {
             for (int insideOffZ = offZ * offZ /* normalize sign */; insideOffZ >= 0; insideOffZ--) {
-              block = blockProvider.toBlock(origin.atOffset(
-                  insideOffX * offX /* get sign back */,
-                  Math.max(0, offY) + 1,
-                  insideOffZ * offZ /* get sign back */));
-              if (!block.isWater()) {
+              if (!Navigability.isWater(blockProvider.navigability(domain,
+                  x + insideOffX * offX /* get sign back */,
+                  y + Math.max(0, offY) + 1,
+                  z + insideOffZ * offZ /* get sign back */))) {
                 continue outerZ;
               }
             }
           }
-          options.add(new Option(origin.atOffset(offX, offY, offZ)));
+          sink.accept(PackedCell.offset(origin, offX, offY, offZ));
         }
       }
     }
     // TODO check simple ones (just 1 in each of the 6 directions -- if we are already in water,
     //  and water is above us, then we may move to any water block in any of the 6 directions
-    return options;
   }
 
   @Override
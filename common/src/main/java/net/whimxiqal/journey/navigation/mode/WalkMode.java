@@ -23,14 +23,13 @@
 
 package net.whimxiqal.journey.navigation.mode;
 
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.concurrent.ExecutionException;
-import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.chunk.BlockProvider;
 import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.NeighborSink;
+import net.whimxiqal.journey.proxy.Navigability;
 import net.whimxiqal.journey.search.ModeType;
+import net.whimxiqal.journey.tools.PackedCell;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -40,11 +39,10 @@ import org.jetbrains.annotations.NotNull;
 public class WalkMode extends Mode {
 
   @Override
-  public Collection<Option> getDestinations(Cell origin, BlockProvider blockProvider) throws ExecutionException, InterruptedException {
-    List<Option> options = new LinkedList<>();
-    Cell cell;
-    Cell cell1;
-    Cell cell2;
+  public void expand(long origin, int domain, BlockProvider blockProvider, NeighborSink sink) throws ExecutionException, InterruptedException {
+    int x = PackedCell.x(origin);
+    int y = PackedCell.y(origin);
+    int z = PackedCell.z(origin);
 
     // 1 block away
     for (int offX = -1; offX <= 1; offX++) {
@@ -58,10 +56,10 @@ public class WalkMode extends Mode {
               continue;
             }
             for (int offY = 0; offY <= 1; offY++) { // Check two blocks tall
-              cell = origin.atOffset(insideOffX * offX /* get sign back */,
-                  offY,
-                  insideOffZ * offZ /*get sign back */);
-              if (!blockProvider.toBlock(cell).isLaterallyPassable()) {
+              if (!Navigability.isLaterallyPassable(blockProvider.navigability(domain,
+                  x + insideOffX * offX /* get sign back */,
+                  y + offY,
+                  z + insideOffZ * offZ /*get sign back */))) {
                 continue outerZ;  // Barrier - invalid move
               }
             }
@@ -70,39 +68,35 @@ public class WalkMode extends Mode {
         // We can move to offX and offZ laterally
 
         // check at our y coordinate (0 offset)
-        cell = origin.atOffset(offX, 0, offZ);
         if (offX != 0 || offZ != 0) {
           // we are inquiring about other than origin
-          if (blockProvider.toBlock(cell).canStandIn()) {
+          if (Navigability.canStandIn(blockProvider.navigability(domain, x + offX, y, z + offZ))) {
             // We can just stand right here (carpets, etc.)
-            options.add(new Option(cell));
+            sink.accept(PackedCell.offset(origin, offX, 0, offZ));
             continue;
           }
         }
         for (int offY = -1; offY >= -4; offY--) {  // Check for floor anywhere up to a 3 block fall
-          cell = origin.atOffset(offX, offY, offZ);  // floor
-          cell1 = cell.atOffset(0, 1, 0);  // feet
-          cell2 = cell.atOffset(0, 2, 0);  // head
-          if (!blockProvider.toBlock(cell2).isVerticallyPassable() || blockProvider.toBlock(cell2).isWater()) {
+          int head = blockProvider.navigability(domain, x + offX, y + offY + 2, z + offZ);
+          if (!Navigability.isVerticallyPassable(head) || Navigability.isWater(head)) {
             // we cannot "fall through" this cell, which means we can't land on the block below
             // or, we are drowning
             break;
           }
-          if (!blockProvider.toBlock(cell1).isVerticallyPassable()) {
+          if (!Navigability.isVerticallyPassable(blockProvider.navigability(domain, x + offX, y + offY + 1, z + offZ))) {
             // we cannot put our feet in here
             continue;
           }
-          if (!blockProvider.toBlock(cell).canStandOn()) {
-            // we cannot stand on here
+          if (!Navigability.canStandOn(blockProvider.navigability(domain, x + offX, y + offY, z + offZ))) {
+            // we cannot stand on here (the floor)
             continue;
           }
           // good
-          options.add(new Option(cell1));
+          sink.accept(PackedCell.offset(origin, offX, offY + 1, offZ));
           break;
         }
       }
     }
-    return options;
   }
 
   @Override
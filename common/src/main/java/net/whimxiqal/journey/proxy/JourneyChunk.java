@@ -26,23 +26,45 @@ package net.whimxiqal.journey.proxy;
 import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.chunk.ChunkId;
 import net.whimxiqal.journey.search.flag.FlagSet;
+import net.whimxiqal.journey.search.flag.Flags;
 
 /**
  * Journey's representation of a Minecraft chunk.
  * Read-only and thread-safe.
+ *
+ * <p>Blocks are answered from a compact {@link NavigabilityMap}, which is computed from the platform's
+ * block data once, when the chunk is {@link #classify() classified}.
  */
 public abstract class JourneyChunk {
 
   public static final int CHUNK_SIDE_LENGTH = 16;
   public static final int MAX_Y = 256;  // exclusive max Y boundary
   public static final int MIN_Y = -64;  // inclusive min Y boundary
+  private static final long OVERHEAD_BYTES = 64;  // this object and its id
+  // a platform snapshot keeps a palette and packed block states for every section, so assume it's large
+  private static final long UNCLASSIFIED_BYTES = 24 * 8192;
 
   private final ChunkId id;
+  private volatile NavigabilityMap navigability = null;
 
   public JourneyChunk(ChunkId id) {
     this.id = id;
   }
 
+  /**
+   * Create a chunk that is already {@link #classify() classified}, like one that was saved earlier.
+   *
+   * @param id           the id
+   * @param navigability the navigability of every block in the chunk
+   */
+  protected JourneyChunk(ChunkId id, NavigabilityMap navigability) {
+    if (navigability.minY() != MIN_Y || navigability.maxY() != MAX_Y) {
+      throw new IllegalArgumentException("A chunk's navigability must cover y from " + MIN_Y + " to " + MAX_Y);
+    }
+    this.id = id;
+    this.navigability = navigability;
+  }
+
   /**
    * Get a cell from the given= coordinates within this chunk
    *
@@ -68,7 +90,149 @@ public abstract class JourneyChunk {
     if (y >= MAX_Y || y < MIN_Y) {
       return new AirJourneyBlock(toCell(x, y, z));
     }
-    return realBlock(x, y, z, flagSet);
+    NavigabilityMap map = classified();
+    return new NavigableJourneyBlock(toCell(x, y, z),
+        Navigability.resolve(map.bits(x, y, z), flagSet),
+        map.hardness(x, y, z),
+        map.height(x, y, z));
+  }
+
+  /**
+   * Get the {@link Navigability} bits of a block in this chunk, classifying the chunk first if necessary.
+   * The returned bits are independent of any session flags, so they must be
+   * {@link Navigability#resolve resolved} before use.
+   *
+   * @param x the x coordinate within the chunk [0-16)
+   * @param y the y coordinate
+   * @param z the z coordinate within the chunk [0-16)
+   * @return the bits
+   */
+  public final int navigability(int x, int y, int z) {
+    if (y >= MAX_Y || y < MIN_Y) {
+      return Navigability.OUT_OF_BOUNDS;
+    }
+    return classified().bits(x, y, z);
+  }
+
+  /**
+   * Get the y coordinate of the highest block in a column of this chunk that isn't air,
+   * classifying the chunk first if necessary.
+   *
+   * @param x the x coordinate within the chunk [0-16)
+   * @param z the z coordinate within the chunk [0-16)
+   * @return the y coordinate, or {@code MIN_Y - 1} if the whole column is air
+   */
+  public final int surfaceY(int x, int z) {
+    return classified().surfaceY(x, z);
+  }
+
+  /**
+   * Get the hardness of a block in this chunk, classifying the chunk first if necessary.
+   *
+   * @param x the x coordinate within the chunk [0-16)
+   * @param y the y coordinate
+   * @param z the z coordinate within the chunk [0-16)
+   * @return the hardness
+   * @see JourneyBlock#hardness()
+   */
+  public final float hardness(int x, int y, int z) {
+    if (y >= MAX_Y || y < MIN_Y) {
+      return 0;  // air
+    }
+    return classified().hardness(x, y, z);
+  }
+
+  /**
+   * Get the height of a block in this chunk, classifying the chunk first if necessary.
+   *
+   * @param x the x coordinate within the chunk [0-16)
+   * @param y the y coordinate
+   * @param z the z coordinate within the chunk [0-16)
+   * @return the height
+   * @see JourneyBlock#height()
+   */
+  public final double height(int x, int y, int z) {
+    if (y >= MAX_Y || y < MIN_Y) {
+      return 1;  // air
+    }
+    return classified().height(x, y, z);
+  }
+
+  /**
+   * Get the navigability of every block in this chunk, classifying the chunk first if necessary.
+   *
+   * @return the navigability map
+   */
+  public final NavigabilityMap navigabilityMap() {
+    return classified();
+  }
+
+  private NavigabilityMap classified() {
+    NavigabilityMap map = navigability;
+    if (map == null) {
+      classify();
+      map = navigability;
+    }
+    return map;
+  }
+
+  /**
+   * Compute the navigability of every block in this chunk, so block queries no longer need to
+   * inspect the platform's block data. This is expensive, so it should be done once, off the main thread,
+   * when the chunk is cached. Calling it again has no effect.
+   */
+  public final void classify() {
+    if (navigability != null) {
+      return;
+    }
+    synchronized (this) {
+      if (navigability != null) {
+        return;
+      }
+      // compute bits without any permissive flags, they are applied per session in Navigability#resolve
+      FlagSet flagSet = new FlagSet();
+      flagSet.addFlag(Flags.DOOR, false);
+      NavigabilityMap.Builder builder = NavigabilityMap.builder(MIN_Y, MAX_Y);
+      for (int x = 0; x < CHUNK_SIDE_LENGTH; x++) {
+        for (int z = 0; z < CHUNK_SIDE_LENGTH; z++) {
+          for (int y = MIN_Y; y < MAX_Y; y++) {
+            JourneyBlock block = realBlock(x, y, z, flagSet);
+            builder.set(x, y, z, Navigability.of(block), block.hardness(), block.height());
+          }
+        }
+      }
+      navigability = builder.build();
+    }
+    releaseBlockData();
+  }
+
+  /**
+   * Whether this chunk has been {@link #classify() classified}.
+   *
+   * @return true if classified
+   */
+  public final boolean isClassified() {
+    return navigability != null;
+  }
+
+  /**
+   * Estimate the memory taken up by this chunk.
+   * Once classified, this is just its {@link NavigabilityMap}, which is usually much smaller than the
+   * platform's block data that it replaces.
+   *
+   * @return the estimated bytes
+   */
+  public final long memoryBytes() {
+    NavigabilityMap map = navigability;
+    return OVERHEAD_BYTES + (map == null ? UNCLASSIFIED_BYTES : map.memoryBytes());
+  }
+
+  /**
+   * Called once this chunk is classified, after which {@link #realBlock} is never called again.
+   * Implementations may drop references to their platform block data here to free memory.
+   */
+  protected void releaseBlockData() {
+    // do nothing by default
   }
 
   /**
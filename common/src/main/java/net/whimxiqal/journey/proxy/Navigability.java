@@ -0,0 +1,201 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.proxy;
+
+import java.util.Optional;
+import net.whimxiqal.journey.chunk.Direction;
+import net.whimxiqal.journey.search.flag.FlagSet;
+import net.whimxiqal.journey.search.flag.Flags;
+
+/**
+ * The movement-related properties of a {@link JourneyBlock}, packed into the bits of an int.
+ * Chunks compute these once when they are cached so that {@link net.whimxiqal.journey.navigation.Mode}s
+ * can query them without re-evaluating the block's material every time.
+ *
+ * @see NavigabilityMap
+ */
+public final class Navigability {
+
+  public static final int AIR = 1;
+  public static final int NETHER_PORTAL = 1 << 1;
+  public static final int WATER = 1 << 2;
+  public static final int PRESSURE_PLATE = 1 << 3;
+  public static final int CLIMBABLE = 1 << 4;
+  public static final int PASSABLE = 1 << 5;
+  public static final int LATERALLY_PASSABLE = 1 << 6;
+  /**
+   * Laterally passable if the session is allowed to use doors (like iron doors).
+   * This is folded into {@link #LATERALLY_PASSABLE} by {@link #resolve(int, FlagSet)}.
+   */
+  public static final int LATERALLY_PASSABLE_WITH_DOORS = 1 << 7;
+  public static final int VERTICALLY_PASSABLE = 1 << 8;
+  public static final int STAND_ON = 1 << 9;
+  public static final int STAND_IN = 1 << 10;
+  public static final int DOOR = 1 << 11;
+  public static final int DOOR_IRON = 1 << 12;
+  public static final int DOOR_OPEN = 1 << 13;
+  private static final int DOOR_DIRECTION_SHIFT = 14;
+  private static final int DOOR_DIRECTION_MASK = 0b111;
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  /**
+   * The bits of blocks outside the vertical boundaries of the world.
+   *
+   * @see AirJourneyBlock
+   */
+  public static final int OUT_OF_BOUNDS = AIR | PASSABLE | LATERALLY_PASSABLE | LATERALLY_PASSABLE_WITH_DOORS
+      | VERTICALLY_PASSABLE;
+
+  private Navigability() {
+  }
+
+  /**
+   * Compute the bits for a block.
+   *
+   * @param block the block
+   * @return the navigability bits
+   */
+  public static int of(JourneyBlock block) {
+    int bits = 0;
+    if (block.isAir()) {
+      bits |= AIR;
+    }
+    if (block.isNetherPortal()) {
+      bits |= NETHER_PORTAL;
+    }
+    if (block.isWater()) {
+      bits |= WATER;
+    }
+    if (block.isPressurePlate()) {
+      bits |= PRESSURE_PLATE;
+    }
+    if (block.isClimbable()) {
+      bits |= CLIMBABLE;
+    }
+    if (block.isPassable()) {
+      bits |= PASSABLE;
+    }
+    if (block.isLaterallyPassable()) {
+      bits |= LATERALLY_PASSABLE | LATERALLY_PASSABLE_WITH_DOORS;
+    }
+    if (block.isVerticallyPassable()) {
+      bits |= VERTICALLY_PASSABLE;
+    }
+    if (block.canStandOn()) {
+      bits |= STAND_ON;
+    }
+    if (block.canStandIn()) {
+      bits |= STAND_IN;
+    }
+    Optional<JourneyDoor> door = block.asDoor();
+    if (door.isPresent()) {
+      bits |= DOOR;
+      if (door.get().isIron()) {
+        bits |= DOOR_IRON | LATERALLY_PASSABLE_WITH_DOORS;
+      }
+      if (door.get().isOpen()) {
+        bits |= DOOR_OPEN;
+      }
+      bits |= door.get().direction().ordinal() << DOOR_DIRECTION_SHIFT;
+    }
+    return bits;
+  }
+
+  /**
+   * Apply the flags of a search session to flag-independent bits.
+   *
+   * @param bits    the bits, as computed without any permissive flags
+   * @param flagSet the flags
+   * @return the resolved bits
+   */
+  public static int resolve(int bits, FlagSet flagSet) {
+    if ((bits & LATERALLY_PASSABLE_WITH_DOORS) != 0 && flagSet.getValueFor(Flags.DOOR)) {
+      bits |= LATERALLY_PASSABLE;
+    }
+    return bits;
+  }
+
+  public static boolean isAir(int bits) {
+    return (bits & AIR) != 0;
+  }
+
+  public static boolean isNetherPortal(int bits) {
+    return (bits & NETHER_PORTAL) != 0;
+  }
+
+  public static boolean isWater(int bits) {
+    return (bits & WATER) != 0;
+  }
+
+  public static boolean isPressurePlate(int bits) {
+    return (bits & PRESSURE_PLATE) != 0;
+  }
+
+  public static boolean isClimbable(int bits) {
+    return (bits & CLIMBABLE) != 0;
+  }
+
+  public static boolean isPassable(int bits) {
+    return (bits & PASSABLE) != 0;
+  }
+
+  public static boolean isLaterallyPassable(int bits) {
+    return (bits & LATERALLY_PASSABLE) != 0;
+  }
+
+  public static boolean isVerticallyPassable(int bits) {
+    return (bits & VERTICALLY_PASSABLE) != 0;
+  }
+
+  public static boolean canStandOn(int bits) {
+    return (bits & STAND_ON) != 0;
+  }
+
+  public static boolean canStandIn(int bits) {
+    return (bits & STAND_IN) != 0;
+  }
+
+  public static boolean isDoor(int bits) {
+    return (bits & DOOR) != 0;
+  }
+
+  public static boolean isIronDoor(int bits) {
+    return (bits & DOOR_IRON) != 0;
+  }
+
+  public static boolean isOpenDoor(int bits) {
+    return (bits & DOOR_OPEN) != 0;
+  }
+
+  /**
+   * Get the direction a door is facing. Only meaningful if {@link #isDoor(int)}.
+   *
+   * @param bits the bits
+   * @return the direction
+   */
+  public static Direction doorDirection(int bits) {
+    return DIRECTIONS[(bits >>> DOOR_DIRECTION_SHIFT) & DOOR_DIRECTION_MASK];
+  }
+
+}
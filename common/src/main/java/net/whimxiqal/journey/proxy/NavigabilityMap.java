@@ -0,0 +1,394 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.proxy;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A compact, read-only store of the {@link Navigability} of every block in a chunk.
+ *
+ * <p>Every distinct combination of navigability bits, hardness, and height in the chunk is stored once
+ * in a palette, and each block only stores its index in that palette: one byte per block,
+ * or two if the chunk has more than 256 distinct combinations.
+ * Sections of 16x16x16 blocks in which every block is the same (like sections full of air or stone)
+ * store no per-block data at all.
+ *
+ * <p>The map also keeps a heightmap of the highest block in each column that isn't air,
+ * so questions about the surface of the chunk don't need to scan columns.
+ *
+ * <p>Thread-safe once built.
+ */
+public final class NavigabilityMap {
+
+  private static final int SECTION_HEIGHT = 16;
+  private static final int SECTION_VOLUME = JourneyChunk.CHUNK_SIDE_LENGTH * JourneyChunk.CHUNK_SIDE_LENGTH * SECTION_HEIGHT;
+
+  private final int minY;
+  private final int[] paletteBits;
+  private final float[] paletteHardness;
+  private final double[] paletteHeight;
+  private final int[] uniformSections;  // palette index of each section, if the section is uniform
+  private final byte[][] byteSections;  // null if the palette is too large for bytes
+  private final short[][] shortSections;  // null if the palette fits in bytes
+  private final short[] surfaceHeights;  // highest y that isn't air, per column
+
+  private NavigabilityMap(int minY, int[] paletteBits, float[] paletteHardness, double[] paletteHeight,
+                          int[] uniformSections, byte[][] byteSections, short[][] shortSections) {
+    this.minY = minY;
+    this.paletteBits = paletteBits;
+    this.paletteHardness = paletteHardness;
+    this.paletteHeight = paletteHeight;
+    this.uniformSections = uniformSections;
+    this.byteSections = byteSections;
+    this.shortSections = shortSections;
+    this.surfaceHeights = computeSurfaceHeights();
+  }
+
+  /**
+   * Create a builder for a map covering the given vertical range.
+   *
+   * @param minY the inclusive minimum y coordinate
+   * @param maxY the exclusive maximum y coordinate
+   * @return the builder
+   */
+  public static Builder builder(int minY, int maxY) {
+    return new Builder(minY, maxY);
+  }
+
+  private static int indexInSection(int x, int y, int z) {
+    return ((y & (SECTION_HEIGHT - 1)) << 8) | (z << 4) | x;
+  }
+
+  private int paletteIndex(int x, int y, int z) {
+    int section = (y - minY) / SECTION_HEIGHT;
+    if (byteSections != null) {
+      byte[] data = byteSections[section];
+      return data == null ? uniformSections[section] : data[indexInSection(x, y, z)] & 0xFF;
+    } else {
+      short[] data = shortSections[section];
+      return data == null ? uniformSections[section] : data[indexInSection(x, y, z)] & 0xFFFF;
+    }
+  }
+
+  private boolean isUniform(int section) {
+    return byteSections != null ? byteSections[section] == null : shortSections[section] == null;
+  }
+
+  private short[] computeSurfaceHeights() {
+    short[] heights = new short[JourneyChunk.CHUNK_SIDE_LENGTH * JourneyChunk.CHUNK_SIDE_LENGTH];
+    for (int z = 0; z < JourneyChunk.CHUNK_SIDE_LENGTH; z++) {
+      for (int x = 0; x < JourneyChunk.CHUNK_SIDE_LENGTH; x++) {
+        int surface = minY - 1;
+        for (int section = uniformSections.length - 1; section >= 0 && surface < minY; section--) {
+          int sectionMinY = minY + section * SECTION_HEIGHT;
+          if (isUniform(section)) {
+            if (!Navigability.isAir(paletteBits[uniformSections[section]])) {
+              surface = sectionMinY + SECTION_HEIGHT - 1;
+            }
+            continue;  // skip the whole section
+          }
+          for (int y = sectionMinY + SECTION_HEIGHT - 1; y >= sectionMinY; y--) {
+            if (!Navigability.isAir(paletteBits[paletteIndex(x, y, z)])) {
+              surface = y;
+              break;
+            }
+          }
+        }
+        heights[(z << 4) | x] = (short) surface;
+      }
+    }
+    return heights;
+  }
+
+  /**
+   * Get the navigability bits of a block.
+   *
+   * @param x the x coordinate within the chunk [0-16)
+   * @param y the y coordinate, within the range of this map
+   * @param z the z coordinate within the chunk [0-16)
+   * @return the bits
+   */
+  public int bits(int x, int y, int z) {
+    return paletteBits[paletteIndex(x, y, z)];
+  }
+
+  public float hardness(int x, int y, int z) {
+    return paletteHardness[paletteIndex(x, y, z)];
+  }
+
+  public double height(int x, int y, int z) {
+    return paletteHeight[paletteIndex(x, y, z)];
+  }
+
+  /**
+   * Get the y coordinate of the highest block in a column that isn't {@link Navigability#isAir air}.
+   *
+   * @param x the x coordinate within the chunk [0-16)
+   * @param z the z coordinate within the chunk [0-16)
+   * @return the y coordinate, or one below {@link #minY()} if the whole column is air
+   */
+  public int surfaceY(int x, int z) {
+    return surfaceHeights[(z << 4) | x];
+  }
+
+  /**
+   * The inclusive minimum y coordinate covered by this map.
+   *
+   * @return the minimum y
+   */
+  public int minY() {
+    return minY;
+  }
+
+  /**
+   * The exclusive maximum y coordinate covered by this map.
+   *
+   * @return the maximum y
+   */
+  public int maxY() {
+    return minY + uniformSections.length * SECTION_HEIGHT;
+  }
+
+  /**
+   * The number of distinct block states stored in this map.
+   *
+   * @return the palette size
+   */
+  public int paletteSize() {
+    return paletteBits.length;
+  }
+
+  /**
+   * Estimate the memory taken up by this map, including its palette and per-block data.
+   *
+   * @return the estimated bytes
+   */
+  public long memoryBytes() {
+    final int objectHeader = 16;
+    final int arrayHeader = 16;
+    long bytes = objectHeader + 8 * Integer.BYTES;
+    bytes += 3 * arrayHeader + (long) paletteBits.length * (Integer.BYTES + Float.BYTES + Double.BYTES);
+    bytes += arrayHeader + (long) surfaceHeights.length * Short.BYTES;
+    bytes += arrayHeader + (long) uniformSections.length * Integer.BYTES;
+    Object[] sections = byteSections != null ? byteSections : shortSections;
+    int bytesPerBlock = byteSections != null ? Byte.BYTES : Short.BYTES;
+    bytes += arrayHeader + (long) sections.length * Integer.BYTES;
+    for (Object section : sections) {
+      if (section != null) {
+        bytes += arrayHeader + (long) SECTION_VOLUME * bytesPerBlock;
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Write this map, so it can be {@link #read read} back later.
+   *
+   * @param out the output
+   * @throws IOException if the output could not be written to
+   */
+  public void write(DataOutput out) throws IOException {
+    out.writeInt(minY);
+    out.writeInt(uniformSections.length);
+    out.writeInt(paletteBits.length);
+    for (int i = 0; i < paletteBits.length; i++) {
+      out.writeInt(paletteBits[i]);
+      out.writeFloat(paletteHardness[i]);
+      out.writeDouble(paletteHeight[i]);
+    }
+    for (int section = 0; section < uniformSections.length; section++) {
+      if (byteSections != null && byteSections[section] != null) {
+        out.writeBoolean(true);
+        out.write(byteSections[section]);
+      } else if (shortSections != null && shortSections[section] != null) {
+        out.writeBoolean(true);
+        for (short index : shortSections[section]) {
+          out.writeShort(index);
+        }
+      } else {
+        out.writeBoolean(false);
+        out.writeInt(uniformSections[section]);
+      }
+    }
+  }
+
+  /**
+   * Read a map that was {@link #write written} earlier.
+   *
+   * @param in the input
+   * @return the map
+   * @throws IOException if the input could not be read or does not hold a map
+   */
+  public static NavigabilityMap read(DataInput in) throws IOException {
+    int minY = in.readInt();
+    int sectionCount = in.readInt();
+    int paletteSize = in.readInt();
+    if (sectionCount <= 0 || sectionCount > 4096 / SECTION_HEIGHT || paletteSize <= 0 || paletteSize > 0xFFFF + 1) {
+      throw new IOException("Invalid navigability map with " + sectionCount + " sections and " + paletteSize + " states");
+    }
+    int[] paletteBits = new int[paletteSize];
+    float[] paletteHardness = new float[paletteSize];
+    double[] paletteHeight = new double[paletteSize];
+    for (int i = 0; i < paletteSize; i++) {
+      paletteBits[i] = in.readInt();
+      paletteHardness[i] = in.readFloat();
+      paletteHeight[i] = in.readDouble();
+    }
+    boolean useBytes = paletteSize <= 256;
+    int[] uniformSections = new int[sectionCount];
+    byte[][] byteSections = useBytes ? new byte[sectionCount][] : null;
+    short[][] shortSections = useBytes ? null : new short[sectionCount][];
+    for (int section = 0; section < sectionCount; section++) {
+      if (!in.readBoolean()) {
+        int index = in.readInt();
+        if (index < 0 || index >= paletteSize) {
+          throw new IOException("Invalid palette index " + index + " in navigability map");
+        }
+        uniformSections[section] = index;
+      } else if (useBytes) {
+        byte[] data = new byte[SECTION_VOLUME];
+        in.readFully(data);
+        for (byte index : data) {
+          if ((index & 0xFF) >= paletteSize) {
+            throw new IOException("Invalid palette index " + (index & 0xFF) + " in navigability map");
+          }
+        }
+        byteSections[section] = data;
+      } else {
+        short[] data = new short[SECTION_VOLUME];
+        for (int i = 0; i < SECTION_VOLUME; i++) {
+          data[i] = in.readShort();
+          if ((data[i] & 0xFFFF) >= paletteSize) {
+            throw new IOException("Invalid palette index " + (data[i] & 0xFFFF) + " in navigability map");
+          }
+        }
+        shortSections[section] = data;
+      }
+    }
+    return new NavigabilityMap(minY, paletteBits, paletteHardness, paletteHeight,
+        uniformSections, byteSections, shortSections);
+  }
+
+  /**
+   * A builder for a {@link NavigabilityMap}. Not thread-safe.
+   */
+  public static final class Builder {
+
+    private final int minY;
+    private final int sectionCount;
+    private final int[] indices;
+    private final Map<State, Integer> palette = new HashMap<>();
+
+    private Builder(int minY, int maxY) {
+      if ((maxY - minY) % SECTION_HEIGHT != 0) {
+        throw new IllegalArgumentException("The height of the map must be a multiple of " + SECTION_HEIGHT);
+      }
+      this.minY = minY;
+      this.sectionCount = (maxY - minY) / SECTION_HEIGHT;
+      this.indices = new int[sectionCount * SECTION_VOLUME];
+    }
+
+    /**
+     * Set the properties of a block.
+     *
+     * @param x        the x coordinate within the chunk [0-16)
+     * @param y        the y coordinate
+     * @param z        the z coordinate within the chunk [0-16)
+     * @param bits     the navigability bits
+     * @param hardness the hardness of the block
+     * @param height   the height of the block
+     * @return this builder
+     */
+    public Builder set(int x, int y, int z, int bits, float hardness, double height) {
+      int paletteIndex = palette.computeIfAbsent(new State(bits, hardness, height), k -> palette.size());
+      int section = (y - minY) / SECTION_HEIGHT;
+      indices[section * SECTION_VOLUME + indexInSection(x, y, z)] = paletteIndex;
+      return this;
+    }
+
+    public NavigabilityMap build() {
+      int[] paletteBits = new int[palette.size()];
+      float[] paletteHardness = new float[palette.size()];
+      double[] paletteHeight = new double[palette.size()];
+      for (Map.Entry<State, Integer> entry : palette.entrySet()) {
+        paletteBits[entry.getValue()] = entry.getKey().bits();
+        paletteHardness[entry.getValue()] = entry.getKey().hardness();
+        paletteHeight[entry.getValue()] = entry.getKey().height();
+      }
+
+      boolean useBytes = palette.size() <= 256;
+      int[] uniformSections = new int[sectionCount];
+      byte[][] byteSections = useBytes ? new byte[sectionCount][] : null;
+      short[][] shortSections = useBytes ? null : new short[sectionCount][];
+      for (int section = 0; section < sectionCount; section++) {
+        int start = section * SECTION_VOLUME;
+        int first = indices[start];
+        boolean uniform = true;
+        for (int i = start + 1; i < start + SECTION_VOLUME; i++) {
+          if (indices[i] != first) {
+            uniform = false;
+            break;
+          }
+        }
+        if (uniform) {
+          uniformSections[section] = first;
+          continue;
+        }
+        if (useBytes) {
+          byte[] data = new byte[SECTION_VOLUME];
+          for (int i = 0; i < SECTION_VOLUME; i++) {
+            data[i] = (byte) indices[start + i];
+          }
+          byteSections[section] = data;
+        } else {
+          short[] data = new short[SECTION_VOLUME];
+          for (int i = 0; i < SECTION_VOLUME; i++) {
+            data[i] = (short) indices[start + i];
+          }
+          shortSections[section] = data;
+        }
+      }
+      return new NavigabilityMap(minY, paletteBits, paletteHardness, paletteHeight,
+          uniformSections, byteSections, shortSections);
+    }
+
+    private record State(int bits, float hardness, double height) {
+    }
+
+  }
+
+  @Override
+  public String toString() {
+    return "NavigabilityMap{palette size=" + paletteBits.length
+        + ", uniform sections=" + Arrays.stream(byteSections != null ? byteSections : shortSections)
+        .filter(section -> section == null).count()
+        + '}';
+  }
+
+}
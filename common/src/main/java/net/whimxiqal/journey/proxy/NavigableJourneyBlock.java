@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.proxy;
+
+import java.util.Optional;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.chunk.Direction;
+
+/**
+ * A {@link JourneyBlock} whose properties were already computed into {@link Navigability} bits,
+ * as provided by a classified {@link JourneyChunk}.
+ *
+ * @param cell     the location of the block
+ * @param bits     the navigability bits, already resolved against the session's flags
+ * @param hardness the hardness of the block
+ * @param height   the height of the block
+ */
+public record NavigableJourneyBlock(Cell cell, int bits, float hardness, double height) implements JourneyBlock {
+
+  @Override
+  public boolean isAir() {
+    return Navigability.isAir(bits);
+  }
+
+  @Override
+  public boolean isNetherPortal() {
+    return Navigability.isNetherPortal(bits);
+  }
+
+  @Override
+  public boolean isWater() {
+    return Navigability.isWater(bits);
+  }
+
+  @Override
+  public boolean isPressurePlate() {
+    return Navigability.isPressurePlate(bits);
+  }
+
+  @Override
+  public boolean isClimbable() {
+    return Navigability.isClimbable(bits);
+  }
+
+  @Override
+  public boolean isPassable() {
+    return Navigability.isPassable(bits);
+  }
+
+  @Override
+  public boolean isLaterallyPassable() {
+    return Navigability.isLaterallyPassable(bits);
+  }
+
+  @Override
+  public boolean isVerticallyPassable() {
+    return Navigability.isVerticallyPassable(bits);
+  }
+
+  @Override
+  public boolean canStandOn() {
+    return Navigability.canStandOn(bits);
+  }
+
+  @Override
+  public boolean canStandIn() {
+    return Navigability.canStandIn(bits);
+  }
+
+  @Override
+  public Optional<JourneyDoor> asDoor() {
+    if (!Navigability.isDoor(bits)) {
+      return Optional.empty();
+    }
+    return Optional.of(new Door(bits));
+  }
+
+  private record Door(int bits) implements JourneyDoor {
+
+    @Override
+    public boolean isOpen() {
+      return Navigability.isOpenDoor(bits);
+    }
+
+    @Override
+    public boolean isIron() {
+      return Navigability.isIronDoor(bits);
+    }
+
+    @Override
+    public Direction direction() {
+      return Navigability.doorDirection(bits);
+    }
+  }
+
+}
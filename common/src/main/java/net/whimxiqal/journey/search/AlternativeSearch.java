@@ -0,0 +1,113 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.search;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import net.whimxiqal.journey.chunk.PendingChunkException;
+import net.whimxiqal.journey.navigation.Step;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A search that a {@link PathTrial} may run instead of its regular A* search.
+ * Like the regular search, it is run in short cycles, and it may be resumed after a {@link PendingChunkException}.
+ */
+interface AlternativeSearch {
+
+  /**
+   * Continue the search.
+   *
+   * @param cellBudget roughly how many cells may be expanded before returning
+   * @return {@link ResultState#RUNNING} if the search is not done, {@link ResultState#STOPPED_SUCCESSFUL}
+   *     if a path was found, or {@link ResultState#STOPPED_FAILED} if not
+   * @throws PendingChunkException if a chunk is not yet available. The search may be run again later.
+   */
+  ResultState run(int cellBudget) throws ExecutionException, InterruptedException;
+
+  /**
+   * Get a future that must complete before this search can make any more progress.
+   * This is checked whenever {@link #run} returns {@link ResultState#RUNNING}.
+   *
+   * @return the future, or null if the search is not waiting on anything
+   */
+  @Nullable
+  default CompletableFuture<?> blocker() {
+    return null;
+  }
+
+  /**
+   * Stop the search because its result is no longer needed.
+   */
+  default void cancel() {
+    // nothing to clean up by default
+  }
+
+  /**
+   * Whether a better path has been found since the last call, while the search keeps running to improve it.
+   * If so, {@link #steps()} and {@link #length()} describe that path.
+   *
+   * @return true if a better path was found
+   */
+  default boolean pollImprovement() {
+    return false;
+  }
+
+  /**
+   * Whether a failed search means that there is no path at all.
+   * If not, the path trial falls back to its regular search.
+   *
+   * @return true if failure is conclusive
+   */
+  boolean isConclusive();
+
+  /**
+   * The path that was found, once the search is successful.
+   *
+   * @return the steps, starting with the origin
+   */
+  List<Step> steps();
+
+  /**
+   * The length of the path that was found, once the search is successful.
+   *
+   * @return the length
+   */
+  double length();
+
+  /**
+   * The number of nodes that are stored by the search, to be compared against the maximum
+   * number of cells a search may use.
+   *
+   * @return the size
+   */
+  int size();
+
+  /**
+   * The number of cells that have been visited so far.
+   *
+   * @return the count
+   */
+  int visited();
+
+}
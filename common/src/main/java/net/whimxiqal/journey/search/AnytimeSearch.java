@@ -0,0 +1,277 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import net.whimxiqal.journey.chunk.BlockProvider;
+import net.whimxiqal.journey.chunk.NeighborhoodBlockProvider;
+import net.whimxiqal.journey.chunk.PendingChunkException;
+import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.NeighborSink;
+import net.whimxiqal.journey.navigation.Step;
+import net.whimxiqal.journey.tools.IndexedMinHeap;
+import net.whimxiqal.journey.tools.LongIntHashMap;
+import net.whimxiqal.journey.tools.PackedCell;
+
+/**
+ * An anytime repairing A* (ARA*) search. It first searches with a heavily weighted heuristic to find
+ * a path quickly, then repeatedly lowers the weight and repairs the search it already has, reporting each
+ * better path it finds, until the weight reaches 1 and the path is known to be the shortest.
+ *
+ * <p>Between improvements, nodes are only expanded once per weight. A node that is improved after it
+ * has been expanded is kept aside and queued again when the weight is next lowered, so no work done under a
+ * higher weight is ever thrown away.
+ *
+ * <p>The search may be resumed after a {@link PendingChunkException}. Not thread-safe.
+ */
+final class AnytimeSearch implements AlternativeSearch {
+
+  /**
+   * The weight of the heuristic while searching for the first path.
+   */
+  static final double INITIAL_WEIGHT = 3;
+  /**
+   * How much the weight of the heuristic is lowered after every path that is found.
+   */
+  static final double WEIGHT_STEP = 0.5;
+  private static final int NONE = -1;
+
+  private final int domain;
+  private final long origin;
+  private final long destination;
+  private final List<Mode> modes;
+  private final NeighborhoodBlockProvider neighborhood;
+  private final NodeArena nodes;
+  private final IndexedMinHeap open = new IndexedMinHeap();
+  // the iteration (number of weights tried so far) in which each node was last expanded,
+  //  negated if the node has since been improved and set aside
+  private int[] closedIn = new int[1024];
+  // nodes improved after being expanded under the current weight
+  private int[] inconsistent = new int[64];
+  private int inconsistentCount = 0;
+  // Search State
+  private boolean started = false;
+  private double weight = INITIAL_WEIGHT;
+  private int iteration = 1;
+  private int expanded = 0;
+  private int goal = NONE;
+  private double length = Double.MAX_VALUE;
+  private List<Step> steps = null;
+  private boolean improved = false;
+  private boolean done = false;
+  // Expansion State, kept in fields so that expanding a node allocates nothing
+  private final NeighborSink sink = this::accept;
+  private int expandingNode;
+  private long expandingCell;
+  private double expandingScore;
+  private ModeType expandingMode;
+
+  AnytimeSearch(int domain, long origin, long destination, List<Mode> modes, BlockProvider blockProvider) {
+    this.domain = domain;
+    this.origin = origin;
+    this.destination = destination;
+    this.modes = modes;
+    this.neighborhood = new NeighborhoodBlockProvider(blockProvider);
+    this.nodes = new NodeArena(domain);
+  }
+
+  @Override
+  public ResultState run(int cellBudget) throws ExecutionException, InterruptedException {
+    if (done) {
+      return steps == null ? ResultState.STOPPED_FAILED : ResultState.STOPPED_SUCCESSFUL;
+    }
+    if (!started) {
+      relax(origin, NodeArena.NO_PARENT, 0, ModeType.NONE);
+      started = true;
+    }
+    int stop = expanded + cellBudget;
+    while (expanded < stop) {
+      if (open.isEmpty()) {
+        // everything reachable has been expanded, so the path we have (if any) cannot be improved upon
+        done = true;
+        if (goal == NONE) {
+          return ResultState.STOPPED_FAILED;
+        }
+        publish();
+        return ResultState.STOPPED_SUCCESSFUL;
+      }
+      if (goal != NONE && nodes.score(goal) <= open.key(open.peek())) {
+        // no queued node can lead to a better path under this weight
+        publish();
+        if (lowerWeight()) {
+          done = true;
+          return ResultState.STOPPED_SUCCESSFUL;
+        }
+        return ResultState.RUNNING;  // report the improvement before continuing
+      }
+      int current = open.poll();
+      expand(current);
+      closedIn[current] = iteration;
+      expanded++;
+    }
+    return ResultState.RUNNING;
+  }
+
+  private void expand(int current) throws ExecutionException, InterruptedException {
+    expandingNode = current;
+    expandingCell = nodes.cell(current);
+    expandingScore = nodes.score(current);
+    try {
+      neighborhood.center(domain, expandingCell);
+      for (Mode mode : modes) {
+        expandingMode = mode.type();
+        mode.expand(expandingCell, domain, neighborhood, sink);
+      }
+    } catch (PendingChunkException e) {
+      // expansion only ever improves nodes, so it is safe to redo it from the start
+      open.offer(current, key(expandingCell, expandingScore), heuristic(expandingCell));
+      throw e;
+    }
+  }
+
+  private void accept(long cell) {
+    relax(cell, expandingNode, expandingScore + Math.sqrt(PackedCell.distanceSquared(expandingCell, cell)), expandingMode);
+  }
+
+  private void relax(long cell, int parent, double score, ModeType mode) {
+    int that = nodes.indexOf(cell);
+    if (that == LongIntHashMap.MISSING) {
+      that = nodes.add(cell, parent, score, mode);
+      if (that == closedIn.length) {
+        closedIn = Arrays.copyOf(closedIn, closedIn.length * 2);
+      }
+    } else if (score < nodes.score(that)) {
+      nodes.update(that, parent, score, mode);
+    } else {
+      return;
+    }
+    if (cell == destination) {
+      goal = that;
+    }
+    if (closedIn[that] == iteration) {
+      // already expanded under this weight, so set it aside until the next one
+      if (inconsistentCount == inconsistent.length) {
+        inconsistent = Arrays.copyOf(inconsistent, inconsistentCount * 2);
+      }
+      inconsistent[inconsistentCount++] = that;
+      closedIn[that] = -iteration;
+    } else if (closedIn[that] != -iteration) {
+      // not set aside already
+      open.offer(that, key(cell, score), heuristic(cell));
+    }
+  }
+
+  /**
+   * Lower the weight of the heuristic and queue every node that may lead to a better path.
+   *
+   * @return true if the path that was found is already known to be the shortest
+   */
+  private boolean lowerWeight() {
+    // the shortest possible path is at least as long as the smallest unweighted key of any node that is left
+    double lowerBound = Double.MAX_VALUE;
+    int[] queued = new int[open.size() + inconsistentCount];
+    int count = 0;
+    while (!open.isEmpty()) {
+      queued[count++] = open.poll();
+    }
+    System.arraycopy(inconsistent, 0, queued, count, inconsistentCount);
+    count += inconsistentCount;
+    inconsistentCount = 0;
+    for (int i = 0; i < count; i++) {
+      long cell = nodes.cell(queued[i]);
+      lowerBound = Math.min(lowerBound, nodes.score(queued[i]) + heuristic(cell));
+    }
+    if (weight <= 1 || length <= lowerBound) {
+      return true;
+    }
+    weight = Math.max(1, weight - WEIGHT_STEP);
+    iteration++;
+    for (int i = 0; i < count; i++) {
+      long cell = nodes.cell(queued[i]);
+      open.offer(queued[i], key(cell, nodes.score(queued[i])), heuristic(cell));
+    }
+    return false;
+  }
+
+  private void publish() {
+    if (nodes.score(goal) < length) {
+      length = nodes.score(goal);
+      steps = nodes.steps(goal);
+      improved = true;
+    }
+  }
+
+  private double heuristic(long cell) {
+    return Math.sqrt(PackedCell.distanceSquared(cell, destination));
+  }
+
+  private double key(long cell, double score) {
+    return score + weight * heuristic(cell);
+  }
+
+  /**
+   * The weight of the heuristic under which the search is currently running.
+   * The latest path is at most this many times as long as the shortest path.
+   *
+   * @return the weight
+   */
+  double weight() {
+    return weight;
+  }
+
+  @Override
+  public boolean pollImprovement() {
+    boolean result = improved;
+    improved = false;
+    return result;
+  }
+
+  @Override
+  public boolean isConclusive() {
+    return true;
+  }
+
+  @Override
+  public List<Step> steps() {
+    return steps;
+  }
+
+  @Override
+  public double length() {
+    return length;
+  }
+
+  @Override
+  public int size() {
+    return nodes.size();
+  }
+
+  @Override
+  public int visited() {
+    return nodes.size();
+  }
+
+}
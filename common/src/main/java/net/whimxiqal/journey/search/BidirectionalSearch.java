@@ -0,0 +1,309 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.search;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import net.whimxiqal.journey.chunk.BlockProvider;
+import net.whimxiqal.journey.chunk.NeighborhoodBlockProvider;
+import net.whimxiqal.journey.chunk.PendingChunkException;
+import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.NeighborSink;
+import net.whimxiqal.journey.navigation.Step;
+import net.whimxiqal.journey.navigation.mode.BoatMode;
+import net.whimxiqal.journey.navigation.mode.ClimbMode;
+import net.whimxiqal.journey.navigation.mode.DigMode;
+import net.whimxiqal.journey.navigation.mode.DoorMode;
+import net.whimxiqal.journey.navigation.mode.FlyMode;
+import net.whimxiqal.journey.navigation.mode.JumpMode;
+import net.whimxiqal.journey.navigation.mode.SwimMode;
+import net.whimxiqal.journey.navigation.mode.WalkMode;
+import net.whimxiqal.journey.search.function.CostFunction;
+import net.whimxiqal.journey.tools.IndexedMinHeap;
+import net.whimxiqal.journey.tools.LongIntHashMap;
+import net.whimxiqal.journey.tools.PackedCell;
+
+/**
+ * An A* search that grows one frontier forward from the origin and another backward from the destination,
+ * always expanding the smaller of the two, until they meet.
+ * Where the destination is surrounded by dead ends, the backward frontier stays small
+ * while a forward-only search would explore every dead end.
+ *
+ * <p>Modes only know where a cell leads, so the backward search finds the cells that lead to a cell by
+ * expanding every cell within a single step of it (see {@link Mode#MAX_STEP_LATERAL} and related limits)
+ * and checking whether it is reached. The forward edges found this way are remembered, so each of
+ * those cells is only expanded once.
+ * Other modes may step further than those limits, so a failure is only conclusive
+ * when every mode is a built-in one.
+ *
+ * <p>The search may be resumed after a {@link PendingChunkException}. Not thread-safe.
+ */
+final class BidirectionalSearch implements AlternativeSearch {
+
+  private static final ModeType[] MODE_TYPES = ModeType.values();
+  private static final int NONE = -1;
+  // The modes known to stay within the step limits in Mode
+  private static final Set<Class<? extends Mode>> BOUNDED_MODES = Set.of(WalkMode.class, JumpMode.class,
+      SwimMode.class, FlyMode.class, BoatMode.class, DoorMode.class, ClimbMode.class, DigMode.class);
+
+  private final int domain;
+  private final long origin;
+  private final long destination;
+  private final List<Mode> modes;
+  private final boolean conclusive;
+  private final CostFunction forwardCostFunction;
+  private final CostFunction backwardCostFunction;
+  private final NeighborhoodBlockProvider neighborhood;
+  private final NodeArena forwardNodes;
+  private final NodeArena backwardNodes;
+  private final IndexedMinHeap forwardOpen = new IndexedMinHeap();
+  private final IndexedMinHeap backwardOpen = new IndexedMinHeap();
+  // The forward edges of every cell that has been checked while searching backward,
+  //  stored contiguously per cell: the edges of entry i are in [successorStarts[i], successorStarts[i + 1])
+  private final LongIntHashMap successorEntries = new LongIntHashMap();
+  private int[] successorStarts = new int[256];
+  private long[] successorCells = new long[1024];
+  private byte[] successorModes = new byte[1024];
+  private int successorEntryCount = 0;
+  private int successorCount = 0;
+  // Search State
+  private boolean started = false;
+  private int expanded = 0;
+  private double best = Double.MAX_VALUE;
+  private int bestForward = NONE;
+  private int bestBackward = NONE;
+  private List<Step> steps = null;
+  // Expansion State, kept in fields so that expanding a node allocates nothing
+  private final NeighborSink forwardSink = this::acceptForward;
+  private final NeighborSink successorSink = this::acceptSuccessor;
+  private int expandingNode;
+  private long expandingCell;
+  private double expandingScore;
+  private ModeType expandingMode;
+
+  BidirectionalSearch(int domain, long origin, long destination, List<Mode> modes,
+                      CostFunction forwardCostFunction, CostFunction backwardCostFunction,
+                      BlockProvider blockProvider) {
+    this.domain = domain;
+    this.origin = origin;
+    this.destination = destination;
+    this.modes = modes;
+    this.conclusive = modes.stream().allMatch(mode -> BOUNDED_MODES.contains(mode.getClass()));
+    this.forwardCostFunction = forwardCostFunction;
+    this.backwardCostFunction = backwardCostFunction;
+    this.neighborhood = new NeighborhoodBlockProvider(blockProvider);
+    this.forwardNodes = new NodeArena(domain);
+    this.backwardNodes = new NodeArena(domain);
+  }
+
+  @Override
+  public ResultState run(int cellBudget) throws ExecutionException, InterruptedException {
+    if (steps != null) {
+      return ResultState.STOPPED_SUCCESSFUL;
+    }
+    if (!started) {
+      relax(true, origin, NodeArena.NO_PARENT, 0, ModeType.NONE);
+      relax(false, destination, NodeArena.NO_PARENT, 0, ModeType.NONE);
+      started = true;
+    }
+    int stop = expanded + cellBudget;
+    while (expanded < stop) {
+      if (forwardOpen.isEmpty() || backwardOpen.isEmpty()) {
+        // one side has found everything it can reach, so any meeting has already been found
+        return bestForward == NONE ? ResultState.STOPPED_FAILED : succeed();
+      }
+      if (bestForward != NONE
+          && best <= Math.max(forwardOpen.key(forwardOpen.peek()), backwardOpen.key(backwardOpen.peek()))) {
+        // neither frontier can lead to a shorter meeting
+        return succeed();
+      }
+      if (forwardOpen.size() <= backwardOpen.size()) {
+        expandForward(forwardOpen.poll());
+      } else {
+        expandBackward(backwardOpen.poll());
+      }
+      expanded++;
+    }
+    return ResultState.RUNNING;
+  }
+
+  private void expandForward(int current) throws ExecutionException, InterruptedException {
+    expandingNode = current;
+    expandingCell = forwardNodes.cell(current);
+    expandingScore = forwardNodes.score(current);
+    try {
+      neighborhood.center(domain, expandingCell);
+      for (Mode mode : modes) {
+        expandingMode = mode.type();
+        mode.expand(expandingCell, domain, neighborhood, forwardSink);
+      }
+    } catch (PendingChunkException e) {
+      // expansion only ever improves nodes, so it is safe to redo it from the start
+      enqueue(true, current, expandingCell, expandingScore);
+      throw e;
+    }
+  }
+
+  private void acceptForward(long cell) {
+    relax(true, cell, expandingNode, expandingScore + Math.sqrt(PackedCell.distanceSquared(expandingCell, cell)), expandingMode);
+  }
+
+  private void expandBackward(int current) throws ExecutionException, InterruptedException {
+    long cell = backwardNodes.cell(current);
+    double score = backwardNodes.score(current);
+    try {
+      for (int offX = -Mode.MAX_STEP_LATERAL; offX <= Mode.MAX_STEP_LATERAL; offX++) {
+        for (int offZ = -Mode.MAX_STEP_LATERAL; offZ <= Mode.MAX_STEP_LATERAL; offZ++) {
+          // a cell below us must step up to get here, and a cell above us must step down
+          for (int offY = -Mode.MAX_STEP_UP; offY <= Mode.MAX_STEP_DOWN; offY++) {
+            if (offX == 0 && offY == 0 && offZ == 0) {
+              continue;
+            }
+            long predecessor = PackedCell.offset(cell, offX, offY, offZ);
+            int entry = successors(predecessor);
+            for (int i = successorStarts[entry]; i < successorStarts[entry + 1]; i++) {
+              if (successorCells[i] == cell) {
+                relax(false, predecessor, current, score + Math.sqrt(PackedCell.distanceSquared(cell, predecessor)),
+                    MODE_TYPES[successorModes[i]]);
+              }
+            }
+          }
+        }
+      }
+    } catch (PendingChunkException e) {
+      enqueue(false, current, cell, score);
+      throw e;
+    }
+  }
+
+  /**
+   * Get the entry for the forward edges of a cell, expanding it if it hasn't been expanded yet.
+   *
+   * @param cell the packed cell
+   * @return the entry index
+   */
+  private int successors(long cell) throws ExecutionException, InterruptedException {
+    int entry = successorEntries.get(cell);
+    if (entry != LongIntHashMap.MISSING) {
+      return entry;
+    }
+    int start = successorCount;
+    try {
+      neighborhood.center(domain, cell);
+      for (Mode mode : modes) {
+        expandingMode = mode.type();
+        mode.expand(cell, domain, neighborhood, successorSink);
+      }
+    } catch (PendingChunkException e) {
+      successorCount = start;  // forget the partial expansion
+      throw e;
+    }
+    entry = successorEntryCount++;
+    if (entry + 1 >= successorStarts.length) {
+      successorStarts = Arrays.copyOf(successorStarts, successorStarts.length * 2);
+    }
+    successorStarts[entry] = start;
+    successorStarts[entry + 1] = successorCount;
+    successorEntries.put(cell, entry);
+    return entry;
+  }
+
+  private void acceptSuccessor(long cell) {
+    if (successorCount == successorCells.length) {
+      successorCells = Arrays.copyOf(successorCells, successorCount * 2);
+      successorModes = Arrays.copyOf(successorModes, successorCount * 2);
+    }
+    successorCells[successorCount] = cell;
+    successorModes[successorCount] = (byte) expandingMode.ordinal();
+    successorCount++;
+  }
+
+  /**
+   * Add or improve a node on one side, and remember it if it is where the two sides meet best.
+   */
+  private void relax(boolean forward, long cell, int parent, double score, ModeType mode) {
+    NodeArena nodes = forward ? forwardNodes : backwardNodes;
+    int that = nodes.indexOf(cell);
+    if (that == LongIntHashMap.MISSING) {
+      that = nodes.add(cell, parent, score, mode);
+    } else if (score < nodes.score(that)) {
+      nodes.update(that, parent, score, mode);
+    } else {
+      return;
+    }
+    enqueue(forward, that, cell, score);
+
+    NodeArena otherNodes = forward ? backwardNodes : forwardNodes;
+    int other = otherNodes.indexOf(cell);
+    if (other != LongIntHashMap.MISSING && score + otherNodes.score(other) < best) {
+      best = score + otherNodes.score(other);
+      bestForward = forward ? that : other;
+      bestBackward = forward ? other : that;
+    }
+  }
+
+  private void enqueue(boolean forward, int node, long cell, double score) {
+    double cost = (forward ? forwardCostFunction : backwardCostFunction).apply(cell, domain, score);
+    (forward ? forwardOpen : backwardOpen).offer(node, cost, cost - score);
+  }
+
+  private ResultState succeed() {
+    steps = forwardNodes.steps(bestForward);
+    // the backward side stores, for each node, the mode used to get from it to its parent
+    for (int node = bestBackward; backwardNodes.parent(node) != NodeArena.NO_PARENT; node = backwardNodes.parent(node)) {
+      int next = backwardNodes.parent(node);
+      steps.add(new Step(backwardNodes.location(next),
+          Math.sqrt(PackedCell.distanceSquared(backwardNodes.cell(node), backwardNodes.cell(next))),
+          backwardNodes.mode(node)));
+    }
+    return ResultState.STOPPED_SUCCESSFUL;
+  }
+
+  @Override
+  public boolean isConclusive() {
+    return conclusive;  // otherwise, the backward frontier may have missed cells that lead to it
+  }
+
+  @Override
+  public List<Step> steps() {
+    return steps;
+  }
+
+  @Override
+  public double length() {
+    return best;
+  }
+
+  @Override
+  public int size() {
+    return forwardNodes.size() + backwardNodes.size() + successorEntryCount;
+  }
+
+  @Override
+  public int visited() {
+    return forwardNodes.size() + backwardNodes.size();
+  }
+
+}
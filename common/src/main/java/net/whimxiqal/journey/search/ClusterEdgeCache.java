@@ -0,0 +1,113 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.search;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A cache of the edges of the abstract graph used by {@link HierarchicalSearch}, shared between all searches.
+ * An edge set is every exit of a 16x16x16 cluster that may be reached from one entrance cell,
+ * and the distance to each one.
+ * Edge sets are bounded in number and expire after a short time so that changes to the world are
+ * eventually noticed.
+ *
+ * <p>Thread-safe.
+ */
+public final class ClusterEdgeCache {
+
+  /**
+   * The maximum number of edge sets kept at once.
+   */
+  public static final int MAX_ENTRIES = 8192;
+  /**
+   * How long an edge set may be used after it was calculated.
+   */
+  public static final long EXPIRATION_MILLIS = 60 * 1000;
+
+  private final Map<Key, Edges> entries = new LinkedHashMap<>(256, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, Edges> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+
+  /**
+   * Get the edges leaving a cluster from an entrance cell, if they are known.
+   *
+   * @param domain   the domain
+   * @param entrance the packed entrance cell
+   * @param modeMask the bit set of the ordinals of the mode types used to calculate the edges
+   * @param door     whether the door flag was set when the edges were calculated
+   * @return the edges, or null if unknown or expired
+   */
+  public synchronized @Nullable Edges get(int domain, long entrance, int modeMask, boolean door) {
+    Key key = new Key(domain, entrance, modeMask, door);
+    Edges edges = entries.get(key);
+    if (edges == null) {
+      return null;
+    }
+    if (System.currentTimeMillis() - edges.createdMillis() > EXPIRATION_MILLIS) {
+      entries.remove(key);
+      return null;
+    }
+    return edges;
+  }
+
+  /**
+   * Store the edges leaving a cluster from an entrance cell.
+   *
+   * @param domain   the domain
+   * @param entrance the packed entrance cell
+   * @param modeMask the bit set of the ordinals of the mode types used to calculate the edges
+   * @param door     whether the door flag was set when the edges were calculated
+   * @param exits    the packed exit cells
+   * @param costs    the distance to each exit cell
+   */
+  public synchronized void put(int domain, long entrance, int modeMask, boolean door, long[] exits, double[] costs) {
+    entries.put(new Key(domain, entrance, modeMask, door), new Edges(exits, costs, System.currentTimeMillis()));
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  private record Key(int domain, long entrance, int modeMask, boolean door) {
+  }
+
+  /**
+   * The edges leaving a cluster from one entrance.
+   *
+   * @param exits         the packed exit cells, which lie just outside the cluster
+   * @param costs         the distance to each exit, by index
+   * @param createdMillis when these edges were calculated
+   */
+  public record Edges(long[] exits, double[] costs, long createdMillis) {
+  }
+
+}
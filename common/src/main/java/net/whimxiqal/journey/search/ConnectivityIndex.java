@@ -0,0 +1,711 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.search;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.Journey;
+import net.whimxiqal.journey.chunk.BlockProvider;
+import net.whimxiqal.journey.chunk.ChunkCacheBlockProvider;
+import net.whimxiqal.journey.chunk.ChunkId;
+import net.whimxiqal.journey.chunk.ChunkPriority;
+import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.NeighborSink;
+import net.whimxiqal.journey.proxy.Navigability;
+import net.whimxiqal.journey.search.flag.FlagSet;
+import net.whimxiqal.journey.search.flag.Flags;
+import net.whimxiqal.journey.tools.LongIntHashMap;
+import net.whimxiqal.journey.tools.PackedCell;
+import org.jetbrains.annotations.Nullable;
+
+import static net.whimxiqal.journey.proxy.JourneyChunk.CHUNK_SIDE_LENGTH;
+import static net.whimxiqal.journey.proxy.JourneyChunk.MAX_Y;
+import static net.whimxiqal.journey.proxy.JourneyChunk.MIN_Y;
+
+/**
+ * A labeling of the connected components of the space that may be traveled with a set of modes,
+ * shared between all searches, so that a search between two cells that are walled off from each other
+ * may fail without expanding any cells.
+ *
+ * <p>Every chunk is labeled on its own by expanding the modes from every cell that may be stood in,
+ * and the labels are stitched together across chunk borders whenever a question is asked.
+ * Moves are treated as if they went both ways, so a component is only ever too large.
+ * A component is <b>closed</b> once every chunk it touches the border of is labeled as well,
+ * at which point no path may enter or leave it, and two cells in different components may only be
+ * declared unreachable from one another if one of those components is closed.
+ * Anything unknown leaves a component open, so this never fails a search that could have succeeded.
+ *
+ * <p>Chunks are labeled in the background after a search asks about them, and the labels of a chunk and its
+ * neighbors are dropped when its blocks change. Not every change can be noticed, like edits by other plugins,
+ * so labels are also dropped once they reach a maximum age. Modes that may move through anything,
+ * like flying and digging, are not supported.
+ *
+ * <p>Thread-safe.
+ */
+public final class ConnectivityIndex {
+
+  /**
+   * The maximum number of chunks labeled at once for every set of modes.
+   */
+  public static final int MAX_CHUNKS = 1024;
+  /**
+   * The maximum number of chunks labeled in the background for one request.
+   */
+  public static final int MAX_CHUNKS_PER_REQUEST = 64;
+  /**
+   * How long the labels of a chunk may be used after they were calculated.
+   */
+  public static final long EXPIRATION_MILLIS = 60 * 1000;
+  /**
+   * The bit in a label's borders that is set if the label is open for a reason other than its borders.
+   */
+  private static final int OPEN = 1 << 9;
+  /**
+   * The number of invalidated chunks remembered, to check whether a chunk being labeled changed in the meantime.
+   */
+  private static final int INVALIDATION_HISTORY = 256;
+  private static final int SUPPORTED_MODES = (1 << ModeType.WALK.ordinal())
+      | (1 << ModeType.JUMP.ordinal())
+      | (1 << ModeType.SWIM.ordinal())
+      | (1 << ModeType.BOAT.ordinal())
+      | (1 << ModeType.DOOR.ordinal())
+      | (1 << ModeType.CLIMB.ordinal());
+
+  private final long expirationMillis;
+  private final Map<Key, Layer> layers = new HashMap<>();
+  private final ChunkId[] invalidations = new ChunkId[INVALIDATION_HISTORY];
+  private long invalidationCount = 0;
+
+  /**
+   * General constructor.
+   */
+  public ConnectivityIndex() {
+    this(EXPIRATION_MILLIS);
+  }
+
+  /**
+   * General constructor.
+   *
+   * @param expirationMillis the milliseconds after which the labels of a chunk are no longer used
+   */
+  ConnectivityIndex(long expirationMillis) {
+    this.expirationMillis = expirationMillis;
+  }
+
+  /**
+   * Get the bit set of the ordinals of the types of some modes.
+   *
+   * @param modes the modes
+   * @return the bit set, or -1 if any of the modes can't be labeled
+   */
+  static int modeMask(Collection<Mode> modes) {
+    int mask = 0;
+    for (Mode mode : modes) {
+      mask |= 1 << mode.type().ordinal();
+    }
+    return (mask & ~SUPPORTED_MODES) == 0 ? mask : -1;
+  }
+
+  /**
+   * Whether it is known that no path leads from one cell to another.
+   * This only consults the labels that already exist, see {@link #request}.
+   *
+   * @param origin      the origin
+   * @param destination the destination
+   * @param modes       the modes that may be used
+   * @param door        whether the door flag is set
+   * @return true if there is no path, false if there may be one
+   */
+  public synchronized boolean isUnreachable(Cell origin, Cell destination, Collection<Mode> modes, boolean door) {
+    if (origin.domain() != destination.domain()) {
+      return false;
+    }
+    int modeMask = modeMask(modes);
+    if (modeMask < 0) {
+      return false;
+    }
+    Layer layer = layers.get(new Key(origin.domain(), modeMask, door));
+    if (layer == null) {
+      return false;
+    }
+    layer.expire(System.currentTimeMillis() - expirationMillis);
+    int originComponent = layer.component(origin);
+    int destinationComponent = layer.component(destination);
+    if (originComponent < 0 || destinationComponent < 0 || originComponent == destinationComponent) {
+      return false;
+    }
+    return !layer.open[originComponent] || !layer.open[destinationComponent];
+  }
+
+  /**
+   * Label the chunks around two cells in the background until the component of either one is closed,
+   * so that later calls to {@link #isUnreachable} may answer.
+   * Nothing happens if chunks are already being labeled for the same modes.
+   *
+   * @param origin      the origin
+   * @param destination the destination
+   * @param modes       the modes that may be used
+   * @param flags       the flags of the search
+   */
+  public void request(Cell origin, Cell destination, Collection<Mode> modes, FlagSet flags) {
+    if (origin.domain() != destination.domain()) {
+      return;
+    }
+    int modeMask = modeMask(modes);
+    if (modeMask < 0) {
+      return;
+    }
+    Key key = new Key(origin.domain(), modeMask, flags.getValueFor(Flags.DOOR));
+    Layer layer;
+    synchronized (this) {
+      layer = layers.computeIfAbsent(key, Layer::new);
+      if (layer.labeling) {
+        return;
+      }
+      layer.labeling = true;
+    }
+    List<Mode> modeList = List.copyOf(modes);
+    Journey.get().proxy().schedulingManager().schedule(() -> {
+      try {
+        BlockProvider provider = new ChunkCacheBlockProvider(flags, false, null, ChunkPriority.BACKGROUND);
+        int labeled = 0;
+        // the destination goes first, since a walled off destination is the usual reason to fail
+        for (Cell endpoint : List.of(destination, origin)) {
+          while (labeled < MAX_CHUNKS_PER_REQUEST) {
+            ChunkId chunk;
+            long stamp;
+            synchronized (this) {
+              if (layers.get(key) != layer) {
+                return;
+              }
+              layer.expire(System.currentTimeMillis() - expirationMillis);
+              chunk = layer.nextChunk(endpoint);
+              stamp = invalidationCount;
+            }
+            if (chunk == null) {
+              break;
+            }
+            store(layer, label(chunk.x(), chunk.z(), key.domain, modeList, provider), stamp);
+            labeled++;
+          }
+        }
+      } catch (ExecutionException | InterruptedException e) {
+        Journey.logger().debug("Could not label connectivity: " + e.getMessage());
+      } finally {
+        synchronized (this) {
+          layer.labeling = false;
+        }
+      }
+    }, true);
+  }
+
+  /**
+   * Label a chunk right away.
+   *
+   * @param chunkX   the chunk x coordinate
+   * @param chunkZ   the chunk z coordinate
+   * @param domain   the domain
+   * @param modes    the modes that may be used
+   * @param door     whether the door flag is set, which must match the flags of the block provider
+   * @param provider the block provider
+   * @throws ExecutionException   if the async retrieval of a block had an error
+   * @throws InterruptedException if the async retrieval of a block was interrupted
+   */
+  void label(int chunkX, int chunkZ, int domain, Collection<Mode> modes, boolean door, BlockProvider provider)
+      throws ExecutionException, InterruptedException {
+    int modeMask = modeMask(modes);
+    if (modeMask < 0) {
+      throw new IllegalArgumentException("Connectivity can't be labeled for modes " + modes);
+    }
+    Key key = new Key(domain, modeMask, door);
+    Layer layer;
+    long stamp;
+    synchronized (this) {
+      layer = layers.computeIfAbsent(key, Layer::new);
+      stamp = invalidationCount;
+    }
+    store(layer, label(chunkX, chunkZ, domain, modes, provider), stamp);
+  }
+
+  private synchronized void store(Layer layer, ChunkLabels labels, long stamp) {
+    if (layers.get(layer.key) != layer) {
+      return;
+    }
+    if (invalidationCount - stamp > INVALIDATION_HISTORY) {
+      return;  // too much changed to tell whether this chunk did
+    }
+    for (long i = stamp; i < invalidationCount; i++) {
+      ChunkId changed = invalidations[(int) (i % INVALIDATION_HISTORY)];
+      if (changed.domain() == layer.key.domain
+          && Math.abs(changed.x() - labels.chunkX) <= 1
+          && Math.abs(changed.z() - labels.chunkZ) <= 1) {
+        return;  // the labels may have been calculated with old blocks
+      }
+    }
+    layer.chunks.put(ChunkId.pack(layer.key.domain, labels.chunkX, labels.chunkZ), labels);
+    layer.dirty = true;
+  }
+
+  /**
+   * Forget the labels that depend on the blocks of a chunk, which are the labels of that chunk and its neighbors.
+   * Runs on main server thread.
+   *
+   * @param domain the domain id
+   * @param chunkX the chunk x coordinate
+   * @param chunkZ the chunk z coordinate
+   */
+  public synchronized void invalidate(int domain, int chunkX, int chunkZ) {
+    invalidations[(int) (invalidationCount % INVALIDATION_HISTORY)] = new ChunkId(domain, chunkX, chunkZ);
+    invalidationCount++;
+    for (Layer layer : layers.values()) {
+      if (layer.key.domain != domain) {
+        continue;
+      }
+      for (int x = chunkX - 1; x <= chunkX + 1; x++) {
+        for (int z = chunkZ - 1; z <= chunkZ + 1; z++) {
+          if (layer.chunks.remove(ChunkId.pack(domain, x, z)) != null) {
+            layer.dirty = true;
+          }
+        }
+      }
+    }
+  }
+
+  public synchronized int size() {
+    int size = 0;
+    for (Layer layer : layers.values()) {
+      size += layer.chunks.size();
+    }
+    return size;
+  }
+
+  public synchronized void clear() {
+    layers.clear();
+  }
+
+  private static ChunkLabels label(int chunkX, int chunkZ, int domain, Collection<Mode> modes, BlockProvider provider)
+      throws ExecutionException, InterruptedException {
+    long createdMillis = System.currentTimeMillis();  // before any block is read
+    Labeler labeler = new Labeler(chunkX, chunkZ);
+    int minX = chunkX * CHUNK_SIDE_LENGTH;
+    int minZ = chunkZ * CHUNK_SIDE_LENGTH;
+    for (int y = MIN_Y; y < MAX_Y; y++) {
+      for (int x = minX; x < minX + CHUNK_SIDE_LENGTH; x++) {
+        for (int z = minZ; z < minZ + CHUNK_SIDE_LENGTH; z++) {
+          if (isStandable(provider, domain, x, y, z)) {
+            labeler.add(PackedCell.pack(x, y, z));
+          }
+        }
+      }
+    }
+    // cells only reachable mid-move, like the top of a jump, are added as they are found
+    for (int node = 0; node < labeler.count; node++) {
+      labeler.expanding = node;
+      for (Mode mode : modes) {
+        mode.expand(labeler.cells[node], domain, provider, labeler);
+      }
+    }
+    return labeler.finish(createdMillis);
+  }
+
+  /**
+   * Whether a cell is one that a mode might move to. Extra cells only cost memory,
+   * but a missing cell that a mode moves to from another chunk leaves the components around it open.
+   */
+  private static boolean isStandable(BlockProvider provider, int domain, int x, int y, int z)
+      throws ExecutionException, InterruptedException {
+    int here = provider.navigability(domain, x, y, z);
+    if (Navigability.canStandIn(here) || Navigability.isWater(here) || Navigability.isClimbable(here)) {
+      return true;
+    }
+    if (!Navigability.isPassable(here) && !Navigability.isLaterallyPassable(here) && !Navigability.isDoor(here)) {
+      return false;
+    }
+    int below = provider.navigability(domain, x, y - 1, z);
+    return !Navigability.isVerticallyPassable(below) || Navigability.isWater(below);
+  }
+
+  private static int chunkCoordinate(int blockCoordinate) {
+    return Math.floorDiv(blockCoordinate, CHUNK_SIDE_LENGTH);
+  }
+
+  private static int localKey(long cell) {
+    return ((PackedCell.y(cell) - MIN_Y) << 8)
+        | (Math.floorMod(PackedCell.x(cell), CHUNK_SIDE_LENGTH) << 4)
+        | Math.floorMod(PackedCell.z(cell), CHUNK_SIDE_LENGTH);
+  }
+
+  /**
+   * The index of one of the eight neighboring chunks in a bit set of borders.
+   */
+  private static int border(int offX, int offZ) {
+    return (offX + 1) * 3 + offZ + 1;
+  }
+
+  /**
+   * The sets of modes that are labeled separately.
+   *
+   * @param domain   the domain
+   * @param modeMask the bit set of the ordinals of the mode types
+   * @param door     whether the door flag is set, which changes which blocks may be passed
+   */
+  private record Key(int domain, int modeMask, boolean door) {
+  }
+
+  /**
+   * The labels of one chunk.
+   *
+   * @param chunkX        the chunk x coordinate
+   * @param chunkZ        the chunk z coordinate
+   * @param keys          the sorted {@link #localKey local keys} of the labeled cells
+   * @param labels        the label of each labeled cell, by index
+   * @param borders       the bit set of the {@link #border borders} that each label touches, by label
+   * @param edgeLabels    the labels from which some cell in another chunk may be reached, by edge
+   * @param edgeTargets   the packed cells in other chunks, by edge
+   * @param createdMillis the time at which the labels started to be calculated
+   */
+  private record ChunkLabels(int chunkX, int chunkZ, int[] keys, int[] labels, int[] borders,
+                             int[] edgeLabels, long[] edgeTargets, long createdMillis) {
+
+    int label(long cell) {
+      int y = PackedCell.y(cell);
+      if (y < MIN_Y || y >= MAX_Y) {
+        return -1;
+      }
+      int index = Arrays.binarySearch(keys, localKey(cell));
+      return index < 0 ? -1 : labels[index];
+    }
+
+  }
+
+  /**
+   * A union-find over the cells of a chunk while it is being labeled.
+   */
+  private static final class Labeler implements NeighborSink {
+
+    private final int chunkX;
+    private final int chunkZ;
+    private final LongIntHashMap nodes = new LongIntHashMap();
+    private long[] cells = new long[1024];
+    private int[] parents = new int[1024];
+    private int count = 0;
+    private int expanding;
+    private final LongIntHashMap edges = new LongIntHashMap();
+    private int[] edgeNodes = new int[64];
+    private long[] edgeTargets = new long[64];
+    private int edgeCount = 0;
+    private final LongIntHashMap outOfBounds = new LongIntHashMap(16);
+
+    Labeler(int chunkX, int chunkZ) {
+      this.chunkX = chunkX;
+      this.chunkZ = chunkZ;
+    }
+
+    int add(long cell) {
+      if (count == cells.length) {
+        cells = Arrays.copyOf(cells, count * 2);
+        parents = Arrays.copyOf(parents, count * 2);
+      }
+      cells[count] = cell;
+      parents[count] = count;
+      nodes.put(cell, count);
+      return count++;
+    }
+
+    int find(int node) {
+      while (parents[node] != node) {
+        parents[node] = parents[parents[node]];
+        node = parents[node];
+      }
+      return node;
+    }
+
+    @Override
+    public void accept(long destination) {
+      int y = PackedCell.y(destination);
+      if (y < MIN_Y || y >= MAX_Y) {
+        // no labels out here, so never close the component
+        outOfBounds.put(cells[expanding], expanding);
+        return;
+      }
+      if (chunkCoordinate(PackedCell.x(destination)) != chunkX
+          || chunkCoordinate(PackedCell.z(destination)) != chunkZ) {
+        if (edges.get(destination) == expanding) {
+          return;
+        }
+        edges.put(destination, expanding);
+        if (edgeCount == edgeNodes.length) {
+          edgeNodes = Arrays.copyOf(edgeNodes, edgeCount * 2);
+          edgeTargets = Arrays.copyOf(edgeTargets, edgeCount * 2);
+        }
+        edgeNodes[edgeCount] = expanding;
+        edgeTargets[edgeCount] = destination;
+        edgeCount++;
+        return;
+      }
+      int node = nodes.get(destination);
+      if (node == LongIntHashMap.MISSING) {
+        node = add(destination);
+      }
+      parents[find(node)] = find(expanding);
+    }
+
+    ChunkLabels finish(long createdMillis) {
+      int[] rootLabels = new int[count];
+      Arrays.fill(rootLabels, -1);
+      int labelCount = 0;
+      long[] sorted = new long[count];
+      for (int node = 0; node < count; node++) {
+        int root = find(node);
+        if (rootLabels[root] < 0) {
+          rootLabels[root] = labelCount++;
+        }
+        sorted[node] = ((long) localKey(cells[node]) << 32) | rootLabels[root];
+      }
+      Arrays.sort(sorted);
+      int[] keys = new int[count];
+      int[] labels = new int[count];
+      int[] borders = new int[labelCount];
+      for (int i = 0; i < count; i++) {
+        keys[i] = (int) (sorted[i] >>> 32);
+        labels[i] = (int) sorted[i];
+        int localX = (keys[i] >> 4) & 0xF;
+        int localZ = keys[i] & 0xF;
+        int offX = localX == 0 ? -1 : (localX == CHUNK_SIDE_LENGTH - 1 ? 1 : 0);
+        int offZ = localZ == 0 ? -1 : (localZ == CHUNK_SIDE_LENGTH - 1 ? 1 : 0);
+        // a cell on the border may be reached from the chunk beside it, and a cell in a corner from three chunks
+        if (offX != 0) {
+          borders[labels[i]] |= 1 << border(offX, 0);
+        }
+        if (offZ != 0) {
+          borders[labels[i]] |= 1 << border(0, offZ);
+        }
+        if (offX != 0 && offZ != 0) {
+          borders[labels[i]] |= 1 << border(offX, offZ);
+        }
+      }
+      for (int i = 0; i < count; i++) {
+        if (outOfBounds.containsKey(cells[i])) {
+          borders[rootLabels[find(i)]] |= OPEN;
+        }
+      }
+      int[] edgeLabels = new int[edgeCount];
+      for (int i = 0; i < edgeCount; i++) {
+        edgeLabels[i] = rootLabels[find(edgeNodes[i])];
+      }
+      return new ChunkLabels(chunkX, chunkZ, keys, labels, borders, edgeLabels, Arrays.copyOf(edgeTargets, edgeCount),
+          createdMillis);
+    }
+
+  }
+
+  /**
+   * The labels of every chunk for one set of modes, and the components they are stitched into.
+   */
+  private static final class Layer {
+
+    private final Key key;
+    private final Map<Long, ChunkLabels> chunks = new LinkedHashMap<>(256, 0.75f) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, ChunkLabels> eldest) {
+        return size() > MAX_CHUNKS;
+      }
+    };
+    private boolean labeling = false;
+    private boolean dirty = true;
+    // Stitched State
+    private final Map<Long, Integer> offsets = new HashMap<>();
+    private int[] components = new int[0];
+    private boolean[] open = new boolean[0];
+
+    Layer(Key key) {
+      this.key = key;
+    }
+
+    /**
+     * Drop the labels that were calculated too long ago.
+     *
+     * @param oldestMillis the time at which the oldest labels that may still be used were calculated
+     */
+    void expire(long oldestMillis) {
+      if (chunks.values().removeIf(labels -> labels.createdMillis <= oldestMillis)) {
+        dirty = true;
+      }
+    }
+
+    /**
+     * Get the component of a cell.
+     *
+     * @param cell the cell
+     * @return the component, or -1 if the cell isn't labeled
+     */
+    int component(Cell cell) {
+      stitch();
+      long chunk = ChunkId.pack(key.domain, chunkCoordinate(cell.blockX()), chunkCoordinate(cell.blockZ()));
+      ChunkLabels labels = chunks.get(chunk);
+      if (labels == null) {
+        return -1;
+      }
+      int label = labels.label(PackedCell.pack(cell));
+      return label < 0 ? -1 : components[offsets.get(chunk) + label];
+    }
+
+    /**
+     * Get the chunk to label next to close the component of a cell.
+     * This is the unlabeled chunk nearest to the cell that its component touches.
+     *
+     * @param cell the cell
+     * @return the chunk, or null if labeling more chunks won't help
+     */
+    @Nullable
+    ChunkId nextChunk(Cell cell) {
+      int cellChunkX = chunkCoordinate(cell.blockX());
+      int cellChunkZ = chunkCoordinate(cell.blockZ());
+      if (!chunks.containsKey(ChunkId.pack(key.domain, cellChunkX, cellChunkZ))) {
+        return new ChunkId(key.domain, cellChunkX, cellChunkZ);
+      }
+      int component = component(cell);
+      if (component < 0 || !open[component]) {
+        return null;
+      }
+      ChunkId best = null;
+      long bestDistance = Long.MAX_VALUE;
+      for (Map.Entry<Long, ChunkLabels> entry : chunks.entrySet()) {
+        ChunkLabels labels = entry.getValue();
+        int offset = offsets.get(entry.getKey());
+        for (int label = 0; label < labels.borders.length; label++) {
+          if (components[offset + label] != component) {
+            continue;
+          }
+          for (int offX = -1; offX <= 1; offX++) {
+            for (int offZ = -1; offZ <= 1; offZ++) {
+              if ((labels.borders[label] & (1 << border(offX, offZ))) == 0) {
+                continue;
+              }
+              if (chunks.containsKey(ChunkId.pack(key.domain, labels.chunkX + offX, labels.chunkZ + offZ))) {
+                continue;
+              }
+              long dx = labels.chunkX + offX - cellChunkX;
+              long dz = labels.chunkZ + offZ - cellChunkZ;
+              if (dx * dx + dz * dz < bestDistance) {
+                best = new ChunkId(key.domain, labels.chunkX + offX, labels.chunkZ + offZ);
+                bestDistance = dx * dx + dz * dz;
+              }
+            }
+          }
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Stitch the labels of every chunk into components, if any labels changed since the last time.
+     */
+    void stitch() {
+      if (!dirty) {
+        return;
+      }
+      offsets.clear();
+      int total = 0;
+      for (Map.Entry<Long, ChunkLabels> entry : chunks.entrySet()) {
+        offsets.put(entry.getKey(), total);
+        total += entry.getValue().borders.length;
+      }
+      int[] parents = new int[total];
+      for (int i = 0; i < total; i++) {
+        parents[i] = i;
+      }
+      boolean[] open = new boolean[total];
+      for (Map.Entry<Long, ChunkLabels> entry : chunks.entrySet()) {
+        ChunkLabels labels = entry.getValue();
+        int offset = offsets.get(entry.getKey());
+        for (int label = 0; label < labels.borders.length; label++) {
+          if ((labels.borders[label] & OPEN) != 0) {
+            open[offset + label] = true;
+            continue;
+          }
+          for (int offX = -1; offX <= 1 && !open[offset + label]; offX++) {
+            for (int offZ = -1; offZ <= 1; offZ++) {
+              if ((labels.borders[label] & (1 << border(offX, offZ))) != 0
+                  && !chunks.containsKey(ChunkId.pack(key.domain, labels.chunkX + offX, labels.chunkZ + offZ))) {
+                // a path we know nothing about may come in from here
+                open[offset + label] = true;
+                break;
+              }
+            }
+          }
+        }
+        for (int edge = 0; edge < labels.edgeLabels.length; edge++) {
+          long target = labels.edgeTargets[edge];
+          long targetChunk = ChunkId.pack(key.domain,
+              chunkCoordinate(PackedCell.x(target)), chunkCoordinate(PackedCell.z(target)));
+          Integer targetOffset = offsets.get(targetChunk);
+          ChunkLabels targetLabels = chunks.get(targetChunk);
+          int targetLabel = targetLabels == null ? -1 : targetLabels.label(target);
+          if (targetLabel < 0) {
+            open[offset + labels.edgeLabels[edge]] = true;
+            if (targetLabels != null) {
+              // the target chunk never expanded this cell, so it doesn't know where it leads
+              Arrays.fill(open, targetOffset, targetOffset + targetLabels.borders.length, true);
+            }
+            continue;
+          }
+          union(parents, offset + labels.edgeLabels[edge], targetOffset + targetLabel);
+        }
+      }
+      for (int i = 0; i < total; i++) {
+        int root = find(parents, i);
+        if (open[i]) {
+          open[root] = true;
+        }
+      }
+      components = new int[total];
+      this.open = new boolean[total];
+      for (int i = 0; i < total; i++) {
+        components[i] = find(parents, i);
+        this.open[i] = open[components[i]];
+      }
+      dirty = false;
+    }
+
+    private static int find(int[] parents, int node) {
+      while (parents[node] != node) {
+        parents[node] = parents[parents[node]];
+        node = parents[node];
+      }
+      return node;
+    }
+
+    private static void union(int[] parents, int first, int second) {
+      parents[find(parents, first)] = find(parents, second);
+    }
+
+  }
+
+}
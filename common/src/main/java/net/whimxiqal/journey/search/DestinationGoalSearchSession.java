@@ -28,7 +28,6 @@ import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.JourneyAgent;
 import net.whimxiqal.journey.JourneyPlayer;
-import net.whimxiqal.journey.Tunnel;
 
 public class DestinationGoalSearchSession extends GraphGoalSearchSession<DestinationSearchGraph> {
 
@@ -64,13 +63,10 @@ public class DestinationGoalSearchSession extends GraphGoalSearchSession<Destina
       stateInfo.searchGraph.addPathTrialOriginToDestination(modes(), persistentOrigin && persistentDestination);
     }
 
-    for (Integer domain : stateInfo.allDomains) {
-      // Path trials from tunnel -> destination
-      for (Tunnel pathTrialOriginTunnel : stateInfo.tunnelsByDestinationDomain.get(domain)) {
-        if (domain.equals(destination.domain())) {
-          stateInfo.searchGraph.addPathTrialTunnelToDestination(pathTrialOriginTunnel, modes(), persistentDestination);
-        }
-      }
+    // Path trials from tunnel -> destination
+    for (int pathTrialOriginTunnel : stateInfo.tunnelGraph.tunnelsEndingIn(destination.domain())) {
+      stateInfo.searchGraph.addPathTrialTunnelToDestination(stateInfo.tunnels.get(pathTrialOriginTunnel),
+          modes(), persistentDestination);
     }
   }
 
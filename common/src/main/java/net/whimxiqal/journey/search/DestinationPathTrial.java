@@ -24,17 +24,22 @@
 package net.whimxiqal.journey.search;
 
 import java.util.Collection;
+import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.Getter;
 import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.Journey;
+import net.whimxiqal.journey.chunk.ChunkCacheBlockProvider;
 import net.whimxiqal.journey.config.Settings;
 import net.whimxiqal.journey.data.DataAccessException;
 import net.whimxiqal.journey.navigation.Mode;
 import net.whimxiqal.journey.navigation.Path;
+import net.whimxiqal.journey.search.flag.Flags;
 import net.whimxiqal.journey.search.function.EuclideanDistanceFunction;
 import net.whimxiqal.journey.search.function.PlanarOrientedDistanceFunction;
 import net.whimxiqal.journey.search.function.WeightedDistanceCostFunction;
+import net.whimxiqal.journey.tools.PackedCell;
+import net.whimxiqal.journey.util.Permission;
 
 /**
  * An extension of {@link PathTrial} where the goal of the trial is to find a path to
@@ -59,7 +64,7 @@ public class DestinationPathTrial extends PathTrial {
                               boolean saveOnComplete) {
     super(session, origin, modes,
         new WeightedDistanceCostFunction(new EuclideanDistanceFunction(), destination, COST_FUNCTION_WEIGHT),
-        (blockProvider, node) -> node.getData().location().distanceToSquared(destination)
+        (blockProvider, location) -> location.distanceToSquared(destination)
             <= SUFFICIENT_COMPLETION_DISTANCE_SQUARED,
         length,
         path,
@@ -149,6 +154,52 @@ public class DestinationPathTrial extends PathTrial {
         true, false);
   }
 
+  @Override
+  boolean isKnownToFail() {
+    boolean door = session.flags.getValueFor(Flags.DOOR);
+    if (Journey.get().failedTrialCache().contains(origin, destination, getModes(), door)) {
+      return true;
+    }
+    ConnectivityIndex connectivityIndex = Journey.get().connectivityIndex();
+    if (connectivityIndex.isUnreachable(origin, destination, getModes(), door)) {
+      return true;
+    }
+    // label the area in the meantime, so the next attempt may know
+    connectivityIndex.request(origin, destination, getModes(), session.flags());
+    return false;
+  }
+
+  @Override
+  AlternativeSearch createAlternativeSearch() {
+    if (session.flags.getValueFor(Flags.HIERARCHICAL)) {
+      return new HierarchicalSearch(getDomain(), PackedCell.pack(origin), PackedCell.pack(destination),
+          getModes(), costFunction, chunkCache, Journey.get().clusterEdgeCache(), session.flags.getValueFor(Flags.DOOR));
+    }
+    if (session.flags.getValueFor(Flags.BIDIRECTIONAL)) {
+      return new BidirectionalSearch(getDomain(), PackedCell.pack(origin), PackedCell.pack(destination), getModes(),
+          costFunction,
+          new WeightedDistanceCostFunction(new EuclideanDistanceFunction(), origin, COST_FUNCTION_WEIGHT),
+          chunkCache);
+    }
+    if (session.flags.getValueFor(Flags.ANYTIME)) {
+      return new AnytimeSearch(getDomain(), PackedCell.pack(origin), PackedCell.pack(destination), getModes(), chunkCache);
+    }
+    int threads = Settings.PARALLEL_SEARCH_THREADS.getValue();
+    double minDistance = Settings.PARALLEL_SEARCH_MIN_DISTANCE.getValue();
+    // short searches, like the legs between tunnels, are over before more threads would help
+    if (threads > 1
+        && session.agent.hasPermission(Permission.ADMIN_PARALLEL_SEARCH.path())
+        && origin.distanceToSquared(destination) >= minDistance * minDistance) {
+      return new ParallelSearch(getDomain(), PackedCell.pack(origin), PackedCell.pack(destination), getModes(),
+          costFunction, threads, Settings.MAX_PATH_BLOCK_COUNT.getValue(),
+          () -> new ChunkCacheBlockProvider(session.flags(), true, null, session.chunkPriority()),
+          () -> session.state.get().shouldStop(),
+          session.uuid(),
+          Journey.get().workManager()::schedule);
+    }
+    return null;
+  }
+
   @Override
   protected void cacheSuccess() {
     Journey.logger().debug(this + ": caching path in database");
@@ -160,15 +211,22 @@ public class DestinationPathTrial extends PathTrial {
       return;
     }
     try {
+      Set<ModeType> modeTypes = getModes().stream().map(Mode::type).collect(Collectors.toSet());
       Journey.get().proxy().dataManager().pathRecordManager().report(
           this,
-          getModes().stream().map(Mode::type).collect(Collectors.toSet()),
+          modeTypes,
           System.currentTimeMillis() - startExecutionTime);
+      Journey.get().tunnelGraph().forgetRecords(origin, destination);
     } catch (DataAccessException e) {
       Journey.logger().error("SQL error trying to cache a path.");
     }
   }
 
+  @Override
+  protected void cacheFailure() {
+    Journey.get().failedTrialCache().put(origin, destination, getModes(), session.flags.getValueFor(Flags.DOOR));
+  }
+
   @Override
   public String toString() {
     return "[Destination Path Search] {session: " + session.uuid
@@ -176,7 +234,7 @@ public class DestinationPathTrial extends PathTrial {
         + ", destination: " + destination
         + ", cycles: " + cycles
         + ", state: " + state
-        + ", visited: " + visited.size()
+        + ", visited: " + nodes.size()
         + ", from cache: " + fromCache
         + "}";
   }
@@ -73,6 +73,8 @@ public class DestinationSearchGraph extends SearchGraph {
   /**
    * Calculate an itinerary trial using this graph.
    * If none is found, then return null.
+   * After the first calculation, the last solution is repaired where path trials have changed
+   * instead of being solved again.
    *
    * @return the itinerary trial
    */
@@ -38,6 +38,7 @@ import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.JourneyAgent;
 import net.whimxiqal.journey.Tunnel;
+import net.whimxiqal.journey.chunk.ChunkPriority;
 import net.whimxiqal.journey.navigation.Mode;
 import net.whimxiqal.journey.search.flag.Flags;
 import net.whimxiqal.journey.util.SimpleTimer;
@@ -151,6 +152,11 @@ public class EverythingSearch extends SearchSession {
     }
   }
 
+  @Override
+  public ChunkPriority chunkPriority() {
+    return ChunkPriority.BACKGROUND;  // nobody is waiting on these, so let players' searches go first
+  }
+
   @Override
   public String toString() {
     return "[Everything Search] {session: " + uuid
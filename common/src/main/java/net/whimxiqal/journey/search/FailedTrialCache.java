@@ -0,0 +1,160 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.search;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.tools.PackedCell;
+
+/**
+ * A cache of the {@link DestinationPathTrial}s that failed, shared between all searches,
+ * so that asking for the same unreachable destination again fails without searching.
+ * A failure counts for every origin in the same small region, since the origin moves a little
+ * between attempts, like when a player asks again for a path to a waypoint.
+ * Failures are bounded in number and expire after a short time, and they are forgotten early when the
+ * blocks change anywhere a path between the two ends could have gone, so that a new path is noticed.
+ *
+ * <p>Thread-safe.
+ */
+public final class FailedTrialCache {
+
+  /**
+   * The maximum number of failures kept at once.
+   */
+  public static final int MAX_ENTRIES = 4096;
+  /**
+   * How long a failure may be used after it happened.
+   */
+  public static final long EXPIRATION_MILLIS = 60 * 1000;
+  /**
+   * The base 2 logarithm of the side length of the cubes of origins that share their failures.
+   */
+  public static final int REGION_BITS = 3;
+
+  private final Map<Key, Long> entries = new LinkedHashMap<>(256, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+
+  private static Key key(Cell origin, Cell destination, Collection<Mode> modes, boolean door) {
+    int modeMask = 0;
+    for (Mode mode : modes) {
+      modeMask |= 1 << mode.type().ordinal();
+    }
+    return new Key(origin.domain(), PackedCell.pack(origin.blockX() >> REGION_BITS,
+        origin.blockY() >> REGION_BITS,
+        origin.blockZ() >> REGION_BITS),
+        destination.domain(), PackedCell.pack(destination), modeMask, door);
+  }
+
+  /**
+   * Whether a path between two cells failed recently.
+   *
+   * @param origin      the origin
+   * @param destination the destination
+   * @param modes       the modes that were used
+   * @param door        whether the door flag was set
+   * @return true if the path failed and the failure hasn't expired
+   */
+  public synchronized boolean contains(Cell origin, Cell destination, Collection<Mode> modes, boolean door) {
+    Key key = key(origin, destination, modes, door);
+    Long failedMillis = entries.get(key);
+    if (failedMillis == null) {
+      return false;
+    }
+    if (System.currentTimeMillis() - failedMillis > EXPIRATION_MILLIS) {
+      entries.remove(key);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Store that a path between two cells failed.
+   * A failure that is already stored keeps its time, so that asking again doesn't keep it from expiring.
+   *
+   * @param origin      the origin
+   * @param destination the destination
+   * @param modes       the modes that were used
+   * @param door        whether the door flag was set
+   */
+  public synchronized void put(Cell origin, Cell destination, Collection<Mode> modes, boolean door) {
+    entries.putIfAbsent(key(origin, destination, modes, door), System.currentTimeMillis());
+  }
+
+  /**
+   * Forget the failures whose path could have gone through a chunk, because its blocks have changed.
+   * These are the failures with a chunk beside or between the chunks of their ends, since whatever
+   * made a path fail, like a wall, is usually somewhere along the way.
+   * Runs on main server thread.
+   *
+   * @param domain the domain id
+   * @param chunkX the chunk x coordinate
+   * @param chunkZ the chunk z coordinate
+   */
+  public synchronized void invalidate(int domain, int chunkX, int chunkZ) {
+    Iterator<Key> iterator = entries.keySet().iterator();
+    while (iterator.hasNext()) {
+      Key key = iterator.next();
+      int originChunkX = PackedCell.x(key.originRegion) >> (4 - REGION_BITS);
+      int originChunkZ = PackedCell.z(key.originRegion) >> (4 - REGION_BITS);
+      int destinationChunkX = PackedCell.x(key.destination) >> 4;
+      int destinationChunkZ = PackedCell.z(key.destination) >> 4;
+      if (key.originDomain == domain && key.destinationDomain == domain) {
+        if (chunkX >= Math.min(originChunkX, destinationChunkX) - 1
+            && chunkX <= Math.max(originChunkX, destinationChunkX) + 1
+            && chunkZ >= Math.min(originChunkZ, destinationChunkZ) - 1
+            && chunkZ <= Math.max(originChunkZ, destinationChunkZ) + 1) {
+          iterator.remove();
+        }
+      } else if (key.originDomain == domain
+          && Math.abs(originChunkX - chunkX) <= 1
+          && Math.abs(originChunkZ - chunkZ) <= 1) {
+        iterator.remove();
+      } else if (key.destinationDomain == domain
+          && Math.abs(destinationChunkX - chunkX) <= 1
+          && Math.abs(destinationChunkZ - chunkZ) <= 1) {
+        iterator.remove();
+      }
+    }
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  private record Key(int originDomain, long originRegion, int destinationDomain, long destination,
+                     int modeMask, boolean door) {
+  }
+
+}
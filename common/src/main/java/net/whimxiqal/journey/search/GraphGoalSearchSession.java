@@ -23,11 +23,8 @@
 
 package net.whimxiqal.journey.search;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import net.whimxiqal.journey.Cell;
@@ -65,36 +62,30 @@ public abstract class GraphGoalSearchSession<G extends SearchGraph> extends Sear
     synchronized (stateInfo) {
       super.timer.start();
 
-      for (Tunnel tunnel : tunnels()) {
-        stateInfo.allDomains.add(tunnel.origin().domain());
-        stateInfo.allDomains.add(tunnel.destination().domain());
-      }
-
-      // Prepare tunnel maps
-      for (Integer domain : stateInfo.allDomains) {
-        stateInfo.tunnelsByOriginDomain.put(domain, new LinkedList<>());
-        stateInfo.tunnelsByDestinationDomain.put(domain, new LinkedList<>());
-      }
-
-      // Fill tunnel maps
-      for (Tunnel tunnel : tunnels()) {
-        stateInfo.tunnelsByOriginDomain.get(tunnel.origin().domain()).add(tunnel);
-        stateInfo.tunnelsByDestinationDomain.get(tunnel.destination().domain()).add(tunnel);
+      // The tunnels are grouped once for every search with the same tunnels
+      stateInfo.tunnels = new ArrayList<>(tunnels());
+      stateInfo.tunnelGraph = Journey.get().tunnelGraph().snapshot(stateInfo.tunnels);
+      Set<ModeType> modeTypes = modeTypes();
+      if (stateInfo.tunnelGraph.claimPrecomputation(modeTypes)) {
+        TunnelGraph.Snapshot snapshot = stateInfo.tunnelGraph;
+        Journey.get().proxy().schedulingManager().schedule(() -> Journey.get().tunnelGraph()
+            .precompute(snapshot, modeTypes, Journey.get().proxy().dataManager().pathRecordManager()), true);
       }
 
       stateInfo.searchGraph = createSearchGraph();
 
       // Collect path trials
-      for (Integer domain : stateInfo.allDomains) {
-        for (Tunnel pathTrialOriginTunnel : stateInfo.tunnelsByDestinationDomain.get(domain)) {
-          for (Tunnel pathTrialDestinationTunnel : stateInfo.tunnelsByOriginDomain.get(domain)) {
+      for (int domain : stateInfo.tunnelGraph.domains()) {
+        for (int pathTrialDestinationTunnel : stateInfo.tunnelGraph.tunnelsStartingIn(domain)) {
+          for (int pathTrialOriginTunnel : stateInfo.tunnelGraph.tunnelsEndingIn(domain)) {
             stateInfo.searchGraph.addPathTrialTunnelToTunnel(
-                pathTrialOriginTunnel,
-                pathTrialDestinationTunnel,
+                stateInfo.tunnels.get(pathTrialOriginTunnel),
+                stateInfo.tunnels.get(pathTrialDestinationTunnel),
                 modes());
-            if (domain.equals(origin.domain())) {
-              stateInfo.searchGraph.addPathTrialOriginToTunnel(pathTrialDestinationTunnel, modes(), persistentOrigin);
-            }
+          }
+          if (domain == origin.domain()) {
+            stateInfo.searchGraph.addPathTrialOriginToTunnel(stateInfo.tunnels.get(pathTrialDestinationTunnel),
+                modes(), persistentOrigin);
           }
         }
       }
@@ -113,6 +104,8 @@ public abstract class GraphGoalSearchSession<G extends SearchGraph> extends Sear
    * Run one cycle, which calculates a possible itinerary with known path trials, then tries to validate
    * the itinerary trial by searching for paths in the path trials.
    * If the cycle fails, it may update the path graph and try to calculate a new itinerary.
+   * A {@link DestinationSearchGraph} keeps its solution between cycles, so each new calculation only repairs
+   * the part of it affected by the path trials the last attempt changed.
    * It is synchronized on stateInfo because each call may be on a different thread, so we just want to verify that
    * each one is only executing at a time.
    */
@@ -199,9 +192,8 @@ public abstract class GraphGoalSearchSession<G extends SearchGraph> extends Sear
   }
 
   protected class State {
-    final Set<Integer> allDomains = new HashSet<>();
-    final Map<Integer, List<Tunnel>> tunnelsByOriginDomain = new HashMap<>();
-    final Map<Integer, List<Tunnel>> tunnelsByDestinationDomain = new HashMap<>();
+    List<Tunnel> tunnels = null;
+    TunnelGraph.Snapshot tunnelGraph = null;
     G searchGraph = null;
     GraphGoalSearchSession.CachingStatus cachingStatus = GraphGoalSearchSession.CachingStatus.ALWAYS_USE;
   }
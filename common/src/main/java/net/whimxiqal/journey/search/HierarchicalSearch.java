@@ -0,0 +1,317 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import net.whimxiqal.journey.chunk.BlockProvider;
+import net.whimxiqal.journey.chunk.PendingChunkException;
+import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.Step;
+import net.whimxiqal.journey.search.function.CostFunction;
+import net.whimxiqal.journey.tools.IndexedMinHeap;
+import net.whimxiqal.journey.tools.LongIntHashMap;
+import net.whimxiqal.journey.tools.PackedCell;
+
+/**
+ * A two-level search for a path between two cells, for long distances.
+ *
+ * <p>The world is divided into clusters of 16x16x16 blocks. First, an A* search finds a route over an
+ * abstract graph whose nodes are cells on the borders of clusters. The edges leaving a node are found
+ * with a {@link LocalSearch} through the node's cluster, and are shared with other searches through a
+ * {@link ClusterEdgeCache}. To keep the abstract graph small, only one exit is kept
+ * for every 8x8x8 block region that the cluster may be left into.
+ * Then, the route is refined into a path of blocks by searching within one cluster at a time.
+ *
+ * <p>Because only some exits are kept, the resulting path is not always the shortest possible path,
+ * and failing to find a path does not mean that none exists.
+ *
+ * <p>The search may be resumed after a {@link PendingChunkException}. Not thread-safe.
+ */
+final class HierarchicalSearch implements AlternativeSearch {
+
+  static final int CLUSTER_SIZE = 16;
+  private static final int BUCKET_SIZE = 8;
+  private static final int NONE = -1;
+
+  private final int domain;
+  private final long origin;
+  private final long destination;
+  private final CostFunction costFunction;
+  private final ClusterEdgeCache edgeCache;
+  private final int modeMask;
+  private final boolean door;
+  private final LocalSearch local;
+  private final NodeArena abstractNodes;
+  private final IndexedMinHeap open = new IndexedMinHeap();
+  // scratch space for collecting the exits of a cluster
+  private final LongIntHashMap buckets = new LongIntHashMap();
+  private long[] exits = new long[64];
+  private double[] exitCosts = new double[64];
+  private long[] exitCenterDistances = new long[64];
+  // Search State
+  private boolean started = false;
+  private boolean refining = false;
+  private int expandingNode = NONE;  // the abstract node whose local search is in progress
+  private long[] route = null;
+  private int routeIndex = 0;
+  private final List<Step> steps = new ArrayList<>();
+  private double length = 0;
+
+  HierarchicalSearch(int domain, long origin, long destination, List<Mode> modes, CostFunction costFunction,
+                     BlockProvider blockProvider, ClusterEdgeCache edgeCache, boolean door) {
+    this.domain = domain;
+    this.origin = origin;
+    this.destination = destination;
+    this.costFunction = costFunction;
+    this.edgeCache = edgeCache;
+    int modeMask = 0;
+    for (Mode mode : modes) {
+      modeMask |= 1 << mode.type().ordinal();
+    }
+    this.modeMask = modeMask;
+    this.door = door;
+    this.local = new LocalSearch(domain, modes, blockProvider);
+    this.abstractNodes = new NodeArena(domain);
+  }
+
+  /**
+   * Get the minimum coordinate of the cluster containing a coordinate, along any axis.
+   *
+   * @param coordinate the block coordinate
+   * @return the minimum block coordinate of its cluster
+   */
+  static int clusterMin(int coordinate) {
+    return coordinate & -CLUSTER_SIZE;
+  }
+
+  @Override
+  public ResultState run(int cellBudget) throws ExecutionException, InterruptedException {
+    if (!started) {
+      enqueue(abstractNodes.add(origin, NodeArena.NO_PARENT, 0, ModeType.NONE), origin, 0);
+      started = true;
+    }
+    int stop = local.expanded() + cellBudget;
+    // also limit the iterations themselves, because cached edges take no local search at all
+    for (int i = 0; i < cellBudget && local.expanded() < stop; i++) {
+      ResultState state = route == null ? searchAbstract() : refine();
+      if (state != ResultState.RUNNING) {
+        return state;
+      }
+    }
+    return ResultState.RUNNING;
+  }
+
+  /**
+   * Expand one node of the abstract graph.
+   */
+  private ResultState searchAbstract() throws ExecutionException, InterruptedException {
+    if (expandingNode == NONE) {
+      if (open.isEmpty()) {
+        return ResultState.STOPPED_FAILED;
+      }
+      int current = open.poll();
+      long cell = abstractNodes.cell(current);
+      if (cell == destination) {
+        buildRoute(current);
+        return ResultState.RUNNING;
+      }
+      boolean containsDestination = inSameCluster(cell, destination);
+      if (!containsDestination) {
+        ClusterEdgeCache.Edges edges = edgeCache.get(domain, cell, modeMask, door);
+        if (edges != null) {
+          for (int i = 0; i < edges.exits().length; i++) {
+            relax(current, edges.exits()[i], edges.costs()[i]);
+          }
+          return ResultState.RUNNING;
+        }
+      }
+      expandingNode = current;
+      local.reset(cell, LocalSearch.NO_TARGET);
+    }
+
+    local.run();
+
+    int current = expandingNode;
+    expandingNode = NONE;
+    long cell = abstractNodes.cell(current);
+    int exitCount = collectExits();
+    edgeCache.put(domain, cell, modeMask, door,
+        Arrays.copyOf(exits, exitCount), Arrays.copyOf(exitCosts, exitCount));
+    for (int i = 0; i < exitCount; i++) {
+      relax(current, exits[i], exitCosts[i]);
+    }
+    int destinationIndex = local.indexOf(destination);
+    if (destinationIndex != LongIntHashMap.MISSING) {
+      relax(current, destination, local.score(destinationIndex));
+    }
+    return ResultState.RUNNING;
+  }
+
+  /**
+   * Choose the exits of the cluster that was just searched by the local search.
+   * Exits are grouped by the 8x8x8 block region they lie in, and the one nearest the center of
+   * its region is kept, so that searches from different entrances tend to choose the same exits.
+   *
+   * @return the number of exits, which are stored in the scratch arrays
+   */
+  private int collectExits() {
+    buckets.clear();
+    int count = 0;
+    for (int i = 0; i < local.size(); i++) {
+      long cell = local.cell(i);
+      if (local.inside(cell)) {
+        continue;
+      }
+      int x = PackedCell.x(cell);
+      int y = PackedCell.y(cell);
+      int z = PackedCell.z(cell);
+      long bucket = PackedCell.pack(Math.floorDiv(x, BUCKET_SIZE), Math.floorDiv(y, BUCKET_SIZE), Math.floorDiv(z, BUCKET_SIZE));
+      // distances are doubled so that the center of a bucket is a whole number
+      long dx = 2L * Math.floorMod(x, BUCKET_SIZE) - (BUCKET_SIZE - 1);
+      long dy = 2L * Math.floorMod(y, BUCKET_SIZE) - (BUCKET_SIZE - 1);
+      long dz = 2L * Math.floorMod(z, BUCKET_SIZE) - (BUCKET_SIZE - 1);
+      long centerDistance = dx * dx + dy * dy + dz * dz;
+      double cost = local.score(i);
+      int index = buckets.get(bucket);
+      if (index == LongIntHashMap.MISSING) {
+        if (count == exits.length) {
+          exits = Arrays.copyOf(exits, count * 2);
+          exitCosts = Arrays.copyOf(exitCosts, count * 2);
+          exitCenterDistances = Arrays.copyOf(exitCenterDistances, count * 2);
+        }
+        buckets.put(bucket, count);
+        exits[count] = cell;
+        exitCosts[count] = cost;
+        exitCenterDistances[count] = centerDistance;
+        count++;
+      } else if (centerDistance < exitCenterDistances[index]
+          || (centerDistance == exitCenterDistances[index] && cell < exits[index])) {
+        exits[index] = cell;
+        exitCosts[index] = cost;
+        exitCenterDistances[index] = centerDistance;
+      }
+    }
+    return count;
+  }
+
+  private void relax(int from, long cell, double cost) {
+    double score = abstractNodes.score(from) + cost;
+    int that = abstractNodes.indexOf(cell);
+    if (that == LongIntHashMap.MISSING) {
+      enqueue(abstractNodes.add(cell, from, score, ModeType.NONE), cell, score);
+    } else if (score < abstractNodes.score(that)) {
+      abstractNodes.update(that, from, score, ModeType.NONE);
+      enqueue(that, cell, score);
+    }
+  }
+
+  private void enqueue(int node, long cell, double score) {
+    double cost = costFunction.apply(cell, domain, score);
+    open.offer(node, cost, cost - score);
+  }
+
+  private void buildRoute(int last) {
+    int count = 0;
+    for (int node = last; node != NodeArena.NO_PARENT; node = abstractNodes.parent(node)) {
+      count++;
+    }
+    route = new long[count];
+    for (int node = last; node != NodeArena.NO_PARENT; node = abstractNodes.parent(node)) {
+      route[--count] = abstractNodes.cell(node);
+    }
+    if (route.length == 1) {
+      // the origin is the destination
+      steps.add(new Step(PackedCell.toCell(origin, domain), 0, ModeType.NONE));
+    }
+  }
+
+  /**
+   * Find the blocks along one leg of the abstract route.
+   */
+  private ResultState refine() throws ExecutionException, InterruptedException {
+    if (routeIndex == route.length - 1) {
+      return ResultState.STOPPED_SUCCESSFUL;
+    }
+    if (!refining) {
+      local.reset(route[routeIndex], route[routeIndex + 1]);
+      refining = true;
+    }
+    int found = local.run();
+    refining = false;
+    if (found == LocalSearch.NOT_FOUND) {
+      // the world must have changed since the abstract edge was found
+      return ResultState.STOPPED_FAILED;
+    }
+    List<Step> leg = local.steps(found);
+    // every leg after the first starts where the last one ended
+    steps.addAll(steps.isEmpty() ? leg : leg.subList(1, leg.size()));
+    length += local.score(found);
+    routeIndex++;
+    return ResultState.RUNNING;
+  }
+
+  private static boolean inSameCluster(long first, long second) {
+    return clusterMin(PackedCell.x(first)) == clusterMin(PackedCell.x(second))
+        && clusterMin(PackedCell.y(first)) == clusterMin(PackedCell.y(second))
+        && clusterMin(PackedCell.z(first)) == clusterMin(PackedCell.z(second));
+  }
+
+  @Override
+  public boolean isConclusive() {
+    return false;  // some exits of each cluster are not considered
+  }
+
+  /**
+   * The number of nodes in the abstract graph that have been found.
+   *
+   * @return the size
+   */
+  @Override
+  public int size() {
+    return abstractNodes.size();
+  }
+
+  /**
+   * The number of cells that have been expanded by local searches.
+   *
+   * @return the count
+   */
+  @Override
+  public int visited() {
+    return local.expanded();
+  }
+
+  @Override
+  public List<Step> steps() {
+    return steps;
+  }
+
+  @Override
+  public double length() {
+    return length;
+  }
+
+}
@@ -23,12 +23,15 @@
 
 package net.whimxiqal.journey.search;
 
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.Tunnel;
@@ -57,6 +60,8 @@ public class ItineraryTrial {
   private final AlternatingList<Tunnel, DestinationPathTrial, Object> alternatingList;
   private final BlockProvider blockProvider;
   private final AtomicReference<ResultState> state;
+  // the latest path of each path trial that this runs, or null until it finds one
+  private final Map<DestinationPathTrial, Path> runningPaths = new IdentityHashMap<>();
   private boolean changedProblem;
   private int executedPathTrials;
 
@@ -70,7 +75,7 @@ public class ItineraryTrial {
     this.session = session;
     this.origin = origin;
     this.alternatingList = alternatingList;
-    this.blockProvider = new ChunkCacheBlockProvider(PathTrial.MAX_CACHED_CHUNKS_PER_SEARCH, flags);
+    this.blockProvider = new ChunkCacheBlockProvider(flags);
     this.state = new AtomicReference<>(ResultState.IDLE);
   }
 
@@ -122,18 +127,44 @@ public class ItineraryTrial {
     Journey.logger().debug(String.format("%s: itinerary trial needs to calculate %d paths", this, pathTrialsToExecute.size()));
     if (pathTrialsToExecute.isEmpty()) {
       // everything is cached
-      onPathTrialComplete(null, 0, future);
+      onPathTrialComplete(null, null, 0, future);
     } else {
+      synchronized (this) {
+        for (DestinationPathTrial pathTrial : pathTrialsToExecute) {
+          runningPaths.put(pathTrial, null);
+        }
+      }
       for (DestinationPathTrial pathTrial : pathTrialsToExecute) {
+        pathTrial.onImprovement(path -> onPathTrialImproved(pathTrial, path));
         Journey.get().workManager().schedule(pathTrial);
-        pathTrial.future().thenAccept(pathTrialResult -> onPathTrialComplete(pathTrialResult, pathTrialsToExecute.size(), future));
+        pathTrial.future().thenAccept(pathTrialResult -> onPathTrialComplete(pathTrial, pathTrialResult, pathTrialsToExecute.size(), future));
       }
     }
     return future;
   }
 
-  private synchronized void onPathTrialComplete(PathTrial.TrialResult result, int total, CompletableFuture<TrialResult> future) {
+  /**
+   * Once every path trial has some path, even if some are still looking for better ones,
+   * give the session an itinerary to use in the meantime.
+   */
+  private synchronized void onPathTrialImproved(DestinationPathTrial pathTrial, Path path) {
+    if (state.get() != ResultState.RUNNING) {
+      return;
+    }
+    runningPaths.put(pathTrial, path);
+    Itinerary itinerary = buildItinerary(trial -> runningPaths.containsKey(trial) ? runningPaths.get(trial) : trial.getPath());
+    if (itinerary != null) {
+      Journey.logger().debug(this + ": found an itinerary while path trials are still running");
+      session.improve(itinerary);
+    }
+  }
+
+  private synchronized void onPathTrialComplete(DestinationPathTrial pathTrial, PathTrial.TrialResult result,
+                                                int total, CompletableFuture<TrialResult> future) {
     if (result != null) {  // only null if no path trial was run at all
+      if (result.path() != null) {
+        runningPaths.put(pathTrial, result.path());
+      }
       state.updateAndGet(current -> {
         // set in order of precedence: error, canceled, failed
         if (result.state() == ResultState.STOPPED_ERROR) {
@@ -181,6 +212,20 @@ public class ItineraryTrial {
       return;
     }
 
+    Itinerary itinerary = buildItinerary(DestinationPathTrial::getPath /* Path must exist because we didn't fail */);
+    state.set(ResultState.STOPPED_SUCCESSFUL);
+    Journey.logger().debug(this + ": itinerary trial succeeded");
+    future.complete(new TrialResult(state.get(), itinerary, changedProblem));
+  }
+
+  /**
+   * Join the tunnels and the paths of the path trials into an itinerary.
+   *
+   * @param paths the path to use for each path trial
+   * @return the itinerary, or null if some path trial has no path
+   */
+  @Nullable
+  private Itinerary buildItinerary(Function<DestinationPathTrial, Path> paths) {
     // accumulate length
     double length = 0;
     for (Tunnel tunnel : alternatingList.getMajors()) {
@@ -189,7 +234,11 @@ public class ItineraryTrial {
       }
     }
     for (DestinationPathTrial trial : alternatingList.getMinors()) {
-      length += trial.getLength();
+      Path path = paths.apply(trial);
+      if (path == null) {
+        return null;
+      }
+      length += path.getCost();
     }
 
     List<List<Step>> flattenedList = alternatingList.flatten(tunnel -> {
@@ -198,20 +247,14 @@ public class ItineraryTrial {
       } else {
         return Path.fromTunnel(tunnel).getSteps();
       }
-    }, trial -> trial.getPath().getSteps() /* Path must exist because we didn't fail */);
+    }, trial -> paths.apply(trial).getSteps());
     List<Step> allSteps = new LinkedList<>();
     for (List<Step> list : flattenedList) {
       if (list != null) {
         allSteps.addAll(list);
       }
     }
-    state.set(ResultState.STOPPED_SUCCESSFUL);
-    Journey.logger().debug(this + ": itinerary trial succeeded");
-    future.complete(new TrialResult(state.get(),
-        new Itinerary(origin,
-            allSteps,
-            length),
-        changedProblem));
+    return new Itinerary(origin, allSteps, length);
   }
 
   @Override
@@ -0,0 +1,196 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.search;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import net.whimxiqal.journey.chunk.BlockProvider;
+import net.whimxiqal.journey.chunk.NeighborhoodBlockProvider;
+import net.whimxiqal.journey.chunk.PendingChunkException;
+import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.NeighborSink;
+import net.whimxiqal.journey.navigation.Step;
+import net.whimxiqal.journey.tools.IndexedMinHeap;
+import net.whimxiqal.journey.tools.LongIntHashMap;
+import net.whimxiqal.journey.tools.PackedCell;
+
+/**
+ * A cell-level search that is confined to a single cluster of a {@link HierarchicalSearch}.
+ * Cells outside the cluster, and the optional target, are reached but never expanded.
+ *
+ * <p>Without a target, this is a Dijkstra search that finds the cost to every cell
+ * just outside the cluster (its exits). With a target, it is an A* search that stops once the
+ * target is reached.
+ *
+ * <p>The search may be resumed after a {@link PendingChunkException}. Not thread-safe.
+ */
+final class LocalSearch {
+
+  static final long NO_TARGET = Long.MIN_VALUE;  // far beyond the world border
+  static final int NOT_FOUND = -1;
+
+  private final int domain;
+  private final List<Mode> modes;
+  private final NeighborhoodBlockProvider neighborhood;
+  private final NodeArena nodes;
+  private final IndexedMinHeap open = new IndexedMinHeap();
+  private final NeighborSink neighborSink = this::acceptNeighbor;
+  private int minX;
+  private int minY;
+  private int minZ;
+  private long target = NO_TARGET;
+  private int expanded = 0;  // over the lifetime of this object
+
+  // Expansion state
+  private int expandingNode;
+  private long expandingCell;
+  private double expandingScore;
+  private ModeType expandingMode;
+
+  LocalSearch(int domain, List<Mode> modes, BlockProvider blockProvider) {
+    this.domain = domain;
+    this.modes = modes;
+    this.neighborhood = new NeighborhoodBlockProvider(blockProvider);
+    this.nodes = new NodeArena(domain);
+  }
+
+  /**
+   * Start a new search, forgetting the last one.
+   *
+   * @param start  the packed start cell, which determines the cluster
+   * @param target the packed target cell, or {@link #NO_TARGET} to find all exits
+   */
+  void reset(long start, long target) {
+    nodes.clear();
+    open.clear();
+    this.target = target;
+    this.minX = HierarchicalSearch.clusterMin(PackedCell.x(start));
+    this.minY = HierarchicalSearch.clusterMin(PackedCell.y(start));
+    this.minZ = HierarchicalSearch.clusterMin(PackedCell.z(start));
+    enqueue(nodes.add(start, NodeArena.NO_PARENT, 0, ModeType.NONE), start, 0);
+  }
+
+  /**
+   * Run the search until it is exhausted or the target is found.
+   *
+   * @return the index of the target node, or {@link #NOT_FOUND}
+   * @throws PendingChunkException if a chunk is not yet available. The search may be run again later.
+   */
+  int run() throws ExecutionException, InterruptedException {
+    while (!open.isEmpty()) {
+      int current = open.poll();
+      long cell = nodes.cell(current);
+      if (cell == target) {
+        return current;
+      }
+      if (!inside(cell)) {
+        // exits are only reached, the next cluster is responsible for them
+        continue;
+      }
+      try {
+        expand(current, cell);
+      } catch (PendingChunkException e) {
+        // expansion only ever improves nodes, so it is safe to redo it from the start
+        enqueue(current, cell, nodes.score(current));
+        throw e;
+      }
+      expanded++;
+    }
+    return NOT_FOUND;
+  }
+
+  private void expand(int current, long cell) throws ExecutionException, InterruptedException {
+    expandingNode = current;
+    expandingCell = cell;
+    expandingScore = nodes.score(current);
+    neighborhood.center(domain, cell);
+    for (Mode mode : modes) {
+      expandingMode = mode.type();
+      mode.expand(cell, domain, neighborhood, neighborSink);
+    }
+  }
+
+  private void acceptNeighbor(long destination) {
+    double score = expandingScore + Math.sqrt(PackedCell.distanceSquared(expandingCell, destination));
+    int that = nodes.indexOf(destination);
+    if (that == LongIntHashMap.MISSING) {
+      enqueue(nodes.add(destination, expandingNode, score, expandingMode), destination, score);
+    } else if (score < nodes.score(that)) {
+      nodes.update(that, expandingNode, score, expandingMode);
+      enqueue(that, destination, score);
+    }
+  }
+
+  private void enqueue(int node, long cell, double score) {
+    double heuristic = target == NO_TARGET ? 0 : Math.sqrt(PackedCell.distanceSquared(cell, target));
+    open.offer(node, score + heuristic, heuristic);
+  }
+
+  /**
+   * Whether a cell is inside the cluster of this search.
+   *
+   * @param cell the packed cell
+   * @return true if inside
+   */
+  boolean inside(long cell) {
+    return HierarchicalSearch.clusterMin(PackedCell.x(cell)) == minX
+        && HierarchicalSearch.clusterMin(PackedCell.y(cell)) == minY
+        && HierarchicalSearch.clusterMin(PackedCell.z(cell)) == minZ;
+  }
+
+  int size() {
+    return nodes.size();
+  }
+
+  /**
+   * The number of cells that have been expanded by all searches run by this object.
+   *
+   * @return the count
+   */
+  int expanded() {
+    return expanded;
+  }
+
+  /**
+   * Get the index of a node found by the search.
+   *
+   * @param cell the packed cell
+   * @return the index, or {@link LongIntHashMap#MISSING}
+   */
+  int indexOf(long cell) {
+    return nodes.indexOf(cell);
+  }
+
+  long cell(int index) {
+    return nodes.cell(index);
+  }
+
+  double score(int index) {
+    return nodes.score(index);
+  }
+
+  List<Step> steps(int index) {
+    return nodes.steps(index);
+  }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.navigation.Step;
+import net.whimxiqal.journey.tools.LongIntHashMap;
+import net.whimxiqal.journey.tools.PackedCell;
+
+/**
+ * Storage for the nodes visited during a {@link PathTrial}.
+ * Nodes are identified by an int index and their data are kept in parallel primitive arrays
+ * (struct-of-arrays) so that a search of many thousands of cells does not allocate an object per cell.
+ * Locations are stored as {@link PackedCell}s within a single domain.
+ *
+ * <p>{@link Step}s are only created when a finished path is rebuilt with {@link #steps(int)}.
+ * This class is not thread-safe.
+ */
+final class NodeArena {
+
+  /**
+   * The parent index of a node that has no parent, like the origin.
+   */
+  static final int NO_PARENT = -1;
+  private static final int DEFAULT_CAPACITY = 1024;
+  private static final ModeType[] MODE_TYPES = ModeType.values();
+
+  private final int domain;
+  private final LongIntHashMap indices;
+  private long[] cells;
+  private double[] scores;
+  private int[] parents;
+  private byte[] modes;
+  private int size = 0;
+
+  NodeArena(int domain) {
+    this.domain = domain;
+    this.indices = new LongIntHashMap(DEFAULT_CAPACITY);
+    this.cells = new long[DEFAULT_CAPACITY];
+    this.scores = new double[DEFAULT_CAPACITY];
+    this.parents = new int[DEFAULT_CAPACITY];
+    this.modes = new byte[DEFAULT_CAPACITY];
+  }
+
+  /**
+   * Add a new node. The location must not already be stored.
+   *
+   * @param cell   the packed location
+   * @param parent the index of the node from which we came, or {@link #NO_PARENT}
+   * @param score  the total distance from the origin to this node
+   * @param mode   the mode used to get here from the parent
+   * @return the index of the new node
+   */
+  int add(long cell, int parent, double score, ModeType mode) {
+    if (size == cells.length) {
+      grow();
+    }
+    int index = size++;
+    cells[index] = cell;
+    scores[index] = score;
+    parents[index] = parent;
+    modes[index] = (byte) mode.ordinal();
+    indices.put(cell, index);
+    return index;
+  }
+
+  private void grow() {
+    int capacity = cells.length << 1;
+    cells = Arrays.copyOf(cells, capacity);
+    scores = Arrays.copyOf(scores, capacity);
+    parents = Arrays.copyOf(parents, capacity);
+    modes = Arrays.copyOf(modes, capacity);
+  }
+
+  /**
+   * Re-route an existing node so that it is reached from a different parent.
+   *
+   * @param index  the index of the node
+   * @param parent the index of the new parent
+   * @param score  the new total distance from the origin
+   * @param mode   the mode used to get here from the new parent
+   */
+  void update(int index, int parent, double score, ModeType mode) {
+    scores[index] = score;
+    parents[index] = parent;
+    modes[index] = (byte) mode.ordinal();
+  }
+
+  /**
+   * Get the index of the node at a location.
+   *
+   * @param cell the packed location
+   * @return the index, or {@link LongIntHashMap#MISSING} if the location has not been visited
+   */
+  int indexOf(long cell) {
+    return indices.get(cell);
+  }
+
+  long cell(int index) {
+    return cells[index];
+  }
+
+  Cell location(int index) {
+    return PackedCell.toCell(cells[index], domain);
+  }
+
+  double score(int index) {
+    return scores[index];
+  }
+
+  int parent(int index) {
+    return parents[index];
+  }
+
+  ModeType mode(int index) {
+    return MODE_TYPES[modes[index]];
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Rebuild the sequence of steps from the origin to the given node.
+   *
+   * @param index the index of the final node
+   * @return the steps, starting with the origin
+   */
+  List<Step> steps(int index) {
+    LinkedList<Step> steps = new LinkedList<>();
+    int current = index;
+    do {
+      int parent = parents[current];
+      double length = parent == NO_PARENT
+          ? 0
+          : Math.sqrt(PackedCell.distanceSquared(cells[parent], cells[current]));
+      steps.addFirst(new Step(location(current), length, mode(current)));
+      current = parent;
+    } while (current != NO_PARENT);
+    return steps;
+  }
+
+  /**
+   * Remove all nodes. Allocated arrays are kept for reuse.
+   */
+  void clear() {
+    indices.clear();
+    size = 0;
+  }
+
+}
@@ -0,0 +1,404 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.search;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import net.whimxiqal.journey.chunk.BlockProvider;
+import net.whimxiqal.journey.chunk.NeighborhoodBlockProvider;
+import net.whimxiqal.journey.chunk.PendingChunkException;
+import net.whimxiqal.journey.manager.DistributedWorkManager;
+import net.whimxiqal.journey.manager.WorkItem;
+import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.NeighborSink;
+import net.whimxiqal.journey.navigation.Step;
+import net.whimxiqal.journey.search.function.CostFunction;
+import net.whimxiqal.journey.tools.IndexedMinHeap;
+import net.whimxiqal.journey.tools.LongIntHashMap;
+import net.whimxiqal.journey.tools.PackedCell;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A hash-distributed A* search (HDA*) that is run by several workers at once,
+ * each in its own slot of the {@link DistributedWorkManager}.
+ *
+ * <p>Every cell is owned by exactly one worker, chosen by a hash of the 4x4x4 block region containing it,
+ * so that most steps stay within one worker. Each worker keeps its own nodes and open set,
+ * and sends any cell it reaches that belongs to another worker to that worker's lock-free inbox.
+ * A worker with nothing left to do gives up its slot until a message arrives.
+ *
+ * <p>The search ends once no worker has an open node that could lead to a shorter path than the best
+ * one found, and no messages are left in flight.
+ *
+ * <p>The search itself only coordinates the workers and waits for them to finish.
+ * Thread-safe.
+ */
+final class ParallelSearch implements AlternativeSearch {
+
+  private static final int PARTITION_SHIFT = 2;  // 4x4x4 block regions share a worker
+  private static final long NO_PARENT_CELL = Long.MIN_VALUE;  // far beyond the world border
+
+  private final int domain;
+  private final long origin;
+  private final long destination;
+  private final List<Mode> modes;
+  private final CostFunction costFunction;
+  private final int maxNodes;
+  private final BooleanSupplier stopped;
+  private final UUID owner;
+  private final Consumer<WorkItem> scheduler;
+  private final Worker[] workers;
+  private final AtomicLong sent = new AtomicLong();
+  private final AtomicLong processed = new AtomicLong();
+  private final AtomicInteger nodeCount = new AtomicInteger();
+  private final AtomicLong best = new AtomicLong(Double.doubleToLongBits(Double.MAX_VALUE));
+  private final CompletableFuture<ResultState> done = new CompletableFuture<>();
+  private volatile ResultState result = ResultState.RUNNING;
+  private boolean started = false;
+  private List<Step> steps = null;
+  private double length = Double.MAX_VALUE;
+
+  /**
+   * General constructor.
+   *
+   * @param domain         the domain of the search
+   * @param origin         the packed origin
+   * @param destination    the packed destination
+   * @param modes          the modes, which are shared between workers
+   * @param costFunction   the cost function, which is shared between workers
+   * @param threads        the number of workers
+   * @param maxNodes       the number of nodes at which the search fails
+   * @param blockProviders a supplier of a block provider for each worker
+   * @param stopped        whether the search should be canceled
+   * @param owner          the owner of the work, for load balancing
+   * @param scheduler      how to schedule each worker's work
+   */
+  ParallelSearch(int domain, long origin, long destination, List<Mode> modes, CostFunction costFunction,
+                 int threads, int maxNodes, Supplier<BlockProvider> blockProviders, BooleanSupplier stopped,
+                 UUID owner, Consumer<WorkItem> scheduler) {
+    this.domain = domain;
+    this.origin = origin;
+    this.destination = destination;
+    this.modes = modes;
+    this.costFunction = costFunction;
+    this.maxNodes = maxNodes;
+    this.stopped = stopped;
+    this.owner = owner;
+    this.scheduler = scheduler;
+    this.workers = new Worker[threads];
+    for (int i = 0; i < threads; i++) {
+      workers[i] = new Worker(blockProviders.get());
+    }
+  }
+
+  @Override
+  public ResultState run(int cellBudget) {
+    if (!started) {
+      send(origin, NO_PARENT_CELL, 0, ModeType.NONE);
+      for (Worker worker : workers) {
+        scheduler.accept(worker);
+      }
+      started = true;
+    }
+    return result;
+  }
+
+  @Override
+  public @Nullable CompletableFuture<?> blocker() {
+    return done;
+  }
+
+  @Override
+  public void cancel() {
+    finish(ResultState.STOPPED_CANCELED);
+  }
+
+  private int ownerOf(long cell) {
+    long region = PackedCell.pack(PackedCell.x(cell) >> PARTITION_SHIFT,
+        PackedCell.y(cell) >> PARTITION_SHIFT,
+        PackedCell.z(cell) >> PARTITION_SHIFT);
+    return (int) (((region * 0x9E3779B97F4A7C15L) >>> 33) % workers.length);
+  }
+
+  private double best() {
+    return Double.longBitsToDouble(best.get());
+  }
+
+  private void improveBest(double length) {
+    long current;
+    do {
+      current = best.get();
+      if (Double.longBitsToDouble(current) <= length) {
+        return;
+      }
+    } while (!best.compareAndSet(current, Double.doubleToLongBits(length)));
+  }
+
+  private void send(long cell, long parent, double score, ModeType mode) {
+    Worker receiver = workers[ownerOf(cell)];
+    sent.incrementAndGet();  // before the message is visible, so it is always counted as in flight
+    receiver.inbox.offer(new Message(cell, parent, score, mode));
+    receiver.wake();
+  }
+
+  /**
+   * Check whether every worker is idle and no message is in flight, and finish the search if so.
+   *
+   * @return true if the search is finished
+   */
+  private boolean checkTermination() {
+    long sentBefore = sent.get();
+    if (processed.get() != sentBefore) {
+      return false;
+    }
+    for (Worker worker : workers) {
+      if (!worker.idle) {
+        return false;
+      }
+    }
+    if (sent.get() != sentBefore) {
+      return false;
+    }
+    finish(best() == Double.MAX_VALUE ? ResultState.STOPPED_FAILED : ResultState.STOPPED_SUCCESSFUL);
+    return true;
+  }
+
+  private synchronized void finish(ResultState state) {
+    if (result != ResultState.RUNNING) {
+      return;
+    }
+    if (state == ResultState.STOPPED_SUCCESSFUL) {
+      // every worker is idle, so their nodes are no longer changing
+      LinkedList<Step> path = new LinkedList<>();
+      long cell = destination;
+      while (cell != NO_PARENT_CELL) {
+        Worker worker = workers[ownerOf(cell)];
+        int index = worker.nodes.indexOf(cell);
+        long parent = worker.parents[index];
+        double stepLength = parent == NO_PARENT_CELL ? 0 : Math.sqrt(PackedCell.distanceSquared(parent, cell));
+        path.addFirst(new Step(PackedCell.toCell(cell, domain), stepLength, worker.nodes.mode(index)));
+        cell = parent;
+      }
+      steps = path;
+      length = best();
+    }
+    result = state;
+    for (Worker worker : workers) {
+      worker.wake();
+    }
+    done.complete(state);
+  }
+
+  @Override
+  public boolean isConclusive() {
+    return true;
+  }
+
+  @Override
+  public List<Step> steps() {
+    return steps;
+  }
+
+  @Override
+  public double length() {
+    return length;
+  }
+
+  @Override
+  public int size() {
+    return nodeCount.get();
+  }
+
+  @Override
+  public int visited() {
+    return nodeCount.get();
+  }
+
+  private record Message(long cell, long parent, double score, ModeType mode) {
+  }
+
+  /**
+   * One worker of the search, which owns some of the cells.
+   * Its {@link #run} is only ever called by one thread at a time.
+   */
+  private final class Worker implements WorkItem {
+
+    private final NodeArena nodes = new NodeArena(domain);
+    private final IndexedMinHeap open = new IndexedMinHeap();
+    private final ConcurrentLinkedQueue<Message> inbox = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<CompletableFuture<Void>> wakeup = new AtomicReference<>();
+    private final NeighborhoodBlockProvider neighborhood;
+    private final NeighborSink neighborSink = this::acceptNeighbor;
+    private long[] parents = new long[1024];
+    private volatile boolean idle = false;
+    private CompletableFuture<?> blocker = null;
+    // Expansion State
+    private long expandingCell;
+    private double expandingScore;
+    private ModeType expandingMode;
+
+    Worker(BlockProvider blockProvider) {
+      this.neighborhood = new NeighborhoodBlockProvider(blockProvider);
+    }
+
+    @Override
+    public UUID owner() {
+      return owner;
+    }
+
+    @Override
+    public boolean run() {
+      blocker = null;
+      if (result != ResultState.RUNNING) {
+        return true;
+      }
+      if (stopped.getAsBoolean()) {
+        finish(ResultState.STOPPED_CANCELED);
+        return true;
+      }
+      idle = false;  // before receiving anything, so termination is never detected while we work
+      int expansions = 0;
+      while (result == ResultState.RUNNING) {
+        receive();
+        if (expansions >= PathTrial.CELLS_PER_EXECUTION_CYCLE) {
+          return false;  // (not done)
+        }
+        if (open.isEmpty() || open.key(open.peek()) >= best()) {
+          // nothing here could lead to a shorter path
+          idle = true;
+          if (checkTermination()) {
+            return true;
+          }
+          CompletableFuture<Void> future = new CompletableFuture<>();
+          wakeup.set(future);
+          if (!inbox.isEmpty() || result != ResultState.RUNNING) {
+            // something arrived before we could be woken up for it
+            wakeup.set(null);
+            idle = false;
+            continue;
+          }
+          blocker = future;
+          return false;  // (not done)
+        }
+        int current = open.poll();
+        try {
+          expand(current);
+        } catch (PendingChunkException e) {
+          enqueue(current, nodes.cell(current), nodes.score(current));
+          blocker = e.future();
+          return false;  // (not done)
+        } catch (ExecutionException | InterruptedException e) {
+          finish(ResultState.STOPPED_ERROR);
+          return true;
+        }
+        expansions++;
+      }
+      return true;
+    }
+
+    private void wake() {
+      CompletableFuture<Void> future = wakeup.getAndSet(null);
+      if (future != null) {
+        future.complete(null);
+      }
+    }
+
+    private void receive() {
+      Message message;
+      while ((message = inbox.poll()) != null) {
+        relax(message.cell(), message.parent(), message.score(), message.mode());
+        processed.incrementAndGet();
+      }
+    }
+
+    private void expand(int current) throws ExecutionException, InterruptedException {
+      expandingCell = nodes.cell(current);
+      expandingScore = nodes.score(current);
+      neighborhood.center(domain, expandingCell);
+      for (Mode mode : modes) {
+        expandingMode = mode.type();
+        mode.expand(expandingCell, domain, neighborhood, neighborSink);
+      }
+    }
+
+    private void acceptNeighbor(long cell) {
+      double score = expandingScore + Math.sqrt(PackedCell.distanceSquared(expandingCell, cell));
+      if (workers[ownerOf(cell)] == this) {
+        relax(cell, expandingCell, score, expandingMode);
+      } else {
+        send(cell, expandingCell, score, expandingMode);
+      }
+    }
+
+    private void relax(long cell, long parent, double score, ModeType mode) {
+      int that = nodes.indexOf(cell);
+      if (that == LongIntHashMap.MISSING) {
+        that = nodes.add(cell, NodeArena.NO_PARENT, score, mode);
+        if (that == parents.length) {
+          parents = Arrays.copyOf(parents, parents.length * 2);
+        }
+        if (nodeCount.incrementAndGet() > maxNodes) {
+          finish(ResultState.STOPPED_FAILED);
+        }
+      } else if (score < nodes.score(that)) {
+        nodes.update(that, NodeArena.NO_PARENT, score, mode);
+      } else {
+        return;
+      }
+      parents[that] = parent;
+      if (cell == destination) {
+        improveBest(score);
+      }
+      enqueue(that, cell, score);
+    }
+
+    private void enqueue(int node, long cell, double score) {
+      double cost = costFunction.apply(cell, domain, score);
+      open.offer(node, cost, cost - score);
+    }
+
+    @Override
+    public void reset() {
+      // The nodes of this worker are part of the whole search, so they are kept if the worker loses its slot.
+      //  The worker just continues where it left off once it gets a slot back.
+    }
+
+    @Override
+    public @Nullable CompletableFuture<?> blocker() {
+      return blocker;
+    }
+
+  }
+
+}
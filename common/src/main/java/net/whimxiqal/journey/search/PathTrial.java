@@ -25,30 +25,32 @@ package net.whimxiqal.journey.search;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 import lombok.Getter;
-import lombok.Setter;
 import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.chunk.BlockProvider;
 import net.whimxiqal.journey.chunk.ChunkCacheBlockProvider;
+import net.whimxiqal.journey.chunk.ChunkPrefetcher;
+import net.whimxiqal.journey.chunk.NeighborhoodBlockProvider;
+import net.whimxiqal.journey.chunk.PendingChunkException;
 import net.whimxiqal.journey.config.Settings;
 import net.whimxiqal.journey.manager.WorkItem;
 import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.NeighborSink;
 import net.whimxiqal.journey.navigation.Path;
 import net.whimxiqal.journey.navigation.Step;
 import net.whimxiqal.journey.search.flag.Flags;
 import net.whimxiqal.journey.search.function.CostFunction;
-import org.jetbrains.annotations.NotNull;
+import net.whimxiqal.journey.tools.IndexedMinHeap;
+import net.whimxiqal.journey.tools.LongIntHashMap;
+import net.whimxiqal.journey.tools.PackedCell;
 import org.jetbrains.annotations.Nullable;
 
 /**
@@ -61,9 +63,9 @@ import org.jetbrains.annotations.Nullable;
 public class PathTrial implements WorkItem {
 
   /**
-   * How many chunks we want to cache during
+   * How many chunks a search may request ahead of need.
    */
-  public static final int MAX_CACHED_CHUNKS_PER_SEARCH = 128;
+  public static final int MAX_PREFETCHED_CHUNKS_PER_SEARCH = 256;
   /**
    * How many cells to run per cycle.
    * The fewer the cells, the more cycles this has to run to complete the search,
@@ -74,18 +76,31 @@ public class PathTrial implements WorkItem {
   @Getter
   protected final Cell origin;
   protected final ChunkCacheBlockProvider chunkCache;
-  protected final Queue<Node> upcoming;
+  /**
+   * Requests the chunks ahead of the search's frontier, toward the cost function's target.
+   */
+  private final ChunkPrefetcher prefetcher;
+  /**
+   * Shares block lookups around the expanding node between all modes.
+   */
+  private final NeighborhoodBlockProvider neighborhood;
+  /**
+   * The open set, keyed by the cost function's value for each node and tie-broken by the
+   * heuristic part of that value, so nodes closer to the goal are explored first.
+   */
+  protected final IndexedMinHeap upcoming = new IndexedMinHeap();
   @Getter
   protected final CostFunction costFunction;
   protected final SearchSession session;
   @Getter
   private final int domain;
+  protected final NodeArena nodes;
   private final Completer completer;
   @Getter
   private final List<Mode> modes = new LinkedList<>();
   private final boolean saveOnComplete;
   private final CompletableFuture<TrialResult> future = new CompletableFuture<>();
-  protected final Map<Cell, Node> visited = new HashMap<>();
+  private final List<Consumer<Path>> improvementListeners = new CopyOnWriteArrayList<>();
   private final int maxCellCount = Settings.MAX_PATH_BLOCK_COUNT.getValue();
   protected long startExecutionTime = -1;
   @Getter
@@ -99,6 +114,18 @@ public class PathTrial implements WorkItem {
   // Search State
   private boolean firstCycle = true;
   private long nextAllowedRunTime = 0;
+  private CompletableFuture<?> blocker = null;
+  // Expansion State, kept in fields so that expanding a node allocates nothing
+  private final NeighborSink neighborSink = this::acceptNeighbor;
+  private int expandingNode;
+  private long expandingCell;
+  private double expandingScore;
+  private ModeType expandingMode;
+  private boolean expandingAnimated;
+  // Alternative Search State
+  private AlternativeSearch alternativeSearch = null;
+  private boolean alternativeSearchFailed = false;
+  private Path improvedPath = null;
   protected int cycles = 0;
 
   /**
@@ -141,23 +168,51 @@ public class PathTrial implements WorkItem {
     this.state = state;
     this.fromCache = fromCache;
     this.saveOnComplete = saveOnComplete;
-    this.chunkCache = new ChunkCacheBlockProvider(MAX_CACHED_CHUNKS_PER_SEARCH, session.flags());
-    this.upcoming = new PriorityQueue<>(Comparator.comparingDouble(node -> costFunction.apply(node.data.location(),  node.score)));
+    this.prefetcher = new ChunkPrefetcher(Journey.get().centralChunkCache(), MAX_PREFETCHED_CHUNKS_PER_SEARCH,
+        session.chunkPriority().speculative());
+    this.chunkCache = new ChunkCacheBlockProvider(session.flags(), true, prefetcher, session.chunkPriority());
+    this.neighborhood = new NeighborhoodBlockProvider(chunkCache);
+    this.nodes = new NodeArena(domain);
   }
 
   private void resultFail() {
+    resultFail(true);
+  }
+
+  /**
+   * Fail to find a path.
+   *
+   * @param searched whether the search itself found that there is no path, rather than something that only
+   *                 guesses at it, so it is worth saving
+   */
+  private void resultFail(boolean searched) {
     this.state = ResultState.STOPPED_FAILED;
     this.length = Double.MAX_VALUE;
     this.fromCache = false;
+    if (searched) {
+      cacheFailure();
+    }
     future.complete(new TrialResult(this.state, null, true));
   }
 
   private void resultSucceed(double length, List<Step> steps) {
+    resultSucceed(length, steps, true);
+  }
+
+  /**
+   * Succeed with a path.
+   *
+   * @param length the length of the path
+   * @param steps  the steps of the path
+   * @param best   whether the path is the best one the search could find, rather than the best one found
+   *               before the search was stopped, so it is worth saving
+   */
+  private void resultSucceed(double length, List<Step> steps, boolean best) {
     this.state = ResultState.STOPPED_SUCCESSFUL;
     this.length = length;
     this.path = new Path(origin, new ArrayList<>(steps), length);
     this.fromCache = false;
-    if (saveOnComplete) {
+    if (saveOnComplete && best) {
       Journey.get().proxy().schedulingManager().schedule(this::cacheSuccess, true);
     }
     future.complete(new TrialResult(this.state, this.path, true));
@@ -181,15 +236,45 @@ public class PathTrial implements WorkItem {
   public void reset() {
     firstCycle = true;
     upcoming.clear();
-    visited.clear();
+    nodes.clear();
+    blocker = null;
+    if (alternativeSearch != null) {
+      alternativeSearch.cancel();
+    }
+    alternativeSearch = null;
+    alternativeSearchFailed = false;
+    improvedPath = null;
     state = ResultState.IDLE;
   }
 
+  /**
+   * Whether this trial can't possibly succeed, so it may fail without searching.
+   * Called once at the beginning of every attempt. A trial that fails this way doesn't
+   * {@link #cacheFailure cache its failure}.
+   *
+   * @return true if the trial is known to fail
+   */
+  boolean isKnownToFail() {
+    return false;
+  }
+
+  /**
+   * Create the search to run instead of the regular search, as determined by the session's flags.
+   * Called once at the beginning of every attempt.
+   *
+   * @return the alternative search, or null to use the regular search
+   */
+  @Nullable
+  AlternativeSearch createAlternativeSearch() {
+    return null;
+  }
+
   /**
    * Attempt to calculate a path given some modes of transportation.
    */
   @Override
   public boolean run() {
+    blocker = null;
     try {
       ++cycles;
       return runSafe();
@@ -211,22 +296,35 @@ public class PathTrial implements WorkItem {
       state = ResultState.RUNNING;
     }
 
+    if (firstCycle && alternativeSearch == null && !alternativeSearchFailed && isKnownToFail()) {
+      Journey.logger().debug(this + ": known to be unreachable, failing");
+      // not saved, since a guess from the connectivity index mustn't outlive the labels it came from
+      resultFail(false);
+      return true;
+    }
+    if (firstCycle && alternativeSearch == null && !alternativeSearchFailed) {
+      alternativeSearch = createAlternativeSearch();
+    }
+    if (alternativeSearch != null && !alternativeSearchFailed) {
+      return runAlternative();
+    }
+
     if (firstCycle) {
-      Node originNode = new Node(new Step(origin, 0, ModeType.NONE),
-          null, 0);
-      upcoming.add(originNode);
-      visited.put(origin, originNode);
+      long originCell = PackedCell.pack(origin);
+      enqueue(nodes.add(originCell, NodeArena.NO_PARENT, 0, ModeType.NONE), originCell, 0);
+      prefetch(originCell);
       firstCycle = false;
     }
 
     // Start actual execution
-    int startingCycleCount = visited.size();  // tracker to make sure we have short work cycles
+    int startingCycleCount = nodes.size();  // tracker to make sure we have short work cycles
     int animationDelayMs = session.flags.getValueFor(Flags.ANIMATE);
     boolean isAnimating = animationDelayMs > 0 && session.callerType == SearchSession.Caller.PLAYER;
     // caller has to be a PLAYER if animation flag was set, but just check to be sure so we know the caller id
     // is the id of a player
 
-    Node current;
+    int current;
+    Cell currentLocation;
     while (!upcoming.isEmpty()) {
 
       if (shouldDelay(animationDelayMs)) {
@@ -243,7 +341,7 @@ public class PathTrial implements WorkItem {
         return true;
       }
 
-      if (visited.size() > maxCellCount) {
+      if (nodes.size() > maxCellCount) {
         // We ran out of allocated memory. Let's just call it here and say we failed and cache the failure.
         Journey.logger().debug(this + ": reached max cell count, failing");
         resultFail();
@@ -253,62 +351,38 @@ public class PathTrial implements WorkItem {
         return true;
       }
 
-      if (visited.size() >= startingCycleCount + CELLS_PER_EXECUTION_CYCLE) {
-        // Quit after a certain number of blocks to allow other searches to run
+      if (nodes.size() >= startingCycleCount + CELLS_PER_EXECUTION_CYCLE) {
+        // Quit after a certain number of blocks to allow other searches to run,
+        //  but first get the chunks ready where we're going next
+        prefetch(nodes.cell(upcoming.peek()));
         return false;  // (not done)
       }
 
       current = upcoming.poll();
-      assert current != null;
-
-      if (completer.test(chunkCache, current)) {
-        // We found it!
-        double length = current.getScore();
-        LinkedList<Step> steps = new LinkedList<>();
-        do {
-          steps.addFirst(current.getData());
-          current = current.getPrevious();
-        } while (current != null);
-        Journey.logger().debug(this + ": succeeded");
-        resultSucceed(length, steps);
-        if (isAnimating) {
-          Journey.get().animationManager().resetAnimation(session.callerId, session.uuid);
-        }
-        return true;
-      }
-
-      // Need to keep going
-      for (Mode mode : modes) {
-        Collection<Mode.Option> options;
-        options = mode.getDestinations(current.getData().location(), chunkCache);
-        for (Mode.Option option : options) {
-          double distance = current.getData().location().distanceTo(option.location());
+      currentLocation = nodes.location(current);
+
+      try {
+        if (completer.test(chunkCache, currentLocation)) {
+          // We found it!
+          double length = nodes.score(current);
+          List<Step> steps = nodes.steps(current);
+          Journey.logger().debug(this + ": succeeded");
+          resultSucceed(length, steps);
           if (isAnimating) {
-            // we're animating, so send it to the animation manager
-            Journey.get().animationManager().addAnimationCell(session.callerId, session.uuid, option.location());
-          }
-          if (visited.containsKey(option.location())) {
-            // Already visited, but see if it is better to come from this new direction
-            Node that = visited.get(option.location());
-            if (current.getScore() + distance < that.getScore()) {
-              that.setPrevious(current);
-              that.setScore(current.getScore() + distance);
-              that.setData(new Step(that.getData().location(),
-                  distance,
-                  mode.type()));
-            }
-          } else {
-            // Not visited. Set up node, give it a score, and add it to the system
-            Node nextNode = new Node(
-                new Step(option.location(),
-                    distance,
-                    mode.type()),
-                current,
-                current.getScore() + distance);
-            upcoming.add(nextNode);
-            visited.put(option.location(), nextNode);
+            Journey.get().animationManager().resetAnimation(session.callerId, session.uuid);
           }
+          return true;
         }
+
+        // Need to keep going
+        expand(current, isAnimating);
+      } catch (PendingChunkException e) {
+        // A chunk we need is not available yet. Put the node back and wait for the chunk without
+        //  holding onto this thread. Expansion only ever improves nodes, so it is safe to redo it from the start.
+        enqueue(current, nodes.cell(current), nodes.score(current));
+        prefetch(nodes.cell(current));
+        blocker = e.future();
+        return false;  // (not done)
       }
     }
 
@@ -321,10 +395,159 @@ public class PathTrial implements WorkItem {
     return true;
   }
 
+  private boolean runAlternative() throws ExecutionException, InterruptedException {
+    ResultState sessionState = session.state.get();
+    if (sessionState.shouldStop()) {
+      alternativeSearch.cancel();
+      if (improvedPath != null && sessionState != ResultState.STOPPING_CANCELED && sessionState != ResultState.STOPPED_CANCELED) {
+        // We ran out of time, but we already have a path. It's just not the best one.
+        Journey.logger().debug(this + ": session stopped, succeeding with the best path found so far");
+        resultSucceed(improvedPath.getCost(), improvedPath.getSteps(), false);
+        return true;
+      }
+      Journey.logger().debug(this + ": session canceled, canceling");
+      resultCancel();
+      return true;
+    }
+
+    if (alternativeSearch.size() > maxCellCount) {
+      alternativeSearch.cancel();
+      if (improvedPath != null) {
+        Journey.logger().debug(this + ": reached max cell count, succeeding with the best path found so far");
+        resultSucceed(improvedPath.getCost(), improvedPath.getSteps(), false);
+        return true;
+      }
+      Journey.logger().debug(this + ": reached max cell count, failing");
+      resultFail();
+      return true;
+    }
+
+    try {
+      switch (alternativeSearch.run((int) CELLS_PER_EXECUTION_CYCLE)) {
+        case STOPPED_SUCCESSFUL -> {
+          Journey.logger().debug(this + ": succeeded");
+          resultSucceed(alternativeSearch.length(), alternativeSearch.steps());
+          return true;
+        }
+        case STOPPED_FAILED -> {
+          if (alternativeSearch.isConclusive()) {
+            Journey.logger().debug(this + ": exhausted all options, failing");
+            resultFail();
+            return true;
+          }
+          Journey.logger().debug(this + ": alternative search failed, falling back to regular search");
+          alternativeSearchFailed = true;
+          return false;  // (not done)
+        }
+        case STOPPED_CANCELED -> {
+          resultCancel();
+          return true;
+        }
+        case STOPPED_ERROR -> {
+          resultError();
+          return true;
+        }
+        default -> {
+          if (alternativeSearch.pollImprovement()) {
+            improve(alternativeSearch.length(), alternativeSearch.steps());
+          }
+          blocker = alternativeSearch.blocker();
+          return false;  // (not done)
+        }
+      }
+    } catch (PendingChunkException e) {
+      blocker = e.future();
+      return false;  // (not done)
+    }
+  }
+
+  /**
+   * Report a path that was found while the search keeps running to find a better one.
+   *
+   * @param length the length of the path
+   * @param steps  the steps of the path
+   */
+  private void improve(double length, List<Step> steps) {
+    Journey.logger().debug(String.format("%s: found a path of length %.2f, continuing to improve it", this, length));
+    improvedPath = new Path(origin, new ArrayList<>(steps), length);
+    for (Consumer<Path> listener : improvementListeners) {
+      listener.accept(improvedPath);
+    }
+  }
+
+  /**
+   * Add or improve all nodes reachable from a node.
+   *
+   * @param current     the node index
+   * @param isAnimating whether visited cells should be sent to the animation manager
+   */
+  private void expand(int current, boolean isAnimating) throws ExecutionException, InterruptedException {
+    expandingNode = current;
+    expandingCell = nodes.cell(current);
+    expandingScore = nodes.score(current);
+    expandingAnimated = isAnimating;
+    neighborhood.center(domain, expandingCell);
+    for (Mode mode : modes) {
+      expandingMode = mode.type();
+      mode.expand(expandingCell, domain, neighborhood, neighborSink);
+    }
+  }
+
+  /**
+   * Add or improve a node reachable from the node currently being {@link #expand expanded}.
+   *
+   * @param destination the packed location of the reachable node
+   */
+  private void acceptNeighbor(long destination) {
+    double score = expandingScore + Math.sqrt(PackedCell.distanceSquared(expandingCell, destination));
+    if (expandingAnimated) {
+      // we're animating, so send it to the animation manager
+      Journey.get().animationManager().addAnimationCell(session.callerId, session.uuid, PackedCell.toCell(destination, domain));
+    }
+    int that = nodes.indexOf(destination);
+    if (that != LongIntHashMap.MISSING) {
+      // Already visited, but see if it is better to come from this new direction
+      if (score < nodes.score(that)) {
+        nodes.update(that, expandingNode, score, expandingMode);
+        // decrease its key if it is still queued, or re-open it if it was already explored
+        enqueue(that, destination, score);
+      }
+    } else {
+      // Not visited. Set up node, give it a score, and add it to the system
+      enqueue(nodes.add(destination, expandingNode, score, expandingMode), destination, score);
+    }
+  }
+
+  /**
+   * Queue a node, or update its position in the queue if it is already queued.
+   * The cost function is evaluated once here rather than on every heap comparison.
+   *
+   * @param node  the node index
+   * @param cell  the node's packed location
+   * @param score the node's distance from the origin
+   */
+  private void enqueue(int node, long cell, double score) {
+    double cost = costFunction.apply(cell, domain, score);
+    upcoming.offer(node, cost, cost - score);
+  }
+
+  /**
+   * Request the chunks that the search will likely need next.
+   *
+   * @param frontier the packed location from which the search will continue
+   */
+  private void prefetch(long frontier) {
+    prefetcher.hint(domain, PackedCell.x(frontier), PackedCell.z(frontier), costFunction.target());
+  }
+
   protected void cacheSuccess() {
     // do nothing by default
   }
 
+  protected void cacheFailure() {
+    // do nothing by default
+  }
+
   /**
    * Return true if we must delay, return false if we may continue execution as normal.
    *
@@ -346,6 +569,11 @@ public class PathTrial implements WorkItem {
     return false;
   }
 
+  @Override
+  public @Nullable CompletableFuture<?> blocker() {
+    return blocker;
+  }
+
   @Override
   public UUID owner() {
     // "Owner" is just the session id
@@ -360,11 +588,12 @@ public class PathTrial implements WorkItem {
         + ", cycles: " + cycles
         + ", distance function: " + costFunction
         + ", from cache: " + fromCache
+        + ", prefetch: " + prefetcher
         + "}";
   }
 
   public int getTotalVisitedCells() {
-    return visited.size();
+    return nodes.size() + (alternativeSearch == null ? 0 : alternativeSearch.visited());
   }
 
   public int getCycles() {
@@ -376,14 +605,26 @@ public class PathTrial implements WorkItem {
   }
 
   /**
-   * An interface to represent when a node is considered successful and therefore
+   * Listen for paths that are found before this trial completes, each one shorter than the last.
+   * Only some searches report paths early, so the listener may never be called.
+   * The final path is still only given by the {@link #future()}.
+   * The listener is called on whichever thread is running this trial.
+   *
+   * @param listener the listener
+   */
+  public void onImprovement(Consumer<Path> listener) {
+    improvementListeners.add(listener);
+  }
+
+  /**
+   * An interface to represent when a location is considered successful and therefore
    * the end of a successful path.
-   * At this point in the algorithm, the path up until and through this node is returned.
+   * At this point in the algorithm, the path up until and through this location is returned.
    */
   @FunctionalInterface
   public interface Completer {
 
-    boolean test(BlockProvider blockProvider, Node node) throws ExecutionException, InterruptedException;
+    boolean test(BlockProvider blockProvider, Cell location) throws ExecutionException, InterruptedException;
 
   }
 
@@ -393,38 +634,4 @@ public class PathTrial implements WorkItem {
   public record TrialResult(ResultState state, @Nullable Path path, boolean changedProblem) {
   }
 
-  /**
-   * A single node representing a possible movement during traversal.
-   */
-  public static class Node {
-    @Getter
-    @Setter
-    private Step data;
-    @Getter
-    @Setter
-    private Node previous;
-    /**
-     * The value to store how far away this node is from the original node.
-     * So, how far it is to traverse the space from the origin until this node is reached.
-     */
-    @Getter
-    @Setter
-    private double score;
-
-    /**
-     * General constructor.
-     *
-     * @param data     the step
-     * @param previous the previous node that we came from to get here
-     * @param score    our score so far throughout the pathfinding algorithm
-     */
-    public Node(@NotNull Step data, Node previous, double score) {
-      this.data = data;
-      this.previous = previous;
-      this.score = score;
-    }
-
-  }
-
-
-}
\ No newline at end of file
+}
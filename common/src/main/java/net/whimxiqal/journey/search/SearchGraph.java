@@ -31,6 +31,8 @@ import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.Tunnel;
 import net.whimxiqal.journey.data.DataAccessException;
 import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.Path;
+import net.whimxiqal.journey.search.flag.Flags;
 import net.whimxiqal.journey.search.graph.WeightedGraph;
 import org.jetbrains.annotations.Nullable;
 
@@ -80,38 +82,67 @@ public abstract class SearchGraph extends WeightedGraph<Tunnel, DestinationPathT
    */
   public void addPathTrialTunnelToTunnel(Tunnel start, Tunnel end, Collection<Mode> modes) {
     addPathTrial(session, start.destination(), end.origin(),
-        start, end, modes, true);
+        start, end, modes, true, true);
   }
 
   protected void addPathTrial(SearchSession session, Cell origin, Cell destination,
                               Tunnel originNode,
                               Tunnel destinationNode,
                               Collection<Mode> modes, boolean saveOnComplete) {
-    // First, try to access a cached path
+    addPathTrial(session, origin, destination, originNode, destinationNode, modes, saveOnComplete, false);
+  }
+
+  /**
+   * Add a path trial to the search graph. The path trial is only created once the graph search reaches it,
+   * since most path trials never are, and creating one may have to ask the database for a cached path.
+   * Until then, its length is bounded below by the straight-line distance, which no path
+   * (nor any approximation of one) can be shorter than.
+   *
+   * @param betweenTunnels whether the path goes between two tunnels, in which case
+   *                       whether it is cached is remembered in the {@link TunnelGraph}
+   */
+  private void addPathTrial(SearchSession session, Cell origin, Cell destination,
+                            Tunnel originNode,
+                            Tunnel destinationNode,
+                            Collection<Mode> modes, boolean saveOnComplete, boolean betweenTunnels) {
+    addLazyEdge(originNode, destinationNode, origin.distanceTo(destination),
+        () -> createPathTrial(session, origin, destination, modes, saveOnComplete, betweenTunnels));
+  }
+
+  private DestinationPathTrial createPathTrial(SearchSession session, Cell origin, Cell destination,
+                                               Collection<Mode> modes, boolean saveOnComplete, boolean betweenTunnels) {
+    // A path that recently failed doesn't need to be tried again
+    if (Journey.get().failedTrialCache().contains(origin, destination, modes, session.flags().getValueFor(Flags.DOOR))) {
+      return DestinationPathTrial.failed(session, origin, destination, modes);
+    }
+    // Next, try to access a cached path
     Set<ModeType> modeTypes = modes.stream().map(Mode::type).collect(Collectors.toSet());
-    boolean added = false;
     try {
-      if (Journey.get().proxy().dataManager()
-          .pathRecordManager()
-          .containsRecord(origin, destination, modeTypes)) {
-        addPathTrial(DestinationPathTrial.cached(session, origin, destination,
-                modes,
-                Journey.get().proxy().dataManager()
-                    .pathRecordManager()
-                    .getPath(origin, destination, modeTypes)),
-            originNode, destinationNode);
-        added = true;
+      Boolean cached = betweenTunnels ? Journey.get().tunnelGraph().hasRecord(origin, destination, modeTypes) : null;
+      if (cached == null) {
+        cached = Journey.get().proxy().dataManager()
+            .pathRecordManager()
+            .containsRecord(origin, destination, modeTypes);
+        if (betweenTunnels) {
+          Journey.get().tunnelGraph().putRecord(origin, destination, modeTypes, cached);
+        }
+      }
+      if (cached) {
+        Path path = Journey.get().proxy().dataManager()
+            .pathRecordManager()
+            .getPath(origin, destination, modeTypes);
+        if (path != null) {
+          return DestinationPathTrial.cached(session, origin, destination, modes, path);
+        }
+        // the path was deleted since it was remembered
+        if (betweenTunnels) {
+          Journey.get().tunnelGraph().forgetRecords(origin, destination);
+        }
       }
     } catch (DataAccessException e) {
       e.printStackTrace();
     }
-    if (!added) {
-      addPathTrial(DestinationPathTrial.approximate(session, origin, destination, modes, saveOnComplete), originNode, destinationNode);
-    }
-  }
-
-  private void addPathTrial(DestinationPathTrial trial, Tunnel start, Tunnel end) {
-    addEdge(start, end, trial);
+    return DestinationPathTrial.approximate(session, origin, destination, modes, saveOnComplete);
   }
 
   @Override
@@ -33,7 +33,9 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import net.kyori.adventure.text.Component;
 import net.whimxiqal.journey.Describable;
@@ -42,6 +44,7 @@ import net.whimxiqal.journey.JourneyAgent;
 import net.whimxiqal.journey.JourneyPlayer;
 import net.whimxiqal.journey.Synchronous;
 import net.whimxiqal.journey.Tunnel;
+import net.whimxiqal.journey.chunk.ChunkPriority;
 import net.whimxiqal.journey.navigation.Itinerary;
 import net.whimxiqal.journey.navigation.Mode;
 import net.whimxiqal.journey.navigation.mode.BoatMode;
@@ -77,6 +80,7 @@ public abstract class SearchSession implements Describable {
   private final AtomicReference<List<Tunnel>> tunnels = new AtomicReference<>(Collections.emptyList());
   private final AtomicReference<List<Mode>> modes = new AtomicReference<>(Collections.emptyList());
   private final List<String> permissions = new LinkedList<>();
+  private final List<Consumer<Itinerary>> improvementListeners = new CopyOnWriteArrayList<>();
   protected AtomicReference<ResultState> state = new AtomicReference<>(ResultState.IDLE);
   protected CompletableFuture<Result> future = new CompletableFuture<>();
   private Component name = Component.empty();
@@ -160,6 +164,26 @@ public abstract class SearchSession implements Describable {
     return future;
   }
 
+  /**
+   * Listen for itineraries that are found while the search keeps running to find a better one,
+   * like with the {@link Flags#ANYTIME} flag.
+   * Listeners are called asynchronously and the final itinerary is still only given by the {@link #future()}.
+   *
+   * @param listener the listener
+   */
+  public final void onImprovement(Consumer<Itinerary> listener) {
+    improvementListeners.add(listener);
+  }
+
+  final void improve(Itinerary itinerary) {
+    if (state.get().shouldStop()) {
+      return;
+    }
+    for (Consumer<Itinerary> listener : improvementListeners) {
+      listener.accept(itinerary);
+    }
+  }
+
   /**
    * Terminate the search operation. It is up to the implementation
    * of this search session object to implement the actual cancellation behavior;
@@ -267,6 +291,15 @@ public abstract class SearchSession implements Describable {
     return flags;
   }
 
+  /**
+   * How urgently this session's searches need the chunks they request from the server.
+   *
+   * @return the priority
+   */
+  public ChunkPriority chunkPriority() {
+    return ChunkPriority.DEMAND;
+  }
+
   @Synchronous
   public void initialize() {
     List<Mode> modeList = new LinkedList<>();
@@ -57,7 +57,7 @@ public class SurfaceGoalSearchSession extends SearchSession {
         origin,
         modes(),
         new HeightCostFunction(),
-        (blockProvider, node) -> BlockProvider.isAtSurface(blockProvider, node.getData().location()),
+        BlockProvider::isAtSurface,
         false
     );
 
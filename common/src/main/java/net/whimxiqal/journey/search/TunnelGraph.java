@@ -0,0 +1,263 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.Tunnel;
+import net.whimxiqal.journey.data.PathRecordManager;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The graph of tunnels shared between all searches, so that a search doesn't have to sort every tunnel
+ * and ask the database about the path between every pair of tunnels when it starts.
+ *
+ * <p>A {@link Snapshot} groups a list of tunnels by domain. Searches with the same tunnels share the same snapshot
+ * until the tunnels change or the graph is {@link #invalidate invalidated}, which bumps its version.
+ * Whether a path between two tunnels was cached in the database is remembered separately for every set of modes,
+ * since the answer doesn't depend on which other tunnels exist. It is filled in the background
+ * for every new snapshot, and forgotten for every set of modes when a path between the same two tunnels is cached,
+ * since caching a path may delete the paths it replaces.
+ *
+ * <p>Thread-safe.
+ */
+public final class TunnelGraph {
+
+  /**
+   * The maximum number of snapshots kept at once, which is about the number of different sets of tunnels
+   * that players may have permission to use.
+   */
+  public static final int MAX_SNAPSHOTS = 16;
+  /**
+   * The maximum number of pairs of tunnels whose paths are remembered at once.
+   */
+  public static final int MAX_LEGS = 1 << 16;
+
+  private final Map<List<TunnelKey>, Snapshot> snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<List<TunnelKey>, Snapshot> eldest) {
+      return size() > MAX_SNAPSHOTS;
+    }
+  };
+  private final Map<LegKey, Map<Set<ModeType>, Boolean>> legs = new ConcurrentHashMap<>();
+  private long version = 0;
+
+  /**
+   * Get the snapshot of a list of tunnels, which is shared with every other search with the same tunnels.
+   *
+   * @param tunnels the tunnels, which are referred to by their index in this list
+   * @return the snapshot
+   */
+  public Snapshot snapshot(List<? extends Tunnel> tunnels) {
+    List<TunnelKey> keys = new ArrayList<>(tunnels.size());
+    for (Tunnel tunnel : tunnels) {
+      keys.add(new TunnelKey(tunnel.origin(), tunnel.destination(), tunnel.cost(), tunnel.permission()));
+    }
+    synchronized (this) {
+      Snapshot snapshot = snapshots.get(keys);
+      if (snapshot == null || snapshot.version != version) {
+        snapshot = new Snapshot(version, keys);
+        snapshots.put(keys, snapshot);
+      }
+      return snapshot;
+    }
+  }
+
+  /**
+   * Forget every snapshot, because some tunnels changed.
+   */
+  public synchronized void invalidate() {
+    version++;
+    snapshots.clear();
+  }
+
+  public synchronized long version() {
+    return version;
+  }
+
+  public void clear() {
+    invalidate();
+    clearRecords();
+  }
+
+  /**
+   * Whether the database has a path from one tunnel to another, if it is known.
+   *
+   * @param origin      the destination of the first tunnel
+   * @param destination the origin of the second tunnel
+   * @param modeTypes   the mode types of the path
+   * @return whether there is a path in the database, or null if unknown
+   */
+  @Nullable
+  public Boolean hasRecord(Cell origin, Cell destination, Set<ModeType> modeTypes) {
+    Map<Set<ModeType>, Boolean> records = legs.get(new LegKey(origin, destination));
+    return records == null ? null : records.get(modeTypes);
+  }
+
+  /**
+   * Remember whether the database has a path from one tunnel to another.
+   *
+   * @param origin      the destination of the first tunnel
+   * @param destination the origin of the second tunnel
+   * @param modeTypes   the mode types of the path
+   * @param exists      whether there is a path in the database
+   */
+  public void putRecord(Cell origin, Cell destination, Set<ModeType> modeTypes, boolean exists) {
+    if (legs.size() >= MAX_LEGS) {
+      legs.clear();
+    }
+    legs.computeIfAbsent(new LegKey(origin, destination), k -> new ConcurrentHashMap<>()).put(modeTypes, exists);
+  }
+
+  /**
+   * Forget whether the database has a path from one cell to another for every set of modes,
+   * because a path between them was cached, which may have deleted paths with other modes.
+   *
+   * @param origin      the origin of the path
+   * @param destination the destination of the path
+   */
+  public void forgetRecords(Cell origin, Cell destination) {
+    legs.remove(new LegKey(origin, destination));
+  }
+
+  /**
+   * Forget whether the database has any path, because the database changed.
+   */
+  public void clearRecords() {
+    legs.clear();
+  }
+
+  /**
+   * Ask the database about every path between the tunnels of a snapshot that isn't known yet.
+   * This is slow, so it should be run asynchronously.
+   *
+   * @param snapshot  the snapshot
+   * @param modeTypes the mode types of the paths
+   * @param records   the database of paths
+   */
+  public void precompute(Snapshot snapshot, Set<ModeType> modeTypes, PathRecordManager records) {
+    for (int domain : snapshot.domains()) {
+      for (int start : snapshot.tunnelsEndingIn(domain)) {
+        for (int end : snapshot.tunnelsStartingIn(domain)) {
+          Cell origin = snapshot.tunnels.get(start).destination;
+          Cell destination = snapshot.tunnels.get(end).origin;
+          if (hasRecord(origin, destination, modeTypes) == null) {
+            putRecord(origin, destination, modeTypes, records.containsRecord(origin, destination, modeTypes));
+          }
+        }
+      }
+    }
+  }
+
+  private record TunnelKey(Cell origin, Cell destination, int cost, Optional<String> permission) {
+  }
+
+  private record LegKey(Cell origin, Cell destination) {
+  }
+
+  /**
+   * The tunnels of one list of tunnels, grouped by the domains they start and end in.
+   * Tunnels are referred to by their index in the list.
+   */
+  public static final class Snapshot {
+
+    private static final int[] NONE = new int[0];
+    private final long version;
+    private final List<TunnelKey> tunnels;
+    private final Set<Integer> domains = new TreeSet<>();
+    private final Map<Integer, int[]> byOriginDomain = new HashMap<>();
+    private final Map<Integer, int[]> byDestinationDomain = new HashMap<>();
+    private final Set<Set<ModeType>> precomputed = ConcurrentHashMap.newKeySet();
+
+    private Snapshot(long version, List<TunnelKey> tunnels) {
+      this.version = version;
+      this.tunnels = tunnels;
+      Map<Integer, List<Integer>> byOrigin = new HashMap<>();
+      Map<Integer, List<Integer>> byDestination = new HashMap<>();
+      for (int i = 0; i < tunnels.size(); i++) {
+        TunnelKey tunnel = tunnels.get(i);
+        domains.add(tunnel.origin.domain());
+        domains.add(tunnel.destination.domain());
+        byOrigin.computeIfAbsent(tunnel.origin.domain(), k -> new ArrayList<>()).add(i);
+        byDestination.computeIfAbsent(tunnel.destination.domain(), k -> new ArrayList<>()).add(i);
+      }
+      byOrigin.forEach((domain, indices) -> byOriginDomain.put(domain, indices.stream().mapToInt(i -> i).toArray()));
+      byDestination.forEach((domain, indices) -> byDestinationDomain.put(domain, indices.stream().mapToInt(i -> i).toArray()));
+    }
+
+    public long version() {
+      return version;
+    }
+
+    /**
+     * Get every domain that any tunnel starts or ends in.
+     *
+     * @return the domains
+     */
+    public Set<Integer> domains() {
+      return Collections.unmodifiableSet(domains);
+    }
+
+    /**
+     * Get the indices of the tunnels that start in a domain.
+     *
+     * @param domain the domain
+     * @return the indices
+     */
+    public int[] tunnelsStartingIn(int domain) {
+      return byOriginDomain.getOrDefault(domain, NONE);
+    }
+
+    /**
+     * Get the indices of the tunnels that end in a domain.
+     *
+     * @param domain the domain
+     * @return the indices
+     */
+    public int[] tunnelsEndingIn(int domain) {
+      return byDestinationDomain.getOrDefault(domain, NONE);
+    }
+
+    /**
+     * Claim the precomputation of the paths between these tunnels for some mode types,
+     * so that it only happens once.
+     *
+     * @param modeTypes the mode types
+     * @return true if the caller should {@link TunnelGraph#precompute precompute} the paths
+     */
+    public boolean claimPrecomputation(Set<ModeType> modeTypes) {
+      return precomputed.add(modeTypes);
+    }
+
+  }
+
+}
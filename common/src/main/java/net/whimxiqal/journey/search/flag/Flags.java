@@ -46,6 +46,15 @@ public final class Flags {
   public static final Flag<Boolean> DIG = new BooleanFlag("dig",
       Settings.DEFAULT_DIG_FLAG::getValue,
       Permission.FLAG_DIG.path());
+  public static final Flag<Boolean> BIDIRECTIONAL = new BooleanFlag("bidirectional",
+      Settings.DEFAULT_BIDIRECTIONAL_FLAG::getValue,
+      Permission.FLAG_BIDIRECTIONAL.path());
+  public static final Flag<Boolean> HIERARCHICAL = new BooleanFlag("hierarchical",
+      Settings.DEFAULT_HIERARCHICAL_FLAG::getValue,
+      Permission.FLAG_HIERARCHICAL.path());
+  public static final Flag<Boolean> ANYTIME = new BooleanFlag("anytime",
+      Settings.DEFAULT_ANYTIME_FLAG::getValue,
+      Permission.FLAG_ANYTIME.path());
   public static final Flag<Boolean> DOOR = new BooleanFlag("door",
       Settings.DEFAULT_DOORS_FLAG::getValue,
       Permission.FLAG_DOOR.path());
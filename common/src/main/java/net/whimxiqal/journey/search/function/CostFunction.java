@@ -24,13 +24,39 @@
 package net.whimxiqal.journey.search.function;
 
 import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.tools.PackedCell;
+import org.jetbrains.annotations.Nullable;
 
 public abstract class CostFunction {
 
   abstract public double apply(Cell cell, double existingCost);
 
+  /**
+   * The same as {@link #apply(Cell, double)}, but for {@link PackedCell packed} coordinates,
+   * so a search does not have to create a {@link Cell} for every location it scores.
+   * By default, this unpacks the coordinates, so functions used by searches should override it.
+   *
+   * @param cell         the packed cell
+   * @param domain       the domain of the cell
+   * @param existingCost the cost to get to the cell so far
+   * @return the cost
+   */
+  public double apply(long cell, int domain, double existingCost) {
+    return apply(PackedCell.toCell(cell, domain), existingCost);
+  }
+
   abstract public Type type();
 
+  /**
+   * The cell toward which this function leads a search, if there is one.
+   *
+   * @return the target, or null if there isn't one
+   */
+  @Nullable
+  public Cell target() {
+    return null;
+  }
+
   enum Type {
     WEIGHTED_DISTANCE, DISTANCE, HEIGHT
   }
@@ -24,14 +24,17 @@
 package net.whimxiqal.journey.search.function;
 
 import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.tools.PackedCell;
 
 public class DistanceCostFunction extends CostFunction {
   private final DistanceFunction distanceFunction;
   private final Cell destination;
+  private final long packedDestination;
 
   public DistanceCostFunction(DistanceFunction distanceFunction, Cell destination) {
     this.distanceFunction = distanceFunction;
     this.destination = destination;
+    this.packedDestination = PackedCell.pack(destination);
   }
 
   @Override
@@ -39,8 +42,18 @@ public class DistanceCostFunction extends CostFunction {
     return existingCost + distanceFunction.distance(cell, destination);
   }
 
+  @Override
+  public double apply(long cell, int domain, double existingCost) {
+    return existingCost + distanceFunction.distance(cell, packedDestination);
+  }
+
   @Override
   public Type type() {
     return Type.DISTANCE;
   }
+
+  @Override
+  public Cell target() {
+    return destination;
+  }
 }
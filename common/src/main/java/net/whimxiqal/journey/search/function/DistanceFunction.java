@@ -29,6 +29,16 @@ public abstract class DistanceFunction {
 
   abstract public double distance(Cell origin, Cell destination);
 
+  /**
+   * The same as {@link #distance(Cell, Cell)}, but for two {@link net.whimxiqal.journey.tools.PackedCell packed}
+   * locations in the same domain.
+   *
+   * @param origin      the packed origin
+   * @param destination the packed destination
+   * @return the distance
+   */
+  abstract public double distance(long origin, long destination);
+
   abstract public Type type();
 
   enum Type {
@@ -24,6 +24,7 @@
 package net.whimxiqal.journey.search.function;
 
 import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.tools.PackedCell;
 
 public class EuclideanDistanceFunction extends DistanceFunction {
 
@@ -32,6 +33,11 @@ public class EuclideanDistanceFunction extends DistanceFunction {
     return origin.distanceTo(destination);
   }
 
+  @Override
+  public double distance(long origin, long destination) {
+    return Math.sqrt(PackedCell.distanceSquared(origin, destination));
+  }
+
   @Override
   public Type type() {
     return Type.EUCLIDEAN;
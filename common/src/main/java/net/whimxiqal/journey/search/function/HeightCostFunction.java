@@ -24,11 +24,45 @@
 package net.whimxiqal.journey.search.function;
 
 import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.Journey;
+import net.whimxiqal.journey.chunk.BlockProvider;
+import net.whimxiqal.journey.proxy.JourneyChunk;
+import net.whimxiqal.journey.tools.PackedCell;
 
+import static net.whimxiqal.journey.proxy.JourneyChunk.CHUNK_SIDE_LENGTH;
+
+/**
+ * Leads a search up to the surface of the world. The rest of the cost of a cell is estimated as how far it is below
+ * the highest block in its column, read from the heightmap of its cached chunk, so the search heads for open sky
+ * rather than just heading up. Like {@link BlockProvider#isAtSurface}, a cell is at the surface once it is
+ * {@link BlockProvider#AT_SURFACE_HEIGHT} blocks below the highest block, if there is only air in between,
+ * so the estimate is never more than that.
+ */
 public class HeightCostFunction extends CostFunction {
+
   @Override
   public double apply(Cell cell, double existingCost) {
-    return existingCost - cell.blockY();  // discourage length to origin and going down
+    return apply(cell.domain(), cell.blockX(), cell.blockY(), cell.blockZ(), existingCost);
+  }
+
+  @Override
+  public double apply(long cell, int domain, double existingCost) {
+    return apply(domain, PackedCell.x(cell), PackedCell.y(cell), PackedCell.z(cell), existingCost);
+  }
+
+  private double apply(int domain, int x, int y, int z, double existingCost) {
+    JourneyChunk chunk = Journey.get().centralChunkCache().peek(domain,
+        Math.floorDiv(x, CHUNK_SIDE_LENGTH),
+        Math.floorDiv(z, CHUNK_SIDE_LENGTH));
+    if (chunk == null) {
+      // The search just read the cell, so its chunk is almost always cached. Otherwise, there is no estimate.
+      return existingCost;
+    }
+    int surfaceY = chunk.surfaceY(Math.floorMod(x, CHUNK_SIDE_LENGTH), Math.floorMod(z, CHUNK_SIDE_LENGTH));
+    if (surfaceY <= y) {
+      return existingCost;  // nothing above at all
+    }
+    return existingCost + Math.min(surfaceY - y, BlockProvider.AT_SURFACE_HEIGHT);
   }
 
   @Override
@@ -24,6 +24,7 @@
 package net.whimxiqal.journey.search.function;
 
 import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.tools.PackedCell;
 
 public class ManhattanDistanceFunction extends DistanceFunction {
 
@@ -34,6 +35,13 @@ public class ManhattanDistanceFunction extends DistanceFunction {
         + Math.abs(origin.blockZ() - destination.blockZ());
   }
 
+  @Override
+  public double distance(long origin, long destination) {
+    return (double) Math.abs(PackedCell.x(origin) - PackedCell.x(destination))
+        + Math.abs(PackedCell.y(origin) - PackedCell.y(destination))
+        + Math.abs(PackedCell.z(origin) - PackedCell.z(destination));
+  }
+
   @Override
   public Type type() {
     return Type.MANHATTAN;
@@ -24,6 +24,7 @@
 package net.whimxiqal.journey.search.function;
 
 import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.tools.PackedCell;
 
 /**
  * This scoring function is similar to the Euclidean distance function but operates under the assumption that
@@ -42,10 +43,20 @@ public class PlanarOrientedDistanceFunction extends DistanceFunction {
 
   @Override
   public double distance(Cell origin, Cell destination) {
+    return distance(Math.abs(destination.blockX() - origin.blockX()),
+        Math.abs(destination.blockY() - origin.blockY()),
+        Math.abs(destination.blockZ() - origin.blockZ()));
+  }
+
+  @Override
+  public double distance(long origin, long destination) {
+    return distance(Math.abs(PackedCell.x(destination) - PackedCell.x(origin)),
+        Math.abs(PackedCell.y(destination) - PackedCell.y(origin)),
+        Math.abs(PackedCell.z(destination) - PackedCell.z(origin)));
+  }
+
+  private static double distance(int xDiff, int yDiff, int zDiff) {
     // Sort coordinates in order of size
-    int xDiff = Math.abs(destination.blockX() - origin.blockX());
-    int yDiff = Math.abs(destination.blockY() - origin.blockY());
-    int zDiff = Math.abs(destination.blockZ() - origin.blockZ());
     int first, second, third;
     boolean isYFirst = false;
     if (yDiff > xDiff && yDiff > zDiff) {
@@ -24,16 +24,19 @@
 package net.whimxiqal.journey.search.function;
 
 import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.tools.PackedCell;
 
 public class WeightedDistanceCostFunction extends CostFunction {
 
   private final DistanceFunction distanceFunction;
   private final Cell destination;
+  private final long packedDestination;
   private final double weight;
 
   public WeightedDistanceCostFunction(DistanceFunction distanceFunction, Cell destination, double weight) {
     this.distanceFunction = distanceFunction;
     this.destination = destination;
+    this.packedDestination = PackedCell.pack(destination);
     this.weight = weight;
   }
 
@@ -42,8 +45,18 @@ public class WeightedDistanceCostFunction extends CostFunction {
     return existingCost + weight * distanceFunction.distance(cell, destination);
   }
 
+  @Override
+  public double apply(long cell, int domain, double existingCost) {
+    return existingCost + weight * distanceFunction.distance(cell, packedDestination);
+  }
+
   @Override
   public Type type() {
     return Type.WEIGHTED_DISTANCE;
   }
+
+  @Override
+  public Cell target() {
+    return destination;
+  }
 }
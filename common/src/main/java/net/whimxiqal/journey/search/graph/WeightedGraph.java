@@ -23,16 +23,16 @@
 
 package net.whimxiqal.journey.search.graph;
 
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Objects;
-import java.util.PriorityQueue;
-import java.util.Set;
 import java.util.function.Predicate;
-import net.whimxiqal.journey.Journey;
+import java.util.function.Supplier;
 import net.whimxiqal.journey.tools.AlternatingList;
+import net.whimxiqal.journey.tools.IndexedMinHeap;
+import net.whimxiqal.journey.tools.LongIntHashMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -43,16 +43,63 @@ import org.jetbrains.annotations.Nullable;
  * to the graph when traversing from one node to another.
  * The solution of any solved path is one which minimized the distance between the nodes.
  *
- * <p>The {@link #findMinimumPath} method uses Dijkstra's algorithm.
+ * <p>A {@link #findMinimumPath} search for any node that satisfies a predicate uses Dijkstra's algorithm,
+ * since there is no one destination to direct it toward. A search for a specific destination node works as
+ * described below. Either way, edges may be {@link #addLazyEdge added lazily}, in which case they are only
+ * created once the search reaches them.
+ *
+ * <p>When searching for a specific destination node in a large enough graph, the search is directed
+ * with A*, using the ALT heuristic: distances to and from a few landmark nodes are precomputed on the
+ * graph of edge {@link #edgeLowerBound lower bounds}, and the triangle inequality then bounds the
+ * remaining distance from any node to the destination. Since they only use lower bounds,
+ * the landmark distances stay admissible as the real edge lengths are discovered,
+ * so they are only recomputed when edges are added.
+ *
+ * <p>Searches for a specific destination are also incremental, in the style of Lifelong Planning A*:
+ * if the same search is run again on the same edges, the solution of the previous search is kept,
+ * and only the part of it affected by edges whose lengths changed (or which were filtered in or out)
+ * is repaired.
+ *
+ * <p>Internally, nodes are numbered in the order they are added, and edges are kept in
+ * compressed sparse rows: the edges leaving each node sit next to each other in flat arrays,
+ * which are rebuilt the first time the graph is searched after edges are added.
+ * The state of each search is stamped with the search's generation, so nothing has to be reset
+ * between searches.
  *
  * @param <N> the graph node type
  * @param <E> the graph edge type
  */
 public abstract class WeightedGraph<N, E> {
 
-  private final Set<Node> nodes = new HashSet<>();
-  private final Table edgeTable = new Table();
-  private final HashMap<N, Node> dataToNodes = new HashMap<>();
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int NONE = -1;
+  private static final double INFINITY = Double.POSITIVE_INFINITY;
+
+  private final HashMap<N, Integer> ids = new HashMap<>();
+  private final List<N> nodes = new ArrayList<>();  // node id -> data
+  private final LongIntHashMap edgeIds = new LongIntHashMap();  // origin and destination id -> edge id
+  private final List<Link> links = new ArrayList<>();  // edge id -> link
+  private int[] edgeOrigins = new int[INITIAL_CAPACITY];  // edge id -> origin node id
+  private int[] edgeDestinations = new int[INITIAL_CAPACITY];  // edge id -> destination node id
+  private int materialized = 0;
+  private @Nullable Rows rows = null;  // null if it must be rebuilt
+  private @Nullable Landmarks landmarks = null;  // null if it must be recomputed
+
+  // search state, which is only valid for nodes stamped with the current generation
+  private final IndexedMinHeap queue = new IndexedMinHeap();
+  private int generation = 0;
+  private int[] reached = new int[0];  // node id -> generation in which it was reached
+  private int[] settled = new int[0];  // node id -> generation in which its distance was final
+  private double[] distances = new double[0];  // node id -> distance from the origin
+  private double[] lookaheads = new double[0];  // node id -> distance from the origin through its best incoming edge
+  private int[] previous = new int[0];  // node id -> position in the rows of the edge used to get to it
+  private int[] evaluated = new int[0];  // position in the rows -> generation in which its cost was evaluated
+  private double[] costs = new double[0];  // position in the rows -> cost when it was last evaluated
+  // the last search to a destination, which may be repaired instead of started over
+  private @Nullable Rows solvedRows = null;
+  private int solvedOrigin = NONE;
+  private int solvedDestination = NONE;
+  private boolean repairing = false;  // whether the queue is ordered for repairs, rather than for a new search
 
   /**
    * Add an edge to the graph.
@@ -62,94 +109,422 @@ public abstract class WeightedGraph<N, E> {
    * @param edge        the edge itself
    */
   public void addEdge(@NotNull N origin, @NotNull N destination, @NotNull E edge) {
-    Node originNode = makeOrGetNode(origin);
-    Node destinationNode = makeOrGetNode(destination);
-    this.nodes.add(originNode);
-    this.nodes.add(destinationNode);
-    this.edgeTable.put(originNode, destinationNode, edge);
+    putLink(origin, destination, new Link(edge));
+  }
+
+  /**
+   * Add an edge to the graph that is only created once a search needs its real length,
+   * which is when a search reaches its origin node.
+   * Until then, the edge is only known by a lower bound of its length.
+   *
+   * @param origin      the origin node of the edge
+   * @param destination the destination node of the edge
+   * @param lowerBound  a length that the edge's real length is never less than
+   * @param edge        the supplier of the edge itself, called at most once
+   */
+  public void addLazyEdge(@NotNull N origin, @NotNull N destination, double lowerBound, @NotNull Supplier<E> edge) {
+    putLink(origin, destination, new Link(lowerBound, edge));
+  }
+
+  private void putLink(N origin, N destination, Link link) {
+    int originId = makeOrGetNode(origin);
+    int destinationId = makeOrGetNode(destination);
+    long key = ((long) originId << 32) | (destinationId & 0xFFFFFFFFL);
+    int edgeId = edgeIds.get(key);
+    if (edgeId == LongIntHashMap.MISSING) {
+      edgeId = links.size();
+      if (edgeId == edgeOrigins.length) {
+        edgeOrigins = Arrays.copyOf(edgeOrigins, edgeId << 1);
+        edgeDestinations = Arrays.copyOf(edgeDestinations, edgeId << 1);
+      }
+      edgeOrigins[edgeId] = originId;
+      edgeDestinations[edgeId] = destinationId;
+      edgeIds.put(key, edgeId);
+      links.add(link);
+    } else {
+      // replaces the old edge between the same nodes
+      links.set(edgeId, link);
+    }
+    this.rows = null;
+    this.landmarks = null;
   }
 
-  private Node makeOrGetNode(N data) {
-    Node existingNode = dataToNodes.get(data);
-    if (existingNode != null) {
-      return existingNode;
+  /**
+   * Get the number of edges that have been created, including all edges that weren't added lazily.
+   *
+   * @return the number of edges
+   */
+  public int materializedEdgeCount() {
+    return materialized;
+  }
+
+  private int makeOrGetNode(N data) {
+    Integer existingId = ids.get(data);
+    if (existingId != null) {
+      return existingId;
     }
-    existingNode = new Node(data);
-    dataToNodes.put(data, existingNode);
-    return existingNode;
+    int id = nodes.size();
+    ids.put(data, id);
+    nodes.add(data);
+    this.rows = null;
+    return id;
   }
 
+  /**
+   * Get the number of landmarks currently used to direct searches, computing them if necessary.
+   *
+   * @return the number of landmarks, which is 0 if the graph is too small to need them
+   */
+  public int landmarkCount() {
+    return landmarks().count();
+  }
+
+  /**
+   * Find the minimum path from the origin node to the destination node.
+   * If the previous search had the same origin and destination and no edges have been added since,
+   * its solution is repaired rather than solved again from scratch.
+   *
+   * @param origin      the origin node
+   * @param destination the destination node
+   * @param edgeFilter  the predicate determining whether an edge may be used
+   * @return the path, or null if there is none
+   */
+  @Nullable
   protected final AlternatingList<N, E, Object> findMinimumPath(N origin, N destination, Predicate<E> edgeFilter) {
-    return findMinimumPath(origin, current -> current.equals(destination), edgeFilter);
+    int originId = makeOrGetNode(origin);
+    int destinationId = makeOrGetNode(destination);
+    Rows rows = rows();
+    Landmarks heuristic = landmarks();
+    if (rows == solvedRows && originId == solvedOrigin && destinationId == solvedDestination) {
+      if (!repairing) {
+        // Order the queue for repairs, where ties go to the nodes closer to the origin
+        repairing = true;
+        for (int node : queue.toArray()) {
+          updateQueue(node, destinationId, heuristic);
+        }
+      }
+      repairChangedEdges(rows, originId, destinationId, edgeFilter, heuristic);
+    } else {
+      startSearch(rows);
+      solvedRows = rows;
+      solvedOrigin = originId;
+      solvedDestination = destinationId;
+      repairing = false;
+      setLookahead(originId, 0, NONE);
+      updateQueue(originId, destinationId, heuristic);
+    }
+    solve(rows, originId, destinationId, edgeFilter, heuristic);
+
+    if (lookahead(destinationId) == INFINITY) {
+      return null;  // Could not find it
+    }
+    AlternatingList.Builder<N, E, Object> pathBuilder = AlternatingList.builder(nodes.get(destinationId));
+    int current = destinationId;
+    int steps = 0;
+    while (current != originId) {
+      int position = previous[current];
+      if (position == NONE || ++steps > nodes.size()) {
+        // The chain of edges is broken, which may happen with edges of no length. Just start over.
+        solvedRows = null;
+        return findMinimumPath(origin, destination, edgeFilter);
+      }
+      current = rows.origins[position];
+      pathBuilder.addFirst(nodes.get(current), rows.link(position).get());
+    }
+    return pathBuilder.build();
   }
 
+  /**
+   * Find the minimum path from the origin node to any node that satisfies the predicate,
+   * with Dijkstra's algorithm.
+   *
+   * @param origin     the origin node
+   * @param done       the predicate determining whether a node is a destination
+   * @param edgeFilter the predicate determining whether an edge may be used
+   * @return the path, or null if there is none
+   */
   @Nullable
   protected final AlternatingList<N, E, Object> findMinimumPath(N origin, Predicate<N> done, Predicate<E> edgeFilter) {
-    Node originNode = makeOrGetNode(origin);
+    int originId = makeOrGetNode(origin);
+    Rows rows = rows();
+    startSearch(rows);
+    solvedRows = null;  // this search overwrites the last one
 
-    PriorityQueue<Node> toVisit = new PriorityQueue<>(Comparator.comparingDouble(n -> n.distance));
-    Set<Node> visited = new HashSet<>();
+    reach(originId, 0, NONE);
+    queue.offer(originId, 0, 0);
 
-    originNode.setDistance(0);
-    originNode.setPrevious(null);
-    toVisit.add(originNode);
+    while (!queue.isEmpty()) {
+      int current = queue.poll();
+      settled[current] = generation;
 
-    Node current;
-    while (!toVisit.isEmpty()) {
-      current = toVisit.poll();
-      visited.add(current);
-
-      if (done.test(current.data)) {
+      if (done.test(nodes.get(current))) {
         // We've reached destination. Package solution.
-        AlternatingList.Builder<N, E, Object> pathBuilder = AlternatingList.builder(current.data);
-        while (!current.equals(originNode)) {
-          pathBuilder.addFirst(current.getPrevious().data,
-              Objects.requireNonNull(this.edgeTable.getEdge(current.getPrevious(), current)));
-          current = current.getPrevious();
+        AlternatingList.Builder<N, E, Object> pathBuilder = AlternatingList.builder(nodes.get(current));
+        while (current != originId) {
+          int position = previous[current];
+          current = rows.origins[position];
+          pathBuilder.addFirst(nodes.get(current), rows.link(position).get());
         }
-
-        resetNodes();
         return pathBuilder.build();
       }
       // Not yet done
-      Map<Node, E> edges = edgeTable.edgesFrom(current);
-      if (edges == null) {
-        continue;
-      }
-      for (Map.Entry<Node, E> outlet : edgeTable.edgesFrom(current).entrySet()) {
-        // outlet.getKey() is destination
-        // outlet.getValue() is edge from 'current' to destination
-        if (!edgeFilter.test(outlet.getValue())) {
-          // manually filtered out this edge
+      for (int position = rows.offsets[current]; position < rows.offsets[current + 1]; position++) {
+        int outlet = rows.destinations[position];
+        if (settled[outlet] == generation) {
+          // we've already gotten to this node (in a faster way)
           continue;
         }
-        if (visited.contains(outlet.getKey())) {
-          // we've already gotten to this node (in a faster way)
+        double distance = distances[current] + evaluate(rows, position, edgeFilter);
+        if (distance == INFINITY) {
+          // filtered out, or too long to use
           continue;
         }
-        // the outlet constructs with max double distance, aka, infinite distance
-        if (outlet.getKey().getDistance() > current.getDistance() + edgeLength(outlet.getValue())) {
+        if (reached[outlet] != generation || distances[outlet] > distance) {
           // A better path for this node would be to come from current.
-          toVisit.remove(outlet.getKey());  // Remove from waiting queue in case it was already queued before
-          outlet.getKey().setDistance(current.getDistance()
-              + edgeLength(outlet.getValue())
-              + nodeWeight(outlet.getKey().getData()));
-          outlet.getKey().setPrevious(current);
-          toVisit.add(outlet.getKey());
+          reach(outlet, distance, position);
+          queue.offer(outlet, distance, 0);  // inserts, or decreases the key if already queued
         }
       }
     }
 
-    resetNodes();
     return null;  // Could not find it
+  }
 
+  /**
+   * Get the cost of moving along an edge, which is its length plus the weight of the node it goes to,
+   * creating the edge if necessary. The cost is remembered, so later searches can tell if it changed.
+   *
+   * @return the cost, or infinity if the edge is filtered out or too long to use
+   */
+  private double evaluate(Rows rows, int position, Predicate<E> edgeFilter) {
+    // only now do we need the real edge
+    E edge = rows.link(position).get();
+    double cost = edgeFilter.test(edge)
+        ? edgeLength(edge) + nodeWeight(nodes.get(rows.destinations[position]))
+        : INFINITY;
+    if (cost >= Double.MAX_VALUE) {
+      // edges of maximum length, like failed ones, can't be used
+      cost = INFINITY;
+    }
+    evaluated[position] = generation;
+    costs[position] = cost;
+    return cost;
   }
 
-  private void resetNodes() {
-    this.nodes.forEach(node -> {
-      node.setDistance(Double.MAX_VALUE);
-      node.setPrevious(null);
-    });
+  /**
+   * Continue the last search until the destination's distance is known to be minimal.
+   * A node is queued whenever its distance disagrees with its lookahead (the distance through its best
+   * incoming edge), so only nodes affected by changes since the last search are expanded again.
+   *
+   * <p>A new search only ever brings nodes closer, so it is just A*, and may stop as soon as the destination
+   * is next in the queue. Repairs may also push nodes farther, so they must continue until nothing left in the queue
+   * could change the destination's distance.
+   */
+  private void solve(Rows rows, int origin, int destination, Predicate<E> edgeFilter, Landmarks heuristic) {
+    while (!queue.isEmpty()) {
+      int current = queue.peek();
+      if (repairing) {
+        double destinationKey = Math.min(distance(destination), lookahead(destination));
+        if (!queuedNoLaterThan(current, destinationKey) && distance(destination) == lookahead(destination)) {
+          // nothing left in the queue can change the destination's distance
+          return;
+        }
+      } else if (current == destination) {
+        // The destination's lookahead is final. It stays queued, so a repair will expand it if it has to
+        return;
+      }
+      queue.poll();
+      if (distance(current) > lookahead(current)) {
+        // this node got closer, which may bring the nodes after it closer too
+        distances[current] = lookaheads[current];
+        for (int position = rows.offsets[current]; position < rows.offsets[current + 1]; position++) {
+          int outlet = rows.destinations[position];
+          if (outlet == origin
+              || (distance(outlet) <= distances[current] && distance(outlet) == lookahead(outlet))) {
+            // no edge from here could bring this node closer, so we don't need to know it yet
+            continue;
+          }
+          double lookahead = distances[current] + evaluate(rows, position, edgeFilter);
+          if (lookahead < lookahead(outlet)) {
+            setLookahead(outlet, lookahead, position);
+            updateQueue(outlet, destination, heuristic);
+          }
+        }
+      } else {
+        // this node got farther, so the nodes reached through it must find their best edges again
+        distances[current] = INFINITY;
+        updateQueue(current, destination, heuristic);
+        for (int position = rows.offsets[current]; position < rows.offsets[current + 1]; position++) {
+          int outlet = rows.destinations[position];
+          if (outlet != origin && previous[outlet] == position && reached[outlet] == generation) {
+            findLookahead(rows, outlet, edgeFilter);
+            updateQueue(outlet, destination, heuristic);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Re-evaluate the cost of every edge the last search used, and queue the nodes after the ones that changed.
+   */
+  private void repairChangedEdges(Rows rows, int origin, int destination, Predicate<E> edgeFilter, Landmarks heuristic) {
+    for (int position = 0; position < rows.edges.length; position++) {
+      if (evaluated[position] != generation) {
+        continue;
+      }
+      double oldCost = costs[position];
+      double cost = evaluate(rows, position, edgeFilter);
+      int outlet = rows.destinations[position];
+      if (cost == oldCost || outlet == origin) {
+        continue;
+      }
+      if (cost < oldCost) {
+        double lookahead = distance(rows.origins[position]) + cost;
+        if (lookahead < lookahead(outlet)) {
+          setLookahead(outlet, lookahead, position);
+        }
+      } else if (previous[outlet] == position && reached[outlet] == generation) {
+        findLookahead(rows, outlet, edgeFilter);
+      }
+      updateQueue(outlet, destination, heuristic);
+    }
+  }
+
+  /**
+   * Set a node's lookahead to the distance through its best incoming edge.
+   */
+  private void findLookahead(Rows rows, int node, Predicate<E> edgeFilter) {
+    double best = INFINITY;
+    int bestPosition = NONE;
+    for (int i = rows.incomingOffsets[node]; i < rows.incomingOffsets[node + 1]; i++) {
+      int position = rows.incoming[i];
+      double distance = distance(rows.origins[position]);
+      if (distance == INFINITY) {
+        continue;
+      }
+      double cost = evaluated[position] == generation ? costs[position] : evaluate(rows, position, edgeFilter);
+      if (distance + cost < best) {
+        best = distance + cost;
+        bestPosition = position;
+      }
+    }
+    setLookahead(node, best, bestPosition);
+  }
+
+  /**
+   * Queue a node if its distance and lookahead disagree, or remove it from the queue otherwise.
+   * Nodes from which the destination can't be reached at all are never queued.
+   */
+  private void updateQueue(int node, int destination, Landmarks heuristic) {
+    double distance = distance(node);
+    double lookahead = lookahead(node);
+    if (distance == lookahead) {
+      queue.remove(node);
+      return;
+    }
+    double estimate = heuristic.lowerBound(node, destination);
+    if (estimate == INFINITY) {
+      queue.remove(node);
+      return;
+    }
+    double smaller = Math.min(distance, lookahead);
+    // Ties go to the nodes closer to the origin when repairing, which repairs depend on,
+    //  or else to the nodes estimated closer to the destination
+    queue.offer(node, smaller + estimate, repairing ? smaller : estimate);
+  }
+
+  /**
+   * Whether a node is queued no later than the destination would be, whose key (without the estimate,
+   * which is 0 at the destination itself) is given. Nodes queued at the same time as the destination
+   * must still be expanded, because edges of no length may lead from them to the destination.
+   */
+  private boolean queuedNoLaterThan(int node, double destinationKey) {
+    double key = queue.key(node);
+    return key < destinationKey
+        || (key == destinationKey && Math.min(distance(node), lookahead(node)) <= destinationKey);
+  }
+
+  private double distance(int node) {
+    return reached[node] == generation ? distances[node] : INFINITY;
+  }
+
+  private double lookahead(int node) {
+    return reached[node] == generation ? lookaheads[node] : INFINITY;
+  }
+
+  private void setLookahead(int node, double lookahead, int position) {
+    if (reached[node] != generation) {
+      reached[node] = generation;
+      distances[node] = INFINITY;
+    }
+    lookaheads[node] = lookahead;
+    previous[node] = position;
+  }
+
+  /**
+   * Prepare the search state for a new search. Rather than resetting the state of every node,
+   * this just moves on to a new generation, which makes all state from previous searches stale.
+   */
+  private void startSearch(Rows rows) {
+    queue.clear();
+    int size = nodes.size();
+    if (reached.length < size) {
+      int capacity = Math.max(size, reached.length << 1);
+      reached = Arrays.copyOf(reached, capacity);
+      settled = Arrays.copyOf(settled, capacity);
+      distances = Arrays.copyOf(distances, capacity);
+      lookaheads = Arrays.copyOf(lookaheads, capacity);
+      previous = Arrays.copyOf(previous, capacity);
+    }
+    if (evaluated.length < rows.edges.length) {
+      int capacity = Math.max(rows.edges.length, evaluated.length << 1);
+      evaluated = Arrays.copyOf(evaluated, capacity);
+      costs = Arrays.copyOf(costs, capacity);
+    }
+    if (generation == Integer.MAX_VALUE) {
+      // start over before the stamps overflow
+      Arrays.fill(reached, 0);
+      Arrays.fill(settled, 0);
+      Arrays.fill(evaluated, 0);
+      generation = 0;
+    }
+    generation++;
+  }
+
+  private void reach(int node, double distance, int position) {
+    reached[node] = generation;
+    distances[node] = distance;
+    previous[node] = position;
+  }
+
+  private Rows rows() {
+    if (rows == null) {
+      rows = new Rows();
+    }
+    return rows;
+  }
+
+  private Landmarks landmarks() {
+    if (landmarks == null) {
+      landmarks = Landmarks.compute(this);
+    }
+    return landmarks;
+  }
+
+  /**
+   * Get the lengths of the graph's edges as used for landmark computations,
+   * which are each edge's lower bound plus the weight of its destination node.
+   *
+   * @return the lengths by position in the rows
+   */
+  private double[] lowerBoundLengths() {
+    Rows rows = rows();
+    double[] lengths = new double[rows.edges.length];
+    for (int position = 0; position < lengths.length; position++) {
+      lengths[position] = rows.link(position).lowerBound + nodeWeight(nodes.get(rows.destinations[position]));
+    }
+    return lengths;
   }
 
   protected abstract double nodeWeight(N nodeData);
@@ -157,100 +532,270 @@ public abstract class WeightedGraph<N, E> {
   protected abstract double edgeLength(E edge);
 
   /**
-   * A node of this {@link WeightedGraph}.
-   * This node acts as a wrapper around some important data which this
-   * graph is wrapping to organize a path from the internal data piece,
-   * intermittently using edges to get there.
+   * Get a length that the edge's length is never less than, even if its length changes.
+   * Landmarks use these bounds, so they remain valid for as long as the graph's edges do.
+   * By default, this is just the edge's current length.
+   *
+   * @param edge the edge
+   * @return the lower bound of the edge's length
    */
-  private class Node {
+  protected double edgeLowerBound(E edge) {
+    return edgeLength(edge);
+  }
 
-    private final N data;
-    private double distance = Double.MAX_VALUE;
-    private Node previous = null;
+  /**
+   * The edges of the graph in compressed sparse row form. The edges leaving node {@code i}
+   * are at positions {@code offsets[i]} (inclusive) to {@code offsets[i + 1]} (exclusive),
+   * in the order they were added.
+   */
+  private final class Rows {
+
+    private final int[] offsets;  // node id -> first position of its edges, with one extra for the end
+    private final int[] origins;  // position -> origin node id
+    private final int[] destinations;  // position -> destination node id
+    private final int[] edges;  // position -> edge id
+    private final int[] incomingOffsets;  // node id -> first index of its incoming edges, with one extra for the end
+    private final int[] incoming;  // index -> position of an edge, grouped by destination node id
 
     /**
-     * General constructor.
-     *
-     * @param data the content of the node
+     * Sort the graph's current edges into rows by their origin node.
      */
-    public Node(N data) {
-      this.data = data;
+    Rows() {
+      int nodeCount = nodes.size();
+      int edgeCount = links.size();
+      offsets = new int[nodeCount + 1];
+      for (int edge = 0; edge < edgeCount; edge++) {
+        offsets[edgeOrigins[edge] + 1]++;
+      }
+      for (int node = 0; node < nodeCount; node++) {
+        offsets[node + 1] += offsets[node];
+      }
+      int[] next = Arrays.copyOf(offsets, nodeCount);
+      origins = new int[edgeCount];
+      destinations = new int[edgeCount];
+      edges = new int[edgeCount];
+      for (int edge = 0; edge < edgeCount; edge++) {
+        int position = next[edgeOrigins[edge]]++;
+        origins[position] = edgeOrigins[edge];
+        destinations[position] = edgeDestinations[edge];
+        edges[position] = edge;
+      }
+
+      incomingOffsets = new int[nodeCount + 1];
+      for (int position = 0; position < edgeCount; position++) {
+        incomingOffsets[destinations[position] + 1]++;
+      }
+      for (int node = 0; node < nodeCount; node++) {
+        incomingOffsets[node + 1] += incomingOffsets[node];
+      }
+      next = Arrays.copyOf(incomingOffsets, nodeCount);
+      incoming = new int[edgeCount];
+      for (int position = 0; position < edgeCount; position++) {
+        incoming[next[destinations[position]]++] = position;
+      }
     }
 
-    /**
-     * Get the data wrapped into this node.
-     *
-     * @return the data
-     */
-    public N getData() {
-      return data;
+    Link link(int position) {
+      return links.get(edges[position]);
     }
+  }
+
+  /**
+   * Precomputed shortest distances to and from a few landmark nodes, on the graph of edge lower bounds.
+   * For a landmark L, the triangle inequality gives both d(v, t) &ge; d(L, t) - d(L, v)
+   * and d(v, t) &ge; d(v, L) - d(t, L), so the largest of these is an admissible
+   * and consistent estimate of the remaining distance to the destination t.
+   */
+  private static final class Landmarks {
 
     /**
-     * Get the current total distance of this node from the origin.
-     *
-     * @return the distance
+     * The most landmarks to use. More landmarks give tighter bounds, but each one costs
+     * two more lookups per node reached.
      */
-    public double getDistance() {
-      return distance;
+    static final int MAX_LANDMARKS = 8;
+    /**
+     * The fewest nodes a graph must have for landmarks to be worth computing.
+     */
+    static final int MIN_NODES = 32;
+    static final Landmarks NONE = new Landmarks(new double[0][], new double[0][]);
+
+    private final double[][] from;  // [landmark][node], distance from the landmark to the node
+    private final double[][] to;  // [landmark][node], distance from the node to the landmark
+
+    private Landmarks(double[][] from, double[][] to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    static Landmarks compute(WeightedGraph<?, ?> graph) {
+      int size = graph.nodes.size();
+      if (size < MIN_NODES) {
+        return NONE;
+      }
+      double[] lengths = graph.lowerBoundLengths();
+      WeightedGraph<?, ?>.Rows rows = graph.rows();
+      Adjacency forward = new Adjacency(rows.offsets, rows.destinations, lengths);
+      Adjacency backward = Adjacency.backward(rows, lengths);
+      List<double[]> from = new ArrayList<>(MAX_LANDMARKS);
+      List<double[]> to = new ArrayList<>(MAX_LANDMARKS);
+
+      // Choose landmarks far away from each other, starting with the node farthest from the first one,
+      //  so that they sit at the edges of the graph, "behind" the nodes they bound well
+      double[] closest = new double[size];
+      Arrays.fill(closest, Double.POSITIVE_INFINITY);
+      int landmark = farthest(distances(forward, 0), closest);
+      while (landmark >= 0 && from.size() < MAX_LANDMARKS) {
+        double[] fromLandmark = distances(forward, landmark);
+        double[] toLandmark = distances(backward, landmark);
+        from.add(fromLandmark);
+        to.add(toLandmark);
+        for (int node = 0; node < size; node++) {
+          closest[node] = Math.min(closest[node], Math.min(fromLandmark[node], toLandmark[node]));
+        }
+        landmark = farthest(closest, closest);
+      }
+      return new Landmarks(from.toArray(new double[0][]), to.toArray(new double[0][]));
     }
 
     /**
-     * Set the current total distance of this node from the origin.
-     *
-     * @param distance the distance
+     * Find the node with the largest finite distance, among the nodes that aren't landmarks already.
+     * Returns -1 if there is none.
      */
-    public void setDistance(double distance) {
-      this.distance = distance;
+    private static int farthest(double[] distances, double[] closest) {
+      int farthest = -1;
+      double farthestDistance = -1;
+      for (int node = 0; node < distances.length; node++) {
+        if (closest[node] == 0) {
+          continue;  // already a landmark
+        }
+        if (distances[node] != Double.POSITIVE_INFINITY && distances[node] > farthestDistance) {
+          farthest = node;
+          farthestDistance = distances[node];
+        }
+      }
+      return farthest;
     }
 
     /**
-     * Get the node previous to this one in the current operation
-     * trying to solve the graph.
-     *
-     * @return the previous node
+     * Dijkstra's algorithm from a single node to all others.
      */
-    public Node getPrevious() {
-      return previous;
+    private static double[] distances(Adjacency adjacency, int source) {
+      int size = adjacency.offsets.length - 1;
+      double[] distances = new double[size];
+      Arrays.fill(distances, Double.POSITIVE_INFINITY);
+      boolean[] settled = new boolean[size];
+      IndexedMinHeap heap = new IndexedMinHeap(size);
+      distances[source] = 0;
+      heap.offer(source, 0, 0);
+      while (!heap.isEmpty()) {
+        int node = heap.poll();
+        settled[node] = true;
+        for (int position = adjacency.offsets[node]; position < adjacency.offsets[node + 1]; position++) {
+          int next = adjacency.targets[position];
+          double distance = distances[node] + adjacency.lengths[position];
+          if (!settled[next] && distance < distances[next]) {
+            distances[next] = distance;
+            heap.offer(next, distance, 0);
+          }
+        }
+      }
+      return distances;
+    }
+
+    int count() {
+      return from.length;
     }
 
     /**
-     * Set the node previous to this one in the current operation
-     * trying to solve the graph.
+     * Get a lower bound of the distance from a node to the destination.
      *
-     * @param previous set the previous node
+     * @param node   the node index
+     * @param target the destination node index, or -1 if there isn't one
+     * @return the lower bound, or infinity if the destination can't be reached from the node at all
      */
-    public void setPrevious(Node previous) {
-      this.previous = previous;
+    double lowerBound(int node, int target) {
+      if (target < 0 || from.length == 0) {
+        return 0;
+      }
+      if (node >= from[0].length || target >= from[0].length) {
+        return 0;  // node added after the landmarks were computed
+      }
+      double bound = 0;
+      for (int i = 0; i < from.length; i++) {
+        double fromNode = from[i][node];
+        double fromTarget = from[i][target];
+        if (fromNode != Double.POSITIVE_INFINITY) {
+          if (fromTarget == Double.POSITIVE_INFINITY) {
+            return Double.POSITIVE_INFINITY;  // the landmark reaches the node but not the destination
+          }
+          bound = Math.max(bound, fromTarget - fromNode);
+        }
+        double toNode = to[i][node];
+        double toTarget = to[i][target];
+        if (toTarget != Double.POSITIVE_INFINITY) {
+          if (toNode == Double.POSITIVE_INFINITY) {
+            return Double.POSITIVE_INFINITY;  // the destination reaches the landmark but the node doesn't
+          }
+          bound = Math.max(bound, toNode - toTarget);
+        }
+      }
+      return bound;
     }
 
-    @Override
-    public String toString() {
-      return String.format("Node: {data: %s, distance: %s, weight: %f}",
-          data.hashCode(),
-          distance > Double.MAX_VALUE * .9
-              ? "inf"
-              : distance, nodeWeight(data));
+    /**
+     * Edges with lower bound lengths, in compressed sparse row form.
+     */
+    private record Adjacency(int[] offsets, int[] targets, double[] lengths) {
+
+      /**
+       * Get the edges grouped by their destination node, so they may be walked backwards.
+       */
+      static Adjacency backward(WeightedGraph<?, ?>.Rows rows, double[] lengths) {
+        int[] targets = new int[rows.incoming.length];
+        double[] backwardLengths = new double[rows.incoming.length];
+        for (int i = 0; i < rows.incoming.length; i++) {
+          targets[i] = rows.origins[rows.incoming[i]];
+          backwardLengths[i] = lengths[rows.incoming[i]];
+        }
+        return new Adjacency(rows.incomingOffsets, targets, backwardLengths);
+      }
     }
   }
 
-  private class Table {
-    private final Map<Node, Map<Node, E>> edgeMap = new HashMap<>();
+  /**
+   * An edge of this {@link WeightedGraph}, which may not have been created yet.
+   */
+  private class Link {
+
+    private final double lowerBound;
+    private E edge;
+    private Supplier<E> supplier;
 
-    public void put(Node start, Node end, E edge) {
-      edgeMap.computeIfAbsent(start, (k) -> new HashMap<>()).put(end, edge);
+    Link(E edge) {
+      this.edge = edge;
+      this.lowerBound = edgeLowerBound(edge);
+      this.supplier = null;
+      materialized++;
     }
 
-    public Map<Node, E> edgesFrom(Node start) {
-      return edgeMap.get(start);
+    Link(double lowerBound, Supplier<E> supplier) {
+      this.edge = null;
+      this.lowerBound = lowerBound;
+      this.supplier = supplier;
     }
 
-    public E getEdge(Node start, Node end) {
-      if (edgeMap.containsKey(start)) {
-        return edgeMap.get(start).get(end);
-      } else {
-        return null;
+    /**
+     * Get the edge, creating it if necessary.
+     *
+     * @return the edge
+     */
+    E get() {
+      if (edge == null) {
+        edge = Objects.requireNonNull(supplier.get());
+        supplier = null;
+        materialized++;
       }
+      return edge;
     }
   }
 
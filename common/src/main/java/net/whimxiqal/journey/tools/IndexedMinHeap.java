@@ -0,0 +1,250 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.tools;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap of non-negative int ids, each with a cached primary key and a tie-breaking key.
+ * Ids with a lower primary key come first, and ids with equal primary keys come in order of their
+ * lower tie-breaking key.
+ *
+ * <p>Unlike a {@link java.util.PriorityQueue} with a comparator, keys are computed once by the caller
+ * and stored, and the position of every id is tracked so its keys may be decreased
+ * (or the id removed) in logarithmic time without breaking the heap invariant.
+ * This class is not thread-safe.
+ */
+public final class IndexedMinHeap {
+
+  private static final int DEFAULT_CAPACITY = 256;
+  private static final int ABSENT = -1;
+
+  private int[] heap;        // heap position -> id
+  private int[] positions;   // id -> heap position, or ABSENT
+  private double[] keys;     // id -> primary key
+  private double[] ties;     // id -> tie-breaking key
+  private int size = 0;
+
+  public IndexedMinHeap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public IndexedMinHeap(int capacity) {
+    capacity = Math.max(capacity, 1);
+    heap = new int[capacity];
+    positions = new int[capacity];
+    Arrays.fill(positions, ABSENT);
+    keys = new double[capacity];
+    ties = new double[capacity];
+  }
+
+  private void ensureIdCapacity(int id) {
+    if (id < positions.length) {
+      return;
+    }
+    int capacity = Math.max(positions.length << 1, id + 1);
+    int oldLength = positions.length;
+    positions = Arrays.copyOf(positions, capacity);
+    Arrays.fill(positions, oldLength, capacity, ABSENT);
+    keys = Arrays.copyOf(keys, capacity);
+    ties = Arrays.copyOf(ties, capacity);
+  }
+
+  /**
+   * Insert an id, or update its keys if it is already queued.
+   *
+   * @param id  the id, which must be non-negative
+   * @param key the primary key
+   * @param tie the tie-breaking key
+   */
+  public void offer(int id, double key, double tie) {
+    if (id < 0) {
+      throw new IllegalArgumentException("Ids must be non-negative. Found: " + id);
+    }
+    ensureIdCapacity(id);
+    int position = positions[id];
+    if (position == ABSENT) {
+      if (size == heap.length) {
+        heap = Arrays.copyOf(heap, heap.length << 1);
+      }
+      keys[id] = key;
+      ties[id] = tie;
+      heap[size] = id;
+      positions[id] = size;
+      siftUp(size++);
+      return;
+    }
+    boolean decreased = less(key, tie, keys[id], ties[id]);
+    keys[id] = key;
+    ties[id] = tie;
+    if (decreased) {
+      siftUp(position);
+    } else {
+      siftDown(position);
+    }
+  }
+
+  /**
+   * Remove and return the id with the lowest keys.
+   *
+   * @return the id
+   */
+  public int poll() {
+    if (size == 0) {
+      throw new NoSuchElementException();
+    }
+    int top = heap[0];
+    removeAt(0);
+    return top;
+  }
+
+  /**
+   * Get the id with the lowest keys without removing it.
+   *
+   * @return the id
+   */
+  public int peek() {
+    if (size == 0) {
+      throw new NoSuchElementException();
+    }
+    return heap[0];
+  }
+
+  /**
+   * Remove an id from the heap, if it is queued.
+   *
+   * @param id the id
+   * @return true if it was queued
+   */
+  public boolean remove(int id) {
+    if (!contains(id)) {
+      return false;
+    }
+    removeAt(positions[id]);
+    return true;
+  }
+
+  private void removeAt(int position) {
+    int removed = heap[position];
+    positions[removed] = ABSENT;
+    size--;
+    if (position == size) {
+      return;
+    }
+    int last = heap[size];
+    heap[position] = last;
+    positions[last] = position;
+    siftDown(position);
+    if (heap[position] == last) {
+      siftUp(position);
+    }
+  }
+
+  public boolean contains(int id) {
+    return id >= 0 && id < positions.length && positions[id] != ABSENT;
+  }
+
+  /**
+   * Get the primary key last offered for an id.
+   *
+   * @param id the id
+   * @return the key
+   */
+  public double key(int id) {
+    return keys[id];
+  }
+
+  /**
+   * Get all queued ids, in no particular order.
+   *
+   * @return a new array of the ids
+   */
+  public int[] toArray() {
+    return Arrays.copyOf(heap, size);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Remove all ids. Allocated arrays are kept for reuse.
+   */
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      positions[heap[i]] = ABSENT;
+    }
+    size = 0;
+  }
+
+  private static boolean less(double key, double tie, double otherKey, double otherTie) {
+    return key < otherKey || (key == otherKey && tie < otherTie);
+  }
+
+  private boolean less(int firstId, int secondId) {
+    return less(keys[firstId], ties[firstId], keys[secondId], ties[secondId]);
+  }
+
+  private void siftUp(int position) {
+    int id = heap[position];
+    while (position > 0) {
+      int parentPosition = (position - 1) >>> 1;
+      int parent = heap[parentPosition];
+      if (!less(id, parent)) {
+        break;
+      }
+      heap[position] = parent;
+      positions[parent] = position;
+      position = parentPosition;
+    }
+    heap[position] = id;
+    positions[id] = position;
+  }
+
+  private void siftDown(int position) {
+    int id = heap[position];
+    int half = size >>> 1;
+    while (position < half) {
+      int child = (position << 1) + 1;
+      int right = child + 1;
+      if (right < size && less(heap[right], heap[child])) {
+        child = right;
+      }
+      if (!less(heap[child], id)) {
+        break;
+      }
+      heap[position] = heap[child];
+      positions[heap[child]] = position;
+      position = child;
+    }
+    heap[position] = id;
+    positions[id] = position;
+  }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.tools;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from primitive longs to non-negative primitive ints.
+ * It exists to avoid the boxing and per-entry allocations of a {@link java.util.HashMap}
+ * on hot paths, like the closed set of a path search.
+ *
+ * <p>Values must be non-negative, since a negative value marks an empty slot.
+ * This class is not thread-safe.
+ */
+public final class LongIntHashMap {
+
+  /**
+   * The value returned when a key has no mapping.
+   */
+  public static final int MISSING = -1;
+  private static final int DEFAULT_CAPACITY = 1024;
+  private static final float LOAD_FACTOR = 0.6f;
+
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int size = 0;
+  private int resizeThreshold;
+
+  public LongIntHashMap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public LongIntHashMap(int expectedSize) {
+    allocate(tableSizeFor((int) Math.ceil(Math.max(expectedSize, 2) / LOAD_FACTOR)));
+  }
+
+  private static int tableSizeFor(int size) {
+    return Integer.highestOneBit(size - 1) << 1;
+  }
+
+  private static int hash(long key) {
+    // Murmur3 64-bit finalizer
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    key ^= key >>> 33;
+    return (int) key;
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    Arrays.fill(values, MISSING);
+    mask = capacity - 1;
+    resizeThreshold = (int) (capacity * LOAD_FACTOR);
+  }
+
+  /**
+   * Get the value mapped to a key.
+   *
+   * @param key the key
+   * @return the value, or {@link #MISSING} if there is none
+   */
+  public int get(long key) {
+    int slot = hash(key) & mask;
+    int value;
+    while ((value = values[slot]) != MISSING) {
+      if (keys[slot] == key) {
+        return value;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return MISSING;
+  }
+
+  /**
+   * Map a key to a value, replacing any existing mapping.
+   *
+   * @param key   the key
+   * @param value the value, which must be non-negative
+   */
+  public void put(long key, int value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Values must be non-negative. Found: " + value);
+    }
+    int slot = hash(key) & mask;
+    while (values[slot] != MISSING) {
+      if (keys[slot] == key) {
+        values[slot] = value;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size > resizeThreshold) {
+      rehash(keys.length << 1);
+    }
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] == MISSING) {
+        continue;
+      }
+      int slot = hash(oldKeys[i]) & mask;
+      while (values[slot] != MISSING) {
+        slot = (slot + 1) & mask;
+      }
+      keys[slot] = oldKeys[i];
+      values[slot] = oldValues[i];
+    }
+  }
+
+  public boolean containsKey(long key) {
+    return get(key) != MISSING;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Remove all mappings. The allocated table is kept for reuse.
+   */
+  public void clear() {
+    if (size == 0) {
+      return;
+    }
+    Arrays.fill(values, MISSING);
+    size = 0;
+  }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.tools;
+
+import net.whimxiqal.journey.Cell;
+
+/**
+ * Utility to pack the block coordinates of a {@link Cell} into a single primitive long.
+ * The domain is not stored, so a packed cell is only meaningful alongside a known domain.
+ *
+ * <p>The x and z coordinates each take 26 bits and the y coordinate takes 12 bits,
+ * which covers the full world border of a Minecraft world (+/- 30 million blocks)
+ * and any supported build height.
+ */
+public final class PackedCell {
+
+  private static final int XZ_BITS = 26;
+  private static final int Y_BITS = 12;
+  private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+  private static final long Y_MASK = (1L << Y_BITS) - 1;
+  private static final int X_SHIFT = XZ_BITS + Y_BITS;
+  private static final int Z_SHIFT = Y_BITS;
+
+  private PackedCell() {
+  }
+
+  /**
+   * Pack block coordinates into a long.
+   *
+   * @param x the x coordinate
+   * @param y the y coordinate
+   * @param z the z coordinate
+   * @return the packed coordinates
+   */
+  public static long pack(int x, int y, int z) {
+    return ((x & XZ_MASK) << X_SHIFT) | ((z & XZ_MASK) << Z_SHIFT) | (y & Y_MASK);
+  }
+
+  /**
+   * Pack the block coordinates of a cell into a long, ignoring its domain.
+   *
+   * @param cell the cell
+   * @return the packed coordinates
+   */
+  public static long pack(Cell cell) {
+    return pack(cell.blockX(), cell.blockY(), cell.blockZ());
+  }
+
+  /**
+   * Pack the block coordinates found at an offset from already packed coordinates.
+   *
+   * @param packed the packed coordinates
+   * @param x      the x offset
+   * @param y      the y offset
+   * @param z      the z offset
+   * @return the packed coordinates of the offset location
+   */
+  public static long offset(long packed, int x, int y, int z) {
+    return pack(x(packed) + x, y(packed) + y, z(packed) + z);
+  }
+
+  public static int x(long packed) {
+    return (int) (packed >> X_SHIFT);  // arithmetic shift restores the sign
+  }
+
+  public static int y(long packed) {
+    return (int) (packed << (Long.SIZE - Y_BITS) >> (Long.SIZE - Y_BITS));
+  }
+
+  public static int z(long packed) {
+    return (int) (packed << XZ_BITS >> (Long.SIZE - XZ_BITS));
+  }
+
+  /**
+   * Unpack coordinates into a {@link Cell}.
+   *
+   * @param packed the packed coordinates
+   * @param domain the domain of the cell
+   * @return the cell
+   */
+  public static Cell toCell(long packed, int domain) {
+    return new Cell(x(packed), y(packed), z(packed), domain);
+  }
+
+  /**
+   * Get the square of the Euclidean distance between two packed locations.
+   *
+   * @param first  the first packed location
+   * @param second the second packed location
+   * @return the squared distance
+   * @see Cell#distanceToSquared(Cell)
+   */
+  public static double distanceSquared(long first, long second) {
+    long dx = x(first) - x(second);
+    long dy = y(first) - y(second);
+    long dz = z(first) - z(second);
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+}
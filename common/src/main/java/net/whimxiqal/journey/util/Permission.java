@@ -50,6 +50,8 @@ public enum Permission {
   ADMIN_CACHE("journey.admin.cache"),
   ADMIN_RELOAD("journey.admin.reload"),
   ADMIN_INFO("journey.admin.info"),
+  ADMIN_BAKE("journey.admin.bake"),
+  ADMIN_PARALLEL_SEARCH("journey.admin.parallel-search"),
 
   // Flags
   FLAG_TIMEOUT("journey.flag.timeout"),
@@ -57,6 +59,9 @@ public enum Permission {
   FLAG_FLY("journey.flag.fly"),
   FLAG_DOOR("journey.flag.door"),
   FLAG_DIG("journey.flag.dig"),
+  FLAG_BIDIRECTIONAL("journey.flag.bidirectional"),
+  FLAG_HIERARCHICAL("journey.flag.hierarchical"),
+  FLAG_ANYTIME("journey.flag.anytime"),
   FLAG_NAVIGATOR("journey.flag.navigator"),
   FLAG_NAVIGATOR_TRAIL("journey.flag.navigator.trail"),
   FLAG_NAVIGATOR_TRAIL_PARTICLE_OPTION("journey.flag.navigator.trail.particle"),
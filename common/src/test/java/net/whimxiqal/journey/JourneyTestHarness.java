@@ -25,6 +25,7 @@ package net.whimxiqal.journey;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -61,6 +62,7 @@ public class JourneyTestHarness {
     Mockito.when(proxy.platform()).thenReturn(new TestPlatformProxy());
     Mockito.when(proxy.configPath()).thenReturn(File.createTempFile("journey-config", "yml").toPath());
     Mockito.when(proxy.messagesConfigPath()).thenReturn(File.createTempFile("journey-messages", "yml").toPath());
+    Mockito.when(proxy.dataFolder()).thenReturn(Files.createTempDirectory("journey-data"));
     Mockito.when(proxy.audienceProvider()).thenReturn(new TestAudienceProvider());
     Journey.get().registerProxy(proxy);
 
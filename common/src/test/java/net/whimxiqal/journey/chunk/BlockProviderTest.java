@@ -0,0 +1,55 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.chunk;
+
+import java.util.concurrent.ExecutionException;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.proxy.JourneyBlock;
+import net.whimxiqal.journey.proxy.Navigability;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BlockProviderTest {
+
+  @Test
+  void atSurface() throws ExecutionException, InterruptedException {
+    // ground at y 10, and a floating block at y 200
+    BlockProvider world = new BlockProvider() {
+      @Override
+      public JourneyBlock toBlock(Cell cell) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public int navigability(int domain, int x, int y, int z) {
+        return y <= 10 || y == 200 ? Navigability.STAND_ON : Navigability.AIR | Navigability.PASSABLE;
+      }
+    };
+    Assertions.assertEquals(200, world.surfaceY(0, 3, 4));
+    Assertions.assertFalse(BlockProvider.isAtSurface(world, new Cell(3, 5, 4, 0)));
+    Assertions.assertTrue(BlockProvider.isAtSurface(world, new Cell(3, 100, 4, 0)));  // the floating block is too high
+    Assertions.assertFalse(BlockProvider.isAtSurface(world, new Cell(3, 150, 4, 0)));
+    Assertions.assertTrue(BlockProvider.isAtSurface(world, new Cell(3, 200, 4, 0)));
+  }
+
+}
@@ -0,0 +1,194 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.chunk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.whimxiqal.journey.proxy.JourneyChunk;
+import net.whimxiqal.journey.proxy.UnavailableJourneyChunk;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Measures {@link CentralChunkCache#getChunk} while many threads request overlapping chunks
+ * and a single "server" thread completes their requests, like worker threads do during concurrent searches.
+ */
+public class CentralChunkCacheBenchmarkTests {
+
+  /**
+   * Whether to run the benchmark. It takes a while, so it is skipped by default.
+   */
+  private static final boolean BENCHMARK = false;
+  private static final int REQUESTING_THREADS = 7;
+  private static final int DOMAIN = 0;
+  // the side length, in chunks, of the area in which all threads request chunks
+  private static final int AREA = 32;
+  // smaller than the area, so chunks keep being removed and requested again
+  private static final int MAX_CACHED_CHUNKS = 256;
+
+  @Test
+  void deduplicatesConcurrentRequests() throws InterruptedException {
+    ImmediateChunkCache cache = new ImmediateChunkCache();
+    cache.start(Long.MAX_VALUE, false);  // large enough that nothing is removed
+    List<CompletableFuture<JourneyChunk>> futures = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      Random random = new Random(i);
+      List<CompletableFuture<JourneyChunk>> threadFutures = new ArrayList<>();
+      Thread thread = new Thread(() -> {
+        for (int j = 0; j < 2000; j++) {
+          threadFutures.add(cache.getChunk(new ChunkId(DOMAIN, random.nextInt(16), random.nextInt(16))));
+        }
+        synchronized (futures) {
+          futures.addAll(threadFutures);
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+
+    // this thread acts as the server thread
+    while (threads.stream().anyMatch(Thread::isAlive)) {
+      cache.executeRequests();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    cache.executeRequests();  // submit the last requests
+    cache.executeRequests();  // and cache them
+
+    Assertions.assertEquals(8 * 2000, futures.size());
+    for (CompletableFuture<JourneyChunk> future : futures) {
+      Assertions.assertTrue(future.isDone());
+    }
+    // 16x16 requested chunks, and their neighbors within 2 chunks
+    Assertions.assertEquals(20 * 20, cache.submissions.size());
+    for (AtomicInteger count : cache.submissions.values()) {
+      Assertions.assertEquals(1, count.get());
+    }
+  }
+
+  @Test
+  void runBenchmark() throws RunnerException {
+    if (!BENCHMARK) {
+      return;
+    }
+    Options opt = new OptionsBuilder()
+        .include(this.getClass().getName() + ".*")
+        .mode(org.openjdk.jmh.annotations.Mode.Throughput)
+        .timeUnit(TimeUnit.MILLISECONDS)
+        .warmupTime(TimeValue.seconds(1))
+        .warmupIterations(2)
+        .measurementTime(TimeValue.seconds(3))
+        .measurementIterations(3)
+        .threads(REQUESTING_THREADS + 1)
+        .forks(1)
+        .shouldFailOnError(true)
+        .shouldDoGC(true)
+        .addProfiler(GCProfiler.class)
+        .build();
+
+    new Runner(opt).run();
+  }
+
+  @Benchmark
+  @Group("contention")
+  @GroupThreads(REQUESTING_THREADS)
+  public void request(ContentionState state, RequesterState requester, Blackhole blackhole) {
+    blackhole.consume(state.cache.getChunk(new ChunkId(DOMAIN, requester.random.nextInt(AREA), requester.random.nextInt(AREA))));
+  }
+
+  @Benchmark
+  @Group("contention")
+  @GroupThreads(1)
+  public void tick(ContentionState state) {
+    state.cache.executeRequests();
+  }
+
+  @State(Scope.Group)
+  public static class ContentionState {
+
+    ImmediateChunkCache cache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      cache = new ImmediateChunkCache();
+      cache.start(MAX_CACHED_CHUNKS * new UnavailableJourneyChunk(new ChunkId(DOMAIN, 0, 0)).memoryBytes(), false);
+    }
+
+  }
+
+  @State(Scope.Thread)
+  public static class RequesterState {
+
+    SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      random = new SplittableRandom(Thread.currentThread().getId());
+    }
+
+  }
+
+  /**
+   * A central chunk cache whose requests are answered right away, without a server,
+   * so only the cost of the cache itself is measured.
+   */
+  static class ImmediateChunkCache extends CentralChunkCache {
+
+    final Map<ChunkId, AtomicInteger> submissions = new ConcurrentHashMap<>();
+    final Queue<ChunkId> submissionOrder = new ConcurrentLinkedQueue<>();
+
+    @Override
+    void submit(ChunkId chunkId) {
+      submissions.computeIfAbsent(chunkId, id -> new AtomicInteger()).incrementAndGet();
+      submissionOrder.add(chunkId);
+      complete(new UnavailableJourneyChunk(chunkId));
+    }
+  }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.chunk;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import net.whimxiqal.journey.proxy.JourneyChunk;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CentralChunkCacheTest {
+
+  private static final int DOMAIN = 0;
+
+  private static CentralChunkCacheBenchmarkTests.ImmediateChunkCache cache() {
+    CentralChunkCacheBenchmarkTests.ImmediateChunkCache cache = new CentralChunkCacheBenchmarkTests.ImmediateChunkCache();
+    cache.start(Long.MAX_VALUE, false, 0);  // no budget, so only one request is submitted every tick
+    return cache;
+  }
+
+  @Test
+  void submitsMostUrgentFirst() {
+    CentralChunkCacheBenchmarkTests.ImmediateChunkCache cache = cache();
+    cache.prefetch(new ChunkId(DOMAIN, 0, 0), ChunkPriority.BACKGROUND);
+    cache.prefetch(new ChunkId(DOMAIN, 1, 0), ChunkPriority.PREFETCH);
+    CompletableFuture<JourneyChunk> demanded = cache.getChunk(new ChunkId(DOMAIN, 2, 0), false, ChunkPriority.DEMAND);
+
+    cache.executeRequests();
+    Assertions.assertEquals(List.of(new ChunkId(DOMAIN, 2, 0)), List.copyOf(cache.submissionOrder));
+    Assertions.assertFalse(demanded.isDone());  // retrieved, but not cached until the next tick
+
+    cache.executeRequests();
+    cache.executeRequests();
+    Assertions.assertTrue(demanded.isDone());
+    Assertions.assertEquals(List.of(new ChunkId(DOMAIN, 2, 0), new ChunkId(DOMAIN, 1, 0), new ChunkId(DOMAIN, 0, 0)),
+        List.copyOf(cache.submissionOrder));
+  }
+
+  @Test
+  void raisesWaitingRequests() {
+    CentralChunkCacheBenchmarkTests.ImmediateChunkCache cache = cache();
+    cache.prefetch(new ChunkId(DOMAIN, 0, 0), ChunkPriority.BACKGROUND);
+    cache.prefetch(new ChunkId(DOMAIN, 1, 0), ChunkPriority.BACKGROUND);
+    // a search now needs the chunk that was requested last
+    cache.getChunk(new ChunkId(DOMAIN, 1, 0), false, ChunkPriority.DEMAND);
+
+    for (int i = 0; i < 4; i++) {
+      cache.executeRequests();
+    }
+    Assertions.assertEquals(List.of(new ChunkId(DOMAIN, 1, 0), new ChunkId(DOMAIN, 0, 0)),
+        List.copyOf(cache.submissionOrder));
+    // it's in two queues, but only submitted once
+    Assertions.assertEquals(1, cache.submissions.get(new ChunkId(DOMAIN, 1, 0)).get());
+  }
+
+  @Test
+  void neighborsAreSpeculative() {
+    CentralChunkCacheBenchmarkTests.ImmediateChunkCache cache = cache();
+    cache.getChunk(new ChunkId(DOMAIN, 0, 0), true, ChunkPriority.DEMAND);
+    cache.executeRequests();
+    // the requested chunk goes before all of its neighbors, even though it was requested in the middle of them
+    Assertions.assertEquals(List.of(new ChunkId(DOMAIN, 0, 0)), List.copyOf(cache.submissionOrder));
+    for (int i = 0; i < 30; i++) {
+      cache.executeRequests();
+    }
+    Assertions.assertEquals(25, cache.submissions.size());
+  }
+
+  @Test
+  void doesNotCacheChunksChangedWhileRetrieved() {
+    CentralChunkCacheBenchmarkTests.ImmediateChunkCache cache = cache();
+    CompletableFuture<JourneyChunk> future = cache.getChunk(new ChunkId(DOMAIN, 0, 0), false, ChunkPriority.DEMAND);
+    cache.executeRequests();  // retrieved
+    cache.invalidate(DOMAIN, 0, 0);  // but a block changed before it was cached
+    cache.executeRequests();
+    Assertions.assertTrue(future.isDone());  // the search that wanted it still gets it
+    Assertions.assertNull(cache.cachedChunk(DOMAIN, 0, 0));
+
+    // the next request retrieves it again
+    cache.getChunk(new ChunkId(DOMAIN, 0, 0), false, ChunkPriority.DEMAND);
+    cache.executeRequests();
+    cache.executeRequests();
+    Assertions.assertNotNull(cache.cachedChunk(DOMAIN, 0, 0));
+    Assertions.assertEquals(2, cache.submissions.get(new ChunkId(DOMAIN, 0, 0)).get());
+  }
+
+}
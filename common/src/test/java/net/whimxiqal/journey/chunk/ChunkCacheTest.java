@@ -26,6 +26,7 @@ package net.whimxiqal.journey.chunk;
 import java.util.concurrent.ExecutionException;
 import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.JourneyTestHarness;
+import net.whimxiqal.journey.proxy.UnavailableJourneyChunk;
 import net.whimxiqal.journey.search.flag.FlagSet;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -38,7 +39,7 @@ class ChunkCacheTest extends JourneyTestHarness {
 
   @Test
   void correctness() throws ExecutionException, InterruptedException {
-    ChunkCacheBlockProvider chunkCache = new ChunkCacheBlockProvider(10, new FlagSet());
+    ChunkCacheBlockProvider chunkCache = new ChunkCacheBlockProvider(new FlagSet());
 
     correctness(chunkCache, new Cell(0, 0, 0, 0));
     correctness(chunkCache, new Cell(1, 2, 3, 4));
@@ -47,4 +48,98 @@ class ChunkCacheTest extends JourneyTestHarness {
     correctness(chunkCache, new Cell(-16, 0, -16, 1)); // on the edge of the chunk
   }
 
+  private static ChunkCache cacheOfSize(int chunks) {
+    return new ChunkCache(chunks * new UnavailableJourneyChunk(new ChunkId(0, 0, 0)).memoryBytes());
+  }
+
+  @Test
+  void packedLookup() {
+    ChunkCache cache = cacheOfSize(2);
+    cache.save(new UnavailableJourneyChunk(new ChunkId(2, -1, -1)));
+    cache.save(new UnavailableJourneyChunk(new ChunkId(3, -1, -1)));
+    Assertions.assertEquals(new ChunkId(2, -1, -1), cache.getChunk(2, -1, -1).id());
+    Assertions.assertEquals(new ChunkId(3, -1, -1), cache.getChunk(new ChunkId(3, -1, -1)).id());
+    Assertions.assertNull(cache.getChunk(2, 1, -1));
+    Assertions.assertNull(cache.getChunk(2, -1, 1));
+    Assertions.assertEquals(0, cache.evictions());
+
+    // full, so the oldest is removed
+    cache.save(new UnavailableJourneyChunk(new ChunkId(2, 1_000_000, -1_000_000)));
+    Assertions.assertEquals(1, cache.evictions());
+    Assertions.assertEquals(2, cache.size());
+    Assertions.assertEquals(new ChunkId(2, 1_000_000, -1_000_000), cache.getChunk(2, 1_000_000, -1_000_000).id());
+  }
+
+  @Test
+  void evictsChunksNotReadRecently() {
+    ChunkCache cache = cacheOfSize(3);
+    cache.save(new UnavailableJourneyChunk(new ChunkId(0, 0, 0)));
+    cache.save(new UnavailableJourneyChunk(new ChunkId(0, 1, 0)));
+    cache.save(new UnavailableJourneyChunk(new ChunkId(0, 2, 0)));
+    cache.getChunk(0, 0, 0);  // the oldest chunk is still in use
+
+    cache.save(new UnavailableJourneyChunk(new ChunkId(0, 3, 0)));
+    Assertions.assertNotNull(cache.peek(ChunkId.pack(0, 0, 0)));
+    Assertions.assertNull(cache.peek(ChunkId.pack(0, 1, 0)));
+
+    // the oldest chunk used up its second chance
+    cache.save(new UnavailableJourneyChunk(new ChunkId(0, 4, 0)));
+    cache.save(new UnavailableJourneyChunk(new ChunkId(0, 5, 0)));
+    Assertions.assertNull(cache.peek(ChunkId.pack(0, 0, 0)));
+    Assertions.assertEquals(3, cache.size());
+    Assertions.assertEquals(3, cache.statistics().evictions());
+  }
+
+  @Test
+  void budgetsBytes() {
+    // a classified chunk of nothing but air is far smaller than an unclassified one
+    UnavailableJourneyChunk classified = new UnavailableJourneyChunk(new ChunkId(0, 0, 0));
+    classified.classify();
+    UnavailableJourneyChunk unclassified = new UnavailableJourneyChunk(new ChunkId(0, 1, 0));
+    Assertions.assertTrue(classified.memoryBytes() * 10 < unclassified.memoryBytes());
+
+    ChunkCache cache = new ChunkCache(unclassified.memoryBytes() + classified.memoryBytes());
+    cache.save(classified);
+    cache.save(unclassified);
+    Assertions.assertEquals(2, cache.size());
+    Assertions.assertEquals(unclassified.memoryBytes() + classified.memoryBytes(), cache.bytes());
+    cache.save(new UnavailableJourneyChunk(new ChunkId(0, 2, 0)));
+    Assertions.assertEquals(unclassified.memoryBytes(), cache.bytes());
+  }
+
+  @Test
+  void invalidatesChangedChunks() {
+    ChunkCache cache = cacheOfSize(2);
+    cache.save(new UnavailableJourneyChunk(new ChunkId(0, 0, 0)));
+    Assertions.assertTrue(cache.invalidate(0, 0, 0));
+    Assertions.assertFalse(cache.invalidate(0, 0, 0));
+    Assertions.assertNull(cache.getChunk(0, 0, 0));
+    Assertions.assertEquals(0, cache.bytes());
+    Assertions.assertEquals(1, cache.evictions());  // so providers don't keep using their copy
+
+    ChunkCache.Statistics statistics = cache.statistics();
+    Assertions.assertEquals(1, statistics.invalidations());
+    Assertions.assertEquals(0, statistics.evictions());
+    Assertions.assertEquals(0, statistics.hits());
+    Assertions.assertEquals(1, statistics.misses());
+  }
+
+  @Test
+  void prunesOldChunks() {
+    long chunkBytes = new UnavailableJourneyChunk(new ChunkId(0, 0, 0)).memoryBytes();
+    ChunkCache young = new ChunkCache(2 * chunkBytes, 60000);
+    young.save(new UnavailableJourneyChunk(new ChunkId(0, 0, 0)));
+    Assertions.assertEquals(0, young.prune());
+    Assertions.assertNotNull(young.getChunk(0, 0, 0));
+
+    ChunkCache old = new ChunkCache(2 * chunkBytes, 0);  // every chunk is already too old
+    old.save(new UnavailableJourneyChunk(new ChunkId(0, 0, 0)));
+    old.save(new UnavailableJourneyChunk(new ChunkId(0, 1, 0)));
+    old.invalidate(0, 1, 0);
+    Assertions.assertEquals(1, old.prune());
+    Assertions.assertEquals(0, old.size());
+    Assertions.assertEquals(0, old.bytes());
+    Assertions.assertEquals(2, old.evictions());  // so providers don't keep using their copy
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.chunk;
+
+import net.whimxiqal.journey.Cell;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ChunkPrefetcherTest {
+
+  private static final int DOMAIN = 0;
+
+  private static CentralChunkCacheBenchmarkTests.ImmediateChunkCache cache() {
+    CentralChunkCacheBenchmarkTests.ImmediateChunkCache cache = new CentralChunkCacheBenchmarkTests.ImmediateChunkCache();
+    cache.start(Long.MAX_VALUE, false);
+    return cache;
+  }
+
+  @Test
+  void prefetchesAlongHeading() {
+    CentralChunkCacheBenchmarkTests.ImmediateChunkCache cache = cache();
+    ChunkPrefetcher prefetcher = new ChunkPrefetcher(cache, 256);
+    Assertions.assertFalse(prefetcher.active());  // nothing to go on yet
+
+    prefetcher.hint(DOMAIN, 8, 8, new Cell(1000, 64, 8, DOMAIN));
+    Assertions.assertTrue(prefetcher.active());
+    // three chunks ahead, each one chunk wide on either side
+    Assertions.assertEquals(9, prefetcher.prefetched());
+    cache.executeRequests();
+    for (int x = 1; x <= 3; x++) {
+      for (int z = -1; z <= 1; z++) {
+        Assertions.assertTrue(cache.submissions.containsKey(new ChunkId(DOMAIN, x, z)));
+      }
+    }
+
+    // hinting again from the same place requests nothing new
+    prefetcher.hint(DOMAIN, 8, 8, new Cell(1000, 64, 8, DOMAIN));
+    Assertions.assertEquals(9, prefetcher.prefetched());
+
+    prefetcher.used(DOMAIN, 1, 0);
+    prefetcher.used(DOMAIN, 1, 0);
+    prefetcher.used(DOMAIN, 0, 0);  // never prefetched
+    Assertions.assertEquals(1, prefetcher.hits());
+    Assertions.assertEquals(1.0 / 9, prefetcher.hitRate(), 0.0001);
+  }
+
+  @Test
+  void stopsWhenOverBudget() {
+    ChunkPrefetcher prefetcher = new ChunkPrefetcher(cache(), 5);
+    prefetcher.hint(DOMAIN, 8, 8, new Cell(1000, 64, 8, DOMAIN));
+    Assertions.assertEquals(5, prefetcher.prefetched());
+    Assertions.assertFalse(prefetcher.active());
+  }
+
+  @Test
+  void stopsWhenRarelyUsed() {
+    ChunkPrefetcher prefetcher = new ChunkPrefetcher(cache(), 256);
+    for (int i = 0; prefetcher.prefetched() < ChunkPrefetcher.MIN_SAMPLE; i++) {
+      // the search keeps heading somewhere else than predicted, and never uses any of it
+      prefetcher.hint(DOMAIN, i * 100, 0, new Cell(i * 100, 64, 1000, DOMAIN));
+    }
+    Assertions.assertFalse(prefetcher.active());
+  }
+
+}
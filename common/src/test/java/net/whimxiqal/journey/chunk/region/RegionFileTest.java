@@ -0,0 +1,135 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.chunk.region;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Reads the sample region file {@code regions/r.0.0.mca}, which holds:
+ * <ul>
+ *   <li>chunk (0, 0): bedrock from y -64 to -49, twenty kinds of blocks alternating from y 0 to 15,
+ *   a floor of grass at y 64 and an oak door on top of it at (5, 65, 5)</li>
+ *   <li>chunk (1, 0): not fully generated</li>
+ *   <li>chunk (2, 0): compressed with gzip instead of zlib, with stone from y 64 to 79</li>
+ *   <li>chunk (3, 0): saved by Minecraft 1.16, so in an unsupported format</li>
+ * </ul>
+ */
+class RegionFileTest {
+
+  private static final String[] COLORS = {"white", "orange", "magenta", "light_blue", "yellow", "lime", "pink", "gray",
+      "light_gray", "cyan", "purple", "blue", "brown", "green", "red", "black"};
+  private static Path regionDirectory;
+
+  @BeforeAll
+  static void findRegions() throws URISyntaxException {
+    URL url = Objects.requireNonNull(RegionFileTest.class.getClassLoader().getResource("regions/r.0.0.mca"));
+    regionDirectory = Path.of(url.toURI()).getParent();
+  }
+
+  @Test
+  void readsBlockStates() throws IOException {
+    RegionChunk chunk = RegionFile.readChunk(regionDirectory, 0, 0);
+    Assertions.assertNotNull(chunk);
+    Assertions.assertEquals("minecraft:bedrock", chunk.blockState(0, -64, 0));
+    Assertions.assertEquals("minecraft:bedrock", chunk.blockState(15, -49, 15));
+    Assertions.assertEquals(RegionChunk.AIR, chunk.blockState(3, -48, 3));  // section isn't saved
+
+    // a palette of more than 16 states, so 5 bits per block
+    for (int y = 0; y < 16; y++) {
+      for (int z = 0; z < 16; z++) {
+        for (int x = 0; x < 16; x++) {
+          int paletteIndex = ((y << 8) | (z << 4) | x) % 20;
+          String expected = switch (paletteIndex) {
+            case 16 -> "minecraft:stone";
+            case 17 -> "minecraft:dirt";
+            case 18 -> "minecraft:sand";
+            case 19 -> "minecraft:gravel";
+            default -> "minecraft:" + COLORS[paletteIndex] + "_wool";
+          };
+          Assertions.assertEquals(expected, chunk.blockState(x, y, z));
+        }
+      }
+    }
+
+    Assertions.assertEquals("minecraft:grass_block[snowy=false]", chunk.blockState(9, 64, 2));
+    Assertions.assertEquals("minecraft:air", chunk.blockState(9, 65, 2));
+    // properties are always sorted, no matter how they were saved
+    Assertions.assertEquals("minecraft:oak_door[facing=north,half=lower,hinge=left,open=false,powered=false]",
+        chunk.blockState(5, 65, 5));
+    Assertions.assertEquals("minecraft:oak_door[facing=north,half=upper,hinge=left,open=false,powered=false]",
+        chunk.blockState(5, 66, 5));
+    Assertions.assertEquals(RegionChunk.AIR, chunk.blockState(0, 300, 0));
+  }
+
+  @Test
+  void readsGzipChunks() throws IOException {
+    RegionChunk chunk = RegionFile.readChunk(regionDirectory, 2, 0);
+    Assertions.assertNotNull(chunk);
+    Assertions.assertEquals("minecraft:stone", chunk.blockState(7, 70, 7));
+    Assertions.assertEquals(RegionChunk.AIR, chunk.blockState(7, 80, 7));
+  }
+
+  @Test
+  void skipsUnavailableChunks() throws IOException {
+    Assertions.assertNull(RegionFile.readChunk(regionDirectory, 1, 0));  // not fully generated
+    Assertions.assertNull(RegionFile.readChunk(regionDirectory, 3, 0));  // too old
+    Assertions.assertNull(RegionFile.readChunk(regionDirectory, 0, 1));  // never generated
+    Assertions.assertNull(RegionFile.readChunk(regionDirectory, -1, 0));  // no region file
+  }
+
+  @Test
+  void skipsUnsupportedCompression() throws IOException {
+    Path directory = Files.createTempDirectory("journey-regions");
+    // a region file holding only chunk (0, 0), compressed with LZ4
+    byte[] region = new byte[3 * 4096];
+    ByteBuffer buffer = ByteBuffer.wrap(region);
+    buffer.putInt(0, (2 << 8) | 1);  // stored in sector 2, which is 1 sector long
+    buffer.putInt(4096, 1700000000);
+    buffer.putInt(2 * 4096, 5);
+    buffer.put(2 * 4096 + 4, (byte) 4);
+    Files.write(directory.resolve("r.0.0.mca"), region);
+    Assertions.assertNull(RegionFile.readChunk(directory, 0, 0));
+  }
+
+  @Test
+  void readsVersions() throws IOException {
+    long version = RegionFile.version(regionDirectory, 0, 0);
+    Assertions.assertEquals(1700000000, version >>> 32);  // when it was saved
+    Assertions.assertEquals(version, RegionFile.version(regionDirectory, 0, 0));
+    // saved in the same second, but with other data
+    Assertions.assertNotEquals(version, RegionFile.version(regionDirectory, 2, 0));
+    Assertions.assertEquals(0, RegionFile.version(regionDirectory, 0, 1));  // never generated
+    Assertions.assertEquals(0, RegionFile.version(regionDirectory, -1, 0));  // no region file
+  }
+
+}
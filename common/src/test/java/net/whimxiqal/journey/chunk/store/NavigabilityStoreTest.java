@@ -0,0 +1,179 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.chunk.store;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import net.whimxiqal.journey.proxy.JourneyChunk;
+import net.whimxiqal.journey.proxy.Navigability;
+import net.whimxiqal.journey.proxy.NavigabilityMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NavigabilityStoreTest {
+
+  private static final UUID WORLD = UUID.randomUUID();
+
+  private Path directory;
+
+  @BeforeEach
+  void createDirectory() throws IOException {
+    directory = Files.createTempDirectory("journey-navigability");
+  }
+
+  private static NavigabilityMap map(int states) {
+    NavigabilityMap.Builder builder = NavigabilityMap.builder(JourneyChunk.MIN_Y, JourneyChunk.MAX_Y);
+    for (int x = 0; x < 16; x++) {
+      for (int z = 0; z < 16; z++) {
+        for (int y = JourneyChunk.MIN_Y; y < JourneyChunk.MAX_Y; y++) {
+          if (y < 64) {
+            builder.set(x, y, z, Navigability.STAND_ON, 1.5f, 1);
+          } else if (y == 64) {
+            builder.set(x, y, z, (x + z) % states, 0, 0);
+          } else {
+            builder.set(x, y, z, Navigability.OUT_OF_BOUNDS, 0, 0);
+          }
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  private static void assertSame(NavigabilityMap expected, NavigabilityMap actual) {
+    Assertions.assertNotNull(actual);
+    for (int x = 0; x < 16; x++) {
+      for (int z = 0; z < 16; z++) {
+        for (int y = JourneyChunk.MIN_Y; y < JourneyChunk.MAX_Y; y++) {
+          Assertions.assertEquals(expected.bits(x, y, z), actual.bits(x, y, z));
+        }
+      }
+    }
+  }
+
+  @Test
+  void readsOnlyTheStoredVersion() throws IOException {
+    NavigabilityStore store = new NavigabilityStore(directory);
+    NavigabilityMap map = map(2);
+    store.write(WORLD, 5, -40, 100, map);
+
+    assertSame(map, store.read(WORLD, 5, -40, 100));
+    Assertions.assertNull(store.read(WORLD, 5, -40, 101));  // the chunk was saved since
+    Assertions.assertNull(store.read(WORLD, 6, -40, 100));  // same region, never stored
+    Assertions.assertNull(store.read(WORLD, 5, 40, 100));  // no region file
+    Assertions.assertNull(store.read(UUID.randomUUID(), 5, -40, 100));
+    store.shutdown();
+  }
+
+  @Test
+  void refreshesChangedChunks() throws IOException {
+    NavigabilityStore store = new NavigabilityStore(directory);
+    NavigabilityMap small = map(2);
+    NavigabilityMap large = map(16);  // doesn't fit where the small one was
+    store.write(WORLD, 0, 0, 1, small);
+    store.write(WORLD, 1, 0, 1, small);
+    store.write(WORLD, 0, 0, 2, large);
+    store.write(WORLD, 1, 0, 2, small);
+    assertSame(large, store.read(WORLD, 0, 0, 2));
+    assertSame(small, store.read(WORLD, 1, 0, 2));
+    Assertions.assertNull(store.read(WORLD, 0, 0, 1));
+    store.shutdown();
+
+    // still there after a restart
+    store = new NavigabilityStore(directory);
+    assertSame(large, store.read(WORLD, 0, 0, 2));
+    assertSame(small, store.read(WORLD, 1, 0, 2));
+    store.shutdown();
+  }
+
+  @Test
+  void reusesFreedSpace() throws IOException {
+    Path file = directory.resolve(WORLD.toString()).resolve("r.0.0.jnav");
+    NavigabilityStore store = new NavigabilityStore(directory);
+    store.write(WORLD, 0, 0, 1, map(2));
+    store.write(WORLD, 0, 0, 2, map(16));  // moves, so its old space is free
+    long size = Files.size(file);
+    store.write(WORLD, 1, 0, 1, map(2));
+    Assertions.assertEquals(size, Files.size(file));
+
+    store.write(WORLD, 1, 0, 2, map(16));  // moves to the end
+    store.shutdown();
+
+    // free space is found again after a restart
+    store = new NavigabilityStore(directory);
+    size = Files.size(file);
+    store.write(WORLD, 2, 0, 1, map(2));
+    Assertions.assertEquals(size, Files.size(file));
+    assertSame(map(16), store.read(WORLD, 0, 0, 2));
+    assertSame(map(16), store.read(WORLD, 1, 0, 2));
+    assertSame(map(2), store.read(WORLD, 2, 0, 1));
+    store.shutdown();
+  }
+
+  @Test
+  void ignoresCorruptedChunks() throws IOException {
+    NavigabilityStore store = new NavigabilityStore(directory);
+    store.write(WORLD, 0, 0, 1, map(2));
+    store.shutdown();
+
+    Path file = directory.resolve(WORLD.toString()).resolve("r.0.0.jnav");
+    try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+      raf.seek(raf.length() - 1);
+      int last = raf.read();
+      raf.seek(raf.length() - 1);
+      raf.write(last ^ 0xFF);
+    }
+    store = new NavigabilityStore(directory);
+    Assertions.assertNull(store.read(WORLD, 0, 0, 1));
+    store.shutdown();
+
+    // files from another version are started over
+    Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+    store = new NavigabilityStore(directory);
+    Assertions.assertNull(store.read(WORLD, 0, 0, 1));
+    store.write(WORLD, 0, 0, 1, map(2));
+    assertSame(map(2), store.read(WORLD, 0, 0, 1));
+    store.shutdown();
+  }
+
+  @Test
+  void bakesNearestChunksFirst() {
+    int radius = 5;
+    Set<Long> seen = new HashSet<>();
+    int previousRing = 0;
+    for (long i = 0; i < (2L * radius + 1) * (2L * radius + 1); i++) {
+      int[] chunk = NavigabilityBake.chunkAt(i);
+      int ring = Math.max(Math.abs(chunk[0]), Math.abs(chunk[1]));
+      Assertions.assertTrue(ring <= radius);
+      Assertions.assertTrue(ring >= previousRing);
+      Assertions.assertTrue(seen.add(((long) chunk[0] << 32) | (chunk[1] & 0xFFFFFFFFL)));
+      previousRing = ring;
+    }
+  }
+
+}
@@ -0,0 +1,314 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.navigation;
+
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.chunk.BlockProvider;
+import net.whimxiqal.journey.chunk.NeighborhoodBlockProvider;
+import net.whimxiqal.journey.navigation.mode.BoatMode;
+import net.whimxiqal.journey.navigation.mode.ClimbMode;
+import net.whimxiqal.journey.navigation.mode.DigMode;
+import net.whimxiqal.journey.navigation.mode.DoorMode;
+import net.whimxiqal.journey.navigation.mode.FlyMode;
+import net.whimxiqal.journey.navigation.mode.JumpMode;
+import net.whimxiqal.journey.navigation.mode.SwimMode;
+import net.whimxiqal.journey.navigation.mode.WalkMode;
+import net.whimxiqal.journey.proxy.JourneyBlock;
+import net.whimxiqal.journey.proxy.Navigability;
+import net.whimxiqal.journey.proxy.NavigableJourneyBlock;
+import net.whimxiqal.journey.tools.PackedCell;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Compares the allocation and speed of {@link Mode#expand} with {@link Mode#getDestinations}
+ * for every built-in mode, over a small generated world.
+ */
+public class ModeBenchmarkTests {
+
+  /**
+   * Whether to run the benchmark. It takes a while, so it is skipped by default.
+   */
+  private static final boolean BENCHMARK = false;
+  private static final int DOMAIN = 0;
+  private static final int SIZE = 64;
+  private static final int ORIGIN_COUNT = 1024;
+
+  static Mode mode(String name) {
+    return switch (name) {
+      case "walk" -> new WalkMode();
+      case "jump" -> new JumpMode();
+      case "swim" -> new SwimMode();
+      case "fly" -> new FlyMode();
+      case "dig" -> new DigMode();
+      case "climb" -> new ClimbMode();
+      case "door" -> new DoorMode();
+      case "boat" -> new BoatMode();
+      default -> throw new IllegalArgumentException(name);
+    };
+  }
+
+  @Test
+  void expandMatchesGetDestinations() throws ExecutionException, InterruptedException {
+    GeneratedWorld world = new GeneratedWorld(0);
+    Random random = new Random(0);
+    for (String name : new String[]{"walk", "jump", "swim", "fly", "dig", "climb", "door", "boat"}) {
+      Mode mode = mode(name);
+      for (int i = 0; i < 256; i++) {
+        Cell origin = world.randomOrigin(random);
+        Collection<Mode.Option> options = mode.getDestinations(origin, world);
+        int[] count = {0};
+        mode.expand(PackedCell.pack(origin), DOMAIN, world, destination -> {
+          Assertions.assertTrue(options.contains(new Mode.Option(PackedCell.toCell(destination, DOMAIN))));
+          count[0]++;
+        });
+        Assertions.assertEquals(options.size(), count[0]);
+      }
+    }
+  }
+
+  @Test
+  void expandStaysWithinMaxStep() throws ExecutionException, InterruptedException {
+    GeneratedWorld world = new GeneratedWorld(0);
+    Random random = new Random(0);
+    for (String name : new String[]{"walk", "jump", "swim", "fly", "dig", "climb", "door", "boat"}) {
+      Mode mode = mode(name);
+      for (int i = 0; i < 256; i++) {
+        long origin = PackedCell.pack(world.randomOrigin(random));
+        mode.expand(origin, DOMAIN, world, destination -> {
+          Assertions.assertTrue(Math.abs(PackedCell.x(destination) - PackedCell.x(origin)) <= Mode.MAX_STEP_LATERAL);
+          Assertions.assertTrue(Math.abs(PackedCell.z(destination) - PackedCell.z(origin)) <= Mode.MAX_STEP_LATERAL);
+          Assertions.assertTrue(PackedCell.y(destination) - PackedCell.y(origin) <= Mode.MAX_STEP_UP);
+          Assertions.assertTrue(PackedCell.y(origin) - PackedCell.y(destination) <= Mode.MAX_STEP_DOWN);
+        });
+      }
+    }
+  }
+
+  @Test
+  void neighborhoodSharesLookups() throws ExecutionException, InterruptedException {
+    GeneratedWorld world = new GeneratedWorld(0);
+    NeighborhoodBlockProvider neighborhood = new NeighborhoodBlockProvider(world);
+    List<Mode> modes = List.of(new WalkMode(), new JumpMode(), new SwimMode(), new ClimbMode(), new DoorMode());
+    Random random = new Random(0);
+    int directLookups = 0;
+    int sharedLookups = 0;
+    for (int i = 0; i < 256; i++) {
+      long origin = PackedCell.pack(world.randomOrigin(random));
+      neighborhood.center(DOMAIN, origin);
+      for (Mode mode : modes) {
+        List<Long> direct = new LinkedList<>();
+        world.lookups = 0;
+        mode.expand(origin, DOMAIN, world, direct::add);
+        directLookups += world.lookups;
+
+        List<Long> shared = new LinkedList<>();
+        world.lookups = 0;
+        mode.expand(origin, DOMAIN, neighborhood, shared::add);
+        sharedLookups += world.lookups;
+
+        Assertions.assertEquals(direct, shared);
+      }
+    }
+    Assertions.assertTrue(sharedLookups * 3 < directLookups,
+        "direct lookups: " + directLookups + ", shared lookups: " + sharedLookups);
+  }
+
+  @Test
+  void runBenchmark() throws RunnerException {
+    if (!BENCHMARK) {
+      return;
+    }
+    Options opt = new OptionsBuilder()
+        .include(this.getClass().getName() + ".*")
+        .mode(org.openjdk.jmh.annotations.Mode.AverageTime)
+        .timeUnit(TimeUnit.MICROSECONDS)
+        .warmupTime(TimeValue.seconds(1))
+        .warmupIterations(2)
+        .measurementTime(TimeValue.seconds(3))
+        .measurementIterations(3)
+        .threads(1)
+        .forks(1)
+        .shouldFailOnError(true)
+        .shouldDoGC(true)
+        // gc.alloc.rate.norm shows the bytes allocated per operation for each mode and API
+        .addProfiler(GCProfiler.class)
+        .build();
+
+    new Runner(opt).run();
+  }
+
+  @Benchmark
+  public void expand(BenchmarkState state, Blackhole blackhole) throws ExecutionException, InterruptedException {
+    NeighborSink sink = blackhole::consume;
+    for (long origin : state.packedOrigins) {
+      state.mode.expand(origin, DOMAIN, state.world, sink);
+    }
+  }
+
+  @Benchmark
+  public void getDestinations(BenchmarkState state, Blackhole blackhole) throws ExecutionException, InterruptedException {
+    for (Cell origin : state.origins) {
+      for (Mode.Option option : state.mode.getDestinations(origin, state.world)) {
+        blackhole.consume(option);
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class BenchmarkState {
+
+    @Param({"walk", "jump", "swim", "fly", "dig", "climb", "door", "boat"})
+    public String modeName;
+
+    Mode mode;
+    GeneratedWorld world;
+    Cell[] origins;
+    long[] packedOrigins;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      mode = mode(modeName);
+      world = new GeneratedWorld(0);
+      Random random = new Random(1);
+      origins = new Cell[ORIGIN_COUNT];
+      packedOrigins = new long[ORIGIN_COUNT];
+      for (int i = 0; i < ORIGIN_COUNT; i++) {
+        origins[i] = world.randomOrigin(random);
+        packedOrigins[i] = PackedCell.pack(origins[i]);
+      }
+    }
+
+  }
+
+  /**
+   * A block provider over a small generated world of hills, ponds, ladders, and doors,
+   * stored in the same form as a classified chunk.
+   */
+  static class GeneratedWorld implements BlockProvider {
+
+    private static final int AIR = Navigability.AIR | Navigability.PASSABLE | Navigability.LATERALLY_PASSABLE
+        | Navigability.LATERALLY_PASSABLE_WITH_DOORS | Navigability.VERTICALLY_PASSABLE;
+    private static final int STONE = Navigability.STAND_ON;
+    private static final int WATER = Navigability.WATER | Navigability.PASSABLE | Navigability.LATERALLY_PASSABLE
+        | Navigability.LATERALLY_PASSABLE_WITH_DOORS | Navigability.VERTICALLY_PASSABLE;
+    private static final int LADDER = Navigability.CLIMBABLE | Navigability.PASSABLE | Navigability.LATERALLY_PASSABLE
+        | Navigability.LATERALLY_PASSABLE_WITH_DOORS | Navigability.VERTICALLY_PASSABLE;
+    private static final int DOOR = Navigability.DOOR | Navigability.LATERALLY_PASSABLE_WITH_DOORS;
+
+    private final int[] bits = new int[SIZE * SIZE * SIZE];
+    int lookups = 0;
+    private final int[] surface = new int[SIZE * SIZE];
+
+    GeneratedWorld(long seed) {
+      Random random = new Random(seed);
+      for (int x = 0; x < SIZE; x++) {
+        for (int z = 0; z < SIZE; z++) {
+          int height = 24 + (int) (6 * Math.sin(x / 7.0) + 5 * Math.cos(z / 9.0));
+          surface[x * SIZE + z] = height;
+          for (int y = 0; y < SIZE; y++) {
+            int block;
+            if (y < height) {
+              block = STONE;
+            } else if (y < 22) {
+              block = WATER;  // ponds in the valleys
+            } else {
+              block = AIR;
+            }
+            bits[index(x, y, z)] = block;
+          }
+          int roll = random.nextInt(64);
+          if (roll == 0 && height + 3 < SIZE) {
+            for (int y = height; y < height + 3; y++) {
+              bits[index(x, y, z)] = LADDER;
+            }
+          } else if (roll == 1) {
+            bits[index(x, height, z)] = DOOR;
+          }
+        }
+      }
+    }
+
+    private static int index(int x, int y, int z) {
+      return (x * SIZE + z) * SIZE + y;
+    }
+
+    Cell randomOrigin(Random random) {
+      int x = 2 + random.nextInt(SIZE - 4);
+      int z = 2 + random.nextInt(SIZE - 4);
+      return new Cell(x, surface[x * SIZE + z], z, DOMAIN);
+    }
+
+    @Override
+    public int navigability(int domain, int x, int y, int z) {
+      lookups++;
+      if (x < 0 || y < 0 || z < 0 || x >= SIZE || y >= SIZE || z >= SIZE) {
+        return Navigability.OUT_OF_BOUNDS;
+      }
+      return bits[index(x, y, z)];
+    }
+
+    @Override
+    public int navigability(Cell cell) {
+      return navigability(cell.domain(), cell.blockX(), cell.blockY(), cell.blockZ());
+    }
+
+    @Override
+    public float hardness(int domain, int x, int y, int z) {
+      return navigability(domain, x, y, z) == STONE ? 1.5f : 0;
+    }
+
+    @Override
+    public double height(int domain, int x, int y, int z) {
+      return navigability(domain, x, y, z) == STONE ? 1 : 0;
+    }
+
+    @Override
+    public JourneyBlock toBlock(Cell cell) {
+      return new NavigableJourneyBlock(cell,
+          navigability(cell),
+          hardness(cell.domain(), cell.blockX(), cell.blockY(), cell.blockZ()),
+          height(cell.domain(), cell.blockX(), cell.blockY(), cell.blockZ()));
+    }
+  }
+
+}
@@ -65,6 +65,11 @@ public class TestPlatformProxy implements PlatformProxy {
     return CompletableFuture.completedFuture(new TestJourneyChunk(chunkId));
   }
 
+  @Override
+  public CompletableFuture<Boolean> storeSavedChunk(ChunkId chunkId) {
+    return CompletableFuture.completedFuture(false);
+  }
+
   @Override
   public JourneyBlock toBlock(Cell cell) {
     return new TestJourneyBlock(cell);
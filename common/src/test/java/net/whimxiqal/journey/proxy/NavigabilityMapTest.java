@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.proxy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class NavigabilityMapTest {
+
+  @Test
+  void uniformAndMixedSections() {
+    NavigabilityMap.Builder builder = NavigabilityMap.builder(-64, 320);
+    for (int x = 0; x < 16; x++) {
+      for (int z = 0; z < 16; z++) {
+        for (int y = -64; y < 320; y++) {
+          if (y < 0) {
+            builder.set(x, y, z, Navigability.STAND_ON, 1.5f, 1);
+          } else if (y == 0 && x == z) {
+            builder.set(x, y, z, Navigability.WATER | Navigability.PASSABLE, 100, 0);
+          } else {
+            builder.set(x, y, z, Navigability.OUT_OF_BOUNDS, 0, 0);
+          }
+        }
+      }
+    }
+    NavigabilityMap map = builder.build();
+    Assertions.assertEquals(3, map.paletteSize());
+
+    Assertions.assertTrue(Navigability.canStandOn(map.bits(3, -64, 7)));
+    Assertions.assertEquals(1.5f, map.hardness(15, -1, 15));
+    Assertions.assertTrue(Navigability.isWater(map.bits(5, 0, 5)));
+    Assertions.assertFalse(Navigability.isWater(map.bits(5, 0, 6)));
+    Assertions.assertTrue(Navigability.isAir(map.bits(5, 0, 6)));
+    Assertions.assertTrue(Navigability.isAir(map.bits(0, 319, 0)));
+
+    Assertions.assertEquals(0, map.surfaceY(5, 5));
+    Assertions.assertEquals(-1, map.surfaceY(5, 6));
+  }
+
+  @Test
+  void largePalette() {
+    NavigabilityMap.Builder builder = NavigabilityMap.builder(0, 16);
+    for (int x = 0; x < 16; x++) {
+      for (int z = 0; z < 16; z++) {
+        for (int y = 0; y < 16; y++) {
+          builder.set(x, y, z, 0, x * 256 + z * 16 + y, 0);  // every block is distinct
+        }
+      }
+    }
+    NavigabilityMap map = builder.build();
+    Assertions.assertEquals(4096, map.paletteSize());
+    Assertions.assertEquals(15 * 256 + 3 * 16 + 9, map.hardness(15, 9, 3));
+  }
+
+  @Test
+  void readsWhatItWrites() throws IOException {
+    for (int states : new int[]{3, 300}) {
+      NavigabilityMap.Builder builder = NavigabilityMap.builder(-16, 32);
+      for (int x = 0; x < 16; x++) {
+        for (int z = 0; z < 16; z++) {
+          for (int y = -16; y < 32; y++) {
+            if (y < 0) {
+              builder.set(x, y, z, Navigability.STAND_ON, 50, 1);  // uniform section
+            } else {
+              int state = (x * 16 + z + y) % states;
+              builder.set(x, y, z, state, state / 2f, state / 4d);
+            }
+          }
+        }
+      }
+      NavigabilityMap map = builder.build();
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      map.write(new DataOutputStream(bytes));
+      NavigabilityMap read = NavigabilityMap.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+      Assertions.assertEquals(-16, read.minY());
+      Assertions.assertEquals(32, read.maxY());
+      Assertions.assertEquals(map.paletteSize(), read.paletteSize());
+      for (int x = 0; x < 16; x++) {
+        for (int z = 0; z < 16; z++) {
+          for (int y = -16; y < 32; y++) {
+            Assertions.assertEquals(map.bits(x, y, z), read.bits(x, y, z));
+            Assertions.assertEquals(map.hardness(x, y, z), read.hardness(x, y, z));
+            Assertions.assertEquals(map.height(x, y, z), read.height(x, y, z));
+          }
+          Assertions.assertEquals(map.surfaceY(x, z), read.surfaceY(x, z));
+        }
+      }
+    }
+  }
+
+}
@@ -31,6 +31,7 @@ import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockType;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -52,6 +53,7 @@ import net.whimxiqal.journey.platform.TestPlatformProxy;
 import net.whimxiqal.journey.search.DestinationPathTrial;
 import net.whimxiqal.journey.search.ResultState;
 import net.whimxiqal.journey.search.SearchSession;
+import net.whimxiqal.journey.search.flag.Flags;
 import net.whimxiqal.journey.util.CommonLogger;
 import net.whimxiqal.journey.util.TestLogger;
 import org.junit.jupiter.api.AfterAll;
@@ -68,6 +70,7 @@ import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
@@ -155,6 +158,7 @@ public class SchematicSearchTests {
     Mockito.when(proxy.platform()).thenReturn(schematicPlatformProxy);
     Mockito.when(proxy.configPath()).thenReturn(File.createTempFile("journey-config", "yml").toPath());
     Mockito.when(proxy.messagesConfigPath()).thenReturn(File.createTempFile("journey-messages", "yml").toPath());
+    Mockito.when(proxy.dataFolder()).thenReturn(Files.createTempDirectory("journey-data"));
     Journey.get().registerProxy(proxy);
 
     if (DEBUG) {
@@ -201,6 +205,44 @@ public class SchematicSearchTests {
     }
   }
 
+  /**
+   * Runs each search forward only and then bidirectionally, and reports how many cells each one visited.
+   */
+  @Test
+  void compareBidirectionalSearches() {
+    for (Map.Entry<String, SearchParams> entry : searchParams.entrySet()) {
+      SearchParams params = entry.getValue();
+      Assertions.assertTrue(TEST_LOADER.load(params.schematicFile()), "Schematic load failed");
+
+      DestinationPathTrial forward = runSearch(params, false);
+      DestinationPathTrial bidirectional = runSearch(params, true);
+
+      Journey.logger().info(String.format("%s: forward search visited %d cells (length %.2f), "
+              + "bidirectional search visited %d cells (length %.2f)",
+          entry.getKey(),
+          forward.getTotalVisitedCells(), forward.getLength(),
+          bidirectional.getTotalVisitedCells(), bidirectional.getLength()));
+      Journey.logger().flush();
+      Assertions.assertEquals(ResultState.STOPPED_SUCCESSFUL, forward.getState());
+      Assertions.assertEquals(ResultState.STOPPED_SUCCESSFUL, bidirectional.getState());
+    }
+  }
+
+  private static DestinationPathTrial runSearch(SearchParams params, boolean bidirectional) {
+    SearchSession session = new DummySearchSession();
+    session.flags().addFlag(Flags.BIDIRECTIONAL, bidirectional);
+    DestinationPathTrial pathTrial = new DestinationPathTrial(session,
+        params.start(),
+        params.end(),
+        params.modes(),
+        0, null, ResultState.IDLE, false, false);
+
+    while (!pathTrial.run()) {
+      // do nothing, just wait until path trial is complete
+    }
+    return pathTrial;
+  }
+
   /**
    * Run the benchmark, but only if an ID for some params are specified in
    * {@link SchematicSearchTests#BENCHMARKING_SEARCH_PARAM_ID}. If it's null,
@@ -228,6 +270,8 @@ public class SchematicSearchTests {
         .forks(1)
         .shouldFailOnError(true)
         .shouldDoGC(true)
+        // report allocation rate and GC counts alongside time, to compare search memory churn
+        .addProfiler(GCProfiler.class)
 //        .param("weight", DoubleStream.iterate(1, cur -> cur + 0.1).limit(40).mapToObj(String::valueOf).toArray(String[]::new))
         .build();
 
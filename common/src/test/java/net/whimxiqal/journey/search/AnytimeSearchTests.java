@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.chunk.BlockProvider;
+import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.Step;
+import net.whimxiqal.journey.navigation.mode.JumpMode;
+import net.whimxiqal.journey.navigation.mode.WalkMode;
+import net.whimxiqal.journey.proxy.Navigability;
+import net.whimxiqal.journey.search.function.EuclideanDistanceFunction;
+import net.whimxiqal.journey.search.function.WeightedDistanceCostFunction;
+import net.whimxiqal.journey.tools.PackedCell;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AnytimeSearchTests {
+
+  private static final int DOMAIN = 0;
+  private static final Cell ORIGIN = new Cell(5, 1, 5, DOMAIN);
+  private static final Cell DESTINATION = new Cell(58, 1, 10, DOMAIN);
+  private static final List<Mode> MODES = List.of(new WalkMode(), new JumpMode());
+
+  private static AnytimeSearch search(BlockProvider world) {
+    return new AnytimeSearch(DOMAIN, PackedCell.pack(ORIGIN), PackedCell.pack(DESTINATION), MODES, world);
+  }
+
+  @Test
+  void improvesToShortestPath() throws ExecutionException, InterruptedException {
+    HierarchicalSearchTests.WalledWorld world = new HierarchicalSearchTests.WalledWorld();
+    AnytimeSearch search = search(world);
+    List<Double> lengths = new LinkedList<>();
+    int visitedAtFirstPath = -1;
+    ResultState state;
+    do {
+      state = search.run(100);
+      if (search.pollImprovement()) {
+        lengths.add(search.length());
+        if (visitedAtFirstPath < 0) {
+          visitedAtFirstPath = search.visited();
+        }
+        List<Step> steps = search.steps();
+        Assertions.assertEquals(ORIGIN, steps.get(0).location());
+        Assertions.assertEquals(DESTINATION, steps.get(steps.size() - 1).location());
+      }
+    } while (state == ResultState.RUNNING);
+    Assertions.assertEquals(ResultState.STOPPED_SUCCESSFUL, state);
+    Assertions.assertEquals(1, search.weight());
+
+    // every reported path is shorter than the last, and the first one came early
+    Assertions.assertFalse(lengths.isEmpty());
+    for (int i = 1; i < lengths.size(); i++) {
+      Assertions.assertTrue(lengths.get(i) < lengths.get(i - 1));
+    }
+    Assertions.assertTrue(visitedAtFirstPath < search.visited());
+
+    BidirectionalSearch reference = new BidirectionalSearch(DOMAIN, PackedCell.pack(ORIGIN), PackedCell.pack(DESTINATION),
+        MODES,
+        new WeightedDistanceCostFunction(new EuclideanDistanceFunction(), DESTINATION, 1),
+        new WeightedDistanceCostFunction(new EuclideanDistanceFunction(), ORIGIN, 1),
+        world);
+    do {
+      state = reference.run(100);
+    } while (state == ResultState.RUNNING);
+    Assertions.assertEquals(reference.length(), search.length(), 0.0001);
+  }
+
+  @Test
+  void failsWhenWalledOff() throws ExecutionException, InterruptedException {
+    AnytimeSearch search = search(new HierarchicalSearchTests.WalledWorld() {
+      @Override
+      public int navigability(int domain, int x, int y, int z) {
+        if (x == WALL_X && y > 0 && y <= 3) {
+          return Navigability.STAND_ON;
+        }
+        return super.navigability(domain, x, y, z);
+      }
+    });
+    ResultState state;
+    do {
+      state = search.run(100);
+      Assertions.assertFalse(search.pollImprovement());
+    } while (state == ResultState.RUNNING);
+    Assertions.assertEquals(ResultState.STOPPED_FAILED, state);
+  }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.search;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.chunk.BlockProvider;
+import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.Step;
+import net.whimxiqal.journey.navigation.mode.JumpMode;
+import net.whimxiqal.journey.navigation.mode.WalkMode;
+import net.whimxiqal.journey.proxy.JourneyBlock;
+import net.whimxiqal.journey.proxy.Navigability;
+import net.whimxiqal.journey.proxy.NavigableJourneyBlock;
+import net.whimxiqal.journey.search.function.EuclideanDistanceFunction;
+import net.whimxiqal.journey.search.function.WeightedDistanceCostFunction;
+import net.whimxiqal.journey.tools.PackedCell;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BidirectionalSearchTests {
+
+  private static final int DOMAIN = 0;
+  private static final Cell ORIGIN = new Cell(1, 1, 1, DOMAIN);
+  private static final Cell DESTINATION = new Cell(12, 1, 12, DOMAIN);
+  private static final List<Mode> MODES = List.of(new WalkMode(), new JumpMode());
+
+  private static BidirectionalSearch search(BlockProvider world) {
+    // unweighted, so the path is the shortest one
+    return new BidirectionalSearch(DOMAIN, PackedCell.pack(ORIGIN), PackedCell.pack(DESTINATION), MODES,
+        new WeightedDistanceCostFunction(new EuclideanDistanceFunction(), DESTINATION, 1),
+        new WeightedDistanceCostFunction(new EuclideanDistanceFunction(), ORIGIN, 1),
+        world);
+  }
+
+  private static ResultState runToCompletion(BidirectionalSearch search) throws ExecutionException, InterruptedException {
+    ResultState state;
+    do {
+      state = search.run(100);
+    } while (state == ResultState.RUNNING);
+    return state;
+  }
+
+  @Test
+  void findsShortestPath() throws ExecutionException, InterruptedException {
+    BasinWorld world = new BasinWorld(true);
+    BidirectionalSearch search = search(world);
+    Assertions.assertEquals(ResultState.STOPPED_SUCCESSFUL, runToCompletion(search));
+
+    List<Step> steps = search.steps();
+    Assertions.assertEquals(ORIGIN, steps.get(0).location());
+    Assertions.assertEquals(DESTINATION, steps.get(steps.size() - 1).location());
+    double length = 0;
+    for (int i = 1; i < steps.size(); i++) {
+      // every step must be a move that its mode can make going forward
+      long previous = PackedCell.pack(steps.get(i - 1).location());
+      long next = PackedCell.pack(steps.get(i).location());
+      ModeType modeType = steps.get(i).mode();
+      boolean[] reachable = {false};
+      for (Mode mode : MODES) {
+        if (mode.type() == modeType) {
+          mode.expand(previous, DOMAIN, world, cell -> reachable[0] |= cell == next);
+        }
+      }
+      Assertions.assertTrue(reachable[0]);
+      length += steps.get(i).length();
+    }
+    Assertions.assertEquals(length, search.length(), 0.0001);
+
+    // compare with a forward-only search, which is bounded to one cluster just like this world
+    LocalSearch forward = new LocalSearch(DOMAIN, MODES, world);
+    forward.reset(PackedCell.pack(ORIGIN), PackedCell.pack(DESTINATION));
+    int found = forward.run();
+    Assertions.assertNotEquals(LocalSearch.NOT_FOUND, found);
+    Assertions.assertEquals(forward.score(found), search.length(), 0.0001);
+  }
+
+  @Test
+  void failsWhenEnclosed() throws ExecutionException, InterruptedException {
+    BidirectionalSearch search = search(new BasinWorld(false));
+    Assertions.assertEquals(ResultState.STOPPED_FAILED, runToCompletion(search));
+    Assertions.assertTrue(search.isConclusive());
+  }
+
+  @Test
+  void inconclusiveWithOtherModes() {
+    // a mode that isn't built in may step further than the backward search looks
+    BidirectionalSearch search = new BidirectionalSearch(DOMAIN, PackedCell.pack(ORIGIN), PackedCell.pack(DESTINATION),
+        List.of(new WalkMode(), new JumpMode() {
+        }),
+        new WeightedDistanceCostFunction(new EuclideanDistanceFunction(), DESTINATION, 1),
+        new WeightedDistanceCostFunction(new EuclideanDistanceFunction(), ORIGIN, 1),
+        new BasinWorld(false));
+    Assertions.assertFalse(search.isConclusive());
+  }
+
+  /**
+   * A flat 16x16 world with a floor at y = 0, in which the destination lies within a walled basin
+   * that may only be entered from the side facing away from the origin.
+   */
+  private static class BasinWorld implements BlockProvider {
+
+    private static final int SIZE = 16;
+    private static final int AIR = Navigability.AIR | Navigability.PASSABLE | Navigability.LATERALLY_PASSABLE
+        | Navigability.LATERALLY_PASSABLE_WITH_DOORS | Navigability.VERTICALLY_PASSABLE;
+    private static final int STONE = Navigability.STAND_ON;
+    private final boolean open;
+
+    BasinWorld(boolean open) {
+      this.open = open;
+    }
+
+    @Override
+    public int navigability(int domain, int x, int y, int z) {
+      if (x < 0 || y < 0 || z < 0 || x >= SIZE || y >= SIZE || z >= SIZE) {
+        return Navigability.OUT_OF_BOUNDS;
+      }
+      if (y == 0) {
+        return STONE;
+      }
+      boolean ring = (x == 10 || x == 14) && z >= 10 && z <= 14
+          || (z == 10 || z == 14) && x >= 10 && x <= 14;
+      boolean entrance = open && x == 14 && z == 12;
+      if (ring && !entrance && y <= 3) {
+        return STONE;
+      }
+      return AIR;
+    }
+
+    @Override
+    public int navigability(Cell cell) {
+      return navigability(cell.domain(), cell.blockX(), cell.blockY(), cell.blockZ());
+    }
+
+    @Override
+    public float hardness(int domain, int x, int y, int z) {
+      return navigability(domain, x, y, z) == STONE ? 1.5f : 0;
+    }
+
+    @Override
+    public double height(int domain, int x, int y, int z) {
+      return navigability(domain, x, y, z) == STONE ? 1 : 0;
+    }
+
+    @Override
+    public JourneyBlock toBlock(Cell cell) {
+      return new NavigableJourneyBlock(cell,
+          navigability(cell),
+          hardness(cell.domain(), cell.blockX(), cell.blockY(), cell.blockZ()),
+          height(cell.domain(), cell.blockX(), cell.blockY(), cell.blockZ()));
+    }
+  }
+
+}
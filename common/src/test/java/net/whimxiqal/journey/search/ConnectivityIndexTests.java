@@ -0,0 +1,122 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.search;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.chunk.BlockProvider;
+import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.mode.FlyMode;
+import net.whimxiqal.journey.navigation.mode.JumpMode;
+import net.whimxiqal.journey.navigation.mode.WalkMode;
+import net.whimxiqal.journey.proxy.Navigability;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ConnectivityIndexTests {
+
+  private static final int DOMAIN = 0;
+  private static final Cell ORIGIN = new Cell(5, 1, 5, DOMAIN);
+  private static final Cell DESTINATION = new Cell(58, 1, 10, DOMAIN);
+  private static final List<Mode> MODES = List.of(new WalkMode(), new JumpMode());
+
+  /**
+   * The world of {@link HierarchicalSearchTests} without the gap in the wall.
+   * The wall is also too tall to fall from, since falling off it would connect the two sides.
+   */
+  private static final BlockProvider SEALED_WORLD = new HierarchicalSearchTests.WalledWorld() {
+    @Override
+    public int navigability(int domain, int x, int y, int z) {
+      if (x == WALL_X && y > 0 && y <= 6) {
+        return Navigability.STAND_ON;
+      }
+      return super.navigability(domain, x, y, z);
+    }
+  };
+
+  /**
+   * Label the chunks of the 64x64 world and the ring of empty chunks around it.
+   */
+  private static void labelWorld(ConnectivityIndex index, BlockProvider world) throws ExecutionException, InterruptedException {
+    for (int chunkX = -1; chunkX <= 4; chunkX++) {
+      for (int chunkZ = -1; chunkZ <= 4; chunkZ++) {
+        index.label(chunkX, chunkZ, DOMAIN, MODES, false, world);
+      }
+    }
+  }
+
+  @Test
+  void reachableThroughGap() throws ExecutionException, InterruptedException {
+    ConnectivityIndex index = new ConnectivityIndex();
+    labelWorld(index, new HierarchicalSearchTests.WalledWorld());
+    Assertions.assertFalse(index.isUnreachable(ORIGIN, DESTINATION, MODES, false));
+    Assertions.assertFalse(index.isUnreachable(DESTINATION, ORIGIN, MODES, false));
+  }
+
+  @Test
+  void unreachableWhenSealed() throws ExecutionException, InterruptedException {
+    ConnectivityIndex index = new ConnectivityIndex();
+    Assertions.assertFalse(index.isUnreachable(ORIGIN, DESTINATION, MODES, false));
+
+    // only the chunks of the world itself, so nothing is known about what lies around it
+    for (int chunkX = 0; chunkX < 4; chunkX++) {
+      for (int chunkZ = 0; chunkZ < 4; chunkZ++) {
+        index.label(chunkX, chunkZ, DOMAIN, MODES, false, SEALED_WORLD);
+      }
+    }
+    Assertions.assertFalse(index.isUnreachable(ORIGIN, DESTINATION, MODES, false));
+
+    labelWorld(index, SEALED_WORLD);
+    Assertions.assertTrue(index.isUnreachable(ORIGIN, DESTINATION, MODES, false));
+    Assertions.assertTrue(index.isUnreachable(DESTINATION, ORIGIN, MODES, false));
+    Assertions.assertFalse(index.isUnreachable(ORIGIN, new Cell(20, 1, 40, DOMAIN), MODES, false));
+    // other mode sets are labeled separately, and some not at all
+    Assertions.assertFalse(index.isUnreachable(ORIGIN, DESTINATION, List.of(new WalkMode()), false));
+    Assertions.assertFalse(index.isUnreachable(ORIGIN, DESTINATION, List.of(new WalkMode(), new FlyMode()), false));
+  }
+
+  @Test
+  void forgetsChangedChunks() throws ExecutionException, InterruptedException {
+    ConnectivityIndex index = new ConnectivityIndex();
+    labelWorld(index, SEALED_WORLD);
+    Assertions.assertTrue(index.isUnreachable(ORIGIN, DESTINATION, MODES, false));
+
+    // the wall is broken somewhere in chunk (1, 2)
+    index.invalidate(DOMAIN, 1, 2);
+    Assertions.assertEquals(36 - 9, index.size());
+    Assertions.assertFalse(index.isUnreachable(ORIGIN, DESTINATION, MODES, false));
+
+    labelWorld(index, new HierarchicalSearchTests.WalledWorld());
+    Assertions.assertFalse(index.isUnreachable(ORIGIN, DESTINATION, MODES, false));
+  }
+
+  @Test
+  void forgetsOldLabels() throws ExecutionException, InterruptedException {
+    ConnectivityIndex index = new ConnectivityIndex(0);  // every label is already too old
+    labelWorld(index, SEALED_WORLD);
+    Assertions.assertFalse(index.isUnreachable(ORIGIN, DESTINATION, MODES, false));
+    Assertions.assertEquals(0, index.size());
+  }
+
+}
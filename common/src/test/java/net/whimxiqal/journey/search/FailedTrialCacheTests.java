@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.search;
+
+import java.util.List;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.mode.JumpMode;
+import net.whimxiqal.journey.navigation.mode.WalkMode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class FailedTrialCacheTests {
+
+  private static final Cell ORIGIN = new Cell(1, 64, 1, 0);
+  private static final Cell DESTINATION = new Cell(200, 30, -70, 0);
+  private static final List<Mode> MODES = List.of(new WalkMode(), new JumpMode());
+
+  @Test
+  void sharesFailuresWithNearbyOrigins() {
+    FailedTrialCache cache = new FailedTrialCache();
+    Assertions.assertFalse(cache.contains(ORIGIN, DESTINATION, MODES, false));
+    cache.put(ORIGIN, DESTINATION, MODES, false);
+    Assertions.assertTrue(cache.contains(ORIGIN, DESTINATION, MODES, false));
+    Assertions.assertTrue(cache.contains(new Cell(6, 66, 3, 0), DESTINATION, MODES, false));
+
+    Assertions.assertFalse(cache.contains(new Cell(9, 64, 1, 0), DESTINATION, MODES, false));
+    Assertions.assertFalse(cache.contains(ORIGIN, new Cell(201, 30, -70, 0), MODES, false));
+    Assertions.assertFalse(cache.contains(ORIGIN, DESTINATION, List.of(new WalkMode()), false));
+    Assertions.assertFalse(cache.contains(ORIGIN, DESTINATION, MODES, true));
+  }
+
+  @Test
+  void forgetsFailuresAroundChangedChunks() {
+    FailedTrialCache cache = new FailedTrialCache();
+    cache.put(ORIGIN, DESTINATION, MODES, false);
+    cache.invalidate(0, 5, 5);
+    cache.invalidate(1, 12, -5);
+    Assertions.assertEquals(1, cache.size());
+
+    // beside the destination's chunk (12, -5)
+    cache.invalidate(0, 13, -4);
+    Assertions.assertEquals(0, cache.size());
+
+    cache.put(ORIGIN, DESTINATION, MODES, false);
+    cache.invalidate(0, -1, 0);  // beside the origin's chunk
+    Assertions.assertEquals(0, cache.size());
+
+    cache.put(ORIGIN, DESTINATION, MODES, false);
+    cache.invalidate(0, 6, 3);  // beyond the area between the ends
+    Assertions.assertEquals(1, cache.size());
+    cache.invalidate(0, 6, -2);  // somewhere along the way
+    Assertions.assertEquals(0, cache.size());
+  }
+
+}
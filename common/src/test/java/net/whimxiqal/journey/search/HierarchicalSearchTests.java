@@ -0,0 +1,172 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.search;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.chunk.BlockProvider;
+import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.Step;
+import net.whimxiqal.journey.navigation.mode.JumpMode;
+import net.whimxiqal.journey.navigation.mode.WalkMode;
+import net.whimxiqal.journey.proxy.JourneyBlock;
+import net.whimxiqal.journey.proxy.Navigability;
+import net.whimxiqal.journey.proxy.NavigableJourneyBlock;
+import net.whimxiqal.journey.search.function.EuclideanDistanceFunction;
+import net.whimxiqal.journey.search.function.WeightedDistanceCostFunction;
+import net.whimxiqal.journey.tools.PackedCell;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class HierarchicalSearchTests {
+
+  private static final int DOMAIN = 0;
+  private static final Cell ORIGIN = new Cell(5, 1, 5, DOMAIN);
+  private static final Cell DESTINATION = new Cell(58, 1, 10, DOMAIN);
+  private static final List<Mode> MODES = List.of(new WalkMode(), new JumpMode());
+
+  private static HierarchicalSearch search(ClusterEdgeCache edgeCache) {
+    return new HierarchicalSearch(DOMAIN, PackedCell.pack(ORIGIN), PackedCell.pack(DESTINATION), MODES,
+        new WeightedDistanceCostFunction(new EuclideanDistanceFunction(), DESTINATION, DestinationPathTrial.COST_FUNCTION_WEIGHT),
+        new WalledWorld(), edgeCache, true);
+  }
+
+  private static ResultState runToCompletion(HierarchicalSearch search) throws ExecutionException, InterruptedException {
+    ResultState state;
+    do {
+      state = search.run(1000);
+    } while (state == ResultState.RUNNING);
+    return state;
+  }
+
+  @Test
+  void findsPathThroughGap() throws ExecutionException, InterruptedException {
+    HierarchicalSearch search = search(new ClusterEdgeCache());
+    Assertions.assertEquals(ResultState.STOPPED_SUCCESSFUL, runToCompletion(search));
+
+    List<Step> steps = search.steps();
+    Assertions.assertEquals(ORIGIN, steps.get(0).location());
+    Assertions.assertEquals(DESTINATION, steps.get(steps.size() - 1).location());
+    double length = 0;
+    for (int i = 1; i < steps.size(); i++) {
+      Cell previous = steps.get(i - 1).location();
+      Cell next = steps.get(i).location();
+      Assertions.assertTrue(Math.abs(next.blockX() - previous.blockX()) <= 1
+          && Math.abs(next.blockY() - previous.blockY()) <= 1
+          && Math.abs(next.blockZ() - previous.blockZ()) <= 1);
+      Assertions.assertTrue(next.blockX() != WalledWorld.WALL_X || next.blockZ() == WalledWorld.GAP_Z);
+      length += steps.get(i).length();
+    }
+    Assertions.assertEquals(length, search.length(), 0.0001);
+
+    // the shortest path goes straight to the gap and straight to the destination
+    double shortest = ORIGIN.distanceTo(new Cell(WalledWorld.WALL_X, 1, WalledWorld.GAP_Z, DOMAIN))
+        + DESTINATION.distanceTo(new Cell(WalledWorld.WALL_X, 1, WalledWorld.GAP_Z, DOMAIN));
+    Assertions.assertTrue(search.length() >= shortest - 1);
+    Assertions.assertTrue(search.length() <= shortest * 1.25);
+  }
+
+  @Test
+  void reusesCachedEdges() throws ExecutionException, InterruptedException {
+    ClusterEdgeCache edgeCache = new ClusterEdgeCache();
+    HierarchicalSearch first = search(edgeCache);
+    Assertions.assertEquals(ResultState.STOPPED_SUCCESSFUL, runToCompletion(first));
+    Assertions.assertTrue(edgeCache.size() > 0);
+
+    HierarchicalSearch second = search(edgeCache);
+    Assertions.assertEquals(ResultState.STOPPED_SUCCESSFUL, runToCompletion(second));
+    Assertions.assertEquals(first.length(), second.length(), 0.0001);
+    Assertions.assertTrue(second.visited() < first.visited());
+  }
+
+  @Test
+  void failsWhenWalledOff() throws ExecutionException, InterruptedException {
+    HierarchicalSearch search = new HierarchicalSearch(DOMAIN, PackedCell.pack(ORIGIN), PackedCell.pack(DESTINATION),
+        MODES,
+        new WeightedDistanceCostFunction(new EuclideanDistanceFunction(), DESTINATION, DestinationPathTrial.COST_FUNCTION_WEIGHT),
+        new WalledWorld() {
+          @Override
+          public int navigability(int domain, int x, int y, int z) {
+            if (x == WALL_X && y > 0 && y <= 3) {
+              return Navigability.STAND_ON;
+            }
+            return super.navigability(domain, x, y, z);
+          }
+        },
+        new ClusterEdgeCache(), true);
+    Assertions.assertEquals(ResultState.STOPPED_FAILED, runToCompletion(search));
+  }
+
+  /**
+   * A flat 64x64 world with a floor at y = 0, split in two by a wall that is too tall to jump over
+   * except at a single gap.
+   */
+  static class WalledWorld implements BlockProvider {
+
+    static final int SIZE = 64;
+    static final int WALL_X = 30;
+    static final int GAP_Z = 50;
+    private static final int AIR = Navigability.AIR | Navigability.PASSABLE | Navigability.LATERALLY_PASSABLE
+        | Navigability.LATERALLY_PASSABLE_WITH_DOORS | Navigability.VERTICALLY_PASSABLE;
+    private static final int STONE = Navigability.STAND_ON;
+
+    @Override
+    public int navigability(int domain, int x, int y, int z) {
+      if (x < 0 || y < 0 || z < 0 || x >= SIZE || y >= 32 || z >= SIZE) {
+        return Navigability.OUT_OF_BOUNDS;
+      }
+      if (y == 0) {
+        return STONE;
+      }
+      if (x == WALL_X && y <= 3 && z != GAP_Z) {
+        return STONE;
+      }
+      return AIR;
+    }
+
+    @Override
+    public int navigability(Cell cell) {
+      return navigability(cell.domain(), cell.blockX(), cell.blockY(), cell.blockZ());
+    }
+
+    @Override
+    public float hardness(int domain, int x, int y, int z) {
+      return navigability(domain, x, y, z) == STONE ? 1.5f : 0;
+    }
+
+    @Override
+    public double height(int domain, int x, int y, int z) {
+      return navigability(domain, x, y, z) == STONE ? 1 : 0;
+    }
+
+    @Override
+    public JourneyBlock toBlock(Cell cell) {
+      return new NavigableJourneyBlock(cell,
+          navigability(cell),
+          hardness(cell.domain(), cell.blockX(), cell.blockY(), cell.blockZ()),
+          height(cell.domain(), cell.blockX(), cell.blockY(), cell.blockZ()));
+    }
+  }
+
+}
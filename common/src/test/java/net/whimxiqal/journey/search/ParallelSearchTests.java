@@ -0,0 +1,140 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.search;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.chunk.BlockProvider;
+import net.whimxiqal.journey.manager.WorkItem;
+import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.Step;
+import net.whimxiqal.journey.navigation.mode.JumpMode;
+import net.whimxiqal.journey.navigation.mode.WalkMode;
+import net.whimxiqal.journey.proxy.Navigability;
+import net.whimxiqal.journey.search.function.EuclideanDistanceFunction;
+import net.whimxiqal.journey.search.function.WeightedDistanceCostFunction;
+import net.whimxiqal.journey.tools.PackedCell;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ParallelSearchTests {
+
+  private static final int DOMAIN = 0;
+  private static final Cell ORIGIN = new Cell(5, 1, 5, DOMAIN);
+  private static final Cell DESTINATION = new Cell(58, 1, 10, DOMAIN);
+  private static final List<Mode> MODES = List.of(new WalkMode(), new JumpMode());
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Run a work item on its own thread like the work manager would, waiting on its blocker whenever it has one.
+   */
+  private void schedule(WorkItem work) {
+    executor.execute(() -> {
+      while (!work.run()) {
+        CompletableFuture<?> blocker = work.blocker();
+        if (blocker != null) {
+          blocker.join();
+        }
+      }
+    });
+  }
+
+  private ParallelSearch search(BlockProvider world, int threads, AtomicBoolean stopped) {
+    // unweighted, so the path is the shortest one
+    return new ParallelSearch(DOMAIN, PackedCell.pack(ORIGIN), PackedCell.pack(DESTINATION), MODES,
+        new WeightedDistanceCostFunction(new EuclideanDistanceFunction(), DESTINATION, 1),
+        threads, 1000000, () -> world, stopped::get, UUID.randomUUID(), this::schedule);
+  }
+
+  private static ResultState runToCompletion(AlternativeSearch search)
+      throws ExecutionException, InterruptedException, TimeoutException {
+    ResultState state;
+    while ((state = search.run(1000)) == ResultState.RUNNING) {
+      CompletableFuture<?> blocker = search.blocker();
+      if (blocker != null) {
+        blocker.get(30, TimeUnit.SECONDS);
+      }
+    }
+    return state;
+  }
+
+  @Test
+  void findsShortestPath() throws ExecutionException, InterruptedException, TimeoutException {
+    HierarchicalSearchTests.WalledWorld world = new HierarchicalSearchTests.WalledWorld();
+    BidirectionalSearch reference = new BidirectionalSearch(DOMAIN, PackedCell.pack(ORIGIN), PackedCell.pack(DESTINATION), MODES,
+        new WeightedDistanceCostFunction(new EuclideanDistanceFunction(), DESTINATION, 1),
+        new WeightedDistanceCostFunction(new EuclideanDistanceFunction(), ORIGIN, 1),
+        world);
+    Assertions.assertEquals(ResultState.STOPPED_SUCCESSFUL, runToCompletion(reference));
+
+    for (int threads : new int[]{1, 2, 4, 8}) {
+      ParallelSearch search = search(world, threads, new AtomicBoolean(false));
+      Assertions.assertEquals(ResultState.STOPPED_SUCCESSFUL, runToCompletion(search));
+      Assertions.assertEquals(reference.length(), search.length(), 0.0001);
+
+      List<Step> steps = search.steps();
+      Assertions.assertEquals(ORIGIN, steps.get(0).location());
+      Assertions.assertEquals(DESTINATION, steps.get(steps.size() - 1).location());
+      double length = 0;
+      for (Step step : steps) {
+        length += step.length();
+      }
+      Assertions.assertEquals(search.length(), length, 0.0001);
+    }
+  }
+
+  @Test
+  void failsWhenWalledOff() throws ExecutionException, InterruptedException, TimeoutException {
+    HierarchicalSearchTests.WalledWorld world = new HierarchicalSearchTests.WalledWorld() {
+      @Override
+      public int navigability(int domain, int x, int y, int z) {
+        if (x == WALL_X && y > 0 && y <= 3) {
+          return Navigability.STAND_ON;
+        }
+        return super.navigability(domain, x, y, z);
+      }
+    };
+    Assertions.assertEquals(ResultState.STOPPED_FAILED, runToCompletion(search(world, 4, new AtomicBoolean(false))));
+  }
+
+  @Test
+  void stopsWhenCanceled() throws ExecutionException, InterruptedException, TimeoutException {
+    Assertions.assertEquals(ResultState.STOPPED_CANCELED,
+        runToCompletion(search(new HierarchicalSearchTests.WalledWorld(), 4, new AtomicBoolean(true))));
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.search;
+
+import java.util.List;
+import java.util.Set;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.Tunnel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TunnelGraphTests {
+
+  private static List<Tunnel> tunnels() {
+    return List.of(
+        Tunnel.builder(new Cell(0, 64, 0, 0), new Cell(0, 64, 0, 1)).build(),
+        Tunnel.builder(new Cell(10, 64, 0, 1), new Cell(10, 64, 0, 0)).build(),
+        Tunnel.builder(new Cell(50, 64, 50, 0), new Cell(-50, 64, 50, 0)).cost(5).build());
+  }
+
+  @Test
+  void groupsTunnelsByDomain() {
+    TunnelGraph.Snapshot snapshot = new TunnelGraph().snapshot(tunnels());
+    Assertions.assertEquals(Set.of(0, 1), snapshot.domains());
+    Assertions.assertArrayEquals(new int[]{0, 2}, snapshot.tunnelsStartingIn(0));
+    Assertions.assertArrayEquals(new int[]{1, 2}, snapshot.tunnelsEndingIn(0));
+    Assertions.assertArrayEquals(new int[]{1}, snapshot.tunnelsStartingIn(1));
+    Assertions.assertArrayEquals(new int[]{0}, snapshot.tunnelsEndingIn(1));
+    Assertions.assertArrayEquals(new int[0], snapshot.tunnelsStartingIn(2));
+  }
+
+  @Test
+  void sharesSnapshotsUntilTunnelsChange() {
+    TunnelGraph graph = new TunnelGraph();
+    TunnelGraph.Snapshot snapshot = graph.snapshot(tunnels());
+    // the same tunnels, as newly supplied to another search
+    Assertions.assertSame(snapshot, graph.snapshot(tunnels()));
+    Assertions.assertTrue(snapshot.claimPrecomputation(Set.of(ModeType.WALK)));
+    Assertions.assertFalse(snapshot.claimPrecomputation(Set.of(ModeType.WALK)));
+    Assertions.assertTrue(snapshot.claimPrecomputation(Set.of(ModeType.WALK, ModeType.JUMP)));
+
+    Assertions.assertNotSame(snapshot, graph.snapshot(tunnels().subList(0, 2)));
+
+    graph.invalidate();
+    TunnelGraph.Snapshot newSnapshot = graph.snapshot(tunnels());
+    Assertions.assertNotSame(snapshot, newSnapshot);
+    Assertions.assertTrue(newSnapshot.version() > snapshot.version());
+  }
+
+  @Test
+  void remembersRecords() {
+    TunnelGraph graph = new TunnelGraph();
+    Cell origin = new Cell(0, 64, 0, 1);
+    Cell destination = new Cell(10, 64, 0, 1);
+    Set<ModeType> modeTypes = Set.of(ModeType.WALK);
+    Assertions.assertNull(graph.hasRecord(origin, destination, modeTypes));
+
+    graph.putRecord(origin, destination, modeTypes, true);
+    Assertions.assertEquals(true, graph.hasRecord(origin, destination, modeTypes));
+    Assertions.assertNull(graph.hasRecord(origin, destination, Set.of(ModeType.WALK, ModeType.SWIM)));
+    graph.putRecord(origin, destination, Set.of(ModeType.WALK, ModeType.SWIM), false);
+    Assertions.assertEquals(false, graph.hasRecord(origin, destination, Set.of(ModeType.WALK, ModeType.SWIM)));
+
+    // caching a path with some modes may delete the path with the other modes
+    graph.forgetRecords(origin, destination);
+    Assertions.assertNull(graph.hasRecord(origin, destination, modeTypes));
+    Assertions.assertNull(graph.hasRecord(origin, destination, Set.of(ModeType.WALK, ModeType.SWIM)));
+
+    graph.putRecord(origin, destination, modeTypes, false);
+
+    graph.clearRecords();
+    Assertions.assertNull(graph.hasRecord(origin, destination, modeTypes));
+  }
+
+}
@@ -23,14 +23,38 @@
 
 package net.whimxiqal.journey.search.graph;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import net.whimxiqal.journey.JourneyTestHarness;
 import net.whimxiqal.journey.tools.AlternatingList;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
 
-class WeightedGraphTest extends JourneyTestHarness {
+public class WeightedGraphTest extends JourneyTestHarness {
+
+  /**
+   * Whether to run the benchmark. It takes a while, so it is skipped by default.
+   */
+  private static final boolean BENCHMARK = false;
+  // the side length of the square grid of nodes searched in the benchmark
+  private static final int BENCHMARK_SIDE = 100;
 
   @Test
   void findMinimumPath() {
@@ -75,7 +99,248 @@ class WeightedGraphTest extends JourneyTestHarness {
     Assertions.assertEquals(2, edgesIt.next().length);
   }
 
-  private class Graph extends WeightedGraph<Node, Edge> {
+  @Test
+  void createsLazyEdgesWhenReached() {
+    Graph graph = new Graph();
+    Node A = new Node(0);
+    Node B = new Node(0);
+    Node C = new Node(0);
+    Node D = new Node(0);
+    Node E = new Node(0);
+    int[] created = new int[1];
+    graph.addEdge(A, B, new Edge(1));
+    graph.addLazyEdge(B, C, 1, () -> {
+      created[0]++;
+      return new Edge(2);
+    });
+    // estimated to be short, but really too long to use
+    graph.addLazyEdge(A, C, 1, () -> {
+      created[0]++;
+      return new Edge(10);
+    });
+    graph.addLazyEdge(A, D, 50, () -> {
+      created[0]++;
+      return new Edge(50);
+    });
+    // never reached, since D is too far
+    graph.addLazyEdge(D, E, 1, () -> {
+      created[0]++;
+      return new Edge(1);
+    });
+    Assertions.assertEquals(1, graph.materializedEdgeCount());
+
+    AlternatingList<Node, Edge, Object> result = graph.findMinimumPath(A, C, e -> true);
+    Assertions.assertNotNull(result);
+    Iterator<Node> nodesIt = result.getMajors().iterator();
+    Assertions.assertEquals(A, nodesIt.next());
+    Assertions.assertEquals(B, nodesIt.next());
+    Assertions.assertEquals(C, nodesIt.next());
+    Assertions.assertEquals(3, created[0]);
+    Assertions.assertEquals(4, graph.materializedEdgeCount());
+
+    // edges are only created once
+    Assertions.assertNotNull(graph.findMinimumPath(A, C, e -> true));
+    Assertions.assertEquals(3, created[0]);
+  }
+
+  @Test
+  void landmarksFindSameLengthsAsDijkstra() {
+    int side = 12;
+    Node[] nodes = new Node[side * side];
+    Random random = new Random(23);
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = new Node(random.nextInt(3));
+    }
+    // only the first graph can use landmarks, since the second is only given a predicate to finish
+    Graph withLandmarks = new Graph();
+    Graph withoutLandmarks = new Graph();
+    for (int x = 0; x < side; x++) {
+      for (int z = 0; z < side; z++) {
+        for (int[] offset : new int[][]{{1, 0}, {0, 1}, {-1, 0}, {0, -1}}) {
+          int nextX = x + offset[0];
+          int nextZ = z + offset[1];
+          if (nextX < 0 || nextX >= side || nextZ < 0 || nextZ >= side) {
+            continue;
+          }
+          double length = 1 + random.nextInt(4);
+          withLandmarks.addLazyEdge(nodes[x * side + z], nodes[nextX * side + nextZ], 1, () -> new Edge(length));
+          withoutLandmarks.addLazyEdge(nodes[x * side + z], nodes[nextX * side + nextZ], 1, () -> new Edge(length));
+        }
+      }
+    }
+    Assertions.assertTrue(withLandmarks.landmarkCount() > 0);
+
+    for (int i = 0; i < 20; i++) {
+      Node origin = nodes[random.nextInt(nodes.length)];
+      Node destination = nodes[random.nextInt(nodes.length)];
+      AlternatingList<Node, Edge, Object> expected = withoutLandmarks.findMinimumPath(origin, node -> node == destination, e -> true);
+      AlternatingList<Node, Edge, Object> actual = withLandmarks.findMinimumPath(origin, destination, e -> true);
+      Assertions.assertNotNull(expected);
+      Assertions.assertNotNull(actual);
+      Assertions.assertEquals(length(expected), length(actual), 0.000001);
+    }
+    Assertions.assertTrue(withLandmarks.materializedEdgeCount() < withoutLandmarks.materializedEdgeCount());
+
+    // a new shortcut refreshes the landmarks
+    withLandmarks.addEdge(nodes[0], nodes[nodes.length - 1], new Edge(0));
+    AlternatingList<Node, Edge, Object> shortcut = withLandmarks.findMinimumPath(nodes[0], nodes[nodes.length - 1], e -> true);
+    Assertions.assertNotNull(shortcut);
+    Assertions.assertEquals(2, shortcut.getMajors().size());
+  }
+
+  @Test
+  void replacesEdgesBetweenSameNodes() {
+    Graph graph = new Graph();
+    Node A = new Node(0);
+    Node B = new Node(0);
+    Node C = new Node(0);
+    graph.addEdge(A, B, new Edge(1));
+    graph.addEdge(B, C, new Edge(1));
+    Assertions.assertEquals(2, length(graph.findMinimumPath(A, C, e -> true)));
+
+    graph.addEdge(A, B, new Edge(5));
+    Assertions.assertEquals(6, length(graph.findMinimumPath(A, C, e -> true)));
+    // searches don't leave anything behind for the next one
+    Assertions.assertEquals(1, length(graph.findMinimumPath(B, C, e -> true)));
+    Assertions.assertNull(graph.findMinimumPath(C, A, e -> true));
+    Assertions.assertEquals(6, length(graph.findMinimumPath(A, C, e -> true)));
+  }
+
+  @Test
+  void repairsPathsWhenEdgesChange() {
+    int side = 12;
+    Node[] nodes = new Node[side * side];
+    Random random = new Random(25);
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = new Node(random.nextInt(3));
+    }
+    // both graphs share edges, but only the first one can repair its last search
+    Graph incremental = new Graph();
+    Graph fromScratch = new Graph();
+    List<Edge> edges = new ArrayList<>();
+    for (int x = 0; x < side; x++) {
+      for (int z = 0; z < side; z++) {
+        for (int[] offset : new int[][]{{1, 0}, {0, 1}, {-1, 0}, {0, -1}}) {
+          int nextX = x + offset[0];
+          int nextZ = z + offset[1];
+          if (nextX < 0 || nextX >= side || nextZ < 0 || nextZ >= side) {
+            continue;
+          }
+          Edge edge = new Edge(1 + random.nextInt(4));
+          edges.add(edge);
+          incremental.addLazyEdge(nodes[x * side + z], nodes[nextX * side + nextZ], 1, () -> edge);
+          fromScratch.addLazyEdge(nodes[x * side + z], nodes[nextX * side + nextZ], 1, () -> edge);
+        }
+      }
+    }
+
+    Node origin = nodes[0];
+    Node destination = nodes[nodes.length - 1];
+    for (int i = 0; i < 50; i++) {
+      boolean onlyShort = i % 5 == 4;
+      Predicate<Edge> filter = edge -> !onlyShort || edge.length < 4;
+      AlternatingList<Node, Edge, Object> expected = fromScratch.findMinimumPath(origin, node -> node == destination, filter);
+      AlternatingList<Node, Edge, Object> actual = incremental.findMinimumPath(origin, destination, filter);
+      if (expected == null) {
+        Assertions.assertNull(actual);
+      } else {
+        Assertions.assertNotNull(actual);
+        Assertions.assertEquals(length(expected), length(actual), 0.000001);
+      }
+
+      // lengthen and shorten some edges, and make some unusable
+      for (int j = 0; j < 10; j++) {
+        Edge edge = edges.get(random.nextInt(edges.size()));
+        edge.length = random.nextInt(10) == 0 ? Double.MAX_VALUE : 1 + random.nextInt(4);
+      }
+    }
+  }
+
+  @Test
+  void runBenchmark() throws RunnerException {
+    if (!BENCHMARK) {
+      return;
+    }
+    Options opt = new OptionsBuilder()
+        .include(this.getClass().getName() + ".*")
+        .mode(org.openjdk.jmh.annotations.Mode.AverageTime)
+        .timeUnit(TimeUnit.MICROSECONDS)
+        .warmupTime(TimeValue.seconds(1))
+        .warmupIterations(2)
+        .measurementTime(TimeValue.seconds(3))
+        .measurementIterations(3)
+        .forks(1)
+        .shouldFailOnError(true)
+        .shouldDoGC(true)
+        .addProfiler(GCProfiler.class)
+        .build();
+
+    new Runner(opt).run();
+  }
+
+  @Benchmark
+  public void searchToDestination(GridState state, Blackhole blackhole) {
+    Node destination = state.nodes[state.random.nextInt(state.nodes.length)];
+    blackhole.consume(state.graph.findMinimumPath(state.nodes[state.random.nextInt(state.nodes.length)],
+        destination, e -> true));
+  }
+
+  @Benchmark
+  public void searchToPredicate(GridState state, Blackhole blackhole) {
+    Node destination = state.nodes[state.random.nextInt(state.nodes.length)];
+    blackhole.consume(state.graph.findMinimumPath(state.nodes[state.random.nextInt(state.nodes.length)],
+        node -> node == destination, e -> true));
+  }
+
+  /**
+   * A grid of nodes, each with edges to its four neighbors, whose lengths are only known once they are reached.
+   */
+  @State(Scope.Thread)
+  public static class GridState {
+
+    Graph graph;
+    Node[] nodes;
+    Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      random = new Random(24);
+      graph = new Graph();
+      nodes = new Node[BENCHMARK_SIDE * BENCHMARK_SIDE];
+      for (int i = 0; i < nodes.length; i++) {
+        nodes[i] = new Node(random.nextInt(3));
+      }
+      for (int x = 0; x < BENCHMARK_SIDE; x++) {
+        for (int z = 0; z < BENCHMARK_SIDE; z++) {
+          for (int[] offset : new int[][]{{1, 0}, {0, 1}, {-1, 0}, {0, -1}}) {
+            int nextX = x + offset[0];
+            int nextZ = z + offset[1];
+            if (nextX < 0 || nextX >= BENCHMARK_SIDE || nextZ < 0 || nextZ >= BENCHMARK_SIDE) {
+              continue;
+            }
+            double length = 1 + random.nextInt(4);
+            graph.addLazyEdge(nodes[x * BENCHMARK_SIDE + z], nodes[nextX * BENCHMARK_SIDE + nextZ], 1, () -> new Edge(length));
+          }
+        }
+      }
+    }
+
+  }
+
+  private static double length(AlternatingList<Node, Edge, Object> path) {
+    double length = 0;
+    Iterator<Node> nodesIt = path.getMajors().iterator();
+    nodesIt.next();
+    while (nodesIt.hasNext()) {
+      length += nodesIt.next().weight;
+    }
+    for (Edge edge : path.getMinors()) {
+      length += edge.length;
+    }
+    return length;
+  }
+
+  static class Graph extends WeightedGraph<Node, Edge> {
 
     @Override
     protected double nodeWeight(Node nodeData) {
@@ -88,17 +353,17 @@ class WeightedGraphTest extends JourneyTestHarness {
     }
   }
 
-  private static class Node {
+  static class Node {
     Node(double weight) {
       this.weight = weight;
     }
     private final double weight;
   }
 
-  private static class Edge {
+  static class Edge {
     Edge(double length) {
       this.length = length;
     }
-    private final double length;
+    private double length;
   }
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.tools;
+
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class IndexedMinHeapTest {
+
+  @Test
+  void decreaseKeyAndTies() {
+    IndexedMinHeap heap = new IndexedMinHeap(1);
+    heap.offer(0, 10, 0);
+    heap.offer(1, 5, 3);
+    heap.offer(2, 5, 1);
+    heap.offer(3, 7, 0);
+    heap.offer(0, 1, 0);  // decrease key while queued
+    heap.offer(3, 20, 0);  // keys may also increase
+
+    Assertions.assertEquals(4, heap.size());
+    Assertions.assertEquals(0, heap.poll());
+    Assertions.assertEquals(2, heap.poll());  // same key as 1, but lower tie
+    Assertions.assertEquals(1, heap.poll());
+    Assertions.assertTrue(heap.remove(3));
+    Assertions.assertFalse(heap.remove(3));
+    Assertions.assertTrue(heap.isEmpty());
+  }
+
+  @Test
+  void matchesLinearScan() {
+    Random random = new Random(0);
+    int ids = 300;
+    IndexedMinHeap heap = new IndexedMinHeap();
+    double[] keys = new double[ids];
+    boolean[] queued = new boolean[ids];
+    for (int i = 0; i < 20000; i++) {
+      int id = random.nextInt(ids);
+      if (random.nextInt(3) < 2) {
+        keys[id] = random.nextInt(100);
+        heap.offer(id, keys[id], 0);
+        queued[id] = true;
+      } else if (!heap.isEmpty()) {
+        int polled = heap.poll();
+        Assertions.assertTrue(queued[polled]);
+        for (int other = 0; other < ids; other++) {
+          if (queued[other]) {
+            Assertions.assertTrue(keys[polled] <= keys[other]);
+          }
+        }
+        queued[polled] = false;
+      }
+    }
+  }
+
+}
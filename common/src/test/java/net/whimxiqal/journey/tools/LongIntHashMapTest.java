@@ -0,0 +1,66 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.tools;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LongIntHashMapTest {
+
+  @Test
+  void putAndGet() {
+    LongIntHashMap map = new LongIntHashMap(4);
+    int count = 10000;  // forces several rehashes
+    for (int i = 0; i < count; i++) {
+      map.put(PackedCell.pack(i, i % 300 - 64, -i), i);
+    }
+    Assertions.assertEquals(count, map.size());
+    for (int i = 0; i < count; i++) {
+      Assertions.assertEquals(i, map.get(PackedCell.pack(i, i % 300 - 64, -i)));
+    }
+    Assertions.assertEquals(LongIntHashMap.MISSING, map.get(PackedCell.pack(1, 1, 1)));
+
+    map.put(PackedCell.pack(0, -64, 0), 42);
+    Assertions.assertEquals(42, map.get(PackedCell.pack(0, -64, 0)));
+    Assertions.assertEquals(count, map.size());
+
+    map.clear();
+    Assertions.assertEquals(0, map.size());
+    Assertions.assertFalse(map.containsKey(PackedCell.pack(0, -64, 0)));
+  }
+
+  @Test
+  void packedCellRoundTrip() {
+    int[][] coordinates = {{0, 0, 0}, {-1, -1, -1}, {30_000_000, 319, -30_000_000}, {-30_000_000, -64, 30_000_000}};
+    for (int[] c : coordinates) {
+      long packed = PackedCell.pack(c[0], c[1], c[2]);
+      Assertions.assertEquals(c[0], PackedCell.x(packed));
+      Assertions.assertEquals(c[1], PackedCell.y(packed));
+      Assertions.assertEquals(c[2], PackedCell.z(packed));
+    }
+    long packed = PackedCell.offset(PackedCell.pack(0, 0, 0), -1, 2, -3);
+    Assertions.assertEquals(PackedCell.pack(-1, 2, -3), packed);
+  }
+
+}